@@ -0,0 +1,116 @@
+/*
+ * AEFileInputStreamBenchmark.java
+ *
+ * Copyright (C) 2026 jAER project.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ */
+package net.sf.jaer.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import eu.seebetter.ini.chips.davis.DAVIS240C;
+import net.sf.jaer.aemonitor.AEPacketRaw;
+import net.sf.jaer.eventio.AEFileInputStream;
+import net.sf.jaer.eventio.AEFileTimestampIndex;
+
+/**
+ * Measures AEFileInputStream.readPacketByNumber and readPacketByTime on an
+ * AEDAT-2.0 file of synthetic DAVIS events written to the temp folder. The
+ * stream repeats, so reading continues from the start at the end of the file.
+ * Scores are in us per packet. The file holds 1M events per second, so a
+ * readPacketByTime packet of dtUs holds about dtUs events. Each benchmark runs
+ * with and without prefetching and bulk decoding.
+ *
+ * @author agent
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true"})
+public class AEFileInputStreamBenchmark {
+
+    private static final int NUM_EVENTS = 2000000;
+    private static final int RATE_EPS = 1000000;
+
+    /**
+     * The open stream on the synthetic file
+     */
+    @State(Scope.Thread)
+    public static class Stream {
+
+        @Param({"false", "true"})
+        public boolean prefetch;
+
+        DAVIS240C chip;
+        File file;
+        AEFileInputStream in;
+
+        @Setup
+        public void setup() throws IOException {
+            chip = new DAVIS240C();
+            file = File.createTempFile("AEFileInputStreamBenchmark", ".aedat");
+            new SyntheticEvents(chip.getSizeX(), chip.getSizeY(), NUM_EVENTS, RATE_EPS, 0.2f, SyntheticEvents.SEED).writeAedat2(file, chip);
+            in = new AEFileInputStream(file, chip);
+            in.setRepeat(true);
+            in.setPrefetchEnabled(prefetch);
+        }
+
+        @TearDown
+        public void tearDown() throws IOException {
+            in.close();
+            file.delete();
+            new File(file.getPath() + AEFileTimestampIndex.SUFFIX).delete();
+            chip.cleanup();
+        }
+    }
+
+    /**
+     * Events per packet for readPacketByNumber
+     */
+    @State(Scope.Thread)
+    public static class ByNumber {
+
+        @Param({"1000", "10000"})
+        public int packetSize;
+    }
+
+    /**
+     * Time slice in us for readPacketByTime
+     */
+    @State(Scope.Thread)
+    public static class ByTime {
+
+        @Param({"1000", "10000"})
+        public int dtUs;
+    }
+
+    @Benchmark
+    public AEPacketRaw readPacketByNumber(Stream s, ByNumber p) throws IOException {
+        return s.in.readPacketByNumber(p.packetSize);
+    }
+
+    @Benchmark
+    public AEPacketRaw readPacketByTime(Stream s, ByTime p) throws IOException {
+        return s.in.readPacketByTime(p.dtUs);
+    }
+}
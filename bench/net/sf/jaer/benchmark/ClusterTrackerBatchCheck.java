@@ -0,0 +1,267 @@
+/*
+ * ClusterTrackerBatchCheck.java
+ *
+ * Copyright (C) 2026 jAER project.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ */
+package net.sf.jaer.benchmark;
+
+import java.awt.geom.Point2D;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.prefs.BackingStoreException;
+import java.util.prefs.Preferences;
+
+import net.sf.jaer.aemonitor.AEPacketRaw;
+import net.sf.jaer.chip.AEChip;
+import net.sf.jaer.event.BasicEvent;
+import net.sf.jaer.event.EventPacket;
+import net.sf.jaer.eventio.AEFileInputStream;
+import net.sf.jaer.eventprocessing.tracking.RectangularClusterTracker;
+
+/**
+ * Checks that RectangularClusterTracker in batch update mode tracks a
+ * recording like per-event tracking. Cluster tracking is sensitive to small
+ * changes of its input, since a cluster seeded a few events earlier or later
+ * takes different events, so the batched tracker is compared against the
+ * differences that per-event tracking itself shows when one event in
+ * DROP_EVERY is left out. All trackers get the same packets of the recording,
+ * and every CHECK_EVERY_PACKETS packets the visible clusters of the other
+ * trackers are compared with those of the per-event tracker: summed over the
+ * recording, how far apart the numbers of visible clusters are, which
+ * fraction of the per-event clusters has no cluster within its radius, and
+ * how far apart the median lifetimes are. Run with
+ * <pre>
+ * java -cp ... net.sf.jaer.benchmark.ClusterTrackerBatchCheck [file.aedat [chip class [cluster size [block size]]]]
+ * </pre>
+ * which defaults to the MovingDarkBox DVS128 recording in the JSpikeStack
+ * subproject. Prints the differences and exits with status 1 if a difference
+ * of the batched tracker is larger than MAX_RATIO times that of the perturbed
+ * per-event tracker, or than the FLOOR if that is larger.
+ * <p>
+ * The bounds come from measurements with blocks of 256 events on
+ * MovingDarkBox, with the default cluster size 0.15 and with 0.1 and 0.05.
+ * Leaving out 1 in 100 events made 10-22% of the per-event clusters
+ * unmatched, and batching made 19-44% unmatched, at most 2.05 times as many.
+ * Blocks of only 2 events already made 13% unmatched, so most of the
+ * difference comes from the sensitivity of the tracking and not from the
+ * block size. The numbers of visible clusters were at most 18% apart and the
+ * median lifetimes at most 19% apart; where above 10%, that was at most 1.8
+ * times the perturbed difference. A bound of 3 times, with a floor of 10%,
+ * leaves about 1.5 times margin on the unmatched clusters.
+ *
+ * @author agent
+ */
+public class ClusterTrackerBatchCheck {
+
+    private static final String DEFAULT_FILE = "subprojects/JSpikeStack/files/aerdata/MovingDarkBox.aedat";
+    private static final String DEFAULT_CHIP = "ch.unizh.ini.jaer.chip.retina.DVS128";
+    private static final int DEFAULT_BATCH_SIZE = 256, PACKET_DURATION_US = 10000, CHECK_EVERY_PACKETS = 10, DROP_EVERY = 100;
+    // the batched differences may be this many times the perturbed per-event differences, or the floor, as a fraction
+    private static final float MAX_RATIO = 3, FLOOR = 0.1f;
+
+    public static void main(String[] args) {
+        int status = 1;
+        try {
+            final File f = new File(args.length > 0 ? args[0] : DEFAULT_FILE);
+            final AEChip chip = (AEChip) Class.forName(args.length > 1 ? args[1] : DEFAULT_CHIP).getConstructor().newInstance();
+            final float clusterSize = args.length > 2 ? Float.parseFloat(args[2]) : Float.NaN;
+            final int batchSize = args.length > 3 ? Integer.parseInt(args[3]) : DEFAULT_BATCH_SIZE;
+            // the trackers start from the default settings, and the user's settings are put back afterwards
+            final HashMap<String, String> saved = removeTrackerPrefs(chip.getPrefs());
+            try {
+                status = run(f, chip, clusterSize, batchSize) ? 0 : 1;
+            } finally {
+                removeTrackerPrefs(chip.getPrefs());
+                for (Map.Entry<String, String> e : saved.entrySet()) {
+                    chip.getPrefs().put(e.getKey(), e.getValue());
+                }
+                chip.cleanup();
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        System.exit(status);
+    }
+
+    /**
+     * Removes the tracker settings from the chip preferences, leaving the
+     * others, e.g. the biases, alone.
+     *
+     * @return the removed settings by key
+     */
+    private static HashMap<String, String> removeTrackerPrefs(Preferences prefs) throws BackingStoreException {
+        final HashMap<String, String> removed = new HashMap<>();
+        for (String key : prefs.keys()) {
+            if (key.startsWith(RectangularClusterTracker.class.getSimpleName() + ".")) {
+                removed.put(key, prefs.get(key, null));
+                prefs.remove(key);
+            }
+        }
+        return removed;
+    }
+
+    private static boolean run(File f, AEChip chip, float clusterSize, int batchSize) throws IOException {
+        newTracker(chip, clusterSize, 0).cleanup(); // initFilter stores some defaults, which only trackers made after it read
+        final RectangularClusterTracker perEvent = newTracker(chip, clusterSize, 0);
+        final Differences perturbed = new Differences("per event, 1 in " + DROP_EVERY + " events left out", newTracker(chip, clusterSize, 0));
+        final Differences batched = new Differences("batched, blocks of " + batchSize, newTracker(chip, clusterSize, batchSize));
+        final AEFileInputStream in = new AEFileInputStream(f, chip);
+        in.setNonMonotonicTimeExceptionsChecked(false);
+        in.setRepeat(false);
+        int k = 0;
+        long numEvents = 0;
+        try {
+            while (in.position() < in.getMarkOutPosition()) {
+                final AEPacketRaw raw = in.readPacketByTime(PACKET_DURATION_US);
+                numEvents += raw.getNumEvents();
+                perEvent.filterPacket(chip.getEventExtractor().extractPacket(raw));
+                batched.tracker.filterPacket(chip.getEventExtractor().extractPacket(raw));
+                final EventPacket<?> p = chip.getEventExtractor().extractPacket(raw);
+                int i = 0;
+                for (BasicEvent e : p) {
+                    if ((numEvents - raw.getNumEvents() + i++) % DROP_EVERY == 0) {
+                        e.setFilteredOut(true);
+                    }
+                }
+                perturbed.tracker.filterPacket(p);
+                if ((++k % CHECK_EVERY_PACKETS) == 0) {
+                    final ArrayList<RectangularClusterTracker.Cluster> reference = visibleClusters(perEvent);
+                    perturbed.compare(reference);
+                    batched.compare(reference);
+                }
+            }
+        } finally {
+            in.close();
+            perEvent.cleanup();
+            perturbed.tracker.cleanup();
+            batched.tracker.cleanup();
+        }
+        System.out.println(f.getName() + ": " + numEvents + " events, " + (k / CHECK_EVERY_PACKETS) + " checks");
+        System.out.println(perturbed);
+        System.out.println(batched);
+        boolean ok = batched.referenceVisible > 0;
+        ok &= within("visible clusters", batched.visibleDifference(), perturbed.visibleDifference());
+        ok &= within("unmatched clusters", batched.unmatchedFraction(), perturbed.unmatchedFraction());
+        ok &= within("median lifetime", batched.lifetimeDifference(), perturbed.lifetimeDifference());
+        System.out.println(ok ? "batched tracking matches per-event tracking" : "batched tracking differs from per-event tracking");
+        return ok;
+    }
+
+    private static boolean within(String what, float batched, float perturbed) {
+        if (batched <= Math.max(FLOOR, MAX_RATIO * perturbed)) {
+            return true;
+        }
+        System.out.println(String.format("%s: %.1f%% apart batched, more than %.0f times the %.1f%% of the perturbed per-event tracking", what, 100 * batched, MAX_RATIO, 100 * perturbed));
+        return false;
+    }
+
+    private static RectangularClusterTracker newTracker(AEChip chip, float clusterSize, int batchSize) {
+        final RectangularClusterTracker t = new RectangularClusterTracker(chip);
+        t.initFilter();
+        t.setFilterEnabled(true);
+        if (!Float.isNaN(clusterSize)) {
+            t.setClusterSize(clusterSize);
+        }
+        t.setBatchUpdateEnabled(batchSize > 0);
+        if (batchSize > 0) {
+            t.setBatchSize(batchSize);
+        }
+        t.resetFilter();
+        return t;
+    }
+
+    /**
+     * Differences of a tracker from per-event tracking, summed over the checks
+     */
+    private static class Differences {
+
+        final String name;
+        final RectangularClusterTracker tracker;
+        long visible = 0, referenceVisible = 0, unmatched = 0;
+        final ArrayList<Float> lifetimes = new ArrayList<>(), referenceLifetimes = new ArrayList<>();
+
+        Differences(String name, RectangularClusterTracker tracker) {
+            this.name = name;
+            this.tracker = tracker;
+        }
+
+        void compare(ArrayList<RectangularClusterTracker.Cluster> reference) {
+            final ArrayList<RectangularClusterTracker.Cluster> v = visibleClusters(tracker);
+            visible += v.size();
+            referenceVisible += reference.size();
+            for (RectangularClusterTracker.Cluster c : reference) {
+                final RectangularClusterTracker.Cluster n = nearest(c.getLocation(), v);
+                if ((n == null) || (c.getLocation().distance(n.getLocation()) > c.getRadius())) {
+                    unmatched++;
+                }
+                referenceLifetimes.add((float) c.getLifetime());
+            }
+            for (RectangularClusterTracker.Cluster c : v) {
+                lifetimes.add((float) c.getLifetime());
+            }
+        }
+
+        float visibleDifference() {
+            return Math.abs(visible - referenceVisible) / (float) Math.max(1, referenceVisible);
+        }
+
+        float unmatchedFraction() {
+            return unmatched / (float) Math.max(1, referenceVisible);
+        }
+
+        float lifetimeDifference() {
+            final float a = median(referenceLifetimes), b = median(lifetimes);
+            return Math.abs(b - a) / Math.max(1, a);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %d visible clusters against %d, %.1f%% apart; %.1f%% unmatched; median lifetime %.0f us against %.0f us, %.1f%% apart",
+                    name, visible, referenceVisible, 100 * visibleDifference(), 100 * unmatchedFraction(), median(lifetimes), median(referenceLifetimes), 100 * lifetimeDifference());
+        }
+    }
+
+    private static ArrayList<RectangularClusterTracker.Cluster> visibleClusters(RectangularClusterTracker t) {
+        final ArrayList<RectangularClusterTracker.Cluster> v = new ArrayList<>();
+        for (RectangularClusterTracker.Cluster c : t.getClusters()) {
+            if (c.isVisible()) {
+                v.add(c);
+            }
+        }
+        return v;
+    }
+
+    private static RectangularClusterTracker.Cluster nearest(Point2D.Float p, ArrayList<RectangularClusterTracker.Cluster> clusters) {
+        RectangularClusterTracker.Cluster nearest = null;
+        double min = Double.MAX_VALUE;
+        for (RectangularClusterTracker.Cluster c : clusters) {
+            final double d = p.distance(c.getLocation());
+            if (d < min) {
+                min = d;
+                nearest = c;
+            }
+        }
+        return nearest;
+    }
+
+    private static float median(ArrayList<Float> v) {
+        if (v.isEmpty()) {
+            return 0;
+        }
+        final float[] a = new float[v.size()];
+        for (int i = 0; i < a.length; i++) {
+            a[i] = v.get(i);
+        }
+        Arrays.sort(a);
+        return a[a.length / 2];
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * ClusterTrackerBenchmark.java
+ *
+ * Copyright (C) 2026 jAER project.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ */
+package net.sf.jaer.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import eu.seebetter.ini.chips.davis.DAVIS240C;
+import net.sf.jaer.aemonitor.AEPacketRaw;
+import net.sf.jaer.event.EventPacket;
+import net.sf.jaer.eventprocessing.tracking.RectangularClusterTracker;
+
+/**
+ * Measures RectangularClusterTracker on scenes of many small moving blobs, to
+ * show how the cost per event grows with the number of clusters, per event
+ * and in batch update mode. The tracker may have as many clusters as there
+ * are blobs. {@link ClusterTrackerBatchCheck} checks that batched tracking
+ * stays close to per-event tracking on a recording. Scores are in ns per
+ * event.
+ *
+ * @author agent
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true"})
+@OperationsPerInvocation(ClusterTrackerBenchmark.EVENTS_PER_PACKET)
+public class ClusterTrackerBenchmark {
+
+    static final int EVENTS_PER_PACKET = 4096;
+
+    /**
+     * The number of blobs in the scene and the maximum number of clusters
+     */
+    @Param({"10", "50", "200", "400"})
+    public int numClusters;
+
+    /**
+     * The cluster size as a fraction of the chip size
+     */
+    @Param({"0.03"})
+    public float clusterSize;
+
+    /**
+     * Events per block in batch update mode, or 0 to update per event
+     */
+    @Param({"0", "256"})
+    public int batchSize;
+
+    /**
+     * Event rate of the synthetic scene in events per second
+     */
+    @Param({"1000000"})
+    public int rateEps;
+
+    private DAVIS240C chip;
+    private float blobRadius;
+    private RectangularClusterTracker tracker;
+    private AEPacketRaw[] packets;
+    private int next = 0, cycleUs;
+
+    @Setup
+    public void setup() throws Exception {
+        chip = new DAVIS240C();
+        blobRadius = clusterSize * Math.max(chip.getSizeX(), chip.getSizeY()) / 2;
+        SyntheticEvents events = new SyntheticEvents(chip.getSizeX(), chip.getSizeY(), 256 * EVENTS_PER_PACKET, rateEps,
+                numClusters, blobRadius, 0.1f, SyntheticEvents.SEED);
+        packets = events.davisRawPackets(EVENTS_PER_PACKET);
+        AEPacketRaw last = packets[packets.length - 1];
+        cycleUs = last.getLastTimestamp() - packets[0].getFirstTimestamp() + 1;
+        tracker = newTracker(batchSize);
+    }
+
+    private RectangularClusterTracker newTracker(int batch) {
+        RectangularClusterTracker t = new RectangularClusterTracker(chip);
+        t.initFilter();
+        t.setFilterEnabled(true);
+        t.setMaxNumClusters(numClusters);
+        t.setClusterSize(clusterSize);
+        t.setBatchUpdateEnabled(batch > 0);
+        if (batch > 0) {
+            t.setBatchSize(batch);
+        }
+        t.resetFilter();
+        return t;
+    }
+
+    @TearDown
+    public void tearDown() {
+        tracker.cleanup();
+        chip.cleanup();
+    }
+
+    @Benchmark
+    public EventPacket filterPacket() {
+        AEPacketRaw raw = packets[next];
+        if (++next == packets.length) {
+            next = 0;
+            SyntheticEvents.shiftTimestamps(packets, cycleUs); // keep time monotonic
+        }
+        return tracker.filterPacket(chip.getEventExtractor().extractPacket(raw));
+    }
+}
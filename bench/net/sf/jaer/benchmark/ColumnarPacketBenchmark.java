@@ -0,0 +1,130 @@
+/*
+ * ColumnarPacketBenchmark.java
+ *
+ * Copyright (C) 2026 jAER project.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ */
+package net.sf.jaer.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import eu.seebetter.ini.chips.davis.DAVIS240C;
+import eu.seebetter.ini.chips.davis.DavisBaseCamera;
+import net.sf.jaer.aemonitor.AEPacketRaw;
+import net.sf.jaer.event.EventPacket;
+import net.sf.jaer.eventprocessing.filter.RefractoryFilter;
+
+/**
+ * Compares extraction and RefractoryFilter on object packets and on
+ * ColumnarEventPacket, which RefractoryFilter reads column by column. Setup
+ * first checks that both give the same number of passed events on every
+ * packet. Scores are in ns per event.
+ *
+ * @author agent
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true"})
+@OperationsPerInvocation(ColumnarPacketBenchmark.EVENTS_PER_PACKET)
+public class ColumnarPacketBenchmark {
+
+    static final int EVENTS_PER_PACKET = 4096;
+
+    /**
+     * "object" for extractPacket, "columnar" for extractColumnarPacket
+     */
+    @Param({"object", "columnar"})
+    public String packetType;
+
+    /**
+     * Event rate of the synthetic scene in events per second
+     */
+    @Param({"1000000"})
+    public int rateEps;
+
+    private DAVIS240C chip;
+    private DavisBaseCamera.DavisEventExtractor extractor;
+    private RefractoryFilter filter;
+    private AEPacketRaw[] packets;
+    private int next = 0, cycleUs;
+    private boolean columnar;
+
+    @Setup
+    public void setup() {
+        chip = new DAVIS240C();
+        extractor = (DavisBaseCamera.DavisEventExtractor) chip.getEventExtractor();
+        filter = new RefractoryFilter(chip);
+        filter.setFilterEnabled(true);
+        columnar = "columnar".equals(packetType);
+        SyntheticEvents events = new SyntheticEvents(chip.getSizeX(), chip.getSizeY(), 256 * EVENTS_PER_PACKET, rateEps, 0.2f, SyntheticEvents.SEED);
+        packets = events.davisRawPackets(EVENTS_PER_PACKET);
+        AEPacketRaw last = packets[packets.length - 1];
+        cycleUs = last.getLastTimestamp() - packets[0].getFirstTimestamp() + 1;
+        checkSameOutput();
+        filter.resetFilter();
+    }
+
+    /**
+     * Runs all packets through both paths and throws if the filter passes a
+     * different number of events on any of them.
+     */
+    private void checkSameOutput() {
+        final int[] passed = new int[packets.length];
+        filter.resetFilter();
+        for (int i = 0; i < packets.length; i++) {
+            passed[i] = countPassed(filter.filterPacket(extractor.extractPacket(packets[i])));
+        }
+        filter.resetFilter();
+        for (int i = 0; i < packets.length; i++) {
+            final int n = countPassed(filter.filterPacket(extractor.extractColumnarPacket(packets[i])));
+            if (n != passed[i]) {
+                throw new IllegalStateException("packet " + i + ": " + passed[i] + " events passed with object packets but " + n + " with columnar packets");
+            }
+        }
+    }
+
+    private static int countPassed(EventPacket<?> out) {
+        int n = 0;
+        for (Object e : out) {
+            n++;
+        }
+        return n;
+    }
+
+    @TearDown
+    public void tearDown() {
+        filter.cleanup();
+        chip.cleanup();
+    }
+
+    @Benchmark
+    public EventPacket filterPacket() {
+        AEPacketRaw raw = packets[next];
+        if (++next == packets.length) {
+            next = 0;
+            SyntheticEvents.shiftTimestamps(packets, cycleUs); // keep time monotonic
+        }
+        return filter.filterPacket(columnar ? extractor.extractColumnarPacket(raw) : extractor.extractPacket(raw));
+    }
+}
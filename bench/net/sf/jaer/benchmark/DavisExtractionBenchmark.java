@@ -0,0 +1,78 @@
+/*
+ * DavisExtractionBenchmark.java
+ *
+ * Copyright (C) 2026 jAER project.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ */
+package net.sf.jaer.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import eu.seebetter.ini.chips.davis.DAVIS240C;
+import net.sf.jaer.aemonitor.AEPacketRaw;
+import net.sf.jaer.event.EventPacket;
+
+/**
+ * Measures DavisBaseCamera.DavisEventExtractor.extractPacket on raw DVS
+ * packets of a DAVIS240C. Scores are in ns per event.
+ *
+ * @author agent
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true"})
+@OperationsPerInvocation(DavisExtractionBenchmark.EVENTS_PER_PACKET)
+public class DavisExtractionBenchmark {
+
+    static final int EVENTS_PER_PACKET = 4096;
+
+    /**
+     * Event rate of the synthetic scene in events per second
+     */
+    @Param({"100000", "1000000"})
+    public int rateEps;
+
+    private DAVIS240C chip;
+    private AEPacketRaw[] packets;
+    private int next = 0;
+
+    @Setup
+    public void setup() {
+        chip = new DAVIS240C();
+        SyntheticEvents events = new SyntheticEvents(chip.getSizeX(), chip.getSizeY(), 64 * EVENTS_PER_PACKET, rateEps, 0.2f, SyntheticEvents.SEED);
+        packets = events.davisRawPackets(EVENTS_PER_PACKET);
+    }
+
+    @TearDown
+    public void tearDown() {
+        chip.cleanup();
+    }
+
+    @Benchmark
+    public EventPacket extractPacket() {
+        AEPacketRaw raw = packets[next];
+        next = (next + 1) % packets.length;
+        return chip.getEventExtractor().extractPacket(raw);
+    }
+}
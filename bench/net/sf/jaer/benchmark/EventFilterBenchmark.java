@@ -0,0 +1,104 @@
+/*
+ * EventFilterBenchmark.java
+ *
+ * Copyright (C) 2026 jAER project.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ */
+package net.sf.jaer.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import eu.seebetter.ini.chips.davis.DAVIS240C;
+import net.sf.jaer.aemonitor.AEPacketRaw;
+import net.sf.jaer.chip.AEChip;
+import net.sf.jaer.event.EventPacket;
+import net.sf.jaer.eventprocessing.EventFilter2D;
+
+/**
+ * Measures single event filters on packets of synthetic DAVIS240C DVS events.
+ * Each invocation extracts the next raw packet and passes it through the
+ * filter, because most filters mark events as filtered out in place; the
+ * NoOpFilter run gives the extraction and iteration baseline to subtract. The
+ * packets are replayed with increasing timestamps. Scores are in ns per event.
+ *
+ * @author agent
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true"})
+@OperationsPerInvocation(EventFilterBenchmark.EVENTS_PER_PACKET)
+public class EventFilterBenchmark {
+
+    static final int EVENTS_PER_PACKET = 4096;
+
+    /**
+     * The filter class
+     */
+    @Param({"net.sf.jaer.eventprocessing.NoOpFilter",
+        "net.sf.jaer.eventprocessing.filter.BackgroundActivityFilter",
+        "net.sf.jaer.eventprocessing.tracking.RectangularClusterTracker",
+        "net.sf.jaer.eventprocessing.label.SimpleOrientationFilter",
+        "ch.unizh.ini.jaer.projects.minliu.PatchMatchFlow"})
+    public String filterClassName;
+
+    /**
+     * Event rate of the synthetic scene in events per second
+     */
+    @Param({"1000000"})
+    public int rateEps;
+
+    private DAVIS240C chip;
+    private EventFilter2D filter;
+    private AEPacketRaw[] packets;
+    private int next = 0, cycleUs;
+
+    @Setup
+    public void setup() throws Exception {
+        chip = new DAVIS240C();
+        filter = (EventFilter2D) Class.forName(filterClassName).getConstructor(AEChip.class).newInstance(chip);
+        filter.initFilter();
+        filter.setFilterEnabled(true);
+        filter.resetFilter();
+        SyntheticEvents events = new SyntheticEvents(chip.getSizeX(), chip.getSizeY(), 256 * EVENTS_PER_PACKET, rateEps, 0.2f, SyntheticEvents.SEED);
+        packets = events.davisRawPackets(EVENTS_PER_PACKET);
+        AEPacketRaw last = packets[packets.length - 1];
+        cycleUs = last.getLastTimestamp() - packets[0].getFirstTimestamp() + 1;
+    }
+
+    @TearDown
+    public void tearDown() {
+        filter.cleanup();
+        chip.cleanup();
+    }
+
+    @Benchmark
+    public EventPacket filterPacket() {
+        AEPacketRaw raw = packets[next];
+        if (++next == packets.length) {
+            next = 0;
+            SyntheticEvents.shiftTimestamps(packets, cycleUs); // keep time monotonic
+        }
+        return filter.filterPacket(chip.getEventExtractor().extractPacket(raw));
+    }
+}
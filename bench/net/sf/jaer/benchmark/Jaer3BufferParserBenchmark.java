@@ -0,0 +1,81 @@
+/*
+ * Jaer3BufferParserBenchmark.java
+ *
+ * Copyright (C) 2026 jAER project.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ */
+package net.sf.jaer.benchmark;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import eu.seebetter.ini.chips.davis.DAVIS240C;
+import net.sf.jaer.eventio.Jaer3BufferParser;
+
+/**
+ * Measures Jaer3BufferParser.getJaer2EventBuf on an AEDAT-3.1 buffer of
+ * polarity event packets. Scores are in ns per event.
+ *
+ * @author agent
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true"})
+@OperationsPerInvocation(Jaer3BufferParserBenchmark.EVENTS_PER_INVOCATION)
+public class Jaer3BufferParserBenchmark {
+
+    static final int EVENTS_PER_INVOCATION = 4096;
+    private static final int NUM_EVENTS = 64 * EVENTS_PER_INVOCATION;
+
+    private DAVIS240C chip;
+    private ByteBuffer buffer;
+    private Jaer3BufferParser parser;
+    private int parsed = 0;
+
+    @Setup
+    public void setup() throws IOException {
+        chip = new DAVIS240C();
+        SyntheticEvents events = new SyntheticEvents(chip.getSizeX(), chip.getSizeY(), NUM_EVENTS, 1000000, 0.2f, SyntheticEvents.SEED);
+        buffer = events.aedat31Buffer(1000); // packets of 1000 events, as caer writes them at high rates
+        parser = new Jaer3BufferParser(buffer, chip);
+    }
+
+    @TearDown
+    public void tearDown() {
+        chip.cleanup();
+    }
+
+    @Benchmark
+    public void getJaer2EventBuf(Blackhole bh) throws IOException {
+        if (parsed == NUM_EVENTS) {
+            buffer.position(0);
+            parsed = 0;
+        }
+        for (int i = 0; i < EVENTS_PER_INVOCATION; i++) {
+            bh.consume(parser.getJaer2EventBuf());
+        }
+        parsed += EVENTS_PER_INVOCATION;
+    }
+}
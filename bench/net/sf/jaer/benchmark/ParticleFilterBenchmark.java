@@ -0,0 +1,92 @@
+/*
+ * ParticleFilterBenchmark.java
+ *
+ * Copyright (C) 2026 jAER project.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ */
+package net.sf.jaer.benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.sf.jaer.util.filter.ParticleFilter.DynamicEvaluator;
+import net.sf.jaer.util.filter.ParticleFilter.MeasurmentEvaluator;
+import net.sf.jaer.util.filter.ParticleFilter.VectorParticleFilter;
+
+/**
+ * Measures one step of VectorParticleFilter, i.e. moving, weighting,
+ * normalizing and resampling all particles, tracking one target among a few
+ * measurements as ParticleFilterTracking does. Scores are in us per step.
+ *
+ * @author agent
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1)
+public class ParticleFilterBenchmark {
+
+    /**
+     * The number of particles
+     */
+    @Param({"1000", "10000", "100000"})
+    public int numParticles;
+
+    /**
+     * Whether to evaluate the particles on the ForkJoin pool
+     */
+    @Param({"false", "true"})
+    public boolean parallel;
+
+    /**
+     * The resampling method
+     */
+    @Param({"Systematic", "Stratified"})
+    public VectorParticleFilter.ResamplingMethod resamplingMethod;
+
+    private VectorParticleFilter filter;
+    private final Random random = new Random(SyntheticEvents.SEED);
+
+    @Setup
+    public void setup() {
+        MeasurmentEvaluator measurement = new MeasurmentEvaluator();
+        List<Float> x = new ArrayList<>(Arrays.asList(100f, 30f, 200f)), y = new ArrayList<>(Arrays.asList(80f, 20f, 150f));
+        measurement.setMu(x, y);
+        measurement.setMeasurementWeight(new ArrayList<>(Arrays.asList(1.0, 1.0, 1.0)));
+        filter = new VectorParticleFilter(2, new DynamicEvaluator(2), measurement, SyntheticEvents.SEED);
+        filter.setParallel(parallel);
+        filter.setResamplingMethod(resamplingMethod);
+        for (int i = 0; i < numParticles; i++) {
+            filter.addParticle(90 + (random.nextGaussian() * 10), 70 + (random.nextGaussian() * 10));
+        }
+    }
+
+    @Benchmark
+    public double step() {
+        filter.evaluateStrength();
+        filter.normalize();
+        filter.resample(random);
+        return filter.getAverageX();
+    }
+}
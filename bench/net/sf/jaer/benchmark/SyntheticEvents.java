@@ -0,0 +1,255 @@
+/*
+ * SyntheticEvents.java
+ *
+ * Copyright (C) 2026 jAER project.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ */
+package net.sf.jaer.benchmark;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+
+import eu.seebetter.ini.chips.DavisChip;
+import net.sf.jaer.aemonitor.AEPacketRaw;
+import net.sf.jaer.chip.AEChip;
+import net.sf.jaer.eventio.AEDataFile;
+import net.sf.jaer.eventio.AEFileOutputStream;
+
+/**
+ * Deterministic DVS event generator for the benchmarks. The scene is a bar that
+ * moves across the sensor and emits ON events on its leading edge and OFF
+ * events on its trailing edge, plus a fraction of uniformly distributed
+ * background activity. Events are emitted at a fixed mean rate with
+ * exponentially distributed intervals. The same seed always gives the same
+ * events, so that results can be compared between commits.
+ *
+ * @author agent
+ */
+public class SyntheticEvents {
+
+    /**
+     * The seed used by all benchmarks
+     */
+    public static final long SEED = 42;
+
+    /**
+     * Event addresses and timestamps, in time order
+     */
+    public final short[] x, y;
+    public final boolean[] on;
+    public final int[] ts;
+    public final int sizeX, sizeY;
+
+    /**
+     * Generates the events.
+     *
+     * @param sizeX sensor width
+     * @param sizeY sensor height
+     * @param numEvents the number of events
+     * @param rateEps the mean event rate in events per second
+     * @param noiseFraction the fraction of events that are background activity
+     * @param seed the random seed
+     */
+    public SyntheticEvents(int sizeX, int sizeY, int numEvents, float rateEps, float noiseFraction, long seed) {
+        this.sizeX = sizeX;
+        this.sizeY = sizeY;
+        x = new short[numEvents];
+        y = new short[numEvents];
+        on = new boolean[numEvents];
+        ts = new int[numEvents];
+        final Random r = new Random(seed);
+        final double meanDtUs = 1e6 / rateEps;
+        final float barSpeedPps = sizeX; // crosses the sensor in 1 s
+        final int barWidth = Math.max(2, sizeX / 16);
+        double t = 0;
+        for (int i = 0; i < numEvents; i++) {
+            t += -Math.log(1 - r.nextDouble()) * meanDtUs;
+            ts[i] = (int) t;
+            if (r.nextFloat() < noiseFraction) {
+                x[i] = (short) r.nextInt(sizeX);
+                y[i] = (short) r.nextInt(sizeY);
+                on[i] = r.nextBoolean();
+            } else {
+                final int lead = (int) ((t * 1e-6 * barSpeedPps) % (sizeX + barWidth));
+                final boolean leading = r.nextBoolean();
+                int xx = leading ? lead : lead - barWidth;
+                xx += r.nextInt(3) - 1; // edge jitter
+                x[i] = (short) Math.min(sizeX - 1, Math.max(0, xx));
+                y[i] = (short) r.nextInt(sizeY);
+                on[i] = leading;
+            }
+        }
+    }
+
+    /**
+     * Generates a scene of many small blobs, like a crowd or traffic, for the
+     * trackers. Each blob moves with its own constant velocity and bounces off
+     * the sensor edges, and each event comes from a random blob, uniformly
+     * within its radius, or is background activity.
+     *
+     * @param sizeX sensor width
+     * @param sizeY sensor height
+     * @param numEvents the number of events
+     * @param rateEps the mean event rate in events per second
+     * @param numBlobs the number of blobs
+     * @param blobRadius the blob radius in pixels
+     * @param noiseFraction the fraction of events that are background activity
+     * @param seed the random seed
+     */
+    public SyntheticEvents(int sizeX, int sizeY, int numEvents, float rateEps, int numBlobs, float blobRadius, float noiseFraction, long seed) {
+        this.sizeX = sizeX;
+        this.sizeY = sizeY;
+        x = new short[numEvents];
+        y = new short[numEvents];
+        on = new boolean[numEvents];
+        ts = new int[numEvents];
+        final Random r = new Random(seed);
+        final double meanDtUs = 1e6 / rateEps;
+        final float[] bx = new float[numBlobs], by = new float[numBlobs], vx = new float[numBlobs], vy = new float[numBlobs];
+        for (int b = 0; b < numBlobs; b++) {
+            bx[b] = r.nextFloat() * sizeX;
+            by[b] = r.nextFloat() * sizeY;
+            vx[b] = (r.nextFloat() - 0.5f) * sizeX * 1e-6f; // up to half the sensor per second, in pixels per us
+            vy[b] = (r.nextFloat() - 0.5f) * sizeY * 1e-6f;
+        }
+        double t = 0;
+        for (int i = 0; i < numEvents; i++) {
+            final double dt = -Math.log(1 - r.nextDouble()) * meanDtUs;
+            t += dt;
+            ts[i] = (int) t;
+            for (int b = 0; b < numBlobs; b++) {
+                bx[b] += vx[b] * dt;
+                by[b] += vy[b] * dt;
+                if ((bx[b] < 0) || (bx[b] >= sizeX)) {
+                    vx[b] = -vx[b];
+                    bx[b] = Math.max(0, Math.min(sizeX - 1, bx[b]));
+                }
+                if ((by[b] < 0) || (by[b] >= sizeY)) {
+                    vy[b] = -vy[b];
+                    by[b] = Math.max(0, Math.min(sizeY - 1, by[b]));
+                }
+            }
+            if (r.nextFloat() < noiseFraction) {
+                x[i] = (short) r.nextInt(sizeX);
+                y[i] = (short) r.nextInt(sizeY);
+            } else {
+                final int b = r.nextInt(numBlobs);
+                final double a = r.nextDouble() * 2 * Math.PI, d = Math.sqrt(r.nextDouble()) * blobRadius;
+                x[i] = (short) Math.min(sizeX - 1, Math.max(0, (int) (bx[b] + (d * Math.cos(a)))));
+                y[i] = (short) Math.min(sizeY - 1, Math.max(0, (int) (by[b] + (d * Math.sin(a)))));
+            }
+            on[i] = r.nextBoolean();
+        }
+    }
+
+    /**
+     * @return the time span of the events in us
+     */
+    public int getDurationUs() {
+        return ts[ts.length - 1] - ts[0] + 1;
+    }
+
+    /**
+     * Encodes events as DAVIS raw DVS addresses, as produced by the DAVIS USB
+     * interfaces and consumed by DavisBaseCamera.DavisEventExtractor.
+     *
+     * @param from first event
+     * @param n number of events
+     * @return the raw packet
+     */
+    public AEPacketRaw davisRawPacket(int from, int n) {
+        final int[] a = new int[n], t = new int[n];
+        for (int k = 0; k < n; k++) {
+            final int i = from + k;
+            a[k] = DavisChip.ADDRESS_TYPE_DVS | ((sizeX - 1 - x[i]) << DavisChip.XSHIFT) | (y[i] << DavisChip.YSHIFT) | (on[i] ? DavisChip.POLMASK : 0);
+            t[k] = ts[i];
+        }
+        return new AEPacketRaw(a, t);
+    }
+
+    /**
+     * Splits all events into raw DAVIS packets.
+     *
+     * @param eventsPerPacket events per packet
+     * @return the packets
+     */
+    public AEPacketRaw[] davisRawPackets(int eventsPerPacket) {
+        final int np = x.length / eventsPerPacket;
+        final AEPacketRaw[] packets = new AEPacketRaw[np];
+        for (int p = 0; p < np; p++) {
+            packets[p] = davisRawPacket(p * eventsPerPacket, eventsPerPacket);
+        }
+        return packets;
+    }
+
+    /**
+     * Encodes events as an AEDAT-3.1 buffer of polarity event packets, as
+     * parsed by Jaer3BufferParser.
+     *
+     * @param eventsPerPacket events per AEDAT-3.1 packet
+     * @return the buffer, positioned at 0
+     */
+    public ByteBuffer aedat31Buffer(int eventsPerPacket) {
+        final int headerSize = 28, eventSize = 8;
+        final int np = (x.length + eventsPerPacket - 1) / eventsPerPacket;
+        final ByteBuffer b = ByteBuffer.allocate(np * headerSize + x.length * eventSize).order(ByteOrder.LITTLE_ENDIAN);
+        for (int p = 0; p < np; p++) {
+            final int from = p * eventsPerPacket, n = Math.min(eventsPerPacket, x.length - from);
+            b.putShort((short) 1); // PolarityEvent
+            b.putShort((short) 1); // source
+            b.putInt(eventSize);
+            b.putInt(4); // timestamp offset
+            b.putInt(0); // timestamp overflow
+            b.putInt(n); // capacity
+            b.putInt(n); // number
+            b.putInt(n); // valid
+            for (int i = from; i < from + n; i++) {
+                b.putInt((x[i] << 17) | (y[i] << 2) | (on[i] ? 2 : 0) | 1);
+                b.putInt(ts[i]);
+            }
+        }
+        b.flip();
+        return b;
+    }
+
+    /**
+     * Writes the events as DAVIS raw addresses to an AEDAT-2.0 file.
+     *
+     * @param f the file
+     * @param chip the chip, which writes its preferences into the header
+     * @throws IOException if the file cannot be written
+     */
+    public void writeAedat2(File f, AEChip chip) throws IOException {
+        final AEFileOutputStream os = new AEFileOutputStream(new FileOutputStream(f), chip, AEDataFile.DATA_FILE_VERSION_NUMBER);
+        final int n = 10000;
+        for (int from = 0; from < x.length; from += n) {
+            os.writePacket(davisRawPacket(from, Math.min(n, x.length - from)));
+        }
+        os.close();
+    }
+
+    /**
+     * Adds a time offset to the timestamps of raw packets, used to keep time
+     * increasing when packets are replayed.
+     *
+     * @param packets the packets
+     * @param dtUs the offset in us
+     */
+    public static void shiftTimestamps(AEPacketRaw[] packets, int dtUs) {
+        for (AEPacketRaw p : packets) {
+            final int[] t = p.getTimestamps();
+            final int n = p.getNumEvents();
+            for (int i = 0; i < n; i++) {
+                t[i] += dtUs;
+            }
+        }
+    }
+}
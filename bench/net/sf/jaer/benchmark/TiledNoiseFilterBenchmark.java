@@ -0,0 +1,175 @@
+/*
+ * TiledNoiseFilterBenchmark.java
+ *
+ * Copyright (C) 2026 jAER project.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ */
+package net.sf.jaer.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import eu.seebetter.ini.chips.davis.DAVIS240C;
+import net.sf.jaer.aemonitor.AEPacketRaw;
+import net.sf.jaer.chip.AEChip;
+import net.sf.jaer.event.EventPacket;
+import net.sf.jaer.event.OutputEventIterator;
+import net.sf.jaer.event.PolarityEvent;
+import net.sf.jaer.eventprocessing.filter.AbstractNoiseFilter;
+
+/**
+ * Measures the noise filters serially (numTiles=0) and with tiled processing.
+ * Setup first checks that the tiled path marks exactly the same events as the
+ * serial path, on packets that also contain a timestamp rewind and an event
+ * outside the array, which make some filters fall back to the serial path in
+ * the middle of a packet. Scores are in ns per event.
+ *
+ * @author agent
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true"})
+@OperationsPerInvocation(TiledNoiseFilterBenchmark.EVENTS_PER_PACKET)
+public class TiledNoiseFilterBenchmark {
+
+    static final int EVENTS_PER_PACKET = 4096;
+    private static final int CHECK_PACKETS = 64, CHECK_TILES = 4;
+
+    /**
+     * The filter class
+     */
+    @Param({"net.sf.jaer.eventprocessing.filter.BackgroundActivityFilter",
+        "net.sf.jaer.eventprocessing.filter.SpatioTemporalCorrelationFilter",
+        "net.sf.jaer.eventprocessing.filter.RefractoryFilter",
+        "net.sf.jaer.eventprocessing.filter.OrderNBackgroundActivityFilter"})
+    public String filterClassName;
+
+    /**
+     * The number of tiles, or 0 to filter serially
+     */
+    @Param({"0", "2", "4", "8"})
+    public int numTiles;
+
+    /**
+     * Event rate of the synthetic scene in events per second
+     */
+    @Param({"1000000"})
+    public int rateEps;
+
+    private DAVIS240C chip;
+    private AbstractNoiseFilter filter;
+    private AEPacketRaw[] packets;
+    private int next = 0, cycleUs;
+
+    @Setup
+    public void setup() throws Exception {
+        chip = new DAVIS240C();
+        checkTiledMatchesSerial();
+        filter = newFilter(numTiles);
+        SyntheticEvents events = new SyntheticEvents(chip.getSizeX(), chip.getSizeY(), 256 * EVENTS_PER_PACKET, rateEps, 0.2f, SyntheticEvents.SEED);
+        packets = events.davisRawPackets(EVENTS_PER_PACKET);
+        AEPacketRaw last = packets[packets.length - 1];
+        cycleUs = last.getLastTimestamp() - packets[0].getFirstTimestamp() + 1;
+    }
+
+    private AbstractNoiseFilter newFilter(int tiles) throws Exception {
+        AbstractNoiseFilter f = (AbstractNoiseFilter) Class.forName(filterClassName).getConstructor(AEChip.class).newInstance(chip);
+        f.initFilter();
+        f.setFilterEnabled(true);
+        f.setTiledProcessingEnabled(tiles > 0);
+        if (tiles > 0) {
+            f.setNumTiles(tiles);
+        }
+        f.resetFilter();
+        return f;
+    }
+
+    /**
+     * Runs the same packets through a serial and a tiled instance of the
+     * filter and throws if any event is marked differently. A filter that
+     * throws on the event outside the array must throw in both paths.
+     */
+    private void checkTiledMatchesSerial() throws Exception {
+        final AbstractNoiseFilter serial = newFilter(0), tiled = newFilter(numTiles > 0 ? numTiles : CHECK_TILES);
+        final SyntheticEvents events = new SyntheticEvents(chip.getSizeX(), chip.getSizeY(), CHECK_PACKETS * EVENTS_PER_PACKET, rateEps, 0.2f, SyntheticEvents.SEED);
+        events.ts[(10 * EVENTS_PER_PACKET) + 2000] -= 10000; // rewind in the middle of a packet
+        events.x[(20 * EVENTS_PER_PACKET) + 100] = (short) chip.getSizeX(); // outside the array
+        for (int k = 0; k < CHECK_PACKETS; k++) {
+            final EventPacket<PolarityEvent> a = packetOf(events, k), b = packetOf(events, k);
+            final String serialException = filterCatching(serial, a), tiledException = filterCatching(tiled, b);
+            if (serialException != null || tiledException != null) {
+                if (serialException == null || !serialException.equals(tiledException)) {
+                    throw new IllegalStateException(filterClassName + " packet " + k + ": serially " + serialException + " but tiled " + tiledException);
+                }
+                continue;
+            }
+            for (int i = 0; i < a.getSize(); i++) {
+                if (a.getEvent(i).isFilteredOut() != b.getEvent(i).isFilteredOut()) {
+                    throw new IllegalStateException(filterClassName + " packet " + k + " event " + i + ": filteredOut is "
+                            + a.getEvent(i).isFilteredOut() + " serially but " + b.getEvent(i).isFilteredOut() + " tiled");
+                }
+            }
+        }
+        serial.cleanup();
+        tiled.cleanup();
+    }
+
+    private static String filterCatching(AbstractNoiseFilter f, EventPacket<PolarityEvent> p) {
+        try {
+            f.filterPacket(p);
+            return null;
+        } catch (RuntimeException e) {
+            return e.getClass().getName();
+        }
+    }
+
+    private static EventPacket<PolarityEvent> packetOf(SyntheticEvents events, int k) {
+        final EventPacket<PolarityEvent> p = new EventPacket<>(PolarityEvent.class);
+        final OutputEventIterator<PolarityEvent> outItr = p.outputIterator();
+        for (int i = k * EVENTS_PER_PACKET; i < (k + 1) * EVENTS_PER_PACKET; i++) {
+            final PolarityEvent e = outItr.nextOutput();
+            e.timestamp = events.ts[i];
+            e.x = events.x[i];
+            e.y = events.y[i];
+            e.polarity = events.on[i] ? PolarityEvent.Polarity.On : PolarityEvent.Polarity.Off;
+            e.type = (byte) (events.on[i] ? 1 : 0);
+        }
+        return p;
+    }
+
+    @TearDown
+    public void tearDown() {
+        filter.cleanup();
+        chip.cleanup();
+    }
+
+    @Benchmark
+    public EventPacket filterPacket() {
+        AEPacketRaw raw = packets[next];
+        if (++next == packets.length) {
+            next = 0;
+            SyntheticEvents.shiftTimestamps(packets, cycleUs); // keep time monotonic
+        }
+        return filter.filterPacket(chip.getEventExtractor().extractPacket(raw));
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * TimestampResetSeekCheck.java
+ *
+ * Copyright (C) 2026 jAER project.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ */
+package net.sf.jaer.benchmark;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import eu.seebetter.ini.chips.davis.DAVIS240C;
+import net.sf.jaer.aemonitor.AEPacketRaw;
+import net.sf.jaer.eventio.AECompressedFileInputStream;
+import net.sf.jaer.eventio.AECompressedFileOutputStream;
+import net.sf.jaer.eventio.AEDataFile;
+import net.sf.jaer.eventio.AEFileInputStream;
+import net.sf.jaer.eventio.AEFileInputStreamInterface;
+import net.sf.jaer.eventio.AEFileOutputStream;
+import net.sf.jaer.eventio.AEFileTimestampIndex;
+
+/**
+ * Checks that AEFileInputStream and AECompressedFileInputStream return the
+ * same timestamps after positioning across a timestamp reset event as when
+ * reading the file from the start. Writes a file with a reset event in the
+ * middle to the temp folder, reads it sequentially, and then compares events
+ * read after positioning forwards and backwards over the reset, and read
+ * backwards over it, against the sequential read. In the AEDAT-2.0 file the
+ * second half crosses a memory mapped chunk boundary. Run with
+ * <pre>
+ * java -cp ... net.sf.jaer.benchmark.TimestampResetSeekCheck
+ * </pre>
+ * Prints the result and exits with status 1 if a timestamp differs.
+ *
+ * @author agent
+ */
+public class TimestampResetSeekCheck {
+
+    private static final int EVENTS_PER_HALF = 2500000, DT_US = 10, RESET_BITMASK = 1;
+    private static final int PACKET_SIZE = 100;
+
+    private final int[] expected = new int[(2 * EVENTS_PER_HALF) + 1]; // timestamp by event number, which is addr >>> 4
+    private int numErrors = 0;
+
+    public static void main(String[] args) {
+        int status = 1;
+        try {
+            status = new TimestampResetSeekCheck().run() ? 0 : 1;
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        System.exit(status);
+    }
+
+    private boolean run() throws IOException {
+        final DAVIS240C chip = new DAVIS240C();
+        try {
+            check(chip, false);
+            check(chip, true);
+        } finally {
+            chip.cleanup();
+        }
+        System.out.println(numErrors == 0 ? "timestamps after positioning match the sequential read" : numErrors + " mismatches");
+        return numErrors == 0;
+    }
+
+    private void check(DAVIS240C chip, boolean compressed) throws IOException {
+        final File f = File.createTempFile("TimestampResetSeekCheck", compressed ? AEDataFile.COMPRESSED_DATA_FILE_EXTENSION : AEDataFile.DATA_FILE_EXTENSION);
+        try {
+            write(f, chip, compressed);
+            System.out.println(compressed ? "AECompressedFileInputStream" : "AEFileInputStream");
+            final int reset = EVENTS_PER_HALF;
+            AEFileInputStreamInterface in = open(f, chip, compressed);
+            readSequentially(in);
+            // backwards across the reset after reading past it
+            checkAt(in, reset - 1000, "position back before the reset");
+            checkAt(in, reset + 1000, "position forward past the reset");
+            checkAt(in, 10, "position back to the start");
+            checkAt(in, expected.length - 1000, "position forward into the next chunk");
+            checkBackwards(in, reset + (PACKET_SIZE / 2), "read backwards over the reset");
+            in.close();
+            // forwards across the reset on a fresh stream that has not read it yet
+            in = open(f, chip, compressed);
+            checkAt(in, reset + 1000, "position past the unread reset");
+            checkAt(in, reset - 1000, "position back before the reset");
+            in.close();
+        } finally {
+            f.delete();
+            new File(f.getPath() + AEFileTimestampIndex.SUFFIX).delete();
+        }
+    }
+
+    /**
+     * Writes EVENTS_PER_HALF events, a reset event, and EVENTS_PER_HALF more
+     * events with raw timestamps that keep increasing by DT_US. The address of
+     * event number n is n << 4, with bit 0 set for the reset event.
+     */
+    private void write(File f, DAVIS240C chip, boolean compressed) throws IOException {
+        final AEFileOutputStream os = compressed ? new AECompressedFileOutputStream(new FileOutputStream(f), chip)
+                : new AEFileOutputStream(new FileOutputStream(f), chip, AEDataFile.DATA_FILE_VERSION_NUMBER);
+        final AEPacketRaw p = new AEPacketRaw(10000);
+        for (int from = 0; from < expected.length; from += p.getCapacity()) {
+            final int n = Math.min(p.getCapacity(), expected.length - from);
+            final int[] a = p.getAddresses(), t = p.getTimestamps();
+            for (int i = 0; i < n; i++) {
+                final int e = from + i;
+                a[i] = (e << 4) | (e == EVENTS_PER_HALF ? RESET_BITMASK : 0);
+                t[i] = DT_US * (e + 1);
+            }
+            p.setNumEvents(n);
+            os.writePacket(p);
+        }
+        os.close();
+    }
+
+    private static AEFileInputStreamInterface open(File f, DAVIS240C chip, boolean compressed) throws IOException {
+        final AEFileInputStreamInterface in = compressed ? new AECompressedFileInputStream(f, chip) : new AEFileInputStream(f, chip);
+        in.setTimestampResetBitmask(RESET_BITMASK);
+        in.setRepeat(false);
+        in.setNonMonotonicTimeExceptionsChecked(false); // positioning back in time is not an error here
+        in.position(0);
+        return in;
+    }
+
+    private void readSequentially(AEFileInputStreamInterface in) throws IOException {
+        Arrays.fill(expected, 0);
+        int n = 0;
+        while (in.position() < in.getMarkOutPosition()) { // the OUT mark is at the last event
+            final AEPacketRaw p = in.readPacketByNumber(10000);
+            for (int i = 0; i < p.getNumEvents(); i++) {
+                expected[p.getAddresses()[i] >>> 4] = p.getTimestamps()[i];
+                n++;
+            }
+        }
+        final int reset = EVENTS_PER_HALF;
+        System.out.println("read " + n + " events, timestamps around the reset: " + expected[reset - 1] + " " + expected[reset] + " " + expected[reset + 1]);
+        if ((n != in.getMarkOutPosition()) || (expected[reset] != 0) || (expected[reset + 1] != DT_US)) {
+            System.out.println("sequential read did not apply the reset");
+            numErrors++;
+        }
+    }
+
+    private void checkAt(AEFileInputStreamInterface in, int event, String what) throws IOException {
+        in.position(event);
+        compare(in.readPacketByNumber(PACKET_SIZE), what);
+    }
+
+    private void checkBackwards(AEFileInputStreamInterface in, int event, String what) throws IOException {
+        in.position(event);
+        compare(in.readPacketByNumber(-PACKET_SIZE), what);
+    }
+
+    private void compare(AEPacketRaw p, String what) {
+        int bad = 0;
+        for (int i = 0; i < p.getNumEvents(); i++) {
+            final int e = p.getAddresses()[i] >>> 4;
+            if (p.getTimestamps()[i] != expected[e]) {
+                if (bad++ == 0) {
+                    System.out.println(what + ": event " + e + " has timestamp " + p.getTimestamps()[i] + " instead of " + expected[e]);
+                }
+            }
+        }
+        if (p.getNumEvents() == 0) {
+            System.out.println(what + ": no events");
+            bad++;
+        }
+        numErrors += bad;
+        System.out.println(what + ": " + p.getNumEvents() + " events, " + bad + " wrong timestamps");
+    }
+}
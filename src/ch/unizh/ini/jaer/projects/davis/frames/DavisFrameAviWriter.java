@@ -100,7 +100,7 @@ public class DavisFrameAviWriter extends AbstractAviWriter {
                 }
             }
             try {
-                getAviOutputStream().writeFrame(bufferedImage);
+                writeFrame(bufferedImage);
                 int timestamp = renderer.getTimestampFrameEnd();
                 writeTimecode(timestamp);
                 incrementFramecountAndMaybeCloseOutput();
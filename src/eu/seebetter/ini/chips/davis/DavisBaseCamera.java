@@ -43,8 +43,10 @@ import net.sf.jaer.event.ApsDvsEvent;
 import net.sf.jaer.event.ApsDvsEvent.ColorFilter;
 import net.sf.jaer.event.ApsDvsEvent.ReadoutType;
 import net.sf.jaer.event.ApsDvsEventPacket;
+import net.sf.jaer.event.ColumnarEventPacket;
 import net.sf.jaer.event.EventPacket;
 import net.sf.jaer.event.OutputEventIterator;
+import net.sf.jaer.event.PolarityEvent;
 import net.sf.jaer.event.TypedEvent;
 import net.sf.jaer.eventio.AEFileInputStreamInterface;
 import net.sf.jaer.graphics.DavisRenderer;
@@ -175,6 +177,7 @@ abstract public class DavisBaseCamera extends DavisChip implements RemoteControl
         davisMenu.add(new JSeparator());
         davisMenu.add(new JMenuItem(new ToggleAutoContrast()));
         davisMenu.add(new JMenuItem(new ToggleHistogram()));
+        davisMenu.add(new JMenuItem(new ToggleByteTextures()));
         davisMenu.add(new JSeparator());
         davisMenu.add(new JMenuItem(new ToggleGlobalRollingShutter()));
         davisMenu.add(new JSeparator());
@@ -397,6 +400,9 @@ abstract public class DavisBaseCamera extends DavisChip implements RemoteControl
 
         protected int autoshotEventsSinceLastShot = 0; // autoshot counter
 
+        /** Reused output of extractColumnarPacket */
+        protected ColumnarEventPacket<PolarityEvent> columnarOut = null;
+
         public DavisEventExtractor(final DavisBaseCamera chip) {
             super(chip);
         }
@@ -591,6 +597,58 @@ abstract public class DavisBaseCamera extends DavisChip implements RemoteControl
             return out;
         } // extractPacket
 
+        /**
+         * Extracts only the DVS (and external input special) events from the
+         * raw data directly into the primitive columns of a reused
+         * ColumnarEventPacket, without touching any event objects. APS samples
+         * and IMU samples are skipped; use {@link #extractPacket} to obtain
+         * frames and IMU data.
+         *
+         * @param in the raw events, can be null
+         * @return the reused columnar packet holding PolarityEvent flyweights
+         */
+        synchronized public ColumnarEventPacket<PolarityEvent> extractColumnarPacket(final AEPacketRaw in) {
+            if (columnarOut == null) {
+                columnarOut = new ColumnarEventPacket<>(PolarityEvent.class);
+            } else {
+                columnarOut.clear();
+            }
+            columnarOut.setRawPacket(in);
+            if (in == null) {
+                return columnarOut;
+            }
+            final int n = in.getNumEvents();
+            final int sx1 = getChip().getSizeX() - 1;
+            final int[] datas = in.getAddresses();
+            final int[] timestamps = in.getTimestamps();
+            columnarOut.allocate(n);
+
+            for (int i = 0; i < n; i++) {
+                final int data = datas[i];
+                if (((DavisChip.ADDRESS_TYPE_IMU & data) == DavisChip.ADDRESS_TYPE_IMU)
+                        || ((data & DavisChip.ADDRESS_TYPE_MASK) != DavisChip.ADDRESS_TYPE_DVS)) {
+                    continue;
+                }
+                if ((data & DavisChip.EXTERNAL_INPUT_EVENT_ADDR) != 0) {
+                    final int k = columnarOut.append(timestamps[i], data, (short) 0, (short) 0, (byte) 0);
+                    columnarOut.setSpecial(k, true);
+                } else {
+                    columnarOut.append(timestamps[i], data,
+                            (short) (sx1 - ((data & DavisChip.XMASK) >>> DavisChip.XSHIFT)),
+                            (short) ((data & DavisChip.YMASK) >>> DavisChip.YSHIFT),
+                            (byte) ((data & DavisChip.POLMASK) == DavisChip.POLMASK ? 1 : 0));
+                    autoshotEventsSinceLastShot++;
+                }
+            }
+
+            if ((getAutoshotThresholdEvents() > 0) && (autoshotEventsSinceLastShot > getAutoshotThresholdEvents())) {
+                takeSnapshot();
+                autoshotEventsSinceLastShot = 0;
+            }
+
+            return columnarOut;
+        }
+
         protected ApsDvsEvent nextApsDvsEvent(final OutputEventIterator outItr) {
             final ApsDvsEvent e = (ApsDvsEvent) outItr.nextOutput();
             e.reset();
@@ -1471,6 +1529,26 @@ abstract public class DavisBaseCamera extends DavisChip implements RemoteControl
         }
     }
 
+    /**
+     * Adds the option to draw the display from byte textures that are updated
+     * only where the renderer maps changed
+     */
+    final public class ToggleByteTextures extends DavisMenuAction {
+
+        public ToggleByteTextures() {
+            super("Toggle Byte Texture Display", "<html>Toggles whether the display is drawn from RGBA8 textures that are updated only in the rows that changed,"
+                    + "<p>rather than uploading the float maps on every frame", "ToggleByteTextures");
+        }
+
+        @Override
+        public void actionPerformed(ActionEvent e) {
+            davisDisplayMethod.setByteTexturesEnabled(!davisDisplayMethod.isByteTexturesEnabled());
+            log.info("byteTextures = " + davisDisplayMethod.isByteTexturesEnabled());
+            davisDisplayMethod.showActionText("byteTextures = " + davisDisplayMethod.isByteTexturesEnabled());
+            putValue(Action.SELECTED_KEY, true);
+        }
+    }
+
     /**
      * Adds event capture/display option
      */
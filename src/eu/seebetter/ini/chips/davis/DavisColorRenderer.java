@@ -132,6 +132,15 @@ public class DavisColorRenderer extends DavisRenderer {
 		colors3[8] = colorFilterSequence[1];
 	}
 
+	/**
+	 * The DVS map is written only in updateEventMaps, which marks the rows it
+	 * writes, and the frame only through endFrame of the superclass.
+	 */
+	@Override
+	protected boolean isDirtyRowTrackingExact() {
+		return true;
+	}
+
 	@Override
 	protected void updateEventMaps(final PolarityEvent e) {
 		float[] map;
@@ -150,6 +159,7 @@ public class DavisColorRenderer extends DavisRenderer {
 		if ((index < 0) || (index >= map.length)) {
 			return;
 		}
+		markDvsEventsIndex(index);
 
 		// Support expanding one DVS event to cover a four pixel box, resulting in
 		// an expansion to four pixels, for visualization without holes.
@@ -160,6 +170,7 @@ public class DavisColorRenderer extends DavisRenderer {
 			idx1 = getPixMapIndex(e.x + 1, e.y);
 			idx2 = getPixMapIndex(e.x, e.y + 1);
 			idx3 = getPixMapIndex(e.x + 1, e.y + 1);
+			markDvsEventsIndex(idx2);
 		}
 
 		// Change colors of DVS if SeparatyAPSByColor is selected: instead of Red/Green
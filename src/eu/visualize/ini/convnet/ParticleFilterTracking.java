@@ -43,9 +43,7 @@ import net.sf.jaer.util.filter.ParticleFilter.ParticleFilter;
 import net.sf.jaer.eventprocessing.tracking.RectangularClusterTracker;
 import net.sf.jaer.graphics.DavisRenderer;
 import net.sf.jaer.graphics.AEViewer;
-import net.sf.jaer.util.filter.ParticleFilter.AverageEvaluator;
-import net.sf.jaer.util.filter.ParticleFilter.Particle;
-import net.sf.jaer.util.filter.ParticleFilter.SimpleParticle;
+import net.sf.jaer.util.filter.ParticleFilter.VectorParticleFilter;
 
 /**
  *
@@ -58,9 +56,8 @@ public class ParticleFilterTracking extends EventFilter2D implements PropertyCha
     public static final String PROP_SURROUNDINHIBITIONCOST = "PROP_SURROUNDINHIBITIONCOST";
     private DynamicEvaluator dynamic;
     private MeasurmentEvaluator measurement;
-    private AverageEvaluator average;
 
-    private ParticleFilter filter;
+    private VectorParticleFilter filter;
     
     private boolean Useframe = false;
     private boolean UseClustersFrametime = false;
@@ -75,6 +72,9 @@ public class ParticleFilterTracking extends EventFilter2D implements PropertyCha
     private boolean UsePureEvents = getBoolean("UsePureEvents", false);
     private boolean displayParticles = getBoolean("displayParticles", false);
     private int eventsNumToProcess = getInt("eventsNumToProcess", 10);
+    private boolean parallelEvaluationEnabled = getBoolean("parallelEvaluationEnabled", false);
+    private VectorParticleFilter.ResamplingMethod resamplingMethod = VectorParticleFilter.ResamplingMethod
+            .valueOf(getString("resamplingMethod", VectorParticleFilter.ResamplingMethod.Systematic.toString()));
 
     private boolean addedViewerPropertyChangeListener = false; // TODO promote these to base EventFilter class
     private boolean addTimeStampsResetPropertyChangeListener = false;
@@ -99,7 +99,6 @@ public class ParticleFilterTracking extends EventFilter2D implements PropertyCha
         
         dynamic = new DynamicEvaluator(noise);
         measurement = new MeasurmentEvaluator();
-        average = new AverageEvaluator();
 
         tracker = new RectangularClusterTracker(chip);
         heatMapCNN = new HeatMapCNN(chip);
@@ -128,6 +127,8 @@ public class ParticleFilterTracking extends EventFilter2D implements PropertyCha
         setPropertyTooltip("startPositionY", "Particles start position y");
         setPropertyTooltip("UsePureEvents", "Only use events");
         setPropertyTooltip("eventsNumToProcess", "The events in the packet will be processed");
+        setPropertyTooltip("parallelEvaluationEnabled", "Moves and weights the particles in parallel on the ForkJoin pool; worthwhile for many thousands of particles");
+        setPropertyTooltip("resamplingMethod", "Systematic or stratified resampling of the particles");
         // setPropertyTooltip("filterEventsEnabled", "Just for test");      
     }
 
@@ -182,8 +183,8 @@ public class ParticleFilterTracking extends EventFilter2D implements PropertyCha
                 /* If particles are outside, then they will be reset to the center point. */
                 if(outputX > 240 || outputY > 180 || outputX < 0 || outputY < 0) {
                     for(int i = 0; i < filter.getParticleCount(); i++) {
-                        filter.get(i).setX(120 + 50 * (r.nextDouble() * 2 - 1));
-                        filter.get(i).setY(90 + 50 * (r.nextDouble() * 2 - 1));
+                        filter.setX(i, 120 + 50 * (r.nextDouble() * 2 - 1));
+                        filter.setY(i, 90 + 50 * (r.nextDouble() * 2 - 1));
                     }
                 }                
             }    
@@ -243,8 +244,8 @@ public class ParticleFilterTracking extends EventFilter2D implements PropertyCha
         /* If particles are outside, then they will be reset to the center point. */
         if(outputX > 240 || outputY > 180 || outputX < 0 || outputY < 0) {
             for(i = 0; i < filter.getParticleCount(); i++) {
-                filter.get(i).setX(120 + 50 * (r.nextDouble() * 2 - 1));
-                filter.get(i).setY(90 + 50 * (r.nextDouble() * 2 - 1));
+                filter.setX(i, 120 + 50 * (r.nextDouble() * 2 - 1));
+                filter.setY(i, 90 + 50 * (r.nextDouble() * 2 - 1));
             }
         }                 
 
@@ -266,7 +267,9 @@ public class ParticleFilterTracking extends EventFilter2D implements PropertyCha
     */
     @Override
     public void resetFilter() {
-        filter = new ParticleFilter(dynamic, measurement, average);
+        filter = new VectorParticleFilter(2, dynamic, measurement);
+        filter.setParallel(parallelEvaluationEnabled);
+        filter.setResamplingMethod(resamplingMethod);
         
         Random r = new Random();
         for(int i = 0; i < particlesCount; i++) {
@@ -274,7 +277,7 @@ public class ParticleFilterTracking extends EventFilter2D implements PropertyCha
 //                double y = (chip.getSizeX()/2) * (r.nextDouble()*2 - 1) + chip.getSizeX()/2;
                 double x = r.nextGaussian() + startPositionX;
                 double y = r.nextGaussian() + startPositionY;
-                filter.addParticle(new SimpleParticle(x, y));
+                filter.addParticle(x, y);
         }    
     }
 
@@ -354,7 +357,7 @@ public class ParticleFilterTracking extends EventFilter2D implements PropertyCha
             gl.glColor4f(.1f, 1f, .1f, .25f);
 
             for(int i = 0; i < filter.getParticleCount(); i ++) {            
-                gl.glRectd(filter.get(i).getX() - 0.5, filter.get(i).getY() - 0.5, filter.get(i).getX() + 0.5, filter.get(i).getY() + 0.5);
+                gl.glRectd(filter.getX(i) - 0.5, filter.getY(i) - 0.5, filter.getX(i) + 0.5, filter.getY(i) + 0.5);
             }            
         }
         
@@ -605,6 +608,42 @@ public class ParticleFilterTracking extends EventFilter2D implements PropertyCha
         putFloat("noise", noise);
     }
 
+    /**
+     * @return the parallelEvaluationEnabled
+     */
+    public boolean isParallelEvaluationEnabled() {
+        return parallelEvaluationEnabled;
+    }
+
+    /**
+     * @param parallelEvaluationEnabled the parallelEvaluationEnabled to set
+     */
+    public void setParallelEvaluationEnabled(boolean parallelEvaluationEnabled) {
+        this.parallelEvaluationEnabled = parallelEvaluationEnabled;
+        putBoolean("parallelEvaluationEnabled", parallelEvaluationEnabled);
+        if (filter != null) {
+            filter.setParallel(parallelEvaluationEnabled);
+        }
+    }
+
+    /**
+     * @return the resamplingMethod
+     */
+    public VectorParticleFilter.ResamplingMethod getResamplingMethod() {
+        return resamplingMethod;
+    }
+
+    /**
+     * @param resamplingMethod the resamplingMethod to set
+     */
+    public void setResamplingMethod(VectorParticleFilter.ResamplingMethod resamplingMethod) {
+        this.resamplingMethod = resamplingMethod;
+        putString("resamplingMethod", resamplingMethod.toString());
+        if (filter != null) {
+            filter.setResamplingMethod(resamplingMethod);
+        }
+    }
+
 
  
 }
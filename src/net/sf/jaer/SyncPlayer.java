@@ -488,6 +488,27 @@ public class SyncPlayer extends AbstractAEPlayer implements PropertyChangeListen
         }
     }
 
+    /**
+     * Seeks all playing viewers to the same time.
+     *
+     * @param time the time in us
+     * @return true if all viewers could seek by time
+     */
+    @Override
+    public boolean seekTime(int time) {
+        currentTime = time;
+        boolean ok = true;
+        try {
+            for (AEViewer v : getPlayingViewers()) {
+                ok &= v.aePlayer.seekTime(time);
+            }
+        } catch (ConcurrentModificationException e) {
+            log.warning("couldn\'t seek a viewer because of exception " + e.getMessage());
+            return false;
+        }
+        return ok;
+    }
+
     /**
      * @return current playback time relative to start in us
      */
@@ -590,12 +611,14 @@ public class SyncPlayer extends AbstractAEPlayer implements PropertyChangeListen
     }
 
     /**
-     * Sets IN marker on all viewers.
+     * Sets IN marker on all viewers, after seeking them to the present time so
+     * that the markers are at the same time in all files.
      *
      * @return always 0, because every player has its own position.
      */
     @Override
     public long setMarkIn() {
+        seekTime(getTime());
         for (AEViewer v : getPlayingViewers()) {
             v.aePlayer.setMarkIn();
         }
@@ -603,12 +626,14 @@ public class SyncPlayer extends AbstractAEPlayer implements PropertyChangeListen
     }
 
     /**
-     * Sets OUT marker on all viewers.
+     * Sets OUT marker on all viewers, after seeking them to the present time
+     * so that the markers are at the same time in all files.
      *
      * @return always 0, because every player has its own position.
      */
     @Override
     public long setMarkOut() {
+        seekTime(getTime());
         for (AEViewer v : getPlayingViewers()) {
             v.aePlayer.setMarkOut();
         }
@@ -1,18 +1,46 @@
 package net.sf.jaer.aemonitor;
 
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.prefs.Preferences;
+
 /**
  * Object that holds pool of AEPacketRaw that handles data interchange between capture and other (rendering) threads.
- * While the capture thread (AEReader.processData) captures events into one buffer (an AEPacketRaw) the other thread (AEViewer.run()) can
- * render the events. The only time the monitor on the pool needs to be acquired is when swapping or initializing the buffers, to prevent
- * either referencing unrelated data or having memory change out from under you.
+ * <p>
+ * The pool is a ring of preallocated AEPacketRaw buffers. The capture thread (AEReader) translates events into the
+ * current write buffer and calls {@link #publishWriteBuffer()} after each USB transfer, which queues the write buffer
+ * for the consumer and moves the capture thread on to the next free buffer. The consumer (e.g. AEViewer via
+ * acquireAvailableEventsFromDriver) calls {@link #swap()} to take all queued buffers, and then reads them from
+ * {@link #readBuffer()}. Publishing and taking queued buffers are lock-free (single producer, single consumer); when
+ * the consumer stalls, up to {@link #getNumBuffers()}-2 buffers are queued before the capture thread has to keep
+ * appending to its write buffer, and only when that buffer is full are events dropped.
+ * <p>
+ * Capture threads that never call publishWriteBuffer get the original double-buffer behavior: swap() then takes the
+ * write buffer under the monitor of the pool, which the capture thread holds while it translates events.
  */
 public class AEPacketRawPool {
 
+    /** Default number of buffers in the ring */
+    public static final int DEFAULT_NUM_BUFFERS = 4;
+    /** Minimum number of buffers: one being read, one being written, one queued */
+    public static final int MIN_NUM_BUFFERS = 3;
+    private static final Preferences prefs = Preferences.userNodeForPackage(AEPacketRawPool.class);
+
     private AEPacketRaw[] buffers;
-//    private AEPacketRaw lastBufferReference;
-    volatile int readBuffer = 0;
-    volatile int writeBuffer = 1;
+    private long[] publishTimeNs;
     private AEMonitorInterface outer;
+    private int numBuffers = prefs.getInt("AEPacketRawPool.numBuffers", DEFAULT_NUM_BUFFERS);
+    /** Number of buffers published by the producer and taken by the consumer; buffer k lives in slot k%numBuffers */
+    private volatile long published = 0, consumed = 0;
+    /** Incremented every time the producer's write buffer changes */
+    private volatile long writeGeneration = 0;
+    /** Set once the producer calls publishWriteBuffer */
+    private volatile boolean ringMode = false;
+    /** Used when the consumer takes several buffers at once, or no buffer */
+    private final AEPacketRaw mergeBuffer = new AEPacketRaw();
+    private AEPacketRaw readBuffer = mergeBuffer;
+
+    private final AtomicLong overrunCount = new AtomicLong(), droppedEventCount = new AtomicLong(), ringFullCount = new AtomicLong();
+    private volatile long consumerLagUs = 0, maxConsumerLagUs = 0;
 
     public AEPacketRawPool(AEMonitorInterface outer) {
         super();
@@ -21,47 +49,226 @@ public class AEPacketRawPool {
         reset();
     }
 
-    /** Swaps the read and write buffers so that the buffer that was getting written is now the one that is read from, and the one that was read from is
-     * now the one written to. Thread safe. This method is called by the consumer.
+    /**
+     * Called by the capture thread after it has finished translating a transfer into the write buffer. If the write
+     * buffer holds events and there is a free buffer, the write buffer is queued for the consumer and the next
+     * (cleared) buffer becomes the write buffer.
+     *
+     * @return true if the write buffer was published, in which case the producer must start writing at index 0 of the
+     * new write buffer
+     */
+    public final boolean publishWriteBuffer() {
+        ringMode = true;
+        final long p = published;
+        if (buffers[slot(p)].getNumEvents() == 0) {
+            return false;
+        }
+        if (p - consumed > buffers.length - 3) {
+            ringFullCount.incrementAndGet(); // keep appending to this buffer until the consumer catches up
+            return false;
+        }
+        publish(p);
+        return true;
+    }
+
+    /** Queues write buffer p; only called by the producer, or by the consumer holding the monitor */
+    private void publish(long p) {
+        publishTimeNs[slot(p)] = System.nanoTime();
+        final AEPacketRaw next = buffers[slot(p + 1)];
+        next.clear();
+        next.overrunOccuredFlag = false;
+        published = p + 1;
+        writeGeneration++;
+    }
+
+    private int slot(long k) {
+        return (int) (k % buffers.length);
+    }
+
+    /**
+     * Takes all queued buffers for the consumer, so that they can be read from {@link #readBuffer()}. If several
+     * buffers are queued their events are concatenated. If none is queued but the write buffer holds events, the
+     * write buffer is taken under the monitor of the pool. This method is called by the consumer.
      */
-    public final synchronized void swap() {
-//        lastBufferReference = buffers[readBuffer];
-        if (readBuffer == 0) {
-            readBuffer = 1;
-            writeBuffer = 0;
+    public final void swap() {
+        if (published == consumed && (!ringMode || buffers[slot(published)].getNumEvents() > 0)) {
+            synchronized (this) { // the capture thread is not translating while we hold the monitor
+                if (buffers[slot(published)].getNumEvents() > 0) {
+                    publish(published);
+                }
+                take();
+            }
+        } else {
+            take();
+        }
+    }
+
+    private void take() {
+        final long c = consumed, p = published;
+        final int n = (int) (p - c);
+        if (n == 0) {
+            mergeBuffer.clear();
+            mergeBuffer.overrunOccuredFlag = false;
+            readBuffer = mergeBuffer;
+        } else if (n == 1) {
+            readBuffer = buffers[slot(c)];
+        } else {
+            mergeBuffer.clear();
+            mergeBuffer.overrunOccuredFlag = false;
+            for (long k = c; k < p; k++) {
+                final AEPacketRaw b = buffers[slot(k)];
+                mergeBuffer.append(b);
+                mergeBuffer.overrunOccuredFlag |= b.overrunOccuredFlag;
+                mergeBuffer.systemModificationTimeNs = b.systemModificationTimeNs;
+            }
+            readBuffer = mergeBuffer;
+        }
+        if (n > 0) {
+            for (long k = c; k < p; k++) {
+                if (buffers[slot(k)].overrunOccuredFlag) {
+                    overrunCount.incrementAndGet();
+                }
+            }
+            final long lag = (System.nanoTime() - publishTimeNs[slot(c)]) / 1000;
+            consumerLagUs = lag;
+            if (lag > maxConsumerLagUs) {
+                maxConsumerLagUs = lag;
+            }
         } else {
-            readBuffer = 0;
-            writeBuffer = 1;
+            consumerLagUs = 0;
         }
-        writeBuffer().clear();
-        writeBuffer().overrunOccuredFlag = false;
+        consumed = p; // releases the buffers, except the last one which may still be read
     }
 
     /** @return buffer that consumer reads from. */
-    public final synchronized AEPacketRaw readBuffer() {
-        return buffers[readBuffer];
+    public final AEPacketRaw readBuffer() {
+        return readBuffer;
     }
 
-    /** @return buffer that acquisition thread writes to. */
-    public final synchronized AEPacketRaw writeBuffer() {
-        return buffers[writeBuffer];
+    /** @return buffer that acquisition thread writes to. Only the acquisition thread may use it. */
+    public final AEPacketRaw writeBuffer() {
+        return buffers[slot(published)];
+    }
+
+    /**
+     * Returns a number that changes every time the write buffer changes. The acquisition thread compares it with the
+     * value it saw last to know when it must start writing at index 0 again.
+     *
+     * @return the generation of the write buffer
+     */
+    public final long getWriteBufferGeneration() {
+        return writeGeneration;
     }
 
-    /** Set the current buffer to be the first one and clear the write buffer */
+    /** Set the current buffer to be the first one and clear all buffers */
     public final synchronized void reset() {
-        readBuffer = 0;
-        writeBuffer = 1;
-        buffers[writeBuffer].clear();
-        // new events go into this buffer which should be empty
-        buffers[readBuffer].clear();
+        for (AEPacketRaw b : buffers) {
+            b.clear();
+            b.overrunOccuredFlag = false;
+        }
+        mergeBuffer.clear();
+        readBuffer = mergeBuffer;
+        published = 0;
+        consumed = 0;
+        writeGeneration++;
     }
 
-    /** allocates AEPacketRaw buffers each with capacity of  */
-    public final void allocateMemory() {
-        buffers = new AEPacketRaw[2];
+    /** allocates the AEPacketRaw buffers, each with capacity of the AE buffer size of the hardware interface */
+    public final synchronized void allocateMemory() {
+        buffers = new AEPacketRaw[Math.max(MIN_NUM_BUFFERS, numBuffers)];
+        publishTimeNs = new long[buffers.length];
         for (int i = 0; i < buffers.length; i++) {
             buffers[i] = new AEPacketRaw();
             buffers[i].ensureCapacity(outer.getAEBufferSize());
         }
+        reset();
+    }
+
+    /**
+     * @return the number of buffers in the ring
+     */
+    public int getNumBuffers() {
+        return numBuffers;
+    }
+
+    /**
+     * Sets the number of buffers in the ring and reallocates them. More buffers absorb longer consumer stalls at the
+     * cost of memory.
+     *
+     * @param numBuffers the number of buffers, at least MIN_NUM_BUFFERS
+     */
+    public synchronized void setNumBuffers(int numBuffers) {
+        if (numBuffers < MIN_NUM_BUFFERS) {
+            numBuffers = MIN_NUM_BUFFERS;
+        }
+        this.numBuffers = numBuffers;
+        prefs.putInt("AEPacketRawPool.numBuffers", numBuffers);
+        allocateMemory();
+    }
+
+    /**
+     * @return the number of buffers published but not yet taken by the consumer
+     */
+    public int getQueuedBufferCount() {
+        return (int) (published - consumed);
+    }
+
+    /**
+     * Called by the acquisition thread when it throws away events because the write buffer is full.
+     *
+     * @param n the number of events dropped
+     */
+    public void addDroppedEvents(int n) {
+        droppedEventCount.addAndGet(n);
+    }
+
+    /**
+     * @return the number of events reported dropped by the acquisition thread
+     */
+    public long getDroppedEventCount() {
+        return droppedEventCount.get();
+    }
+
+    /**
+     * @return the number of buffers delivered to the consumer with their overrunOccuredFlag set
+     */
+    public long getOverrunCount() {
+        return overrunCount.get();
+    }
+
+    /**
+     * @return the number of times the acquisition thread could not publish because all buffers were queued
+     */
+    public long getRingFullCount() {
+        return ringFullCount.get();
+    }
+
+    /**
+     * @return the time in us that the oldest buffer taken by the last swap() waited for the consumer
+     */
+    public long getConsumerLagUs() {
+        return consumerLagUs;
+    }
+
+    /**
+     * @return the maximum of getConsumerLagUs since construction or resetStatistics
+     */
+    public long getMaxConsumerLagUs() {
+        return maxConsumerLagUs;
+    }
+
+    /** Zeros the dropped, overrun, ring full and lag statistics */
+    public void resetStatistics() {
+        overrunCount.set(0);
+        droppedEventCount.set(0);
+        ringFullCount.set(0);
+        consumerLagUs = 0;
+        maxConsumerLagUs = 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("AEPacketRawPool with %d buffers: %d queued, %d overruns, %d events dropped, %d ring full, lag %d us (max %d us)",
+                buffers.length, getQueuedBufferCount(), getOverrunCount(), getDroppedEventCount(), getRingFullCount(), consumerLagUs, maxConsumerLagUs);
     }
 }
@@ -31,10 +31,12 @@ import javax.swing.SwingWorker;
 
 import net.sf.jaer.Description;
 import net.sf.jaer.event.BasicEvent;
+import net.sf.jaer.eventio.AECompressedFileInputStream;
 import net.sf.jaer.eventio.AEDataFile;
 import net.sf.jaer.eventio.AEFileInputStream;
 import net.sf.jaer.eventio.AEFileInputStreamInterface;
 import net.sf.jaer.eventio.AEFileOutputStream;
+import net.sf.jaer.eventio.Hdf5EventFileInputStream;
 import net.sf.jaer.eventio.ros.RosbagFileInputStream;
 import net.sf.jaer.eventprocessing.EventFilter;
 import net.sf.jaer.eventprocessing.FilterChain;
@@ -467,8 +469,12 @@ public class AEChip extends Chip2D {
         } else if (FilenameUtils.isExtension(file.getName(), AEDataFile.DATA_FILE_EXTENSION.substring(1))
                 || FilenameUtils.isExtension(file.getName(), AEDataFile.OLD_DATA_FILE_EXTENSION.substring(1))) {
             aeInputStream = new AEFileInputStream(file, this);
+        } else if (FilenameUtils.isExtension(file.getName(), AEDataFile.COMPRESSED_DATA_FILE_EXTENSION.substring(1))) {
+            aeInputStream = new AECompressedFileInputStream(file, this);
+        } else if (FilenameUtils.isExtension(file.getName(), Hdf5EventFileInputStream.DATA_FILE_EXTENSION)) {
+            aeInputStream = new Hdf5EventFileInputStream(file, this);
         }else{
-            throw new FileNotFoundException("file "+file+" file type is not known; .dat, .aedat or .bag files are currently supported");
+            throw new FileNotFoundException("file "+file+" file type is not known; .dat, .aedat, .aedatz, .h5 or .bag files are currently supported");
         }
         return aeInputStream;
     }
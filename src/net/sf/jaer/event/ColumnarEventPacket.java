@@ -0,0 +1,657 @@
+/*
+ * ColumnarEventPacket.java
+ *
+ * Copyright (C) 2026 jAER project.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ */
+package net.sf.jaer.event;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.logging.Level;
+
+/**
+ * A struct-of-arrays ("columnar") variant of {@link EventPacket}. Instead of
+ * holding one event object per event in <code>elementData</code>, the event
+ * fields are stored in primitive arrays (timestamp, address, x, y, type) plus
+ * bit sets for the <code>filteredOut</code> and <code>special</code> flags. At
+ * high event rates this avoids chasing millions of object references and
+ * greatly reduces the work of the garbage collector.
+ * <p>
+ * Legacy filters that iterate with <code>for(BasicEvent e:in)</code> or write
+ * with {@link #outputIterator()} keep working: the iterators hand out a single
+ * reused <i>flyweight</i> event that is loaded from the columns on
+ * <code>next()</code> and written back (including a
+ * <code>setFilteredOut(true)</code> call) when the iterator advances. The
+ * consequence is that a filter must not hold on to the returned event after
+ * the next call to the iterator; copy it with
+ * {@link BasicEvent#copyFrom(net.sf.jaer.event.BasicEvent)} if you need to
+ * keep it.
+ * <p>
+ * Converted filters can instead loop directly over the primitive arrays, e.g.
+ *
+ * <pre>
+ * final ColumnarEventPacket&lt;?&gt; c = (ColumnarEventPacket) in;
+ * final int[] ts = c.getTimestamps();
+ * final short[] xs = c.getXs(), ys = c.getYs();
+ * for (int i = 0; i &lt; c.getSize(); i++) {
+ *     if (c.isFilteredOut(i)) {
+ *         continue;
+ *     }
+ *     ... c.setFilteredOut(i, true);
+ * }
+ * </pre>
+ *
+ * Only the fields of {@link BasicEvent}, {@link TypedEvent} and
+ * {@link PolarityEvent} are stored. Extra fields of richer event classes (e.g.
+ * the ADC sample or IMU sample of {@link ApsDvsEvent}) are not retained, so
+ * this packet is intended for DVS event streams.
+ *
+ * @param <E> the class of the flyweight events handed out by the iterators
+ * @author agent
+ * @see net.sf.jaer.chip.TypedEventExtractor
+ */
+public class ColumnarEventPacket<E extends BasicEvent> extends EventPacket<E> {
+
+    private int columnCapacity;
+    private int[] timestamps;
+    private int[] addresses;
+    private short[] xs;
+    private short[] ys;
+    private byte[] types;
+    private BitSet filteredOut;
+    private BitSet special;
+
+    /**
+     * The flyweight event handed out by the output iterator, and the index it
+     * must be written back to, or -1 if nothing is pending.
+     */
+    private E outputFlyweight;
+    private int pendingOutputIndex;
+
+    /**
+     * Constructs a new ColumnarEventPacket handing out PolarityEvent
+     * flyweights.
+     */
+    public ColumnarEventPacket() {
+        this(PolarityEvent.class);
+    }
+
+    /**
+     * Constructs a new ColumnarEventPacket handing out flyweights of the given
+     * event class.
+     *
+     * @param eventClass which must extend BasicEvent
+     */
+    public ColumnarEventPacket(final Class<? extends BasicEvent> eventClass) {
+        super(eventClass);
+    }
+
+    /**
+     * Allocates the columns instead of filling the packet with event objects.
+     * Called from the superclass constructor, so the fields must not have
+     * initializers.
+     */
+    @Override
+    protected void initializeEvents() {
+        allocateColumns(DEFAULT_INITIAL_CAPACITY);
+        filteredOut = new BitSet(DEFAULT_INITIAL_CAPACITY);
+        special = new BitSet(DEFAULT_INITIAL_CAPACITY);
+        outputFlyweight = constructFlyweight();
+        setEventPrototype(outputFlyweight);
+        pendingOutputIndex = -1;
+        size = 0;
+    }
+
+    private void allocateColumns(final int n) {
+        columnCapacity = n;
+        timestamps = new int[n];
+        addresses = new int[n];
+        xs = new short[n];
+        ys = new short[n];
+        types = new byte[n];
+    }
+
+    private E constructFlyweight() {
+        try {
+            final E e = eventConstructor.newInstance();
+            if (e instanceof ApsDvsEvent) {
+                ((ApsDvsEvent) e).setReadoutType(ApsDvsEvent.ReadoutType.DVS);
+            }
+            return e;
+        } catch (final Exception ex) {
+            log.log(Level.WARNING, "could not construct flyweight event for " + getEventClass(), ex);
+            return null;
+        }
+    }
+
+    /**
+     * Ensures packet has room for n events, retaining the existing events.
+     *
+     * @param n capacity
+     */
+    @Override
+    public void allocate(final int n) {
+        if (n <= columnCapacity) {
+            return;
+        }
+        columnCapacity = n;
+        timestamps = Arrays.copyOf(timestamps, n);
+        addresses = Arrays.copyOf(addresses, n);
+        xs = Arrays.copyOf(xs, n);
+        ys = Arrays.copyOf(ys, n);
+        types = Arrays.copyOf(types, n);
+    }
+
+    /**
+     * Returns the number of events the columns can hold before they must be
+     * enlarged.
+     *
+     * @return the capacity in events
+     */
+    public int getCapacity() {
+        return columnCapacity;
+    }
+
+    @Override
+    public void clear() {
+        pendingOutputIndex = -1;
+        super.clear();
+    }
+
+    /**
+     * Appends an event given by its fields. This is the allocation-free way to
+     * fill the packet, e.g. from an event extractor.
+     *
+     * @param timestamp the timestamp in us
+     * @param address the raw address
+     * @param x the x address
+     * @param y the y address
+     * @param type the cell type, e.g. 0 for OFF and 1 for ON polarity
+     * @return the index of the appended event
+     */
+    public int append(final int timestamp, final int address, final short x, final short y, final byte type) {
+        commitPendingOutput();
+        if (size >= columnCapacity) {
+            allocate(columnCapacity * 2);
+        }
+        final int i = size++;
+        timestamps[i] = timestamp;
+        addresses[i] = address;
+        xs[i] = x;
+        ys[i] = y;
+        types[i] = type;
+        filteredOut.clear(i);
+        special.clear(i);
+        return i;
+    }
+
+    /**
+     * Returns the timestamp column. Only the first {@link #getSize()} entries
+     * are valid.
+     *
+     * @return the timestamps in us
+     */
+    public int[] getTimestamps() {
+        commitPendingOutput();
+        return timestamps;
+    }
+
+    /**
+     * Returns the raw address column. Only the first {@link #getSize()} entries
+     * are valid.
+     *
+     * @return the addresses
+     */
+    public int[] getAddresses() {
+        commitPendingOutput();
+        return addresses;
+    }
+
+    /**
+     * Returns the x address column. Only the first {@link #getSize()} entries
+     * are valid.
+     *
+     * @return the x addresses
+     */
+    public short[] getXs() {
+        commitPendingOutput();
+        return xs;
+    }
+
+    /**
+     * Returns the y address column. Only the first {@link #getSize()} entries
+     * are valid.
+     *
+     * @return the y addresses
+     */
+    public short[] getYs() {
+        commitPendingOutput();
+        return ys;
+    }
+
+    /**
+     * Returns the type column, e.g. the polarity as 0 (OFF) or 1 (ON). Only the
+     * first {@link #getSize()} entries are valid.
+     *
+     * @return the types
+     */
+    public byte[] getTypes() {
+        commitPendingOutput();
+        return types;
+    }
+
+    /**
+     * Is event i flagged to be skipped in iteration?
+     *
+     * @param i the event index
+     * @return true if filtered out
+     */
+    public boolean isFilteredOut(final int i) {
+        commitPendingOutput();
+        return filteredOut.get(i);
+    }
+
+    /**
+     * Flags event i to be skipped in iteration.
+     *
+     * @param i the event index
+     * @param yes true to filter it out
+     */
+    public void setFilteredOut(final int i, final boolean yes) {
+        commitPendingOutput();
+        filteredOut.set(i, yes);
+    }
+
+    /**
+     * Is event i a special event?
+     *
+     * @param i the event index
+     * @return true if special
+     */
+    public boolean isSpecial(final int i) {
+        commitPendingOutput();
+        return special.get(i);
+    }
+
+    /**
+     * Flags event i as special event.
+     *
+     * @param i the event index
+     * @param yes true for special event
+     */
+    public void setSpecial(final int i, final boolean yes) {
+        commitPendingOutput();
+        special.set(i, yes);
+    }
+
+    /**
+     * Copies the fields of event i into the target event.
+     *
+     * @param i the event index
+     * @param e the target event
+     */
+    public void copyEventTo(final int i, final BasicEvent e) {
+        commitPendingOutput();
+        load(i, e);
+    }
+
+    /**
+     * Copies all events of this packet (including the filteredOut ones) into a
+     * conventional object packet, e.g. for code that needs to keep event
+     * references or reads <code>elementData</code> directly.
+     *
+     * @param target the packet to write to; it is cleared first
+     * @return the target packet
+     */
+    public EventPacket<E> toEventPacket(final EventPacket<E> target) {
+        commitPendingOutput();
+        final OutputEventIterator<E> outItr = target.outputIterator();
+        for (int i = 0; i < size; i++) {
+            final E e = outItr.nextOutput();
+            load(i, e);
+        }
+        return target;
+    }
+
+    /**
+     * Not supported, because there are no event objects that could be written
+     * through. Use the columns, {@link #copyEventTo(int, BasicEvent)} or
+     * {@link #toEventPacket(EventPacket)} instead.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public E[] getElementData() {
+        throw new UnsupportedOperationException("ColumnarEventPacket does not hold event objects, use toEventPacket");
+    }
+
+    @Override
+    public void setElementData(final E[] elementData) {
+        throw new UnsupportedOperationException("ColumnarEventPacket does not hold event objects");
+    }
+
+    /**
+     * Loads the fields of event i into the event e.
+     */
+    private void load(final int i, final BasicEvent e) {
+        e.setSpecial(special.get(i)); // sets the special bit of the address, so assign address afterwards
+        e.timestamp = timestamps[i];
+        e.address = addresses[i];
+        e.x = xs[i];
+        e.y = ys[i];
+        e.setFilteredOut(filteredOut.get(i));
+        if (e instanceof TypedEvent) {
+            final byte t = types[i];
+            ((TypedEvent) e).type = t;
+            if (e instanceof PolarityEvent) {
+                ((PolarityEvent) e).polarity = t == 0 ? PolarityEvent.Polarity.Off : PolarityEvent.Polarity.On;
+            }
+        }
+    }
+
+    /**
+     * Stores the fields of event e into slot i. For PolarityEvent the polarity
+     * field takes precedence over a binary type field.
+     */
+    private void store(final int i, final BasicEvent e) {
+        timestamps[i] = e.timestamp;
+        addresses[i] = e.address;
+        xs[i] = e.x;
+        ys[i] = e.y;
+        special.set(i, e.isSpecial());
+        filteredOut.set(i, e.isFilteredOut());
+        if (e instanceof PolarityEvent) {
+            final PolarityEvent pe = (PolarityEvent) e;
+            types[i] = pe.type > 1 ? pe.type : (byte) pe.getType();
+        } else if (e instanceof TypedEvent) {
+            types[i] = ((TypedEvent) e).type;
+        } else {
+            types[i] = 0;
+        }
+    }
+
+    /**
+     * Writes back the flyweight last returned by the output iterator.
+     */
+    private void commitPendingOutput() {
+        if (pendingOutputIndex >= 0) {
+            store(pendingOutputIndex, outputFlyweight);
+            pendingOutputIndex = -1;
+        }
+    }
+
+    @Override
+    public EventPacket<E> constructNewPacket() {
+        return new ColumnarEventPacket<>(getEventClass());
+    }
+
+    @Override
+    public Iterator<E> inputIterator() {
+        commitPendingOutput();
+        if (inputIterator == null || !(inputIterator instanceof ColumnarEventPacket.ColumnInItr)) {
+            inputIterator = new ColumnInItr();
+        } else {
+            inputIterator.reset();
+        }
+        filteredOutCount = 0;
+        return inputIterator;
+    }
+
+    @Override
+    public OutputEventIterator<E> outputIterator() {
+        final OutputEventIterator<E> itr = getOutputIterator();
+        ((ColumnOutItr) itr).reset();
+        return itr;
+    }
+
+    private ColumnOutItr columnOutputIterator = null;
+
+    @Override
+    public OutputEventIterator<E> getOutputIterator() {
+        if (columnOutputIterator == null) {
+            columnOutputIterator = new ColumnOutItr();
+        }
+        return columnOutputIterator;
+    }
+
+    /**
+     * Returns the k'th event as the output flyweight. The returned object is
+     * reused and its modifications are written back to the packet.
+     *
+     * @throws ArrayIndexOutOfBoundsException if out of bounds of packet.
+     */
+    @Override
+    public E getEvent(final int k) {
+        if (k >= size) {
+            throw new ArrayIndexOutOfBoundsException();
+        }
+        commitPendingOutput();
+        load(k, outputFlyweight);
+        pendingOutputIndex = k;
+        return outputFlyweight;
+    }
+
+    @Override
+    public E getFirstEvent() {
+        if (size == 0) {
+            return null;
+        }
+        return getEvent(0);
+    }
+
+    @Override
+    public E getLastEvent() {
+        if (size == 0) {
+            return null;
+        }
+        return getEvent(size - 1);
+    }
+
+    @Override
+    public int getFirstTimestamp() {
+        commitPendingOutput();
+        return timestamps[0];
+    }
+
+    @Override
+    public int getLastTimestamp() {
+        final int s = size;
+        if (s == 0) {
+            log.warning("called getLastTimestamp on empty packet, returning previous getLastTimestamp() value");
+            return lastTimestamp;
+        }
+        commitPendingOutput();
+        lastTimestamp = timestamps[s - 1];
+        return lastTimestamp;
+    }
+
+    @Override
+    public void appendCopy(final E event) {
+        final int i = append(event.timestamp, event.address, event.x, event.y, (byte) 0);
+        store(i, event);
+        filteredOut.clear(i);
+    }
+
+    @Override
+    public void appendCopy(final EventPacket<E> packet) {
+        commitPendingOutput();
+        if (packet instanceof ColumnarEventPacket) {
+            final ColumnarEventPacket<E> c = (ColumnarEventPacket<E>) packet;
+            c.commitPendingOutput();
+            final int n = c.size;
+            allocate(size + n);
+            System.arraycopy(c.timestamps, 0, timestamps, size, n);
+            System.arraycopy(c.addresses, 0, addresses, size, n);
+            System.arraycopy(c.xs, 0, xs, size, n);
+            System.arraycopy(c.ys, 0, ys, size, n);
+            System.arraycopy(c.types, 0, types, size, n);
+            for (int i = 0; i < n; i++) {
+                filteredOut.set(size + i, c.filteredOut.get(i));
+                special.set(size + i, c.special.get(i));
+            }
+            size += n;
+        } else {
+            allocate(size + packet.size);
+            for (int i = 0; i < packet.size; i++) {
+                store(size++, packet.elementData[i]);
+            }
+        }
+    }
+
+    /**
+     * Sorts the events by ascending timestamp. The sort is stable, i.e. events
+     * with equal timestamps keep their order.
+     */
+    @Override
+    public void sortByTimeStamp() {
+        commitPendingOutput();
+        final int n = size;
+        if (n < 2) {
+            return;
+        }
+        final long[] keys = new long[n];
+        boolean sorted = true;
+        for (int i = 0; i < n; i++) {
+            keys[i] = ((long) timestamps[i] << 32) | i;
+            if (i > 0 && timestamps[i] < timestamps[i - 1]) {
+                sorted = false;
+            }
+        }
+        if (sorted) {
+            return;
+        }
+        Arrays.sort(keys);
+        final int[] ts = new int[columnCapacity], as = new int[columnCapacity];
+        final short[] nx = new short[columnCapacity], ny = new short[columnCapacity];
+        final byte[] nt = new byte[columnCapacity];
+        final BitSet nf = new BitSet(n), ns = new BitSet(n);
+        for (int j = 0; j < n; j++) {
+            final int i = (int) keys[j];
+            ts[j] = timestamps[i];
+            as[j] = addresses[i];
+            nx[j] = xs[i];
+            ny[j] = ys[i];
+            nt[j] = types[i];
+            nf.set(j, filteredOut.get(i));
+            ns.set(j, special.get(i));
+        }
+        timestamps = ts;
+        addresses = as;
+        xs = nx;
+        ys = ny;
+        types = nt;
+        filteredOut = nf;
+        special = ns;
+    }
+
+    @Override
+    public String toString() {
+        return "ColumnarEventPacket #" + hashCode() + " holding " + getEventClass().getSimpleName() + " with size=" + getSize() + " capacity="
+                + columnCapacity + " filteredOutCount=" + filteredOutCount;
+    }
+
+    /**
+     * Input iterator handing out a flyweight event loaded from the columns.
+     * Modifications of the flyweight are written back when the iterator is
+     * advanced or reaches the end of the packet.
+     */
+    public class ColumnInItr extends InItr {
+
+        private final E flyweight = constructFlyweight();
+        private int loaded = -1;
+
+        protected ColumnInItr() {
+            super();
+        }
+
+        private void writeBack() {
+            if (loaded >= 0) {
+                store(loaded, flyweight);
+                loaded = -1;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            writeBack();
+            while (cursor < size && filteredOut.get(cursor)) {
+                filteredOutCount++;
+                cursor++;
+            }
+            return cursor < size;
+        }
+
+        @Override
+        public E next() {
+            writeBack();
+            load(cursor, flyweight);
+            loaded = cursor++;
+            return flyweight;
+        }
+
+        @Override
+        public void reset() {
+            // called from the InItr constructor before the fields are initialized
+            if (flyweight != null) {
+                writeBack();
+            }
+            cursor = 0;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("use setFilteredOut on the event instead");
+        }
+
+        @Override
+        public String toString() {
+            return "ColumnInItr cursor=" + cursor + " for packet with size=" + size;
+        }
+    }
+
+    /**
+     * Output iterator that writes to the columns. {@link #nextOutput()}
+     * returns a flyweight that is stored to its slot on the next call to the
+     * iterator or on the next read of the packet.
+     */
+    public class ColumnOutItr implements OutputEventIterator<E> {
+
+        protected ColumnOutItr() {
+            reset();
+        }
+
+        @Override
+        public E nextOutput() {
+            final int i = append(0, 0, (short) 0, (short) 0, (byte) 0);
+            outputFlyweight.reset();
+            if (outputFlyweight instanceof ApsDvsEvent) {
+                ((ApsDvsEvent) outputFlyweight).setReadoutType(ApsDvsEvent.ReadoutType.DVS);
+            }
+            pendingOutputIndex = i;
+            return outputFlyweight;
+        }
+
+        @Override
+        public void writeToNextOutput(final E event) {
+            appendCopy(event);
+        }
+
+        /**
+         * Sets the packet size to zero, without changing capacity.
+         */
+        public void reset() {
+            clear();
+        }
+
+        @Override
+        public String toString() {
+            return "ColumnOutItr with size=" + size + " and capacity=" + columnCapacity;
+        }
+    }
+}
@@ -315,7 +315,7 @@ public class EventPacket<E extends BasicEvent> implements /* EventPacketInterfac
      *
      * @throws ArrayIndexOutOfBoundsException if out of bounds of packet.
      */
-    final public E getEvent(final int k) {
+    public E getEvent(final int k) {
         if (k >= size) {
             throw new ArrayIndexOutOfBoundsException();
         }
@@ -357,7 +357,7 @@ public class EventPacket<E extends BasicEvent> implements /* EventPacketInterfac
      * @return the iterator. Use it to obtain new output events which can be
      * then copied from other events or modified.
      */
-    final public OutputEventIterator<E> outputIterator() {
+    public OutputEventIterator<E> outputIterator() {
         if (outputIterator == null) {
             outputIterator = new OutItr();
         } else {
@@ -653,6 +653,15 @@ public class EventPacket<E extends BasicEvent> implements /* EventPacketInterfac
         if (packet.getEventClass() != getEventClass()) {
             EventPacket.log.warning("Trying to merge packets that contain different events types");
         }
+        if (packet instanceof ColumnarEventPacket) { // it holds no event objects to share
+            final ColumnarEventPacket<E> c = (ColumnarEventPacket<E>) packet;
+            final int n = c.getSize();
+            allocate(size + n);
+            for (int i = 0; i < n; i++) {
+                c.copyEventTo(i, elementData[size++]);
+            }
+            return;
+        }
         final E[] newData = packet.getElementData();
         final Object oldData[] = elementData;
         allocate(size + packet.size);
@@ -961,7 +970,9 @@ public class EventPacket<E extends BasicEvent> implements /* EventPacketInterfac
 //        return timeLimitTimer.isTimedOut();
 //    }
     /**
-     * Returns the element data.
+     * Returns the element data. Writes to the events in the array change the
+     * packet. A {@link ColumnarEventPacket} has no element data and throws
+     * UnsupportedOperationException.
      *
      * @return the underlying element data
      */
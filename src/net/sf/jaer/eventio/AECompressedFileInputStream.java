@@ -0,0 +1,331 @@
+/*
+ * AECompressedFileInputStream.java
+ *
+ * Copyright (C) 2026 jAER project.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ */
+package net.sf.jaer.eventio;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import net.sf.jaer.chip.AEChip;
+import net.sf.jaer.util.EngineeringFormat;
+
+/**
+ * Reads compressed columnar AEDAT files written by
+ * {@link AECompressedFileOutputStream}, see {@link AECompressedFormat}. Blocks
+ * are decompressed as they are reached; the block index gives the position and
+ * time range of every block so that positioning and seeking by time only
+ * decompress the block that is needed.
+ *
+ * @author agent
+ */
+public class AECompressedFileInputStream extends AbstractBlockFileInputStream {
+
+    private final FileInputStream fileInputStream;
+    private final FileChannel channel;
+    private final ArrayList<String> header = new ArrayList<>();
+
+    // block index
+    private int numBlocks = 0;
+    private long[] blockOffset = new long[0], blockStart = new long[0];
+    private int[] blockNumEvents = new int[0], blockFirstTs = new int[0], blockLastTs = new int[0];
+
+    // decoded block
+    private final AECompressedFormat.Decoder decoder = new AECompressedFormat.Decoder();
+    private static final String AECHIP_HEADER = "AEChip:";
+    private int loadedBlock = -1;
+    private int[] blockAddr = new int[0], blockTs = new int[0];
+    private byte[] payload = new byte[0];
+
+    /**
+     * Opens a file and reads its header and block index.
+     *
+     * @param f the file
+     * @param chip the chip the file is played with; a warning is logged if
+     * the header names another chip class
+     * @throws IOException if the file cannot be read or is not a compressed
+     * AEDAT file
+     */
+    public AECompressedFileInputStream(File f, AEChip chip) throws IOException {
+        super(f);
+        fileInputStream = new FileInputStream(f);
+        channel = fileInputStream.getChannel();
+        final long dataStart = readHeader();
+        if (header.isEmpty() || !header.get(0).equals(AEDataFile.DATA_FILE_FORMAT_HEADER + AECompressedFormat.DATA_FILE_VERSION_NUMBER)) {
+            close();
+            throw new IOException(f + " is not a compressed AEDAT file, first header line is " + (header.isEmpty() ? "missing" : header.get(0)));
+        }
+        warnIfRecordedWithOtherChip(chip);
+        if (!readIndex()) {
+            log.warning(f + " has no block index, probably the recording was not closed; scanning the blocks");
+            scanBlocks(dataStart);
+        }
+        blockStart = new long[numBlocks + 1];
+        int maxBlockEvents = 0;
+        for (int b = 0; b < numBlocks; b++) {
+            blockStart[b + 1] = blockStart[b] + blockNumEvents[b];
+            maxBlockEvents = Math.max(maxBlockEvents, blockNumEvents[b]);
+        }
+        numEvents = blockStart[numBlocks];
+        blockAddr = new int[maxBlockEvents];
+        blockTs = new int[maxBlockEvents];
+        initTimestamps(numBlocks > 0 ? blockFirstTs[0] : 0, numBlocks > 0 ? blockLastTs[numBlocks - 1] : 0);
+    }
+
+    /**
+     * Reads the '#' header lines.
+     *
+     * @return the offset of the first block
+     */
+    private long readHeader() throws IOException {
+        final InputStream in = new BufferedInputStream(new FileInputStream(getFile()));
+        long offset = 0;
+        try {
+            final ByteArrayOutputStream line = new ByteArrayOutputStream();
+            int c;
+            while (true) {
+                in.mark(1);
+                c = in.read();
+                if (c != AEDataFile.COMMENT_CHAR) {
+                    break;
+                }
+                offset++;
+                line.reset();
+                while (((c = in.read()) >= 0) && (c != '\n')) {
+                    offset++;
+                    if (c != '\r') {
+                        line.write(c);
+                    }
+                }
+                if (c < 0) {
+                    break;
+                }
+                offset++;
+                final String s = line.toString("US-ASCII");
+                header.add(s);
+                if (s.startsWith(AEDataFile.DATA_START_TIME_SYSTEMCURRENT_TIME_MILLIS)) {
+                    try {
+                        absoluteStartingTimeMs = Long.parseLong(s.substring(AEDataFile.DATA_START_TIME_SYSTEMCURRENT_TIME_MILLIS.length()).trim());
+                    } catch (NumberFormatException e) {
+                        log.warning("could not parse data start time from " + s);
+                    }
+                }
+                if (s.equals(AEDataFile.END_OF_HEADER_STRING)) {
+                    break;
+                }
+            }
+        } finally {
+            in.close();
+        }
+        return offset;
+    }
+
+    /**
+     * Logs a warning if the AEChip header line, written by
+     * {@link AEChip#writeAdditionalAEFileOutputStreamHeader}, names another class than the chip.
+     */
+    private void warnIfRecordedWithOtherChip(AEChip chip) {
+        if (chip == null) {
+            return;
+        }
+        for (String s : header) {
+            final String t = s.trim();
+            if (t.startsWith(AECHIP_HEADER)) {
+                final String recorded = t.substring(AECHIP_HEADER.length()).trim();
+                if (!recorded.equals(chip.getClass().getName())) {
+                    log.warning(getFile() + " was recorded with " + recorded + " but is played with " + chip.getClass().getName());
+                }
+                return;
+            }
+        }
+    }
+
+    private boolean readIndex() throws IOException {
+        final long size = channel.size();
+        if (size < AECompressedFormat.TRAILER_BYTES) {
+            return false;
+        }
+        final ByteBuffer trailer = read(size - AECompressedFormat.TRAILER_BYTES, AECompressedFormat.TRAILER_BYTES);
+        final long indexOffset = trailer.getLong();
+        if ((trailer.getInt() != AECompressedFormat.TRAILER_MAGIC) || (indexOffset < 0) || (indexOffset >= size)) {
+            return false;
+        }
+        final ByteBuffer h = read(indexOffset, 2 * (Integer.SIZE / 8));
+        if (h.getInt() != AECompressedFormat.INDEX_MAGIC) {
+            return false;
+        }
+        final int n = h.getInt();
+        final ByteBuffer b = read(indexOffset + (2 * (Integer.SIZE / 8)), n * AECompressedFormat.INDEX_ENTRY_BYTES);
+        allocateIndex(n);
+        for (int i = 0; i < n; i++) {
+            addBlock(b.getLong(), b.getInt(), b.getInt(), b.getInt());
+        }
+        return true;
+    }
+
+    private void scanBlocks(long offset) throws IOException {
+        final long size = channel.size();
+        allocateIndex(1024);
+        while ((offset + AECompressedFormat.BLOCK_HEADER_BYTES) <= size) {
+            final ByteBuffer h = read(offset, AECompressedFormat.BLOCK_HEADER_BYTES);
+            if (h.getInt() != AECompressedFormat.BLOCK_MAGIC) {
+                break;
+            }
+            final int n = h.getInt(), first = h.getInt(), last = h.getInt(), len = h.getInt();
+            if ((offset + AECompressedFormat.BLOCK_HEADER_BYTES + len) > size) {
+                log.warning("last block at " + offset + " is incomplete, ignoring it");
+                break;
+            }
+            addBlock(offset, n, first, last);
+            offset += AECompressedFormat.BLOCK_HEADER_BYTES + len;
+        }
+    }
+
+    private void allocateIndex(int capacity) {
+        blockOffset = new long[capacity];
+        blockNumEvents = new int[capacity];
+        blockFirstTs = new int[capacity];
+        blockLastTs = new int[capacity];
+        numBlocks = 0;
+    }
+
+    private void addBlock(long offset, int n, int first, int last) {
+        if (numBlocks == blockOffset.length) {
+            final int c = Math.max(16, 2 * numBlocks);
+            blockOffset = Arrays.copyOf(blockOffset, c);
+            blockNumEvents = Arrays.copyOf(blockNumEvents, c);
+            blockFirstTs = Arrays.copyOf(blockFirstTs, c);
+            blockLastTs = Arrays.copyOf(blockLastTs, c);
+        }
+        blockOffset[numBlocks] = offset;
+        blockNumEvents[numBlocks] = n;
+        blockFirstTs[numBlocks] = first;
+        blockLastTs[numBlocks] = last;
+        numBlocks++;
+    }
+
+    private ByteBuffer read(long offset, int length) throws IOException {
+        final ByteBuffer b = ByteBuffer.allocate(length);
+        while (b.hasRemaining()) {
+            if (channel.read(b, offset + b.position()) < 0) {
+                throw new EOFException("end of " + getFile() + " at " + (offset + b.position()));
+            }
+        }
+        b.flip();
+        return b;
+    }
+
+    @Override
+    protected void loadBlock(int b) throws IOException {
+        if (b == loadedBlock) {
+            return;
+        }
+        final ByteBuffer h = read(blockOffset[b], AECompressedFormat.BLOCK_HEADER_BYTES);
+        if (h.getInt() != AECompressedFormat.BLOCK_MAGIC) {
+            throw new IOException("no block at offset " + blockOffset[b] + " of " + getFile());
+        }
+        final int n = h.getInt(), first = h.getInt();
+        h.getInt();
+        final int len = h.getInt();
+        if (payload.length < len) {
+            payload = new byte[len];
+        }
+        final ByteBuffer p = ByteBuffer.wrap(payload, 0, len);
+        while (p.hasRemaining()) {
+            if (channel.read(p, blockOffset[b] + AECompressedFormat.BLOCK_HEADER_BYTES + p.position()) < 0) {
+                throw new EOFException("end of " + getFile() + " in block " + b);
+            }
+        }
+        decoder.decode(payload, len, n, first, blockAddr, blockTs);
+        loadedBlock = b;
+    }
+
+    @Override
+    protected int blockOf(long pos) {
+        int b = Arrays.binarySearch(blockStart, 0, numBlocks + 1, pos);
+        if (b < 0) {
+            b = -b - 2;
+        }
+        return Math.max(0, Math.min(b, numBlocks - 1));
+    }
+
+    @Override
+    protected long getBlockStart(int b) {
+        return blockStart[b];
+    }
+
+    @Override
+    protected int getBlockNumEvents(int b) {
+        return blockNumEvents[b];
+    }
+
+    @Override
+    protected int[] getBlockAddresses() {
+        return blockAddr;
+    }
+
+    @Override
+    protected int[] getBlockTimestamps() {
+        return blockTs;
+    }
+
+    /**
+     * Uses the block index to find the block.
+     */
+    @Override
+    protected long findTimestamp(int raw) throws IOException {
+        int b = 0;
+        while ((b < (numBlocks - 1)) && ((blockLastTs[b] - raw) < 0)) { // blocks are few, search linearly to cope with wraps
+            b++;
+        }
+        loadBlock(b);
+        int i = 0;
+        while ((i < (blockNumEvents[b] - 1)) && ((blockTs[i] - raw) < 0)) {
+            i++;
+        }
+        return blockStart[b] + i;
+    }
+
+    @Override
+    synchronized public void close() throws IOException {
+        decoder.end();
+        channel.close();
+        fileInputStream.close();
+    }
+
+    /**
+     * @return the header lines, without the leading '#'
+     */
+    public ArrayList<String> getHeader() {
+        return header;
+    }
+
+    /**
+     * @return the number of compressed blocks
+     */
+    public int getNumBlocks() {
+        return numBlocks;
+    }
+
+    @Override
+    public String toString() {
+        final EngineeringFormat fmt = new EngineeringFormat();
+        return "AECompressedFileInputStream with size=" + fmt.format(size()) + " events in " + numBlocks + " blocks, firstTimestamp="
+                + getFirstTimestamp() + " lastTimestamp=" + getLastTimestamp() + " duration=" + fmt.format(getDurationUs() / 1e6f) + "s";
+    }
+}
\ No newline at end of file
@@ -0,0 +1,164 @@
+/*
+ * AECompressedFileOutputStream.java
+ *
+ * Copyright (C) 2026 jAER project.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ */
+package net.sf.jaer.eventio;
+
+import java.io.OutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.zip.Deflater;
+
+import net.sf.jaer.aemonitor.AEPacketRaw;
+import net.sf.jaer.chip.AEChip;
+
+/**
+ * Writes events to a compressed columnar AEDAT file, see
+ * {@link AECompressedFormat}. The header is the same as that of
+ * {@link AEFileOutputStream}; events are collected into blocks that are
+ * compressed and written when full, and the block index is written on
+ * {@link #close()}.
+ *
+ * @author agent
+ */
+public class AECompressedFileOutputStream extends AEFileOutputStream {
+
+    private final int blockEvents;
+    private final int[] blockAddr, blockTs;
+    private int blockCount = 0;
+    private final AECompressedFormat.Encoder encoder;
+    private ByteBuffer index = ByteBuffer.allocate(1024 * AECompressedFormat.INDEX_ENTRY_BYTES);
+    private int numBlocks = 0, numBlocksDropped = 0;
+    private long compressedBytes = 0;
+    private ByteBuffer blockBuf = ByteBuffer.allocate(0);
+    private boolean closed = false;
+
+    /**
+     * Creates the stream and writes the header.
+     *
+     * @param os the file output stream, or an AsyncFileWriter
+     * @param chip the chip, which writes its preferences into the header
+     * @throws IOException if the header cannot be written
+     */
+    public AECompressedFileOutputStream(OutputStream os, AEChip chip) throws IOException {
+        this(os, chip, AECompressedFormat.DEFAULT_BLOCK_EVENTS, Deflater.BEST_SPEED);
+    }
+
+    /**
+     * Creates the stream and writes the header.
+     *
+     * @param os the file output stream, or an AsyncFileWriter
+     * @param chip the chip, which writes its preferences into the header
+     * @param blockEvents the number of events per block
+     * @param level the Deflater compression level, e.g.
+     * Deflater.BEST_SPEED
+     * @throws IOException if the header cannot be written
+     */
+    public AECompressedFileOutputStream(OutputStream os, AEChip chip, int blockEvents, int level) throws IOException {
+        super(os, chip, AECompressedFormat.DATA_FILE_VERSION_NUMBER);
+        this.blockEvents = blockEvents;
+        blockAddr = new int[blockEvents];
+        blockTs = new int[blockEvents];
+        encoder = new AECompressedFormat.Encoder(level);
+    }
+
+    @Override
+    protected String getDataFormatHeaderLine() {
+        return " Data format is compressed columnar blocks of int32 address, int32 timestamp, see net.sf.jaer.eventio.AECompressedFormat";
+    }
+
+    /**
+     * Appends the events of a packet to the present block, writing blocks as
+     * they fill up.
+     *
+     * @param ae a raw address-event packet
+     * @throws IOException if a block cannot be written
+     */
+    @Override
+    public void writePacket(AEPacketRaw ae) throws IOException {
+        if ((ae == null) || (ae.getNumEvents() == 0)) {
+            return;
+        }
+        final int n = ae.getNumEvents();
+        final int[] addr = ae.getAddresses(), ts = ae.getTimestamps();
+        int i = 0;
+        while (i < n) {
+            final int k = Math.min(n - i, blockEvents - blockCount);
+            System.arraycopy(addr, i, blockAddr, blockCount, k);
+            System.arraycopy(ts, i, blockTs, blockCount, k);
+            blockCount += k;
+            i += k;
+            if (blockCount == blockEvents) {
+                writeBlock();
+            }
+        }
+        wrotePacket = true;
+    }
+
+    private void writeBlock() throws IOException {
+        if (blockCount == 0) {
+            return;
+        }
+        final int len = encoder.encode(blockAddr, blockTs, blockCount);
+        final long offset = getDataPosition();
+        if (blockBuf.capacity() < AECompressedFormat.BLOCK_HEADER_BYTES + len) {
+            blockBuf = ByteBuffer.allocate(2 * (AECompressedFormat.BLOCK_HEADER_BYTES + len));
+        }
+        blockBuf.clear();
+        blockBuf.putInt(AECompressedFormat.BLOCK_MAGIC).putInt(blockCount).putInt(blockTs[0]).putInt(blockTs[blockCount - 1]).putInt(len);
+        blockBuf.put(encoder.getOutput(), 0, len);
+        blockBuf.flip();
+        if (!writeData(blockBuf)) { // block header and data are written together, so a dropped block leaves no trace
+            numBlocksDropped++;
+            blockCount = 0;
+            return;
+        }
+        if (index.remaining() < AECompressedFormat.INDEX_ENTRY_BYTES) {
+            final ByteBuffer b = ByteBuffer.allocate(2 * index.capacity());
+            index.flip();
+            b.put(index);
+            index = b;
+        }
+        index.putLong(offset).putInt(blockCount).putInt(blockTs[0]).putInt(blockTs[blockCount - 1]);
+        numBlocks++;
+        eventCounter += blockCount;
+        compressedBytes += AECompressedFormat.BLOCK_HEADER_BYTES + len;
+        blockCount = 0;
+    }
+
+
+    /**
+     * Writes the last block, the block index and the trailer, and closes the
+     * file.
+     *
+     * @throws IOException if the file cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            writeBlock();
+            final long indexOffset = getDataPosition();
+            index.flip();
+            final ByteBuffer end = ByteBuffer.allocate(2 * (Integer.SIZE / 8) + index.remaining() + AECompressedFormat.TRAILER_BYTES);
+            end.putInt(AECompressedFormat.INDEX_MAGIC).putInt(numBlocks);
+            end.put(index);
+            end.putLong(indexOffset).putInt(AECompressedFormat.TRAILER_MAGIC);
+            end.flip();
+            if (!writeData(end)) {
+                log.warning("index could not be written; the blocks will be scanned when the file is opened");
+            }
+            encoder.end();
+            log.info(String.format("wrote %d blocks, %.2f bytes/event%s", numBlocks,
+                    eventCounter == 0 ? 0f : (float) compressedBytes / eventCounter,
+                    numBlocksDropped == 0 ? "" : ", dropped " + numBlocksDropped + " blocks"));
+        }
+        super.close();
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * AECompressedFormat.java
+ *
+ * Copyright (C) 2026 jAER project.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ */
+package net.sf.jaer.eventio;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Definitions and block codec of the compressed columnar AEDAT format written
+ * by {@link AECompressedFileOutputStream} and read by
+ * {@link AECompressedFileInputStream}.
+ * <p>
+ * After the usual ASCII header, whose first line is
+ * <code>#!AER-DATZ1.0</code>, the file holds a sequence of blocks followed by
+ * a block index. All numbers are big endian.
+ * <pre>
+ * block:   int BLOCK_MAGIC, int numEvents, int firstTimestamp, int lastTimestamp,
+ *          int compressedLength, byte[compressedLength] deflated payload
+ * payload: numEvents-1 timestamp differences as zigzag varints,
+ *          then the addresses XORed with the previous address, as 4 byte planes
+ *          of numEvents bytes each, most significant plane first
+ * index:   int INDEX_MAGIC, int numBlocks,
+ *          numBlocks times: long blockOffset, int numEvents, int firstTimestamp, int lastTimestamp
+ * trailer: long indexOffset, int TRAILER_MAGIC
+ * </pre>
+ * Splitting the addresses into byte planes puts the bits that rarely change
+ * (event type, polarity and the high bits of x and y) into runs that the
+ * deflater compresses well. A file without trailer, e.g. from a recording that
+ * was not closed, is read by scanning the blocks.
+ *
+ * @author agent
+ */
+public final class AECompressedFormat {
+
+    /**
+     * File extension, including the dot
+     */
+    public static final String DATA_FILE_EXTENSION = AEDataFile.COMPRESSED_DATA_FILE_EXTENSION;
+    /**
+     * Format version, written after {@link AEDataFile#DATA_FILE_FORMAT_HEADER}
+     */
+    public static final String DATA_FILE_VERSION_NUMBER = "Z1.0";
+    /**
+     * Default number of events per block
+     */
+    public static final int DEFAULT_BLOCK_EVENTS = 1 << 16;
+    static final int BLOCK_MAGIC = 0x5a424c4b; // "ZBLK"
+    static final int INDEX_MAGIC = 0x5a494458; // "ZIDX"
+    static final int TRAILER_MAGIC = 0x5a454e44; // "ZEND"
+    static final int BLOCK_HEADER_BYTES = 5 * (Integer.SIZE / 8);
+    static final int TRAILER_BYTES = (Long.SIZE / 8) + (Integer.SIZE / 8);
+    static final int INDEX_ENTRY_BYTES = (Long.SIZE / 8) + (3 * (Integer.SIZE / 8));
+
+    private AECompressedFormat() {
+    }
+
+    /**
+     * Encodes and compresses one block of events.
+     */
+    static final class Encoder {
+
+        private final Deflater deflater;
+        private byte[] raw = new byte[0], out = new byte[0];
+
+        /**
+         * @param level the Deflater compression level
+         */
+        Encoder(int level) {
+            deflater = new Deflater(level);
+        }
+
+        /**
+         * Compresses events.
+         *
+         * @param addr addresses
+         * @param ts timestamps
+         * @param n number of events, at least 1
+         * @return the number of bytes of the payload in getOutput()
+         */
+        int encode(int[] addr, int[] ts, int n) {
+            final int maxRaw = (5 * (n - 1)) + (4 * n);
+            if (raw.length < maxRaw) {
+                raw = new byte[maxRaw];
+            }
+            int p = 0;
+            for (int i = 1; i < n; i++) {
+                final int dt = ts[i] - ts[i - 1];
+                int z = (dt << 1) ^ (dt >> 31);
+                while ((z & ~0x7f) != 0) {
+                    raw[p++] = (byte) ((z & 0x7f) | 0x80);
+                    z >>>= 7;
+                }
+                raw[p++] = (byte) z;
+            }
+            for (int plane = 3; plane >= 0; plane--) {
+                final int shift = plane * 8;
+                int prev = 0;
+                for (int i = 0; i < n; i++) {
+                    raw[p++] = (byte) ((addr[i] ^ prev) >>> shift);
+                    prev = addr[i];
+                }
+            }
+            if (out.length < (p + 64)) {
+                out = new byte[p + (p / 100) + 64];
+            }
+            deflater.reset();
+            deflater.setInput(raw, 0, p);
+            deflater.finish();
+            int len = 0;
+            while (!deflater.finished()) {
+                len += deflater.deflate(out, len, out.length - len);
+                if (len == out.length) {
+                    out = Arrays.copyOf(out, 2 * out.length);
+                }
+            }
+            return len;
+        }
+
+        byte[] getOutput() {
+            return out;
+        }
+
+        void end() {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Decompresses and decodes blocks.
+     */
+    static final class Decoder {
+
+        private final Inflater inflater = new Inflater();
+        private byte[] raw = new byte[0];
+
+        /**
+         * Decodes a block payload.
+         *
+         * @param payload compressed bytes
+         * @param length number of compressed bytes
+         * @param n number of events
+         * @param firstTimestamp the timestamp of the first event
+         * @param addr receives the addresses
+         * @param ts receives the timestamps
+         * @throws IOException if the payload is corrupt
+         */
+        void decode(byte[] payload, int length, int n, int firstTimestamp, int[] addr, int[] ts) throws IOException {
+            final int maxRaw = (5 * (n - 1)) + (4 * n);
+            if (raw.length < maxRaw) {
+                raw = new byte[maxRaw];
+            }
+            inflater.reset();
+            inflater.setInput(payload, 0, length);
+            int len = 0;
+            try {
+                while (!inflater.finished() && (len < raw.length)) {
+                    final int k = inflater.inflate(raw, len, raw.length - len);
+                    if ((k == 0) && (inflater.needsInput() || inflater.needsDictionary())) {
+                        break;
+                    }
+                    len += k;
+                }
+            } catch (DataFormatException e) {
+                throw new IOException("corrupt block: " + e.getMessage(), e);
+            }
+            int p = 0;
+            ts[0] = firstTimestamp;
+            for (int i = 1; i < n; i++) {
+                int z = 0, shift = 0, b;
+                do {
+                    if (p >= len) {
+                        throw new IOException("corrupt block: timestamps end at event " + i + " of " + n);
+                    }
+                    b = raw[p++];
+                    z |= (b & 0x7f) << shift;
+                    shift += 7;
+                } while ((b & 0x80) != 0);
+                ts[i] = ts[i - 1] + ((z >>> 1) ^ -(z & 1));
+            }
+            if ((p + (4 * n)) > len) {
+                throw new IOException("corrupt block: " + len + " bytes is too short for the addresses of " + n + " events");
+            }
+            Arrays.fill(addr, 0, n, 0);
+            for (int plane = 3; plane >= 0; plane--) {
+                final int shift = plane * 8;
+                for (int i = 0; i < n; i++) {
+                    addr[i] |= (raw[p++] & 0xff) << shift;
+                }
+            }
+            for (int i = 1; i < n; i++) {
+                addr[i] ^= addr[i - 1];
+            }
+        }
+
+        void end() {
+            inflater.end();
+        }
+    }
+}
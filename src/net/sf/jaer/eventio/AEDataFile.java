@@ -27,6 +27,8 @@ public interface AEDataFile {
     /** file extension for data files, including ".", e.g. ".aedat" */
     public static final String DATA_FILE_EXTENSION = ".aedat";  // changed from .dat Apr 2010
     public static final String OLD_DATA_FILE_EXTENSION=".dat";
+    /** file extension for compressed data files, including ".", see AECompressedFormat */
+    public static final String COMPRESSED_DATA_FILE_EXTENSION = ".aedatz";
     /** file extension for index files that contain information about a set of related data files, ".adidx", including '.'. */
     public static final String INDEX_FILE_EXTENSION = ".aeidx"; // changed from .dat Apr 2010
     public static final String OLD_INDEX_FILE_EXTENSION = ".index"; // changed from .dat Apr 2010
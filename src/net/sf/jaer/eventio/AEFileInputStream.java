@@ -34,10 +34,19 @@ import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.time.format.ResolverStyle;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.prefs.Preferences;
 
 import net.sf.jaer.aemonitor.AEPacketRaw;
 import net.sf.jaer.aemonitor.EventRaw;
@@ -98,6 +107,21 @@ import net.sf.jaer.util.EngineeringFormat;
  * zero at this point. (A timestamp offset is memorized and subtracted from
  * subsequent timestamps read from the file.) This allow synchronization using,
  * e.g. bit 15 of the address space.
+ * <p>
+ * <strong>Prefetching.</strong> If prefetching is enabled (see
+ * {@link #setPrefetchEnabled(boolean)}) the chunks following the current one
+ * are memory-mapped and loaded into physical memory by a background thread, so
+ * that the player does not stall on page faults at chunk boundaries, and
+ * packets of jAER 2.0 files are decoded in bulk straight from the mapped
+ * buffer into the packet arrays. Events that need special handling (zero
+ * timestamps, timestamp resets, non-monotonic or wrapped timestamps, the mark
+ * out and chunk boundaries) still go through the per-event path, so the packets
+ * are identical with and without prefetching.
+ * <p>
+ * <strong>Seeking by time.</strong> {@link #seekTimestamp(int)} positions the
+ * stream at a timestamp. For jAER 2.0 files with at least
+ * {@link #MIN_INDEXED_EVENTS} events it uses an {@link AEFileTimestampIndex}
+ * that is loaded or built on a background thread when the file is opened.
  *
  * @author tobi
  * @see net.sf.jaer.eventio.AEDataFile
@@ -124,6 +148,7 @@ public class AEFileInputStream extends DataInputStream implements AEFileInputStr
 
     private PropertyChangeSupport support = new PropertyChangeSupport(this);
     static Logger log = Logger.getLogger("net.sf.jaer.eventio");
+    private static final Preferences prefs = Preferences.userNodeForPackage(AEFileInputStream.class);
     private FileInputStream fileInputStream = null;
     long fileSize = 0; // size of file in bytes
     private File file = null;
@@ -200,6 +225,8 @@ public class AEFileInputStream extends DataInputStream implements AEFileInputStr
     private int timestampResetBitmask = 0; // used to memorize timestamp offset.
     private int timestampOffset = 0; // set by nonzero bitmask result on address to that events timestamp, subtracted
     // from all timestamps
+    private final TreeMap<Long, Integer> timestampResets = new TreeMap<>(); // raw timestamp of reset events by position, for positioning
+    private long timestampResetsScannedTo = 0; // all reset events before this position are in timestampResets
 
     /**
      * The AEChip object associated with this stream. This field was added for
@@ -214,6 +241,23 @@ public class AEFileInputStream extends DataInputStream implements AEFileInputStr
     private Jaer3BufferParser jaer3BufferParser = null; // if non-null, then we have a jaer 3 file
     private boolean jaer3EnableFlg = false; // jaer3 parse enable flag
 
+    /**
+     * Prefetching of chunks and bulk decoding of events, initially the
+     * preferred default
+     */
+    private boolean prefetchEnabled = isPrefetchEnabledByDefault();
+    private int prefetchChunks = prefs.getInt("AEFileInputStream.prefetchChunks", 2);
+    private ExecutorService prefetchExecutor = null;
+    private final TreeMap<Integer, Future<MappedByteBuffer>> prefetchedChunks = new TreeMap<>();
+
+    /**
+     * Files with fewer events than this are not indexed, since seeking by
+     * reading events is fast enough
+     */
+    public static final long MIN_INDEXED_EVENTS = 1 << 20;
+    private boolean timestampIndexEnabled = prefs.getBoolean("AEFileInputStream.timestampIndexEnabled", true);
+    private volatile AEFileTimestampIndex timestampIndex = null;
+
     private static AEChip LAST_CHIP = null; // It's a static value, so it will always store the last AEFileInputStream's chip
     private static EventExtractor2D LAST_EVENT_EXTRACTOR = null; // This value saves the last chip's extractor, it's always associated with the last chip
 
@@ -245,6 +289,33 @@ public class AEFileInputStream extends DataInputStream implements AEFileInputStr
         init(new FileInputStream(f));
 
         setFile(f);
+        if (timestampIndexEnabled) {
+            startTimestampIndex();
+        }
+    }
+
+    /**
+     * Loads or builds the timestamp index on a background thread. The index
+     * is used by seekTimestamp once it is complete.
+     */
+    private void startTimestampIndex() {
+        if (jaer3EnableFlg || (size() < MIN_INDEXED_EVENTS) || (getFile() == null)) {
+            return;
+        }
+        final AEFileTimestampIndex index = new AEFileTimestampIndex(getFile(), headerOffset, eventSizeBytes, AEFileTimestampIndex.DEFAULT_INTERVAL_EVENTS);
+        Thread t = new Thread(() -> {
+            try {
+                long start = System.currentTimeMillis();
+                index.update();
+                timestampIndex = index;
+                log.info("loaded " + index + " in " + (System.currentTimeMillis() - start) + " ms");
+            } catch (IOException e) {
+                log.warning("could not build timestamp index for " + getFile() + ": " + e);
+            }
+        }, "AEFileTimestampIndex");
+        t.setDaemon(true);
+        t.setPriority(Thread.MIN_PRIORITY);
+        t.start();
     }
 
     @Override
@@ -377,8 +448,6 @@ public class AEFileInputStream extends DataInputStream implements AEFileInputStr
         int lastTs = mostRecentTimestamp;
         int lastBufferPosition = 0;
 
-        ByteBuffer tmpEventBuffer = ByteBuffer.allocate(16); // TODO why allocate every time?
-
         // if(jaer3fileinputstream!=null){
         // return jaer3fileinputstream.readEventForwards();
         // }
@@ -401,12 +470,11 @@ public class AEFileInputStream extends DataInputStream implements AEFileInputStr
 
             if (jaer3EnableFlg) {
                 lastBufferPosition = byteBuffer.position();
-                tmpEventBuffer = jaer3BufferParser.getJaer2EventBuf();
-                int etypeValue = tmpEventBuffer.getInt();
-                etype = EventType.values()[etypeValue];
-                addr = tmpEventBuffer.getInt();
-                ts = tmpEventBuffer.getInt();
-                pixelData = tmpEventBuffer.getInt();
+                jaer3BufferParser.readNextEvent(tmpEvent);
+                etype = tmpEvent.eventtype;
+                addr = tmpEvent.address;
+                ts = tmpEvent.timestamp;
+                pixelData = tmpEvent.pixelData;
             } else {
                 if (addressType == Integer.TYPE) {
                     addr = byteBuffer.getInt();
@@ -425,13 +493,12 @@ public class AEFileInputStream extends DataInputStream implements AEFileInputStr
                 }
 
                 if (jaer3EnableFlg) {
-                    tmpEventBuffer = jaer3BufferParser.getJaer2EventBuf();
-                    tmpEventBuffer = jaer3BufferParser.getJaer2EventBuf();
-                    int etypeValue = tmpEventBuffer.getInt();
-                    etype = EventType.values()[etypeValue];
-                    addr = tmpEventBuffer.getInt();
-                    ts = tmpEventBuffer.getInt();
-                    pixelData = tmpEventBuffer.getInt();
+                    jaer3BufferParser.readNextEvent(tmpEvent);
+                    jaer3BufferParser.readNextEvent(tmpEvent);
+                    etype = tmpEvent.eventtype;
+                    addr = tmpEvent.address;
+                    ts = tmpEvent.timestamp;
+                    pixelData = tmpEvent.pixelData;
                 } else {
                     if (addressType == Integer.TYPE) {
                         addr = byteBuffer.getInt();
@@ -467,6 +534,8 @@ public class AEFileInputStream extends DataInputStream implements AEFileInputStr
                 if (jaer3EnableFlg) {
                     log.log(Level.INFO, "The current packet file position is {0} and current file position is {1}",
                             new Object[]{jaer3BufferParser.getCurrentPktPos(), byteBuffer.position()});
+                } else {
+                    position(position); // push back the event, it is returned by the next read
                 }
                 throw new WrappedTimeException(ts, mostRecentTimestamp, position);
                 // WrappedTimeException e = new WrappedTimeException(ts, mostRecentTimestamp, position);
@@ -486,6 +555,8 @@ public class AEFileInputStream extends DataInputStream implements AEFileInputStr
                 if (jaer3EnableFlg) {
                     log.log(Level.INFO, "The current packet file position is {0} and current file position is {1}",
                             new Object[]{jaer3BufferParser.getCurrentPktPos(), byteBuffer.position()});
+                } else {
+                    position(position);
                 }
                 // log.warning("AEInputStream.readEventForwards returned ts="+ts+" which goes backwards in time
                 // (mostRecentTimestamp="+mostRecentTimestamp+")");
@@ -518,6 +589,61 @@ public class AEFileInputStream extends DataInputStream implements AEFileInputStr
         }
     }
 
+    /**
+     * Decodes events of a jAER 2.0 file straight from the mapped buffer into
+     * the packet arrays. Decoding stops before an event that needs the
+     * per-event path of readEventForwards: the end of the chunk, the mark out,
+     * a zero timestamp, a timestamp reset address, a timestamp later than
+     * maxTimestamp or a timestamp that goes backwards (which includes wrapped
+     * time). Decoding also stops after an event with timestamp maxTimestamp.
+     *
+     * @param addr the address array
+     * @param ts the timestamp array
+     * @param from the index of the first event to write
+     * @param n the maximum number of events to decode
+     * @param maxTimestamp the latest timestamp that should be read
+     * @return the number of events decoded, possibly 0
+     */
+    private int readEventsForwardsBulk(int[] addr, int[] ts, int from, int n, int maxTimestamp) {
+        final MappedByteBuffer buf = byteBuffer;
+        if (jaer3EnableFlg || (buf == null) || (n <= 0)) {
+            return 0;
+        }
+        final long avail = Math.min(buf.remaining() / eventSizeBytes, markOut - position);
+        if (avail < n) {
+            n = (int) Math.max(0, avail);
+        }
+        if (n == 0) {
+            return 0;
+        }
+        final int bufPos = buf.position();
+        int last = mostRecentTimestamp;
+        int i = 0;
+        final boolean intAddress = addressType == Integer.TYPE;
+        final int tsOffset = eventSizeBytes - (Integer.SIZE / 8);
+        for (int p = bufPos; i < n; i++, p += eventSizeBytes) {
+            final int a = intAddress ? buf.getInt(p) : (buf.getShort(p) & 0xffff), t = buf.getInt(p + tsOffset);
+            if ((t == 0) || ((a & timestampResetBitmask) != 0)) {
+                break;
+            }
+            final int tt = t - timestampOffset;
+            if ((tt > maxTimestamp) || (tt < last)) {
+                break;
+            }
+            addr[from + i] = a;
+            ts[from + i] = tt;
+            last = tt;
+            if (tt == maxTimestamp) {
+                i++;
+                break;
+            }
+        }
+        buf.position(bufPos + (i * eventSizeBytes));
+        position += i;
+        mostRecentTimestamp = last;
+        return i;
+    }
+
     /**
      * Reads the next event backwards and leaves the position and byte buffer
      * pointing to event one earlier than the one we just read. I.e., we back
@@ -572,7 +698,13 @@ public class AEFileInputStream extends DataInputStream implements AEFileInputStr
             // with 0xFFFF
         }
 
+        if (timestampResetBitmask != 0) { // the offset of the event we read, then the one for reading it forwards again
+            timestampOffset = timestampOffsetBefore(newPos + 1);
+        }
         int ts = byteBuffer.getInt() - timestampOffset;
+        if (timestampResetBitmask != 0) {
+            timestampOffset = timestampOffsetBefore(newPos);
+        }
         byteBuffer.position((int) newBufPos);
         tmpEvent.address = addr;
         tmpEvent.timestamp = ts;
@@ -615,22 +747,43 @@ public class AEFileInputStream extends DataInputStream implements AEFileInputStr
         }
         int[] addr = packet.getAddresses();
         int[] ts = packet.getTimestamps();
+        EventType[] etypes = packet.getEventtypes(); // For jAER 3.0, no influence on jAER 2.0
+        int[] pixelDataArray = packet.getPixelDataArray();
         long oldPosition = position();
         EventRaw ev;
         int count = 0;
         try {
             if (n > 0) {
                 for (int i = 0; i < n; i++) {
-                    ev = readEventForwards();  // TODO since repeat is always true in existing code, then can never get null event right now TODO; fix this 
+                    if (prefetchEnabled) {
+                        int k = readEventsForwardsBulk(addr, ts, i, n - i, Integer.MAX_VALUE);
+                        if (k > 0) {
+                            Arrays.fill(etypes, i, i + k, EventType.PolarityEvent);
+                            Arrays.fill(pixelDataArray, i, i + k, 0);
+                            count += k;
+                            i += k - 1;
+                            currentStartTimestamp = ts[i];
+                            continue;
+                        }
+                    }
+                    ev = readEventForwards();
+                    if (ev == null) { // reached the mark out or end of file and repeat is false
+                        break;
+                    }
                     count++;
-                    addr[i] = ev.address; // could get null pointer exception here if repeat was false
+                    addr[i] = ev.address;
                     ts[i] = ev.timestamp;
+                    etypes[i] = ev.eventtype;
+                    pixelDataArray[i] = ev.pixelData;
                     currentStartTimestamp = ts[i];
                 }
             } else { // backwards
                 n = -n;
                 for (int i = 0; i < n; i++) {
-                    ev = readEventBackwards(); // TODO fix for repeat = false
+                    ev = readEventBackwards();
+                    if (ev == null) {
+                        break;
+                    }
                     count++;
                     addr[i] = ev.address;
                     ts[i] = ev.timestamp;
@@ -725,6 +878,17 @@ public class AEFileInputStream extends DataInputStream implements AEFileInputStr
             if (dt > 0) { // read forwards
                 if (!bigWrap) { // normal situation
                     do {
+                        if (prefetchEnabled) {
+                            int k = readEventsForwardsBulk(addr, ts, i, addr.length - i, endTimestamp);
+                            if (k > 0) {
+                                for (int j = i; j < (i + k); j++) {
+                                    etypes[j] = EventType.PolarityEvent;
+                                    pixelDataArray[j] = 0;
+                                }
+                                i += k;
+                                continue;
+                            }
+                        }
                         ae = readEventForwards(endTimestamp);
                         if (ae == null) {
                             break;
@@ -890,6 +1054,9 @@ public class AEFileInputStream extends DataInputStream implements AEFileInputStr
             byteBuffer.position((int) ((event * eventSizeBytes) % chunkSizeBytes));
 
             position = event;
+            if ((timestampResetBitmask != 0) && !jaer3EnableFlg) {
+                timestampOffset = timestampOffsetBefore(event);
+            }
         } catch (ClosedByInterruptException e3) {
             log.info("caught interrupt, probably from single stepping this file");
         } catch (ClosedChannelException cce) {
@@ -940,6 +1107,97 @@ public class AEFileInputStream extends DataInputStream implements AEFileInputStr
         }
     }
 
+    /**
+     * Positions the stream at the first event with timestamp at or after a
+     * timestamp, so that the next readPacketByTime starts there. The timestamp
+     * is taken relative to the present position: the stream moves by the
+     * difference to getMostRecentTimestamp, so that wrapped timestamps and
+     * timestamp resets are handled. With the timestamp index the seek reads at
+     * most a few index intervals of events; without it the stream reads
+     * forward from the present position, or from the IN mark when seeking
+     * backwards.
+     *
+     * @param timestamp the timestamp to seek to, in the units of
+     * getMostRecentTimestamp
+     * @return false if the stream cannot seek by time (jAER 3.0 files)
+     */
+    synchronized public boolean seekTimestamp(int timestamp) {
+        if (jaer3EnableFlg) {
+            return false;
+        }
+        final long oldPosition = position();
+        final int delta = timestamp - mostRecentTimestamp;
+        final AEFileTimestampIndex index = timestampIndex;
+        long start;
+        if (index != null) {
+            final long here = Math.max(0, position - 1); // the event that set mostRecentTimestamp
+            start = index.getPosition(index.getTime(here, mostRecentTimestamp + timestampOffset) + delta);
+        } else if (delta >= 0) {
+            start = position;
+        } else {
+            start = markIn;
+        }
+        start = Math.max(markIn, Math.min(start, markOut));
+        position(start);
+        int last = timestamp;
+        try {
+            // compare int differences so that the scan continues over wrapped timestamps
+            while (position < markOut) {
+                if (byteBuffer.remaining() < eventSizeBytes) {
+                    mapNextChunk();
+                    continue;
+                }
+                final int p = byteBuffer.position();
+                final int addr = addressType == Integer.TYPE ? byteBuffer.getInt(p) : (byteBuffer.getShort(p) & 0xffff);
+                final int raw = byteBuffer.getInt((p + eventSizeBytes) - (Integer.SIZE / 8));
+                if ((addr & timestampResetBitmask) != 0) {
+                    timestampOffset = raw;
+                }
+                final int ts = raw - timestampOffset;
+                if ((raw != 0) && ((ts - timestamp) >= 0)) {
+                    break;
+                }
+                byteBuffer.position(p + eventSizeBytes);
+                position++;
+                if (raw != 0) {
+                    last = ts;
+                }
+            }
+        } catch (IOException e) {
+            log.warning("seeking to timestamp " + timestamp + " stopped by " + e);
+        }
+        mostRecentTimestamp = last;
+        currentStartTimestamp = timestamp;
+        getSupport().firePropertyChange(AEInputStream.EVENT_POSITION, oldPosition, position());
+        return true;
+    }
+
+    /**
+     * @return the timestamp index, or null if there is none (yet)
+     */
+    public AEFileTimestampIndex getTimestampIndex() {
+        return timestampIndex;
+    }
+
+    /**
+     * @return true if files with at least MIN_INDEXED_EVENTS events are
+     * indexed when opened
+     */
+    public boolean isTimestampIndexEnabled() {
+        return timestampIndexEnabled;
+    }
+
+    /**
+     * Enables the timestamp index for files opened afterwards. The setting is
+     * stored in the preferences.
+     *
+     * @param timestampIndexEnabled true to index files
+     */
+    public void setTimestampIndexEnabled(boolean timestampIndexEnabled) {
+        this.timestampIndexEnabled = timestampIndexEnabled;
+        prefs.putBoolean("AEFileInputStream.timestampIndexEnabled", timestampIndexEnabled);
+    }
+
     /**
      * AEFileInputStream has PropertyChangeSupport. This support fires events on
      * certain events such as "rewind".
@@ -1102,6 +1360,7 @@ public class AEFileInputStream extends DataInputStream implements AEFileInputStr
     @Override
     public void close() throws IOException {
         super.close();
+        shutdownPrefetch();
         if (fileChannel != null) {
             if(getByteBuffer()!=null){
                 closeDirectBuffer(getByteBuffer());
@@ -1405,13 +1664,19 @@ public class AEFileInputStream extends DataInputStream implements AEFileInputStr
             }
             log.info("had to reopen fileChannel from fileInputStream");
         }
-        byteBuffer = fileChannel.map(FileChannel.MapMode.READ_ONLY, start, numBytesToMap);
+        byteBuffer = prefetchEnabled ? takePrefetchedChunk(chunkNumber, numBytesToMap) : null;
+        if (byteBuffer == null) {
+            byteBuffer = fileChannel.map(FileChannel.MapMode.READ_ONLY, start, numBytesToMap);
+        }
         if (byteBuffer == null) {
             log.severe("got null byteBuffer from fileChannel.map(FileChannel.MapMode.READ_ONLY,start,numBytesToMap) with start=" + start
                     + " numBytesToMap=" + numBytesToMap);
 
         }
         this.position = positionFromChunk(chunkNumber);
+        if (prefetchEnabled) {
+            prefetchChunksAfter(chunkNumber);
+        }
         // log.info("mapped chunk "+chunkNumber+" of "+(numBytesToMap>>10)+"kB");
         if (++chunksMapped > GC_EVERY_THIS_MANY_CHUNKS) {
             chunksMapped = 0;
@@ -1439,6 +1704,176 @@ public class AEFileInputStream extends DataInputStream implements AEFileInputStr
         }
     }
 
+    /**
+     * Returns the prefetched mapping of a chunk if there is one.
+     *
+     * @param chunkNumber the chunk
+     * @param numBytesToMap the size the chunk should have
+     * @return the mapped buffer, positioned at its start, or null if the chunk
+     * was not prefetched or prefetching it failed
+     */
+    private MappedByteBuffer takePrefetchedChunk(int chunkNumber, long numBytesToMap) {
+        Future<MappedByteBuffer> f;
+        synchronized (prefetchedChunks) {
+            f = prefetchedChunks.remove(chunkNumber);
+        }
+        if (f == null) {
+            return null;
+        }
+        try {
+            MappedByteBuffer b = f.get(); // normally done already; otherwise we only wait for the rest of the load
+            if (b.capacity() != numBytesToMap) {
+                return null;
+            }
+            b.position(0);
+            return b;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            log.log(Level.WARNING, "prefetching chunk " + chunkNumber + " failed, mapping it now", e.getCause());
+            return null;
+        }
+    }
+
+    /**
+     * Schedules the mapping of the prefetchChunks chunks following a chunk on
+     * the prefetch thread and discards prefetched chunks outside this window,
+     * e.g. after a rewind. MappedByteBuffer.load() is used as a sequential
+     * access hint; it touches every page so that the reader finds the data in
+     * memory.
+     *
+     * @param chunkNumber the chunk that was just mapped
+     */
+    private void prefetchChunksAfter(final int chunkNumber) {
+        synchronized (prefetchedChunks) {
+            Iterator<Map.Entry<Integer, Future<MappedByteBuffer>>> itr = prefetchedChunks.entrySet().iterator();
+            while (itr.hasNext()) {
+                Map.Entry<Integer, Future<MappedByteBuffer>> e = itr.next();
+                if ((e.getKey() <= chunkNumber) || (e.getKey() > (chunkNumber + prefetchChunks))) {
+                    discardPrefetchedChunk(e.getValue());
+                    itr.remove();
+                }
+            }
+            if (prefetchExecutor == null) {
+                prefetchExecutor = Executors.newSingleThreadExecutor(r -> {
+                    Thread t = new Thread(r, "AEFileInputStream-prefetch");
+                    t.setDaemon(true);
+                    t.setPriority(Thread.MIN_PRIORITY);
+                    return t;
+                });
+            }
+            final FileChannel channel = fileChannel;
+            for (int k = chunkNumber + 1; (k <= (chunkNumber + prefetchChunks)) && (k < numChunks); k++) {
+                final long start = getChunkStartPosition(k);
+                if ((start >= fileSize) || prefetchedChunks.containsKey(k)) {
+                    continue;
+                }
+                final long numBytes = Math.min(chunkSizeBytes, fileSize - start);
+                prefetchedChunks.put(k, prefetchExecutor.submit(() -> {
+                    MappedByteBuffer b = channel.map(FileChannel.MapMode.READ_ONLY, start, numBytes);
+                    b.load();
+                    return b;
+                }));
+            }
+        }
+    }
+
+    /**
+     * Unmaps a prefetched chunk that was never handed to the reader.
+     */
+    private void discardPrefetchedChunk(Future<MappedByteBuffer> f) {
+        if (!f.cancel(false)) {
+            try {
+                closeDirectBuffer(f.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+            }
+        }
+    }
+
+    /**
+     * Stops the prefetch thread and unmaps the prefetched chunks.
+     */
+    private void shutdownPrefetch() {
+        synchronized (prefetchedChunks) {
+            if (prefetchExecutor != null) {
+                prefetchExecutor.shutdownNow();
+                prefetchExecutor = null;
+            }
+            for (Future<MappedByteBuffer> f : prefetchedChunks.values()) {
+                discardPrefetchedChunk(f);
+            }
+            prefetchedChunks.clear();
+        }
+    }
+
+    /**
+     * @return true if chunks are prefetched and events are decoded in bulk
+     */
+    public boolean isPrefetchEnabled() {
+        return prefetchEnabled;
+    }
+
+    /**
+     * Enables mapping and loading of the following chunks on a background
+     * thread and bulk decoding of jAER 2.0 files for this stream only. Use
+     * {@link #setPrefetchEnabledByDefault(boolean)} to change the default for
+     * files opened afterwards.
+     *
+     * @param prefetchEnabled true to enable
+     */
+    synchronized public void setPrefetchEnabled(boolean prefetchEnabled) {
+        this.prefetchEnabled = prefetchEnabled;
+        if (prefetchEnabled) {
+            prefetchChunksAfter(chunkNumber);
+        } else {
+            shutdownPrefetch();
+        }
+    }
+
+    /**
+     * @return true if streams prefetch chunks when they are opened
+     */
+    public static boolean isPrefetchEnabledByDefault() {
+        return prefs.getBoolean("AEFileInputStream.prefetchEnabled", false);
+    }
+
+    /**
+     * Sets whether streams opened afterwards prefetch chunks. The setting is
+     * stored in the preferences.
+     *
+     * @param prefetchEnabled true to prefetch by default
+     */
+    public static void setPrefetchEnabledByDefault(boolean prefetchEnabled) {
+        prefs.putBoolean("AEFileInputStream.prefetchEnabled", prefetchEnabled);
+    }
+
+    /**
+     * @return the number of chunks mapped ahead of the current one
+     */
+    public int getPrefetchChunks() {
+        return prefetchChunks;
+    }
+
+    /**
+     * Sets the number of chunks that are mapped ahead of the current one. Each
+     * chunk keeps up to 32MB of the file mapped in memory.
+     *
+     * @param prefetchChunks the number of chunks, at least 1
+     */
+    synchronized public void setPrefetchChunks(int prefetchChunks) {
+        if (prefetchChunks < 1) {
+            prefetchChunks = 1;
+        }
+        this.prefetchChunks = prefetchChunks;
+        prefs.putInt("AEFileInputStream.prefetchChunks", prefetchChunks);
+        if (prefetchEnabled) {
+            prefetchChunksAfter(chunkNumber);
+        }
+    }
+
     /**
      * @return start of chunk in bytes
      * @param chunk the chunk number
@@ -1778,6 +2213,53 @@ public class AEFileInputStream extends DataInputStream implements AEFileInputStr
      */
     public void setTimestampResetBitmask(int timestampResetBitmask) {
         this.timestampResetBitmask = timestampResetBitmask;
+        timestampResets.clear();
+        timestampResetsScannedTo = 0;
+    }
+
+    /**
+     * Returns the timestamp offset for reading forwards from an event, i.e.
+     * the raw timestamp of the last timestamp reset event before it, or 0 if
+     * there is none. The file is scanned for reset events up to the event the
+     * first time it is positioned past them.
+     *
+     * @param event the position
+     * @return the offset to subtract from the raw timestamps
+     * @throws IOException if the file cannot be read
+     */
+    private int timestampOffsetBefore(long event) throws IOException {
+        if (event > timestampResetsScannedTo) {
+            scanTimestampResets(event);
+        }
+        final Map.Entry<Long, Integer> reset = timestampResets.lowerEntry(event);
+        return reset == null ? 0 : reset.getValue();
+    }
+
+    private void scanTimestampResets(long to) throws IOException {
+        final ByteBuffer b = ByteBuffer.allocate(eventSizeBytes * 8192);
+        final boolean intAddress = addressType == Integer.TYPE;
+        final int tsOffset = eventSizeBytes - (Integer.SIZE / 8);
+        long pos = timestampResetsScannedTo;
+        while (pos < to) {
+            b.clear();
+            b.limit((int) Math.min(b.capacity(), (to - pos) * eventSizeBytes));
+            final long start = headerOffset + (pos * eventSizeBytes);
+            while (b.hasRemaining() && (fileChannel.read(b, start + b.position()) >= 0)) {
+            }
+            final int n = b.position() / eventSizeBytes;
+            if (n == 0) {
+                break;
+            }
+            for (int i = 0; i < n; i++) {
+                final int p = i * eventSizeBytes;
+                final int a = intAddress ? b.getInt(p) : (b.getShort(p) & 0xffff);
+                if ((a & timestampResetBitmask) != 0) {
+                    timestampResets.put(pos + i, b.getInt(p + tsOffset));
+                }
+            }
+            pos += n;
+        }
+        timestampResetsScannedTo = pos;
     }
 
 }
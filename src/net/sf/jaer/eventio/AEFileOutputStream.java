@@ -23,10 +23,15 @@ import java.util.prefs.BackingStoreException;
 import net.sf.jaer.aemonitor.AEConstants;
 import net.sf.jaer.aemonitor.AEPacketRaw;
 import net.sf.jaer.chip.AEChip;
+import net.sf.jaer.event.BasicEvent;
+import net.sf.jaer.event.EventPacket;
 
 /**
  * Streams out packets of events in binary. The only difference to AEOuputStream
  * is the addition of a file header in text format.
+ * <p>
+ * Writing to an {@link AsyncFileWriter} moves the disk writes to a background
+ * thread; buffers of events that it cannot queue are dropped whole.
  *
  * @author tobi
  */
@@ -39,10 +44,17 @@ public class AEFileOutputStream extends AEOutputStream implements AEDataFile {
     private static final int BUFFER_EVENTS = 8192;
     private static final int SIZE_EVENT = (Integer.SIZE / 8) * 2;
 
-    private FileChannel channel = null;
+    /**
+     * The channel of the file output stream, used to write the binary data
+     * after the header
+     */
+    protected FileChannel channel = null;
+    private AsyncFileWriter asyncWriter = null;
     private ByteBuffer byteBuf = null;
+    private long headerBytes = 0, dataBytes = 0;
 
-    private int eventCounter = 0;
+    /** Number of events written so far */
+    protected int eventCounter = 0;
     private String dataFileVersionNumber;
 
     /**
@@ -65,7 +77,7 @@ public class AEFileOutputStream extends AEOutputStream implements AEDataFile {
             dataFileVersionNumber = dataFileVersionNum;
             writeHeaderLine(AEDataFile.DATA_FILE_FORMAT_HEADER + dataFileVersionNumber);
             writeHeaderLine(" This is a raw AE data file - do not edit");
-            writeHeaderLine(" Data format is int32 address, int32 timestamp (8 bytes total), repeated for each event");
+            writeHeaderLine(getDataFormatHeaderLine());
             writeHeaderLine(" Timestamps tick: " + AEConstants.TICK_DEFAULT_US + " us");
             writeHeaderLine(" Creation date: " + new Date());
             writeHeaderLine(" Creation time: System.currentTimeMillis() " + System.currentTimeMillis());
@@ -79,11 +91,13 @@ public class AEFileOutputStream extends AEOutputStream implements AEDataFile {
             writeHeaderLine(" Hostname: " + computerName);
 
             // optionally write chip-specific info
-            if (chip.getHardwareInterface() != null) {
+            if (chip != null && chip.getHardwareInterface() != null) {
                 writeHeaderLine(" HardwareInterface: " + chip.getHardwareInterface().toString());
             }
 
-            chip.writeAdditionalAEFileOutputStreamHeader(this);
+            if (chip != null) {
+                chip.writeAdditionalAEFileOutputStreamHeader(this);
+            }
             writeHeaderLine(DATA_START_TIME_SYSTEMCURRENT_TIME_MILLIS + System.currentTimeMillis());
             writeHeaderLine(END_OF_HEADER_STRING);
 
@@ -91,7 +105,13 @@ public class AEFileOutputStream extends AEOutputStream implements AEDataFile {
                 channel = ((FileOutputStream) os).getChannel();
                 AEOutputStream.log.info("using ByteBuffer with " + AEFileOutputStream.BUFFER_EVENTS + " events to buffer disk writes");
                 byteBuf = ByteBuffer.allocateDirect(AEFileOutputStream.BUFFER_EVENTS * AEFileOutputStream.SIZE_EVENT);
+            } else if (os instanceof AsyncFileWriter) {
+                asyncWriter = (AsyncFileWriter) os;
+                byteBuf = ByteBuffer.allocateDirect(AEFileOutputStream.BUFFER_EVENTS * AEFileOutputStream.SIZE_EVENT);
+            } else {
+                byteBuf = ByteBuffer.allocate(AEFileOutputStream.BUFFER_EVENTS * AEFileOutputStream.SIZE_EVENT);
             }
+            headerBytes = size();
         } catch (final BackingStoreException ex) {
             Logger.getLogger(AEFileOutputStream.class.getName()).log(Level.SEVERE, null, ex);
             throw new IOException(ex.getMessage());
@@ -107,7 +127,66 @@ public class AEFileOutputStream extends AEOutputStream implements AEDataFile {
      * @throws java.io.IOException thrown when write to file failed
      */
     public AEFileOutputStream(final OutputStream os) throws IOException {
-        this(os, null, null);
+        this(os, null, AEDataFile.DATA_FILE_VERSION_NUMBER);
+    }
+
+    /**
+     * Writes the remaining bytes of a buffer after the header, either
+     * directly to the file channel or stream, or by queuing them to the
+     * AsyncFileWriter.
+     *
+     * @param b the data
+     * @return true if written, false if the AsyncFileWriter dropped it
+     * @throws IOException if the data cannot be written
+     */
+    protected boolean writeData(final ByteBuffer b) throws IOException {
+        final int n = b.remaining();
+        if (asyncWriter != null) {
+            if (!asyncWriter.offer(b)) {
+                return false;
+            }
+        } else if (channel != null) {
+            while (b.hasRemaining()) {
+                channel.write(b);
+            }
+        } else {
+            out.write(b.array(), b.arrayOffset() + b.position(), n);
+            b.position(b.limit());
+        }
+        dataBytes += n;
+        return true;
+    }
+
+    /**
+     * Returns the position in the file where the next data will be written,
+     * not counting data that was dropped.
+     *
+     * @return the position in bytes from the start of the file
+     */
+    protected long getDataPosition() {
+        return headerBytes + dataBytes;
+    }
+
+    private void putEvent(final int addr, final int ts) throws IOException {
+        byteBuf.putInt(addr);
+        byteBuf.putInt(ts);
+        eventCounter++;
+        if (byteBuf.remaining() < AEFileOutputStream.SIZE_EVENT) {
+            byteBuf.flip();
+            writeData(byteBuf);
+            byteBuf.clear();
+        }
+    }
+
+    /**
+     * Returns the header line that describes the binary data format.
+     * Subclasses that write another format override it; it is called from
+     * the constructor.
+     *
+     * @return the header line, starting with a space
+     */
+    protected String getDataFormatHeaderLine() {
+        return " Data format is int32 address, int32 timestamp (8 bytes total), repeated for each event";
     }
 
     /**
@@ -199,16 +278,7 @@ public class AEFileOutputStream extends AEOutputStream implements AEDataFile {
         // If it's 3.1, then we should add packet header for every different event types.
         if (dataFileVersionNumber.equals("2.0")) {
             for (int i = startIdx; i < n; i++) {
-                byteBuf.putInt(addr[i]);
-                byteBuf.putInt(ts[i]);
-
-                eventCounter++;
-
-                if (byteBuf.remaining() < AEFileOutputStream.SIZE_EVENT) {
-                    byteBuf.rewind();
-                    channel.write(byteBuf);
-                    byteBuf.clear();
-                }
+                putEvent(addr[i], ts[i]);
             }
 
             wrotePacket = true;
@@ -216,14 +286,31 @@ public class AEFileOutputStream extends AEOutputStream implements AEDataFile {
 
     }
 
+    /**
+     * Writes a "cooked" packet of BasicEvent events to the stream, using the
+     * event's address and timestamp, through the same buffer as raw packets.
+     *
+     * @param packet the packet
+     * @throws IOException
+     */
+    @Override
+    public void writePacket(final EventPacket<? extends BasicEvent> packet) throws IOException {
+        for (final BasicEvent e : packet) {
+            putEvent(e.address, e.timestamp);
+        }
+        wrotePacket = true;
+    }
+
     @Override
     public void close() throws IOException {
         // Flush last buffer to file, to avoid loosing small amounts of data.
         byteBuf.flip();
-        channel.write(byteBuf);
+        writeData(byteBuf);
         byteBuf.clear();
 
-        channel.close();
+        if (channel != null) {
+            channel.close();
+        }
         byteBuf = null;
 
         super.close();
@@ -0,0 +1,261 @@
+/*
+ * AEFileTimestampIndex.java
+ *
+ * Copyright (C) 2026 jAER project.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ */
+package net.sf.jaer.eventio;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Index of the timestamps of an AEDAT-2.0 file (fixed size events after the
+ * header), used by {@link AEFileInputStream#seekTimestamp(int)} to seek to a
+ * time in O(log n) instead of reading all events up to it.
+ * <p>
+ * The index samples the timestamp of every intervalEvents-th event. Each
+ * sample is stored with an <i>index time</i>, which is a 64 bit time that
+ * never decreases through the file: it advances by the int difference between
+ * consecutive samples, so that 32 bit timestamp wraps just continue the time,
+ * and does not advance when the timestamps jump backwards, e.g. at a timestamp
+ * reset during the recording.
+ * <p>
+ * The index is stored in a sidecar file named after the data file with suffix
+ * {@link #SUFFIX}. It is built on the first open of a file and extended when
+ * the file has grown since. If the sidecar file cannot be written the index is
+ * only kept in memory.
+ *
+ * @author agent
+ */
+public class AEFileTimestampIndex {
+
+    static final Logger log = Logger.getLogger("net.sf.jaer.eventio");
+    /**
+     * Suffix appended to the data file name for the sidecar index file
+     */
+    public static final String SUFFIX = ".tsidx";
+    /**
+     * Default number of events between samples
+     */
+    public static final int DEFAULT_INTERVAL_EVENTS = 8192;
+    private static final int MAGIC = 0x4a545358; // "JTSX"
+    private static final int VERSION = 1;
+
+    private final File dataFile, indexFile;
+    private final long headerOffset;
+    private final int eventSizeBytes, intervalEvents;
+    private long[] times = new long[1024];
+    private int[] rawTimestamps = new int[1024];
+    private int numEntries = 0;
+
+    /**
+     * Creates an empty index; call {@link #update()} to load or build it.
+     *
+     * @param dataFile the AEDAT file
+     * @param headerOffset the offset of the first event in bytes
+     * @param eventSizeBytes the size of an event in bytes, the timestamp is the
+     * last int of the event
+     * @param intervalEvents the number of events between samples
+     */
+    public AEFileTimestampIndex(File dataFile, long headerOffset, int eventSizeBytes, int intervalEvents) {
+        this.dataFile = dataFile;
+        this.indexFile = new File(dataFile.getPath() + SUFFIX);
+        this.headerOffset = headerOffset;
+        this.eventSizeBytes = eventSizeBytes;
+        this.intervalEvents = intervalEvents;
+    }
+
+    /**
+     * Loads the sidecar file if it matches the data file, samples the events
+     * that were added to the data file since, and stores the result if it
+     * changed.
+     *
+     * @throws IOException if the data file cannot be read
+     */
+    public synchronized void update() throws IOException {
+        boolean loaded = load();
+        try (FileInputStream fis = new FileInputStream(dataFile)) {
+            final FileChannel channel = fis.getChannel();
+            final long numEvents = (channel.size() - headerOffset) / eventSizeBytes;
+            if (loaded && ((numEvents < ((long) (numEntries - 1) * intervalEvents))
+                    || (readTimestamp(channel, 0) != rawTimestamps[0])
+                    || (readTimestamp(channel, (long) (numEntries - 1) * intervalEvents) != rawTimestamps[numEntries - 1]))) {
+                log.info(indexFile + " does not match " + dataFile + ", rebuilding it");
+                numEntries = 0;
+                loaded = false;
+            }
+            final int oldNumEntries = numEntries;
+            for (long pos = (long) numEntries * intervalEvents; pos < numEvents; pos += intervalEvents) {
+                int raw = readTimestamp(channel, pos);
+                if (numEntries == 0) {
+                    add(0, raw);
+                    continue;
+                }
+                final int lastRaw = rawTimestamps[numEntries - 1];
+                if (raw == 0) { // zero timestamps are skipped by AEFileInputStream
+                    raw = lastRaw;
+                }
+                final int dt = raw - lastRaw; // int difference continues over 32 bit wraps
+                add(times[numEntries - 1] + Math.max(0, dt), raw);
+            }
+            if (!loaded || (numEntries != oldNumEntries)) {
+                store();
+            }
+        }
+    }
+
+    private int readTimestamp(FileChannel channel, long position) throws IOException {
+        final ByteBuffer b = ByteBuffer.allocate(Integer.SIZE / 8);
+        final long offset = headerOffset + (position * eventSizeBytes) + (eventSizeBytes - b.capacity());
+        while (b.hasRemaining()) {
+            if (channel.read(b, offset + b.position()) < 0) {
+                throw new IOException("end of " + dataFile + " at event " + position);
+            }
+        }
+        b.flip();
+        return b.getInt();
+    }
+
+    private void add(long time, int raw) {
+        if (numEntries == times.length) {
+            times = Arrays.copyOf(times, 2 * numEntries);
+            rawTimestamps = Arrays.copyOf(rawTimestamps, 2 * numEntries);
+        }
+        times[numEntries] = time;
+        rawTimestamps[numEntries] = raw;
+        numEntries++;
+    }
+
+    private boolean load() {
+        if (!indexFile.isFile()) {
+            return false;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+            if ((in.readInt() != MAGIC) || (in.readInt() != VERSION) || (in.readLong() != headerOffset)
+                    || (in.readInt() != eventSizeBytes) || (in.readInt() != intervalEvents)) {
+                return false;
+            }
+            final int n = in.readInt();
+            if (n < 1) {
+                return false;
+            }
+            times = new long[n];
+            rawTimestamps = new int[n];
+            for (int i = 0; i < n; i++) {
+                times[i] = in.readLong();
+                rawTimestamps[i] = in.readInt();
+            }
+            numEntries = n;
+            return true;
+        } catch (IOException e) {
+            log.warning("could not read " + indexFile + ": " + e);
+            numEntries = 0;
+            return false;
+        }
+    }
+
+    private void store() {
+        if (numEntries == 0) {
+            return;
+        }
+        final File tmp = new File(indexFile.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(headerOffset);
+            out.writeInt(eventSizeBytes);
+            out.writeInt(intervalEvents);
+            out.writeInt(numEntries);
+            for (int i = 0; i < numEntries; i++) {
+                out.writeLong(times[i]);
+                out.writeInt(rawTimestamps[i]);
+            }
+        } catch (IOException e) {
+            log.log(Level.INFO, "could not write {0}, keeping timestamp index in memory only: {1}", new Object[]{indexFile, e.toString()});
+            tmp.delete();
+            return;
+        }
+        if (!(indexFile.delete() || !indexFile.exists()) || !tmp.renameTo(indexFile)) {
+            log.info("could not replace " + indexFile + ", keeping timestamp index in memory only");
+            tmp.delete();
+        }
+    }
+
+    /**
+     * Returns the index time of an event.
+     *
+     * @param position the event number
+     * @param rawTimestamp the timestamp of the event as stored in the file,
+     * i.e. without the timestamp offset of AEFileInputStream
+     * @return the index time
+     */
+    public synchronized long getTime(long position, int rawTimestamp) {
+        if (numEntries == 0) {
+            return 0;
+        }
+        final int k = (int) Math.min(numEntries - 1, Math.max(0, position / intervalEvents));
+        return times[k] + Math.max(0, rawTimestamp - rawTimestamps[k]);
+    }
+
+    /**
+     * Returns a position from which to read forward to reach an index time.
+     *
+     * @param time the index time
+     * @return the position of the last sample at or before the time, 0 if the
+     * time is before the first sample
+     */
+    public synchronized long getPosition(long time) {
+        int lo = 0, hi = numEntries - 1;
+        while (lo < hi) { // last entry with times[k] < time, so that the first event at time is after it
+            final int mid = (lo + hi + 1) >>> 1;
+            if (times[mid] < time) {
+                lo = mid;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return (long) lo * intervalEvents;
+    }
+
+    /**
+     * @return the number of events between samples
+     */
+    public int getIntervalEvents() {
+        return intervalEvents;
+    }
+
+    /**
+     * @return the number of samples
+     */
+    public synchronized int getNumEntries() {
+        return numEntries;
+    }
+
+    /**
+     * @return the sidecar file
+     */
+    public File getIndexFile() {
+        return indexFile;
+    }
+
+    @Override
+    public String toString() {
+        return "AEFileTimestampIndex for " + dataFile.getName() + " with " + getNumEntries() + " samples every " + intervalEvents + " events";
+    }
+}
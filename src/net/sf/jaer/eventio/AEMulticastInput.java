@@ -1,162 +1,192 @@
 package net.sf.jaer.eventio;
 
-import java.io.ByteArrayInputStream;
-import java.io.DataInputStream;
 import java.io.IOException;
 import java.net.DatagramPacket;
 import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.net.MulticastSocket;
 import java.net.SocketAddress;
-import java.net.UnknownHostException;
-import java.util.concurrent.Exchanger;
+import java.nio.ByteBuffer;
 import java.util.logging.Logger;
+import java.util.prefs.Preferences;
 
-import net.sf.jaer.aemonitor.AEPacketRaw;
-import net.sf.jaer.aemonitor.EventRaw;
+import net.sf.jaer.aemonitor.AENetworkRawPacket;
 
 /** 
- * Receives input via multicast datagram packets from a server. This input is a Thread that reads the MulticastSocket in the background and
- * exchanges data with a consumer using a double buffer. It must be started like any thread.
- *Closing the AEMulticastInput interrupts the thread and joins it.
+ * Receives input via multicast datagram packets from one or more servers. This input is a Thread that reads the MulticastSocket in the background and
+ * puts the datagrams into a {@link DatagramJitterBuffer}, which puts them back in sequence number order within a latency window, counts lost
+ * and late datagrams and merges the events of several senders in timestamp order. It must be started like any thread.
+ * Since the socket is not connected, any number of senders can stream to the group, and any number of receivers can subscribe to the same feed.
+ *Closing the AEMulticastInput interrupts the thread and closes the socket.
  
  @author tobi
  
  */
 public class AEMulticastInput extends Thread {
+    private static Preferences prefs = Preferences.userNodeForPackage(AEMulticastInput.class);
     MulticastSocket socket = null;
     InetAddress address = null;
-    ByteArrayInputStream bis=null;
-    DataInputStream dis=null;
+    int port;
     boolean printedHost=false;
     volatile boolean stopMe=false;
-    static int EVENT_BUFFER_SIZE=2048;
+    /** The most events returned by one readPacket() */
+    static int EVENT_BUFFER_SIZE=10000;
+    /** Requested socket receive buffer size, large so that bursts at full rate are not dropped by the OS */
+    static final int RECEIVE_BUFFER_SIZE_BYTES=1<<23;
+    private static final long STATISTICS_LOG_INTERVAL_NS=10000000000L;
     
-    Exchanger<AEPacketRaw> exchanger=new Exchanger();
-    
-    AEPacketRaw initialEmptyBuffer = new AEPacketRaw(EVENT_BUFFER_SIZE); // the buffer to start capturing into
-    AEPacketRaw initialFullBuffer = new AEPacketRaw(EVENT_BUFFER_SIZE);    // the buffer to render/process first
-    AEPacketRaw fillingBuffer=initialEmptyBuffer, emptyingBuffer=initialFullBuffer; // starting buffer
+    private float latencyMs=prefs.getFloat("AEMulticastInput.latencyMs",5);
+    private final DatagramJitterBuffer jitterBuffer=new DatagramJitterBuffer(latencyMs);
+    private final AENetworkRawPacket packet=new AENetworkRawPacket();
+    private long lastStatisticsLogNs=System.nanoTime(), lastLostCount=0, lastLateCount=0;
     
     static Logger log=Logger.getLogger("AESocketStream");
     
-    /** Constructs a new AEMulticastInput thread. This Thread must be started before it will
+    /** Constructs a new AEMulticastInput thread on the default group and port. This Thread must be started before it will
      *collect events from a source.
      *@throws IOException if there is a permission problem
+     *@see AENetworkInterfaceConstants#MULTICAST_INETADDR
      **/
     public AEMulticastInput() throws IOException{
-        socket = new MulticastSocket(AENetworkInterfaceConstants.STREAM_PORT);
-        address = InetAddress.getByName(AENetworkInterfaceConstants.MULTICAST_INETADDR);
+        this(AENetworkInterfaceConstants.MULTICAST_INETADDR, AENetworkInterfaceConstants.STREAM_PORT);
+    }
+    
+    /** Constructs a new AEMulticastInput thread that joins the given group.
+     *@param group the multicast group address
+     *@param port the port
+     *@throws IOException if there is a permission problem
+     **/
+    public AEMulticastInput(String group, int port) throws IOException{
+        this.port=port;
+        socket = new MulticastSocket(port);
+        socket.setReceiveBufferSize(RECEIVE_BUFFER_SIZE_BYTES);
+        if(socket.getReceiveBufferSize()<RECEIVE_BUFFER_SIZE_BYTES){
+            log.warning("could only get receiveBufferSize="+socket.getReceiveBufferSize()+" bytes, datagrams may be dropped at high event rates");
+        }
+        address = InetAddress.getByName(group);
         socket.joinGroup(address);
         setName("AEMulticastInput");
     }
     
-    /** This method reads datagram packets and adds events to the current buffer. Calling readPacket
-     *returns exchanges the buffers and returns the read events.
+    /** This method reads datagram packets and adds them to the jitter buffer. Calling readPacket
+     *returns the events that are ready.
      **/
     public void run(){
-        fillingBuffer=initialEmptyBuffer;
+        byte[] buf=new byte[AENetworkInterfaceConstants.DATAGRAM_BUFFER_SIZE_BYTES];
+        DatagramPacket datagram=new DatagramPacket(buf,buf.length);
+        ByteBuffer bytes=ByteBuffer.wrap(buf); // big endian like AEMulticastOutput writes
+        final int headerSize=Integer.SIZE/8;
         try{
-            while(fillingBuffer!=null){
-                addToBuffer(fillingBuffer);
-                if(fillingBuffer.getNumEvents()>=EVENT_BUFFER_SIZE){
-                    fillingBuffer=exchanger.exchange(fillingBuffer); // get buffer to write to, pass current fillingBuffer to consumer
-                    fillingBuffer.setNumEvents(0); // reset event counter
+            while(!stopMe){
+                datagram.setLength(buf.length);
+                socket.receive(datagram); // blocks until datagram received
+                SocketAddress addr=datagram.getSocketAddress();
+                if(!printedHost){
+                    printedHost=true;
+                    log.info("received a packet from "+addr);
+                }
+                final int length=datagram.getLength();
+                if(length<headerSize){
+                    log.warning(String.format("DatagramPacket only has %d bytes, and thus doesn't even have sequence number, ignoring it",length));
+                    continue;
                 }
+                bytes.clear();
+                final int seq=bytes.getInt();
+                bytes.limit(headerSize+(length-headerSize)/AENetworkInterfaceConstants.EVENT_SIZE_BYTES*AENetworkInterfaceConstants.EVENT_SIZE_BYTES);
+                jitterBuffer.add((InetSocketAddress)addr, seq, bytes, System.nanoTime());
             }
-            try {
-                socket.leaveGroup(InetAddress.getByName(AENetworkInterfaceConstants.MULTICAST_INETADDR));
-            } catch (UnknownHostException ex) {
-                ex.printStackTrace();
-            } catch (IOException ex) {
-                ex.printStackTrace();
+        }catch(IOException e){
+            if(!stopMe){
+                log.warning(e.toString());
             }
-            socket.close();
-        }catch(InterruptedException e){
-            log.info("interrupted");
+        }finally{
+            closeSocket();
         }
+        log.info("stopped: "+jitterBuffer);
     }
     
-    /** returns the present data received from multicast source
-     *@return a packet with the latest data
+    /** returns the present data received from multicast sources. Returns an empty packet if nothing is ready.
+     *@return a packet with the latest data, with the start of the events of each sender in its event source list
      **/
-    public AEPacketRaw readPacket(){
-        try{
-            emptyingBuffer=exchanger.exchange(emptyingBuffer); // get fillingBuffer, pass producer the emptyingBuffer
-            return emptyingBuffer;
-        }catch(InterruptedException e){
-            return null;
+    public AENetworkRawPacket readPacket(){
+        packet.clear();
+        final long now=System.nanoTime();
+        jitterBuffer.read(packet, EVENT_BUFFER_SIZE, now);
+        if(now-lastStatisticsLogNs>STATISTICS_LOG_INTERVAL_NS){
+            lastStatisticsLogNs=now;
+            if(jitterBuffer.getLostCount()!=lastLostCount || jitterBuffer.getLateCount()!=lastLateCount){
+                log.warning(String.format("%d datagrams lost and %d late in the last %ds: %s",
+                        jitterBuffer.getLostCount()-lastLostCount, jitterBuffer.getLateCount()-lastLateCount, STATISTICS_LOG_INTERVAL_NS/1000000000L, jitterBuffer));
+                lastLostCount=jitterBuffer.getLostCount();
+                lastLateCount=jitterBuffer.getLateCount();
+            }
         }
+        return packet;
     }
     
-    AEPacketRaw packet=null;
-    byte[] buf=null;
-    DatagramPacket datagram;
-    int packetCounter=0;
-    int packetSequenceNumber=0;
-    EventRaw eventRaw=new EventRaw();
-    
-    /** adds to the buffer from received packets */
-    private void addToBuffer(AEPacketRaw packet){
-        if(buf==null){
-            buf=new byte[AENetworkInterfaceConstants.DATAGRAM_BUFFER_SIZE_BYTES];
-        }
-        if(datagram==null){
-            datagram=new DatagramPacket(buf,buf.length);
-        }
-        if(bis==null){
-            bis=new ByteArrayInputStream(buf);
-            dis=new DataInputStream(bis);
-        }
-        try{
-            socket.receive(datagram); // blocks until datagram received
-            if(!printedHost){
-                printedHost=true;
-                SocketAddress addr=datagram.getSocketAddress();
-                log.info("received a packet from "+addr);
-                socket.connect(addr);
-            }
-            if(datagram.getLength()<Integer.SIZE/8){
-                log.warning(String.format("DatagramPacket only has %d bytes, and thus doesn't even have sequence number, returning empty packet",datagram.getLength()));
-                packet.setNumEvents(0);
-            }
-            packetCounter++;
-            int nEventsInPacket=(datagram.getLength()-Integer.SIZE/8)/AENetworkInterfaceConstants.EVENT_SIZE_BYTES;
-            dis.reset();
-            packetSequenceNumber=dis.readInt();
-            if(packetSequenceNumber!=packetCounter){
-                log.warning(
-                        String.format("Dropped %d packets. (Incoming packet sequence number (%d) doesn't match expected packetCounter (%d), resetting packetCounter to match present incoming sequence number)",
-                        (packetSequenceNumber-packetCounter),
-                        packetSequenceNumber,
-                        packetCounter
-                        ));
-                packetCounter=packetSequenceNumber;
-            }
-//            short[] addr=packet.getAddresses();
-//            int[] ts=packet.getTimestamps();
-            for(int i=0;i<nEventsInPacket;i++){
-                eventRaw.address=dis.readInt();
-                eventRaw.timestamp=dis.readInt();
-                packet.addEvent(eventRaw);
-//                addr[i]=dis.readShort();
-//                ts[i]=dis.readInt();
-            }
-//            packet.setNumEvents(nEventsInPacket);
-        }catch(IOException e){
-            e.printStackTrace();
-            log.warning(e.getMessage());
-            packet.setNumEvents(0);
-            close();
-        }
-//        return packet;
+    /** Returns the jitter buffer, e.g. to read its loss and late arrival statistics
+     *@return the buffer
+     **/
+    public DatagramJitterBuffer getJitterBuffer(){
+        return jitterBuffer;
+    }
+    
+    /** @return the number of datagrams received since the input was opened or the counts were reset */
+    public long getDatagramsReceivedCount(){
+        return jitterBuffer.getReceivedCount();
+    }
+    
+    /** @return the number of datagrams that did not arrive within the latency window */
+    public long getDatagramsDroppedCount(){
+        return jitterBuffer.getLostCount();
+    }
+    
+    /** @return the number of datagrams that arrived after they were given up */
+    public long getDatagramsLateCount(){
+        return jitterBuffer.getLateCount();
+    }
+    
+    /** Resets the datagram counts */
+    public void resetDatagramCounts(){
+        jitterBuffer.resetCounts();
+        lastLostCount=0;
+        lastLateCount=0;
+    }
+    
+    /** @return how long a missing datagram is waited for, in ms */
+    public float getLatencyMs(){
+        return latencyMs;
+    }
+    
+    /** Sets how long a missing datagram is waited for before it is counted as lost. Longer windows repair more reordering
+     * but delay all events by up to this time when a datagram is lost.
+     *@param latencyMs the window in ms
+     **/
+    public void setLatencyMs(float latencyMs){
+        if(latencyMs<0) latencyMs=0;
+        this.latencyMs=latencyMs;
+        jitterBuffer.setLatencyMs(latencyMs);
+        prefs.putFloat("AEMulticastInput.latencyMs",latencyMs);
     }
     
     @Override public String toString(){
-        return "AESocketInputStream INETADDR="+AENetworkInterfaceConstants.MULTICAST_INETADDR+" at PORT="+AENetworkInterfaceConstants.STREAM_PORT;
+        return "AEMulticastInput INETADDR="+address+" at PORT="+port+": "+jitterBuffer;
+    }
+    
+    private synchronized void closeSocket(){
+        if(socket==null || socket.isClosed()) return;
+        try {
+            socket.leaveGroup(address);
+        } catch (IOException ex) {
+            log.warning(ex.toString());
+        }
+        socket.close();
     }
     
-    /** Interrupts the producer thread, which ends the loop and closes the Multicast socket */
+    /** Interrupts the producer thread and closes the Multicast socket, which ends the receive loop */
     synchronized public void close(){
+            stopMe=true;
             interrupt();
+            closeSocket();
     }
 }
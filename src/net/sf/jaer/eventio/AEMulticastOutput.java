@@ -49,6 +49,7 @@ public class AEMulticastOutput {
     InetAddress group=null;
     DatagramPacket packet = null;
     int packetSequenceNumber=0;
+    private volatile long datagramsDroppedCount=0; // datagrams not sent because the queue was full
     InetAddress address = null;
     int packetSizeBytes;
     Thread consumerThread;
@@ -137,7 +138,7 @@ public class AEMulticastOutput {
             if((++count)==AENetworkInterfaceConstants.MAX_DATAGRAM_EVENTS){
                 // we break up into datagram packets of sendBufferSize
                 packet=new DatagramPacket(bos.toByteArray(), packetSizeBytes, group, AENetworkInterfaceConstants.STREAM_PORT);
-                queue.offer(packet);
+                offer(packet);
                 count=0;
                 bos=new ByteArrayOutputStream(packetSizeBytes);
                 dos=new DataOutputStream(bos);
@@ -146,7 +147,21 @@ public class AEMulticastOutput {
         }
         // send the remainder, if there are no events or exactly MAX_EVENTS this will get sent anyhow with sequence number only
         packet=new DatagramPacket(bos.toByteArray(), count*AENetworkInterfaceConstants.EVENT_SIZE_BYTES+Integer.SIZE/8, group, AENetworkInterfaceConstants.STREAM_PORT);
-        queue.offer(packet);
+        offer(packet);
+    }
+    
+    /** Queues the datagram, or counts it as dropped if the queue is full. Receivers see the gap in the sequence numbers as loss. */
+    private void offer(DatagramPacket p){
+        if(!queue.offer(p)){
+            if(datagramsDroppedCount++==0){
+                log.warning("send queue full, dropping datagrams; the network or receivers cannot keep up");
+            }
+        }
+    }
+    
+    /** @return the number of datagrams dropped because the send queue was full */
+    public long getDatagramsDroppedCount(){
+        return datagramsDroppedCount;
     }
     
     @Override public String toString(){
@@ -14,19 +14,47 @@ package net.sf.jaer.eventio;
 import java.beans.PropertyChangeSupport;
 import java.io.IOException;
 import java.net.InetSocketAddress;
-import java.net.ServerSocket;
 import java.net.Socket;
-import java.net.SocketException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.logging.Logger;
 import java.util.prefs.Preferences;
 
+import net.sf.jaer.aemonitor.AEPacketRaw;
+import net.sf.jaer.chip.EventExtractor2D;
+
 /**
- * Following is target functionality (right now this class only opens a single socket to most recent client connecting to it
-and events are only streamed to this one socket): This server socket allows a source host to listen for connections from other hosts and open AESockets to them to allow
-streaming AE data to them, so as a server, we stream events to the clients.
+ * This server socket allows a source host to listen for connections from other hosts and stream AE data to them,
+so as a server, we stream events to the clients.
 These stream socket connections transmit data reliably.
 <p>
-Multile clients can recieve events from a single server through the use of java.nio channels and selectors.
+Multiple clients can receive events from a single server through the use of java.nio channels and a selector.
+Each packet given to {@link #writePacket} is encoded once and queued to every connected {@link Subscriber}.
+Each subscriber has its own bounded queue of packets, so a slow client never blocks the producer;
+when a client lags so much that its queue is full, its {@link LagPolicy} decides what happens.
+<p>
+Subscribers can be restricted to a region of interest and to some event types, either by calling the
+Subscriber methods or by the client itself, by sending lines of text to the server:
+<pre>
+roi x0 y0 x1 y1      only send events inside the rectangle, inclusive
+roi off
+types t0 t1 ...      only send events with these types, e.g. polarity
+types off
+policy drop_oldest|decimate|disconnect
+queue n              the number of packets that can be queued
+</pre>
+ROI and type filtering need the {@link #setEventExtractor(net.sf.jaer.chip.EventExtractor2D) event extractor} of the chip.
 <p>
 The AESocket's are manufactured when a client connects to the AEViewer. The AESocket's are built with options that are
 set using the AEServerSocketOptionsDialog.
@@ -43,91 +71,518 @@ public class AEServerSocket extends Thread {
     public static final int DEFAULT_BUFFERED_STREAM_SIZE_BYTES = 8192;
     public static final int DEFAULT_SEND_BUFFER_SIZE_BYTES = 8192;
     public static final int DEFAULT_RECIEVE_BUFFER_SIZE_BYTES = 8192;
-    private ServerSocket serverSocket;
-    private AESocket socket = null;
+    public static final int DEFAULT_MAX_QUEUED_PACKETS = 64;
+    /** Maximum subsampling of events used by the DECIMATE policy */
+    public static final int MAX_DECIMATION = 64;
+
+    /** What to do when a subscriber's queue is full because the client can't keep up */
+    public enum LagPolicy {
+        /** Drops the oldest queued packet to make room for the new one */
+        DROP_OLDEST,
+        /** Sends only every n'th event, doubling n each time the queue is full, until the queue empties again */
+        DECIMATE,
+        /** Closes the connection to the client */
+        DISCONNECT
+    };
+    private ServerSocketChannel serverChannel;
+    private Selector selector;
+    private final CopyOnWriteArrayList<Subscriber> subscribers = new CopyOnWriteArrayList();
+    private final ConcurrentLinkedQueue<Subscriber> pendingWrites = new ConcurrentLinkedQueue();
+    private volatile EventExtractor2D eventExtractor = null;
     private int bufferedStreamSize = prefs.getInt("AEServerSocket.bufferedStreamSize", DEFAULT_BUFFERED_STREAM_SIZE_BYTES);
     private int sendBufferSize = prefs.getInt("AEServerSocket.sendBufferSize", DEFAULT_SEND_BUFFER_SIZE_BYTES);
     private int port = prefs.getInt("AEServerSocket.port", AENetworkInterfaceConstants.STREAM_PORT);
     private int receiveBufferSize = prefs.getInt("AEServerSocket.receiveBufferSize", DEFAULT_RECIEVE_BUFFER_SIZE_BYTES);
     private boolean flushPackets = prefs.getBoolean("AESocket.flushPackets", true);
     private boolean useBufferedStreams = prefs.getBoolean("AEServerSocket.useBufferedStreams", true);
+    private int maxQueuedPackets = prefs.getInt("AEServerSocket.maxQueuedPackets", DEFAULT_MAX_QUEUED_PACKETS);
+    private LagPolicy lagPolicy = LagPolicy.valueOf(prefs.get("AEServerSocket.lagPolicy", LagPolicy.DROP_OLDEST.name()));
+    private int[] encodedTimestamps = new int[0];
+    private int t0Ref = -1; // reference for the timestamps sent to all clients, only used in writePacket
     private Thread T = null;
 
     /** Creates a new instance of AEServerSocket. This Thread must be started to serve connections.
-    @throws java.net.BindException when the socket is already bound (probably by another viewer)
+    @throws java.io.IOException if the server channel or selector cannot be opened
      */
     public AEServerSocket() throws java.io.IOException {
         T = this;
-        serverSocket = new ServerSocket();
-        serverSocket.setReceiveBufferSize(receiveBufferSize);
-        /*}catch(java.net.BindException be){
-        log.warning("server socket already bound to port (probably from another AEViewer)");
-         */
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.socket().setReceiveBufferSize(receiveBufferSize);
+        selector = Selector.open();
         setName("AEServerSocket port=" + port);
     }
 
     public String toString() {
-        return "AEServerSocket on port=" + port;
+        return "AEServerSocket on port=" + port + " with " + subscribers.size() + " subscribers";
     }
 
-    /** Accepts incoming connections and manufactures AESocket's for them. Currently only a single
-     * client is supported.
+    /** Accepts incoming connections and serves all of them from this single thread, sending
+     * the queued packets to each client as fast as that client accepts them.
      */
     public void run() {
-        if (serverSocket == null) {
+        if (serverChannel == null) {
             return; // port was already bound
         }
-        while (!isInterrupted()) {
-            try {
-                if (!serverSocket.isBound()) {
-                    try {
-                        serverSocket.bind(new InetSocketAddress(port)); // FIXME TODO, if we have a port here that is already in use, then we can't use the ServerSocket options dialog to change it!!
-                        log.info("bound " + this);
-                    } catch (IOException ioe) {
-                        log.warning("couldn't bind AEServerSocket to port " + port + " : " + ioe+ "; this run() will break. A new AEServerSocket should be contructed.");
+        try {
+            serverChannel.socket().bind(new InetSocketAddress(port)); // FIXME TODO, if we have a port here that is already in use, then we can't use the ServerSocket options dialog to change it!!
+            serverChannel.configureBlocking(false);
+            serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+            log.info("bound " + this);
+        } catch (IOException ioe) {
+            log.warning("couldn't bind AEServerSocket to port " + port + " : " + ioe + "; this run() will break. A new AEServerSocket should be contructed.");
+            return;
+        }
+        try {
+            while (!isInterrupted() && serverChannel.isOpen()) {
+                selector.select();
+                Subscriber s;
+                while ((s = pendingWrites.poll()) != null) {
+                    s.flush();
+                }
+                Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    SelectionKey key = it.next();
+                    it.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                    } else {
+                        s = (Subscriber) key.attachment();
+                        if (key.isReadable()) {
+                            s.read();
+                        }
+                        if (key.isValid() && key.isWritable()) {
+                            s.flush();
+                        }
+                    }
+                }
+            }
+        } catch (ClosedSelectorException e) {
+            log.info("selector closed");
+        } catch (IOException e) {
+            if (!isInterrupted()) {
+                log.warning(e.toString() + ": AEServerSocket on port " + port + " failed");
+            }
+        }
+        for (Subscriber s : subscribers) {
+            s.disconnect("server closing");
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel ch = serverChannel.accept();
+        if (ch == null) {
+            return;
+        }
+        ch.configureBlocking(false);
+        Socket newSocket = ch.socket();
+        newSocket.setTcpNoDelay(flushPackets);
+        newSocket.setSendBufferSize(sendBufferSize);
+        if (newSocket.getSendBufferSize() != getSendBufferSize()) {
+            log.warning("accepted connection and asked for sendBufferSize=" + getSendBufferSize() + " but only got sendBufferSize=" + newSocket.getSendBufferSize());
+        }
+        AESocket aeSocket = new AESocket(newSocket);
+        aeSocket.setFlushPackets(isFlushPackets());
+        aeSocket.setUseBufferedStreams(isUseBufferedStreams());
+        Subscriber s = new Subscriber(ch, aeSocket);
+        s.key = ch.register(selector, SelectionKey.OP_READ, s);
+        AESocket oldSocket = getAESocket();
+        subscribers.add(s);
+        log.info("accepted incoming stream TCP socket request to send events to " + s);
+        getSupport().firePropertyChange("clientconnected", oldSocket, aeSocket);
+    }
+
+    /** Encodes the packet once and queues it to all subscribers. Never blocks on slow clients; see {@link LagPolicy}.
+     * @param packet the raw events
+     */
+    synchronized public void writePacket(AEPacketRaw packet) {
+        if (subscribers.isEmpty()) {
+            t0Ref = -1; // the next client starts at time zero
+            return;
+        }
+        if (packet == null) {
+            return;
+        }
+        int n = packet.getNumEvents();
+        if (n == 0) {
+            return;
+        }
+        int[] a = packet.getAddresses();
+        int[] ts = packet.getTimestamps();
+        if (encodedTimestamps.length < n) {
+            encodedTimestamps = new int[n];
+        }
+        for (int i = 0; i < n; i++) {
+            encodedTimestamps[i] = normalize(ts[i]);
+        }
+        ByteBuffer bigEndian = null, littleEndian = null; // shared by all unfiltered subscribers
+        for (Subscriber s : subscribers) {
+            ByteBuffer buf;
+            boolean swap = s.aeSocket.isSwapBytesEnabled();
+            if (!s.isFiltering()) {
+                if (swap) {
+                    if (littleEndian == null) {
+                        littleEndian = encode(a, n, null, ByteOrder.LITTLE_ENDIAN);
+                    }
+                    buf = littleEndian.duplicate();
+                } else {
+                    if (bigEndian == null) {
+                        bigEndian = encode(a, n, null, ByteOrder.BIG_ENDIAN);
+                    }
+                    buf = bigEndian.duplicate();
+                }
+            } else {
+                buf = encode(a, n, s, swap ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN);
+            }
+            if (buf.hasRemaining() && s.offer(buf)) {
+                pendingWrites.add(s);
+            }
+        }
+        selector.wakeup();
+    }
+
+    /** Encodes timestamp/address pairs, keeping only the events that pass the subscriber's filters if it is not null */
+    private ByteBuffer encode(int[] a, int n, Subscriber s, ByteOrder order) {
+        ByteBuffer buf = ByteBuffer.allocate(8 * n).order(order);
+        IntBuffer ib = buf.asIntBuffer();
+        for (int i = 0; i < n; i++) {
+            if (s != null && !s.accept(a[i])) {
+                continue;
+            }
+            ib.put(encodedTimestamps[i]);
+            ib.put(a[i]);
+        }
+        buf.limit(4 * ib.position());
+        return buf;
+    }
+
+    /** Makes the timestamp relative to the first one sent, or to the previous one if ISI's are enabled,
+     * like {@link AESocket} does for a single socket. */
+    private int normalize(int t) {
+        int tt;
+        if (t0Ref == -1) {
+            t0Ref = t;
+            tt = 0;
+            log.info("starting time at " + t0Ref);
+        } else {
+            tt = t - t0Ref;
+        }
+        if (AESocket.isiEnabled) {
+            t0Ref = t;
+        }
+        return tt;
+    }
+
+    /** Returns the AESocket of the most recently connected client.
+     * @deprecated there can be many clients, use {@link #getSubscribers()} and send events with {@link #writePacket}
+     */
+    @Deprecated
+    synchronized public AESocket getAESocket() {
+        return subscribers.isEmpty() ? null : subscribers.get(subscribers.size() - 1).aeSocket;
+    }
+
+    /** Disconnects all clients if socket is null.
+     * @deprecated clients are managed by the server
+     */
+    @Deprecated
+    public void setSocket(AESocket socket) {
+        if (socket == null) {
+            for (Subscriber s : subscribers) {
+                s.disconnect("socket cleared");
+            }
+        }
+    }
+
+    /** @return the connected clients */
+    public java.util.List<Subscriber> getSubscribers() {
+        return subscribers;
+    }
+
+    /** @return true if at least one client is connected */
+    public boolean hasSubscribers() {
+        return !subscribers.isEmpty();
+    }
+
+    /** Sets the extractor used to find the x, y and type of events for ROI and type filtering.
+     * @param eventExtractor the chip's extractor */
+    public void setEventExtractor(EventExtractor2D eventExtractor) {
+        this.eventExtractor = eventExtractor;
+    }
+
+    public EventExtractor2D getEventExtractor() {
+        return eventExtractor;
+    }
+
+    /**
+     * One connected client with its own queue of encoded packets and filters.
+     */
+    public class Subscriber {
+
+        private final SocketChannel channel;
+        private final AESocket aeSocket;
+        private SelectionKey key;
+        private final ArrayDeque<ByteBuffer> queue = new ArrayDeque();
+        private final ByteBuffer commandBuffer = ByteBuffer.allocate(256);
+        private volatile LagPolicy lagPolicy = AEServerSocket.this.lagPolicy;
+        private volatile int maxQueuedPackets = AEServerSocket.this.maxQueuedPackets;
+        private volatile int[] roi = null; // x0,y0,x1,y1 inclusive
+        private volatile long typesMask = 0; // bit set for each accepted type, 0 accepts all
+        private volatile int decimation = 1;
+        private int decimationCounter = 0;
+        private long packetsQueued = 0, packetsDropped = 0;
+        private final String name;
+
+        Subscriber(SocketChannel channel, AESocket aeSocket) {
+            this.channel = channel;
+            this.aeSocket = aeSocket;
+            name = String.valueOf(channel.socket().getRemoteSocketAddress());
+        }
+
+        @Override
+        public String toString() {
+            return "Subscriber " + name + " policy=" + lagPolicy + " queued=" + packetsQueued + " dropped=" + packetsDropped;
+        }
+
+        boolean isFiltering() {
+            return roi != null || typesMask != 0 || decimation > 1;
+        }
+
+        boolean accept(int addr) {
+            if (decimation > 1 && (decimationCounter++ % decimation) != 0) {
+                return false;
+            }
+            EventExtractor2D ex = eventExtractor;
+            if (ex == null) {
+                return true;
+            }
+            int[] r = roi;
+            if (r != null) {
+                int x = ex.getXFromAddress(addr), y = ex.getYFromAddress(addr);
+                if (x < r[0] || y < r[1] || x > r[2] || y > r[3]) {
+                    return false;
+                }
+            }
+            return typesMask == 0 || (typesMask & (1L << (ex.getTypeFromAddress(addr) & 63))) != 0;
+        }
+
+        /** Queues the buffer, applying the lag policy if the queue is full.
+         * @return true if the buffer was queued */
+        synchronized boolean offer(ByteBuffer buf) {
+            if (!channel.isOpen()) {
+                return false;
+            }
+            if (queue.size() >= maxQueuedPackets) {
+                switch (lagPolicy) {
+                    case DISCONNECT:
+                        pendingDisconnect = true;
+                        return true; // selector thread closes it
+                    case DECIMATE:
+                        if (decimation < MAX_DECIMATION) {
+                            decimation *= 2;
+                            log.info(name + " is lagging, now sending every " + decimation + "th event");
+                        }
+                        dropOldest(); // the queue is still full
                         break;
+                    case DROP_OLDEST:
+                        dropOldest();
+                        break;
+                }
+            }
+            queue.add(buf);
+            packetsQueued++;
+            return true;
+        }
+
+        private volatile boolean pendingDisconnect = false;
+
+        /** Drops the oldest packet that has not started to be written; a partly written packet must be completed to keep the stream aligned */
+        private void dropOldest() {
+            ByteBuffer head = queue.poll();
+            if (head != null && head.position() > 0) {
+                ByteBuffer next = queue.poll();
+                queue.addFirst(head);
+                if (next == null) {
+                    return;
+                }
+            }
+            packetsDropped++;
+        }
+
+        /** Writes as much as the socket accepts; called only from the selector thread */
+        synchronized void flush() {
+            if (pendingDisconnect) {
+                disconnect("client could not keep up");
+                return;
+            }
+            try {
+                ByteBuffer head;
+                while ((head = queue.peek()) != null) {
+                    channel.write(head);
+                    if (head.hasRemaining()) {
+                        key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                        return;
                     }
+                    queue.poll();
+                }
+                if (key.isValid()) {
+                    key.interestOps(SelectionKey.OP_READ);
+                }
+                if (decimation > 1) {
+                    decimation = 1;
+                    log.info(name + " caught up, sending all events again");
+                }
+            } catch (IOException e) {
+                disconnect(e.toString());
+            }
+        }
+
+        /** Reads command lines from the client; called only from the selector thread */
+        void read() {
+            try {
+                if (channel.read(commandBuffer) < 0) {
+                    disconnect("client closed connection");
+                    return;
                 }
-                Socket newSocket = serverSocket.accept(); // makes a new socket to the connecting client
-                if (socket != null) {
-                    log.info("closing existing stream TCP output socket " + socket + " to accept a new connection"); // TODO multiple clients should be possible
-                    try {
-                        socket.close();
-                    } catch (IOException ioe) {
-                        log.warning("while closing old socket caught " + ioe.getMessage());
+            } catch (IOException e) {
+                disconnect(e.toString());
+                return;
+            }
+            commandBuffer.flip();
+            int start = 0;
+            for (int i = 0; i < commandBuffer.limit(); i++) {
+                if (commandBuffer.get(i) == '\n') {
+                    byte[] line = new byte[i - start];
+                    for (int j = 0; j < line.length; j++) {
+                        line[j] = commandBuffer.get(start + j);
                     }
+                    command(new String(line, StandardCharsets.US_ASCII).trim());
+                    start = i + 1;
                 }
-                newSocket.setSendBufferSize(sendBufferSize);
-                if (newSocket.getSendBufferSize() != getSendBufferSize()) {
-                    log.warning("accepted connection and asked for sendBufferSize=" + getSendBufferSize() + " but only got sendBufferSize=" + newSocket.getSendBufferSize());
+            }
+            commandBuffer.position(start);
+            commandBuffer.compact();
+            if (!commandBuffer.hasRemaining()) {
+                log.warning(name + " sent a too long command line, ignoring it");
+                commandBuffer.clear();
+            }
+        }
+
+        private void command(String line) {
+            if (line.isEmpty()) {
+                return;
+            }
+            String[] tok = line.split("\\s+");
+            try {
+                switch (tok[0].toLowerCase()) {
+                    case "roi":
+                        if (tok.length == 2 && tok[1].equalsIgnoreCase("off")) {
+                            setRoi(null);
+                        } else {
+                            setRoi(new int[]{Integer.parseInt(tok[1]), Integer.parseInt(tok[2]), Integer.parseInt(tok[3]), Integer.parseInt(tok[4])});
+                        }
+                        break;
+                    case "types":
+                        if (tok.length == 2 && tok[1].equalsIgnoreCase("off")) {
+                            setTypes(null);
+                        } else {
+                            int[] t = new int[tok.length - 1];
+                            for (int i = 0; i < t.length; i++) {
+                                t[i] = Integer.parseInt(tok[i + 1]);
+                            }
+                            setTypes(t);
+                        }
+                        break;
+                    case "policy":
+                        setLagPolicy(LagPolicy.valueOf(tok[1].toUpperCase()));
+                        break;
+                    case "queue":
+                        setMaxQueuedPackets(Integer.parseInt(tok[1]));
+                        break;
+                    default:
+                        log.warning(name + " sent unknown command \"" + line + "\"");
+                        return;
                 }
-                AESocket aeSocket = new AESocket(newSocket);
-                aeSocket.setFlushPackets(isFlushPackets());
-                aeSocket.setUseBufferedStreams(isUseBufferedStreams());
-                AESocket oldSocket = aeSocket;
-                synchronized (this) {
-                    setSocket(aeSocket);
+                log.info(name + " set " + line);
+            } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+                log.warning(name + " sent bad command \"" + line + "\": " + e);
+            }
+        }
+
+        /** Closes the connection to the client */
+        synchronized void disconnect(String reason) {
+            if (!subscribers.remove(this)) {
+                return;
+            }
+            log.info("disconnecting " + this + ": " + reason);
+            queue.clear();
+            try {
+                if (subscribers.isEmpty()) {
+                    aeSocket.close(); // the next writePacket then restarts the timestamps at zero for new clients
+                } else {
+                    channel.close();
                 }
-                log.info("accepted incoming stream TCP socket request to send events on socket " + newSocket);
-                getSupport().firePropertyChange("clientconnected", oldSocket, aeSocket);
-            }catch(SocketException se){
-                log.info("socket closed gracefully? caught "+ se.toString());
-                break;
             } catch (IOException e) {
-                if (!isInterrupted()) {
-                    log.warning(e.toString() + ": AEServerSocket on port " + port + " may already be bound by another viewer");
+                log.warning("while closing " + name + " caught " + e.getMessage());
+            }
+        }
+
+        /** @param roi x0,y0,x1,y1 inclusive, or null to send all events */
+        public void setRoi(int[] roi) {
+            if (roi != null && roi.length != 4) {
+                throw new IllegalArgumentException("roi needs 4 values x0 y0 x1 y1");
+            }
+            this.roi = roi;
+        }
+
+        public int[] getRoi() {
+            return roi;
+        }
+
+        /** @param types the event types to send, or null to send all types */
+        public void setTypes(int[] types) {
+            long mask = 0;
+            if (types != null) {
+                for (int t : types) {
+                    mask |= 1L << (t & 63);
                 }
-                break;
             }
+            typesMask = mask;
         }
-    }
 
-    synchronized public AESocket getAESocket() {
-        return socket;
-    }
+        public LagPolicy getLagPolicy() {
+            return lagPolicy;
+        }
 
-    public void setSocket(AESocket socket) {
-        this.socket = socket;
+        public void setLagPolicy(LagPolicy lagPolicy) {
+            this.lagPolicy = lagPolicy;
+        }
+
+        public int getMaxQueuedPackets() {
+            return maxQueuedPackets;
+        }
+
+        public void setMaxQueuedPackets(int maxQueuedPackets) {
+            if (maxQueuedPackets < 1) {
+                throw new IllegalArgumentException("queue must hold at least 1 packet");
+            }
+            this.maxQueuedPackets = maxQueuedPackets;
+        }
+
+        /** @return number of packets queued to this client */
+        public long getPacketsQueued() {
+            return packetsQueued;
+        }
+
+        /** @return number of packets dropped because this client lagged */
+        public long getPacketsDropped() {
+            return packetsDropped;
+        }
+
+        public AESocket getAESocket() {
+            return aeSocket;
+        }
     }
 
     /** Tests class by constructing a socket and starting the thread */
@@ -181,26 +636,53 @@ public class AEServerSocket extends Thread {
         return flushPackets;
     }
 
+    /** @param flushPackets true to disable Nagle's algorithm on new connections so that packets are sent right away */
     public void setFlushPackets(boolean flushPackets) {
         this.flushPackets = flushPackets;
         prefs.putBoolean("AESocket.flushPackets", flushPackets);
     }
 
+    /**
+     * @return the number of packets that can be queued for each new client
+     */
+    public int getMaxQueuedPackets() {
+        return maxQueuedPackets;
+    }
+
+    /**
+     * @param maxQueuedPackets the number of packets that can be queued for each new client
+     */
+    public void setMaxQueuedPackets(int maxQueuedPackets) {
+        this.maxQueuedPackets = maxQueuedPackets;
+        prefs.putInt("AEServerSocket.maxQueuedPackets", maxQueuedPackets);
+    }
+
+    /**
+     * @return the policy for new clients that can't keep up
+     */
+    public LagPolicy getLagPolicy() {
+        return lagPolicy;
+    }
+
+    /**
+     * @param lagPolicy the policy for new clients that can't keep up
+     */
+    public void setLagPolicy(LagPolicy lagPolicy) {
+        this.lagPolicy = lagPolicy;
+        prefs.put("AEServerSocket.lagPolicy", lagPolicy.name());
+    }
+
     /** shuts down the server socket thread and closes the server socket */
     public void close() throws IOException {
         log.info("closing AEServerSocket thread");
-//        T.interrupt();
-//        try {
-//            T.join(50,0); // wait some ms for server thread to die
-//        } catch (InterruptedException ex) {
-//            log.info("interrupted during thread shutdown");
-//        }
-        serverSocket.close();
+        serverChannel.close();
+        selector.wakeup();
         try {
             T.join(1000);
         } catch (InterruptedException ex) {
             log.info("join after server socket close was interrupted");
         }
+        selector.close();
         log.info("closed server socket");
     }
 
@@ -43,7 +43,7 @@ import net.sf.jaer.aemonitor.EventRaw;
 public class AESocket implements AESocketSettings{
     Selector selector=null;
     SocketChannel channel=null;
-    private static int t0_ref = -1;
+    private int t0_ref = -1;
 
 
     private int receiveBufferSize=prefs.getInt("AESocket.receiveBufferSize",DEFAULT_RECEIVE_BUFFER_SIZE_BYTES);
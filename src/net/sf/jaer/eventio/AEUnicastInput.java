@@ -18,6 +18,9 @@ import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.MappedByteBuffer;
 import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Arrays;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.Semaphore;
 import java.util.logging.Level;
@@ -58,6 +61,11 @@ import net.sf.jaer.eventio.Jaer3BufferParser.Jaer3EventExtractor;
  * <p>
  * The datagram socket is not connected to the receiver, i.e., connect() is not
  * called on the socket.
+ * <p>
+ * The channel is non-blocking and the reader thread drains all datagrams that
+ * are queued in the socket on each wakeup of its Selector into the pool of
+ * direct buffers, so that bursts are received without a thread handoff per
+ * datagram. Events are decoded from the buffers in bulk.
  *
  * @see #setAddressFirstEnabled
  * @see #setSequenceNumberEnabled
@@ -76,7 +84,7 @@ public class AEUnicastInput implements AEUnicastSettings, PropertyChangeListener
     private boolean sequenceNumberEnabled = prefs.getBoolean("AEUnicastInput.sequenceNumberEnabled", true);
     private boolean cAERStreamEnabled = prefs.getBoolean("AEUnicastInput.cAERDisplayEnabled", true);
     private boolean addressFirstEnabled = prefs.getBoolean("AEUnicastInput.addressFirstEnabled", true);
-    private ArrayBlockingQueue<ByteBuffer> filledBufferQueue = new ArrayBlockingQueue(NBUFFERS), availableBufferQueue = new ArrayBlockingQueue(NBUFFERS);
+    private ArrayBlockingQueue<ByteBuffer> filledBufferQueue = new ArrayBlockingQueue<>(NBUFFERS), availableBufferQueue = new ArrayBlockingQueue<>(NBUFFERS);
     private AENetworkRawPacket packet = new AENetworkRawPacket();
     private static final Logger log = Logger.getLogger("AESocketStream");
     private int bufferSize = prefs.getInt("AEUnicastInput.bufferSize", AENetworkInterfaceConstants.DATAGRAM_BUFFER_SIZE_BYTES);
@@ -88,7 +96,10 @@ public class AEUnicastInput implements AEUnicastSettings, PropertyChangeListener
     private boolean secDvsProtocolEnabled = prefs.getBoolean("AEUnicastInput.secDvsProtocolEnabled", false);
     boolean stopme = false;
     private DatagramChannel channel;
+    private Selector selector = null;
     private int datagramCounter = 0;
+    private volatile long datagramsReceivedCount = 0, datagramsDroppedCount = 0;
+    private int[] intScratch = new int[0]; // reused for bulk decoding of datagrams
     private int datagramSequenceNumber = 0;
     private EventRaw eventRaw = new EventRaw();
     private int timeZero = 0; // used to store initial timestamp for 4 byte timestamp reads to subtract this value
@@ -200,65 +211,105 @@ public class AEUnicastInput implements AEUnicastSettings, PropertyChangeListener
 //                log.info("recieved packet with sequence number "+packetSequenceNumber);
             if (datagramSequenceNumber != datagramCounter) {
                 log.warning(String.format("Dropped %d packets. (Incoming packet sequence number (%d) doesn't match expected packetCounter (%d), resetting packetCounter)", datagramSequenceNumber - datagramCounter, datagramSequenceNumber, datagramCounter));
+                countDroppedDatagrams(datagramSequenceNumber - datagramCounter);
                 datagramCounter = datagramSequenceNumber;
             }
             datagramCounter++;
         }
     }
 
+    private void countDroppedDatagrams(int n) {
+        if (n > 0 && datagramsReceivedCount > 1) { // negative gaps are reordering or a restarted sender, and the first datagram just sets the counter
+            datagramsDroppedCount += n;
+        }
+    }
+
+    /**
+     * Returns the number of datagrams received since the input was opened or
+     * the counts were reset.
+     *
+     * @return number of datagrams
+     */
+    public long getDatagramsReceivedCount() {
+        return datagramsReceivedCount;
+    }
+
     /**
-     * Receives a buffer from the UDP socket. Data is stored in internal buffer.
+     * Returns the number of datagrams that were lost according to gaps in the
+     * datagram sequence numbers. Only counted when sequence numbers are
+     * enabled or the spinnaker protocol is used.
+     *
+     * @return number of lost datagrams
+     */
+    public long getDatagramsDroppedCount() {
+        return datagramsDroppedCount;
+    }
+
+    /**
+     * Resets the received and dropped datagram counts.
+     */
+    public void resetDatagramCounts() {
+        datagramsReceivedCount = 0;
+        datagramsDroppedCount = 0;
+    }
+
+    /**
+     * Waits for datagrams on the UDP socket and then drains all the datagrams
+     * that are queued in the socket, each into its own buffer taken from the
+     * pool of available buffers. The filled buffers are handed to readPacket.
      *
      * @param packet used to set number of events to 0 if there is an error and
      * to store the source host(s) information.
-     * @return client if successful, null if there is an IOException.
+     * @return number of datagrams received, or -1 if there is an error.
      */
-    private SocketAddress receiveDatagramAndPutToExchanger(AENetworkRawPacket packet) {
-        SocketAddress client = null;
+    private int receiveDatagramsAndPutToQueue(AENetworkRawPacket packet) {
+        int nReceived = 0;
         try {
-            ByteBuffer buffer = availableBufferQueue.take(); // buffer must be cleared by readPacket
-//            ByteBuffer buffer = ByteBuffer.allocateDirect(bufferSize);
-//            buffer.order(swapBytesEnabled ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN);
-
-            client = channel.receive(buffer); // fill buffer with data from datagram, blocks here until packet received
-            if (!printedHost) {
-                printedHost = true;
-                log.info("received first packet from " + client + " of length " + buffer.position() + " bytes"); // , connecting channel
-                // do not connect so that multiple clients can send us data on the same port
-                //                channel.connect(client); // TODO connect the channel to avoid security check overhead. TODO check if handles reconnects correctly.
+            if (selector.select() == 0) {
+                Thread.interrupted(); // woken up by close() or an interrupt from setPaused(), clear the interrupt so the next select() blocks again
+                return 0;
             }
-            if (client instanceof InetSocketAddress) {
-                packet.addClientAddress((InetSocketAddress) client, packet.getNumEvents());
-            } else if (client == null) {
-                paused = true;
-                log.warning("Device not connected or wrong configured. Datagrams have to be sent to port: " + port + " .Input stream paused.");
-            } else {
-                log.warning("unknown type of client address - should be InetSocketAddress: " + client);
-            }
-            buffer.flip();
-            if (!spinnakerProtocolEnabled && !secDvsProtocolEnabled) {
-                checkSequenceNumber(buffer);
+            selector.selectedKeys().clear();
+            while (nReceived < NBUFFERS) {
+                ByteBuffer buffer = nReceived == 0 ? availableBufferQueue.take() : availableBufferQueue.poll(); // buffer must be cleared by readPacket
+                if (buffer == null) {
+                    break; // all buffers are filled, rest of burst stays in the socket until next time
+                }
+                SocketAddress client = channel.receive(buffer); // fill buffer with data from datagram, returns null if none is left
+                if (client == null) {
+                    availableBufferQueue.put(buffer);
+                    break;
+                }
+                nReceived++;
+                datagramsReceivedCount++;
+                if (!printedHost) {
+                    printedHost = true;
+                    log.info("received first packet from " + client + " of length " + buffer.position() + " bytes"); // , connecting channel
+                    // do not connect so that multiple clients can send us data on the same port
+                }
+                if (client instanceof InetSocketAddress) {
+                    packet.addClientAddress((InetSocketAddress) client, packet.getNumEvents());
+                } else {
+                    log.warning("unknown type of client address - should be InetSocketAddress: " + client);
+                }
+                buffer.flip();
+                if (!spinnakerProtocolEnabled && !secDvsProtocolEnabled) {
+                    checkSequenceNumber(buffer);
+                }
+                filledBufferQueue.put(buffer); // cannot block since there are only NBUFFERS buffers
             }
-//            if(exchanger.size()>10){
-//                log.info("filled queue of datagrams has "+exchanger.size()+" buffers");
-//            }
-            filledBufferQueue.put(buffer); // blocks here until readPacket clears the packet
         } catch (InterruptedException ie) {
             log.warning(ie.toString());
-            return null;
-        } catch (SocketTimeoutException to) {
-            // just didn't fill the buffer in time, ignore
-            log.warning(to.toString());
-            return null;
+            return -1;
         } catch (IOException e) {
             log.warning(e.toString());
             packet.clear();
-            return null;
+            return -1;
         } catch (IllegalArgumentException eArg) {
             log.warning(eArg.toString());
-            return null;
+            return -1;
         }
-        return client;
+        return nReceived;
     }
 
     private int maybeSwapByteOrder(int value) {
@@ -361,6 +412,7 @@ public class AEUnicastInput implements AEUnicastSettings, PropertyChangeListener
                 //                log.info("recieved packet with sequence number "+packetSequenceNumber);
                 if (datagramSequenceNumber != datagramCounter) {
                     log.warning(String.format("Dropped %d packets. (Incoming packet sequence number (%d) doesn't match expected packetCounter (%d), resetting packetCounter)", datagramSequenceNumber - datagramCounter, datagramSequenceNumber, datagramCounter));
+                    countDroppedDatagrams((datagramSequenceNumber - datagramCounter) & 0xff); // 8 bit counter wraps
                     datagramCounter = datagramSequenceNumber;
                 }
                 if (datagramCounter < 255) {
@@ -595,13 +647,7 @@ public class AEUnicastInput implements AEUnicastSettings, PropertyChangeListener
                     addresses = packet.getAddresses();
                     timestamps = packet.getTimestamps();
                     for (int i = 0; i < jaer3EventsNum; i++) {
-                        ByteBuffer tmpEventBuffer = ByteBuffer.allocate(16);
-                        tmpEventBuffer = j3Parser.getJaer2EventBuf();
-                        int etypeValue = tmpEventBuffer.getInt();
-                        eventRaw.eventtype = EventRaw.EventType.values()[etypeValue];
-                        eventRaw.address = tmpEventBuffer.getInt();
-                        eventRaw.timestamp = tmpEventBuffer.getInt();
-                        eventRaw.pixelData = tmpEventBuffer.getInt();
+                        j3Parser.readNextEvent(eventRaw);
                         etypes[startingIndex + i] = eventRaw.eventtype;
                         addresses[startingIndex + i] = eventRaw.address;
                         timestamps[startingIndex + i] = eventRaw.timestamp;
@@ -614,6 +660,12 @@ public class AEUnicastInput implements AEUnicastSettings, PropertyChangeListener
                 return;
             }
 
+            if (use4ByteAddrTs && timestampsEnabled) {
+                extractEvents4ByteAddrTs(buffer, nEventsInPacket, addresses, timestamps, startingIndex, ts);
+                packet.setNumEvents(newPacketLength);
+                return;
+            }
+
             for (int i = 0; i < nEventsInPacket; i++) {
                 if (addressFirstEnabled) {
                     if (use4ByteAddrTs) {
@@ -690,6 +742,56 @@ public class AEUnicastInput implements AEUnicastSettings, PropertyChangeListener
         }
     }
 
+    /**
+     * Bulk decodes the usual datagram of 4 byte address and 4 byte timestamp
+     * pairs. All the ints are copied out of the buffer at once with the byte
+     * order that results from the buffer order and the swapBytesEnabled
+     * option, and then deinterleaved into the packet arrays.
+     */
+    private void extractEvents4ByteAddrTs(ByteBuffer buffer, int nEventsInPacket, int[] addresses, int[] timestamps, final int startingIndex, int ts) {
+        final int nInts = 2 * nEventsInPacket;
+        if (intScratch.length < nInts) {
+            intScratch = new int[nInts];
+        }
+        final int[] ints = intScratch;
+        ByteOrder order = buffer.order();
+        if (swapBytesEnabled) {
+            order = order == ByteOrder.BIG_ENDIAN ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN;
+        }
+        buffer.slice().order(order).asIntBuffer().get(ints, 0, nInts);
+        buffer.position(buffer.position() + (4 * nInts));
+        final int addrOffset = addressFirstEnabled ? 0 : 1, tsOffset = 1 - addrOffset;
+        for (int i = 0, j = 0; i < nEventsInPacket; i++, j += 2) {
+            addresses[startingIndex + i] = ints[j + addrOffset];
+        }
+        if (localTimestampsEnabled) {
+            Arrays.fill(timestamps, startingIndex, startingIndex + nEventsInPacket, ts);
+        } else if (!addressFirstEnabled) {
+            for (int i = 0, j = tsOffset; i < nEventsInPacket; i++, j += 2) {
+                timestamps[startingIndex + i] = ints[j];
+            }
+        } else {
+            for (int i = 0, j = tsOffset; i < nEventsInPacket; i++, j += 2) {
+                int rawTime = ints[j];
+                int zeroedRawTime;
+                if (readTimeZeroAlready) {
+                    zeroedRawTime = rawTime - timeZero;
+                } else {
+                    readTimeZeroAlready = true;
+                    timeZero = rawTime;
+                    zeroedRawTime = 0;
+                }
+                float floatFinalTime = timestampMultiplier * zeroedRawTime;
+                if ((floatFinalTime >= Integer.MAX_VALUE) || (floatFinalTime <= Integer.MIN_VALUE)) {
+                    timeZero = rawTime; // after overflow reset timezero
+                    timestamps[startingIndex + i] = Integer.MIN_VALUE + (int) (floatFinalTime - Integer.MAX_VALUE);
+                } else {
+                    timestamps[startingIndex + i] = (int) floatFinalTime;
+                }
+            }
+        }
+    }
+
     @Override
     public String toString() {
         return "AEUnicastInput at PORT=" + getPort();
@@ -707,6 +809,9 @@ public class AEUnicastInput implements AEUnicastSettings, PropertyChangeListener
                 stopme = true;
                 channel.close();
                 datagramSocket.close();
+                if (selector != null) {
+                    selector.wakeup();
+                }
             } catch (IOException ex) {
                 log.warning("on closing DatagramChannel caught " + ex);
             }
@@ -725,6 +830,9 @@ public class AEUnicastInput implements AEUnicastSettings, PropertyChangeListener
     private void cleanup() {
         try {
             datagramSocket.close();
+            if (selector != null) {
+                selector.close();
+            }
             /* The extractor might be changed in the AEUnicastInput, so we should restore it back. 
              * This operation must be after the datagramSocket.close() to make sure there're no packets
              * on the network now.
@@ -759,6 +867,12 @@ public class AEUnicastInput implements AEUnicastSettings, PropertyChangeListener
             log.info("bound " + this);
             datagramSocket.setSoTimeout(0); // infinite timeout
             datagramSocket.setReceiveBufferSize(bufferSize);
+            channel.configureBlocking(false);
+            if (selector != null) {
+                selector.close();
+            }
+            selector = Selector.open();
+            channel.register(selector, SelectionKey.OP_READ);
             return true;
         } catch (IOException e) {
             log.warning("caught " + e + ", datagramSocket will be constructed later");
@@ -776,6 +890,7 @@ public class AEUnicastInput implements AEUnicastSettings, PropertyChangeListener
     public void open() throws IOException {  // TODO cannot really throw exception because socket is opened in Reader
         close();
         allocateBufffers();
+        resetDatagramCounts();
         readingThread = new Reader();
         readingThread.start();
     }
@@ -972,6 +1087,9 @@ public class AEUnicastInput implements AEUnicastSettings, PropertyChangeListener
     public void setPaused(boolean yes) {
         paused = yes;
         readingThread.interrupt();
+        if (selector != null) {
+            selector.wakeup();
+        }
         // following deadlocks with exchanger
 //        if ( yes ){
 //            try{
@@ -1062,10 +1180,10 @@ public class AEUnicastInput implements AEUnicastSettings, PropertyChangeListener
                         maxSizeExceeded = true;
                     }
                 }
-                // recieve datagrams and put them to exchanger
+                // recieve datagrams and put them to queue
                 if (!maxSizeExceeded && !paused) { // if paused, don't overrun memory
                     try {
-                        receiveDatagramAndPutToExchanger(packet); // also save source hosts to packet
+                        receiveDatagramsAndPutToQueue(packet); // also save source hosts to packet
                     } catch (NullPointerException e) {
                         log.warning(e.toString());
                         break;
@@ -19,7 +19,7 @@ import java.nio.BufferOverflowException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.channels.DatagramChannel;
-import java.util.concurrent.Exchanger;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.logging.Logger;
 import java.util.prefs.Preferences;
 
@@ -35,7 +35,8 @@ import net.sf.jaer.util.ByteSwapper;
  * The implementation using a BlockingQueue to buffer the AEPacketRaw's that are
  * offered. The packets are sent by a separate Consumer thread. The consumer has
  * a queue length that determines how many packets can be buffered before the
- * writePacket method blocks.
+ * writePacket method blocks. The consumer sends all the datagrams that are
+ * queued each time it wakes up.
  * <p>
  * The datagram socket is not 'connect'ed to the receiver.
  *
@@ -61,10 +62,10 @@ public class AEUnicastOutput implements AEUnicastSettings {
     private boolean swapBytesEnabled = prefs.getBoolean("AEUnicastOutput.swapBytesEnabled", false);
     private boolean use4ByteAddrTs = prefs.getBoolean("AEUnicastOutput.use4ByteAddrTs", DEFAULT_USE_4_BYTE_ADDR_AND_TIMESTAMP);
     private int bufferSize = prefs.getInt("AEUnicastOutput.bufferSize", AENetworkInterfaceConstants.DATAGRAM_BUFFER_SIZE_BYTES);
-    private Exchanger<ByteBuffer> exchanger = new Exchanger();
-    private ByteBuffer initialEmptyBuffer = ByteBuffer.allocateDirect(getBufferSize()); // the buffer to start capturing into
-    private ByteBuffer initialFullBuffer = ByteBuffer.allocateDirect(getBufferSize());// the buffer to render/process first
-    private ByteBuffer currentBuf = initialEmptyBuffer; // starting buffer for filling
+    private static final int NBUFFERS = 100; // number of datagrams that can be queued for the consumer before writePacket blocks
+    private ArrayBlockingQueue<ByteBuffer> filledBufferQueue = new ArrayBlockingQueue<>(NBUFFERS), availableBufferQueue = new ArrayBlockingQueue<>(NBUFFERS);
+    private ByteBuffer currentBuf = ByteBuffer.allocateDirect(getBufferSize()); // starting buffer for filling
+    private int[] intScratch = new int[0]; // reused for bulk encoding of events
     private boolean timestampsEnabled = prefs.getBoolean("AEUnicastOutput.timestampsEnabled", true);
     private boolean localTimestampsEnabled = prefs.getBoolean("AEUnicastOutput.localTimestampsEnabled", false);
     private boolean spinnakerProtocolEnabled = prefs.getBoolean("AEUnicastOutput.spinnakerProtocolEnabled", false);
@@ -107,7 +108,7 @@ public class AEUnicastOutput implements AEUnicastSettings {
         socket.setTrafficClass(0x10 + 0x08); // low delay
         setSocketBufferSize();
         allocateBuffers();
-        consumerThread = new Thread(new Consumer(exchanger, initialFullBuffer));
+        consumerThread = new Thread(new Consumer());
         consumerThread.setName("AEUnicastOutput");
         consumerThread.setPriority(Thread.NORM_PRIORITY + -1);
         consumerThread.start();
@@ -224,6 +225,8 @@ public class AEUnicastOutput implements AEUnicastSettings {
                     }
                     sendPacket();
                 }
+            } else if (use4ByteAddrTs && timestampsEnabled) {
+                writeEvents4ByteAddrTs(addr, ts, nEvents);
             } else {
                 // write the sequence number for this DatagramPacket to the buf for this ByteArrayOutputStream
                 maybeWriteSequenceNumber(currentBuf);
@@ -277,10 +280,49 @@ public class AEUnicastOutput implements AEUnicastSettings {
         sendPacket();
     }
 
+    /**
+     * Bulk encodes events as 4 byte address and 4 byte timestamp pairs. The
+     * ints for as many events as fit in the current datagram are put at once
+     * with the byte order that results from the buffer order and the
+     * swapBytesEnabled option.
+     */
+    private void writeEvents4ByteAddrTs(int[] addr, int[] ts, int nEvents) throws IOException {
+        maybeWriteSequenceNumber(currentBuf);
+        int i = 0;
+        while (i < nEvents) {
+            final int n = Math.min(currentBuf.remaining() / AENetworkInterfaceConstants.EVENT_SIZE_BYTES, nEvents - i);
+            if (intScratch.length < 2 * n) {
+                intScratch = new int[2 * n];
+            }
+            final int[] ints = intScratch;
+            final int addrOffset = addressFirstEnabled ? 0 : 1, tsOffset = 1 - addrOffset;
+            for (int k = 0, j = 0; k < n; k++, j += 2) {
+                int t = localTimestampsEnabled ? (int) System.nanoTime() / 1000 : ts[i + k];
+                ints[j + addrOffset] = addr[i + k];
+                ints[j + tsOffset] = (int) (timestampMultiplierReciprocal * (double) t);
+            }
+            ByteOrder order = currentBuf.order();
+            if (swapBytesEnabled) {
+                order = order == ByteOrder.BIG_ENDIAN ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN;
+            }
+            currentBuf.slice().order(order).asIntBuffer().put(ints, 0, 2 * n);
+            currentBuf.position(currentBuf.position() + (n * AENetworkInterfaceConstants.EVENT_SIZE_BYTES));
+            i += n;
+            if (currentBuf.remaining() < AENetworkInterfaceConstants.EVENT_SIZE_BYTES) {
+                // we break up into datagram packets of sendBufferSize
+                sendPacket();
+                maybeWriteSequenceNumber(currentBuf);
+            }
+        }
+    }
+
     synchronized private void allocateBuffers() {
-        initialEmptyBuffer = ByteBuffer.allocateDirect(getBufferSize()); // the buffer to start capturing into
-        initialFullBuffer = ByteBuffer.allocateDirect(getBufferSize());// the buffer to render/process first
-        currentBuf = initialEmptyBuffer; // starting buffer for filling
+        filledBufferQueue.clear();
+        availableBufferQueue.clear();
+        for (int i = 0; i < NBUFFERS; i++) {
+            availableBufferQueue.add(ByteBuffer.allocateDirect(getBufferSize()));
+        }
+        currentBuf = ByteBuffer.allocateDirect(getBufferSize()); // starting buffer for filling
         try {
             setSocketBufferSize();
         } catch (SocketException ex) {
@@ -290,11 +332,16 @@ public class AEUnicastOutput implements AEUnicastSettings {
 
     private void sendPacket() throws IOException {
         try {
-//            log.info("exchanging "+currentBuf);
-            currentBuf = exchanger.exchange(currentBuf);
+            currentBuf.flip();
+            if (!currentBuf.hasRemaining()) { // don't queue empty packets
+                currentBuf.clear();
+                return;
+            }
+            ByteOrder order = currentBuf.order();
+            filledBufferQueue.put(currentBuf);
+            currentBuf = availableBufferQueue.take(); // blocks if consumer has not yet sent NBUFFERS datagrams
             currentBuf.clear();
-            Thread.currentThread();
-            Thread.yield();
+            currentBuf.order(order);
         } catch (Exception e) {
             log.warning(e.toString());
         }
@@ -433,36 +480,29 @@ public class AEUnicastOutput implements AEUnicastSettings {
         return false;
     }
 
+    /**
+     * Sends the queued datagrams. Each time the consumer wakes up it sends all
+     * the datagrams that have been queued by writePacket before it gives up
+     * the CPU.
+     */
     class Consumer implements Runnable {
 
-        private final Exchanger<ByteBuffer> exchanger;
-        private ByteBuffer buf;
-
-        Consumer(Exchanger<ByteBuffer> exchanger, ByteBuffer initBuf) {
-            this.exchanger = exchanger;
-            this.buf = initBuf;
-        }
-
         @Override
         public void run() {
             try {
                 while (true) {
-                    buf = exchanger.exchange(buf);
-                    buf.flip();
-                    if (!buf.hasRemaining()) {
-                        continue; // don't write empty packets
-                    }
-                    if (!checkClient()) { // if client not there, just continue - maybe it comes back
-                        continue;
-                    }
-                    try {
-//                        log.info("sending buf="+buf+" to client="+client);
-                        channel.send(buf, client);
-                        Thread.currentThread();
-                        Thread.yield(); // give up to possible receiver thread; see http://www.javamex.com/tutorials/threads/yield.shtml
-                    } catch (IOException e) {
-                        e.printStackTrace();
-                    }
+                    ByteBuffer buf = filledBufferQueue.take();
+                    do {
+                        if (checkClient()) { // if client not there, just drop the datagram - maybe it comes back
+                            try {
+                                channel.send(buf, client);
+                            } catch (IOException e) {
+                                e.printStackTrace();
+                            }
+                        }
+                        availableBufferQueue.offer(buf); // dropped if the buffers were reallocated meanwhile
+                    } while ((buf = filledBufferQueue.poll()) != null);
+                    Thread.yield(); // give up to possible receiver thread; see http://www.javamex.com/tutorials/threads/yield.shtml
                 }
             } catch (InterruptedException e) {
                 log.info("Consumer interrupted");
@@ -0,0 +1,499 @@
+/*
+ * AbstractBlockFileInputStream.java
+ *
+ * Copyright (C) 2026 jAER project.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ */
+package net.sf.jaer.eventio;
+
+import java.beans.PropertyChangeListener;
+import java.beans.PropertyChangeSupport;
+import java.io.File;
+import java.io.IOException;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.logging.Logger;
+
+import net.sf.jaer.aemonitor.AEPacketRaw;
+
+/**
+ * Base of the file input streams that store events in blocks that are decoded
+ * as a whole, e.g. {@link AECompressedFileInputStream} and
+ * {@link Hdf5EventFileInputStream}. Subclasses only locate and decode the
+ * blocks; reading by number and by time, positioning, marks and rewinding are
+ * done here on the decoded addresses and timestamps.
+ * <p>
+ * The stream fires the same property changes as {@link AEFileInputStream}.
+ * Reading backwards returns the events in forward order.
+ *
+ * @author agent
+ */
+public abstract class AbstractBlockFileInputStream implements AEFileInputStreamInterface {
+
+    static final Logger log = Logger.getLogger("net.sf.jaer.eventio");
+
+    private final PropertyChangeSupport support = new PropertyChangeSupport(this);
+    private File file;
+    private final ZoneId zoneId = ZoneId.systemDefault();
+    /**
+     * Set by the subclass when it opens the file
+     */
+    protected long absoluteStartingTimeMs = 0, numEvents = 0;
+
+    private final AEPacketRaw packet = new AEPacketRaw(AEFileInputStream.MAX_BUFFER_SIZE_EVENTS);
+    private long position = 0, markIn = 0, markOut = 0;
+    private boolean repeat = true, rewindFlag = false, firstReadCompleted = false;
+    private boolean nonMonotonicTimeExceptionsChecked = true;
+    private int firstTimestamp = 0, lastTimestamp = 0, mostRecentTimestamp = 0, currentStartTimestamp = 0;
+    private int timestampResetBitmask = 0, timestampOffset = 0;
+    private final TreeMap<Long, Integer> timestampResets = new TreeMap<>(); // raw timestamp of reset events by position
+    private long timestampResetsScannedTo = 0; // all reset events before this position are in timestampResets
+
+    protected AbstractBlockFileInputStream(File f) {
+        this.file = f;
+    }
+
+    /**
+     * Called by the subclass constructor once numEvents is known.
+     *
+     * @param firstTimestamp the first timestamp of the file
+     * @param lastTimestamp the last timestamp of the file
+     */
+    protected void initTimestamps(int firstTimestamp, int lastTimestamp) {
+        this.firstTimestamp = firstTimestamp;
+        this.lastTimestamp = lastTimestamp;
+        mostRecentTimestamp = firstTimestamp;
+        currentStartTimestamp = firstTimestamp;
+        markOut = numEvents;
+        log.info("opened " + this);
+    }
+
+    /**
+     * @return the block holding an event position
+     */
+    protected abstract int blockOf(long pos);
+
+    /**
+     * @return the position of the first event of a block
+     */
+    protected abstract long getBlockStart(int b);
+
+    /**
+     * @return the number of events in a block
+     */
+    protected abstract int getBlockNumEvents(int b);
+
+    /**
+     * Makes a block the current one, decoding it unless it is already the
+     * current one.
+     *
+     * @param b the block
+     * @throws IOException if the block cannot be read
+     */
+    protected abstract void loadBlock(int b) throws IOException;
+
+    /**
+     * @return the raw addresses of the current block
+     */
+    protected abstract int[] getBlockAddresses();
+
+    /**
+     * @return the timestamps of the current block, without timestamp offset
+     */
+    protected abstract int[] getBlockTimestamps();
+
+    /**
+     * Finds the first event with a timestamp at or after a timestamp.
+     *
+     * @param rawTimestamp the timestamp, without timestamp offset
+     * @return the position of the event
+     * @throws IOException if a block cannot be read
+     */
+    protected abstract long findTimestamp(int rawTimestamp) throws IOException;
+
+    /**
+     * @return the timestamp of the event at a position, without timestamp
+     * offset
+     */
+    protected int timestampAt(long pos) throws IOException {
+        if (numEvents == 0) {
+            return 0;
+        }
+        pos = Math.max(0, Math.min(pos, numEvents - 1));
+        final int b = blockOf(pos);
+        loadBlock(b);
+        return getBlockTimestamps()[(int) (pos - getBlockStart(b))];
+    }
+
+    /**
+     * Copies events forward from the present position into the packet. Stops
+     * at maxEvents events, at the OUT mark, at an event later than
+     * maxTimestamp (which is not consumed), after the first event at
+     * maxTimestamp when reading by time, as AEFileInputStream does, or after
+     * a timestamp that goes backwards when non-monotonic timestamps are
+     * checked.
+     *
+     * @return the number of events copied
+     */
+    private int readForwards(int maxEvents, int maxTimestamp, boolean byTime) throws IOException {
+        final int[] addr = packet.getAddresses(), ts = packet.getTimestamps();
+        int count = 0;
+        boolean rewound = false;
+        while (count < maxEvents) {
+            if (position >= markOut) {
+                getSupport().firePropertyChange(AEInputStream.EVENT_EOF, null, position());
+                if (!repeat || rewound || (markOut <= markIn)) {
+                    break;
+                }
+                rewind();
+                rewound = true;
+                if (byTime) {
+                    break; // time starts over at the IN mark with the next packet
+                }
+                continue;
+            }
+            final int b = blockOf(position);
+            loadBlock(b);
+            final long blockStart = getBlockStart(b);
+            final int end = (int) Math.min(getBlockNumEvents(b), markOut - blockStart);
+            final int[] blockAddr = getBlockAddresses(), blockTs = getBlockTimestamps();
+            int i = (int) (position - blockStart);
+            for (; (i < end) && (count < maxEvents); i++) {
+                final int a = blockAddr[i];
+                if ((a & timestampResetBitmask) != 0) {
+                    timestampOffset = blockTs[i];
+                }
+                final int t = blockTs[i] - timestampOffset;
+                if (byTime && ((t - maxTimestamp) > 0)) {
+                    position = blockStart + i;
+                    return count;
+                }
+                final boolean backwards = (t - mostRecentTimestamp) < 0;
+                addr[count] = a;
+                ts[count] = t;
+                count++;
+                mostRecentTimestamp = t;
+                if (byTime && (t == maxTimestamp)) { // like AEFileInputStream, later events with this timestamp start the next packet
+                    position = blockStart + i + 1;
+                    return count;
+                }
+                if (backwards && nonMonotonicTimeExceptionsChecked && (count > 1)) {
+                    getSupport().firePropertyChange(AEInputStream.EVENT_NON_MONOTONIC_TIMESTAMP, ts[count - 2], t);
+                    position = blockStart + i + 1;
+                    currentStartTimestamp = t;
+                    return count;
+                }
+            }
+            position = blockStart + i;
+        }
+        return count;
+    }
+
+    private void fireInitPropertyChange() {
+        getSupport().firePropertyChange(AEInputStream.EVENT_INIT, null, this);
+        firstReadCompleted = true;
+    }
+
+    private void maybeSendRewoundEvent(long oldPosition) {
+        if (rewindFlag) {
+            getSupport().firePropertyChange(AEInputStream.EVENT_REWOUND, oldPosition, position());
+            rewindFlag = false;
+        }
+    }
+
+    @Override
+    synchronized public AEPacketRaw readPacketByNumber(int n) throws IOException {
+        if (!firstReadCompleted) {
+            fireInitPropertyChange();
+        }
+        final long oldPosition = position;
+        final int an = Math.min(Math.abs(n), packet.getCapacity());
+        int count;
+        if (n >= 0) {
+            count = readForwards(an, Integer.MAX_VALUE, false);
+        } else {
+            final long start = Math.max(markIn, position - an);
+            position(start);
+            count = readForwards((int) (oldPosition - start), Integer.MAX_VALUE, false);
+            position(start);
+        }
+        packet.setNumEvents(count);
+        if (count > 0) {
+            currentStartTimestamp = packet.getLastTimestamp();
+        }
+        getSupport().firePropertyChange(AEInputStream.EVENT_POSITION, oldPosition, position());
+        maybeSendRewoundEvent(oldPosition);
+        return packet;
+    }
+
+    @Override
+    synchronized public AEPacketRaw readPacketByTime(int dt) throws IOException {
+        if (!firstReadCompleted) {
+            fireInitPropertyChange();
+        }
+        final long oldPosition = position;
+        final int start = currentStartTimestamp;
+        final int end = start + dt;
+        currentStartTimestamp = end;
+        int count;
+        if (dt >= 0) {
+            count = readForwards(packet.getCapacity(), end, true);
+        } else {
+            seekTimestamp(end);
+            final long p = position;
+            count = readForwards(packet.getCapacity(), start, true);
+            position(p);
+            currentStartTimestamp = end;
+            mostRecentTimestamp = end;
+        }
+        packet.setNumEvents(count);
+        getSupport().firePropertyChange(AEInputStream.EVENT_POSITION, oldPosition, position());
+        maybeSendRewoundEvent(oldPosition);
+        return packet;
+    }
+
+    /**
+     * Positions the stream at the first event with timestamp at or after a
+     * timestamp, see {@link #findTimestamp(int)}.
+     *
+     * @param timestamp the timestamp
+     * @return true
+     * @see AEFileInputStream#seekTimestamp(int)
+     */
+    synchronized public boolean seekTimestamp(int timestamp) {
+        final long oldPosition = position;
+        try {
+            position(Math.max(markIn, Math.min(findTimestamp(timestamp + timestampOffset), markOut)));
+        } catch (IOException e) {
+            log.warning("seeking to timestamp " + timestamp + " failed: " + e);
+        }
+        mostRecentTimestamp = timestamp;
+        currentStartTimestamp = timestamp;
+        getSupport().firePropertyChange(AEInputStream.EVENT_POSITION, oldPosition, position());
+        return true;
+    }
+
+    @Override
+    public boolean isNonMonotonicTimeExceptionsChecked() {
+        return nonMonotonicTimeExceptionsChecked;
+    }
+
+    @Override
+    public void setNonMonotonicTimeExceptionsChecked(boolean yes) {
+        nonMonotonicTimeExceptionsChecked = yes;
+    }
+
+    @Override
+    public long getAbsoluteStartingTimeMs() {
+        return absoluteStartingTimeMs;
+    }
+
+    @Override
+    public ZoneId getZoneId() {
+        return zoneId;
+    }
+
+    @Override
+    public int getDurationUs() {
+        return lastTimestamp - firstTimestamp;
+    }
+
+    @Override
+    public int getFirstTimestamp() {
+        return firstTimestamp;
+    }
+
+    @Override
+    public PropertyChangeSupport getSupport() {
+        return support;
+    }
+
+    @Override
+    public void addPropertyChangeListener(PropertyChangeListener listener) {
+        support.addPropertyChangeListener(listener);
+    }
+
+    @Override
+    public void removePropertyChangeListener(PropertyChangeListener listener) {
+        support.removePropertyChangeListener(listener);
+    }
+
+    @Override
+    public File getFile() {
+        return file;
+    }
+
+    @Override
+    public void setFile(File file) {
+        this.file = file;
+    }
+
+    @Override
+    public int getLastTimestamp() {
+        return lastTimestamp;
+    }
+
+    @Override
+    public int getMostRecentTimestamp() {
+        return mostRecentTimestamp;
+    }
+
+    @Override
+    public int getTimestampResetBitmask() {
+        return timestampResetBitmask;
+    }
+
+    @Override
+    public void setTimestampResetBitmask(int timestampResetBitmask) {
+        this.timestampResetBitmask = timestampResetBitmask;
+        timestampResets.clear();
+        timestampResetsScannedTo = 0;
+    }
+
+    @Override
+    synchronized public int getCurrentStartTimestamp() {
+        return currentStartTimestamp;
+    }
+
+    @Override
+    synchronized public void setCurrentStartTimestamp(int currentStartTimestamp) {
+        this.currentStartTimestamp = currentStartTimestamp;
+    }
+
+    @Override
+    synchronized public float getFractionalPosition() {
+        return numEvents == 0 ? 0 : (float) position / numEvents;
+    }
+
+    @Override
+    synchronized public long position() {
+        return position;
+    }
+
+    @Override
+    synchronized public void position(long n) {
+        position = Math.max(0, Math.min(n, numEvents));
+        try {
+            timestampOffset = timestampResetBitmask == 0 ? 0 : timestampOffsetBefore(position);
+        } catch (IOException e) {
+            log.warning("could not find the timestamp reset before position " + position + ": " + e);
+        }
+    }
+
+    /**
+     * Returns the raw timestamp of the last timestamp reset event before a
+     * position, or 0 if there is none. The blocks up to the position are
+     * scanned for reset events the first time the stream is positioned past
+     * them.
+     */
+    private int timestampOffsetBefore(long pos) throws IOException {
+        while (timestampResetsScannedTo < pos) {
+            final int b = blockOf(timestampResetsScannedTo);
+            loadBlock(b);
+            final long blockStart = getBlockStart(b);
+            final int[] blockAddr = getBlockAddresses(), blockTs = getBlockTimestamps();
+            final int end = (int) Math.min(getBlockNumEvents(b), pos - blockStart);
+            for (int i = (int) (timestampResetsScannedTo - blockStart); i < end; i++) {
+                if ((blockAddr[i] & timestampResetBitmask) != 0) {
+                    timestampResets.put(blockStart + i, blockTs[i]);
+                }
+            }
+            if ((blockStart + end) <= timestampResetsScannedTo) {
+                break; // past the last event
+            }
+            timestampResetsScannedTo = blockStart + end;
+        }
+        final Map.Entry<Long, Integer> reset = timestampResets.lowerEntry(pos);
+        return reset == null ? 0 : reset.getValue();
+    }
+
+    @Override
+    synchronized public void rewind() throws IOException {
+        final long oldPosition = position;
+        position(markIn);
+        mostRecentTimestamp = timestampAt(markIn);
+        currentStartTimestamp = mostRecentTimestamp;
+        getSupport().firePropertyChange(AEInputStream.EVENT_POSITION, oldPosition, position());
+        rewindFlag = true;
+    }
+
+    @Override
+    synchronized public void setFractionalPosition(float frac) {
+        position((long) (frac * numEvents));
+        try {
+            mostRecentTimestamp = timestampAt(position) - timestampOffset;
+            currentStartTimestamp = mostRecentTimestamp;
+        } catch (IOException e) {
+            log.warning("When changing fractional position, got " + e.toString());
+        }
+    }
+
+    @Override
+    public long size() {
+        return numEvents;
+    }
+
+    @Override
+    synchronized public void clearMarks() {
+        markIn = 0;
+        markOut = numEvents;
+        getSupport().firePropertyChange(AEInputStream.EVENT_MARKS_CLEARED, null, null);
+    }
+
+    @Override
+    synchronized public long setMarkIn() {
+        if (position > markOut) {
+            return markIn;
+        }
+        final long old = markIn;
+        markIn = position;
+        getSupport().firePropertyChange(AEInputStream.EVENT_MARK_IN_SET, old, markIn);
+        return markIn;
+    }
+
+    @Override
+    synchronized public long setMarkOut() {
+        if (position <= markIn) {
+            return markOut;
+        }
+        final long old = markOut;
+        markOut = position;
+        getSupport().firePropertyChange(AEInputStream.EVENT_MARK_OUT_SET, old, markOut);
+        return markOut;
+    }
+
+    @Override
+    public long getMarkInPosition() {
+        return markIn;
+    }
+
+    @Override
+    public long getMarkOutPosition() {
+        return markOut;
+    }
+
+    @Override
+    public boolean isMarkInSet() {
+        return markIn != 0;
+    }
+
+    @Override
+    public boolean isMarkOutSet() {
+        return markOut != numEvents;
+    }
+
+    @Override
+    public void setRepeat(boolean repeat) {
+        this.repeat = repeat;
+    }
+
+    @Override
+    public boolean isRepeat() {
+        return repeat;
+    }
+}
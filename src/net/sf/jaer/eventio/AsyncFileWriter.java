@@ -0,0 +1,352 @@
+/*
+ * AsyncFileWriter.java
+ *
+ * Copyright (C) 2026 jAER project.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ */
+package net.sf.jaer.eventio;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+import java.util.prefs.Preferences;
+
+/**
+ * Writes a file from a background thread so that the thread that produces the
+ * data, e.g. the AEViewer ViewLoop, never waits for the disk.
+ * <p>
+ * Written data is copied into a preallocated ring of direct buffers. Full
+ * buffers are handed to the writer thread, which writes all the buffers that
+ * are queued with one gathering FileChannel write; since the buffers are a
+ * multiple of the disk block size the writes stay block aligned. Optionally
+ * the file is forced to the disk every fsyncIntervalMs.
+ * <p>
+ * When the disk cannot keep up and the ring is full, writes are dropped. Each
+ * write is either queued completely or dropped completely, so that records
+ * that are written in one call, e.g. buffers of whole events, stay intact.
+ * The dropped bytes are counted and reported by {@link #getStatus()}.
+ *
+ * @author agent
+ */
+public class AsyncFileWriter extends OutputStream {
+
+    static final Logger log = Logger.getLogger("AsyncFileWriter");
+    static Preferences prefs = Preferences.userNodeForPackage(AsyncFileWriter.class);
+    /**
+     * The buffers are a multiple of this size
+     */
+    public static final int ALIGNMENT = 4096;
+    private static int bufferSizeKB = prefs.getInt("AsyncFileWriter.bufferSizeKB", 1024);
+    private static int numBuffers = prefs.getInt("AsyncFileWriter.numBuffers", 16);
+    private static int fsyncIntervalMs = prefs.getInt("AsyncFileWriter.fsyncIntervalMs", 0);
+
+    private static final ByteBuffer END = ByteBuffer.allocate(0); // marks the end of the queue
+    private final FileChannel channel;
+    private final int bufferSize, syncIntervalMs;
+    private final ArrayBlockingQueue<ByteBuffer> freeBuffers, filledBuffers;
+    private ByteBuffer current = null;
+    private final Thread writerThread;
+    private volatile IOException error = null;
+    private volatile boolean syncRequested = false;
+    private boolean closed = false;
+    private long lastSyncTimeMs = System.currentTimeMillis();
+    private final AtomicLong bytesQueued = new AtomicLong();
+    private final Object drained = new Object(); // notified when the writer thread has written a batch
+    private volatile long bytesWritten = 0, bytesDropped = 0;
+    private final ByteBuffer oneByte = ByteBuffer.allocate(1);
+
+    /**
+     * Creates the writer with the buffer sizes and fsync interval from the
+     * preferences and starts its thread.
+     *
+     * @param fos the file output stream, which is closed when this is closed
+     */
+    public AsyncFileWriter(FileOutputStream fos) {
+        this(fos, bufferSizeKB << 10, numBuffers, fsyncIntervalMs);
+    }
+
+    /**
+     * Creates the writer and starts its thread.
+     *
+     * @param fos the file output stream, which is closed when this is closed
+     * @param bufferSize the size of each buffer in bytes, rounded up to a
+     * multiple of ALIGNMENT
+     * @param numBuffers the number of buffers in the ring
+     * @param syncIntervalMs the interval for forcing the written data to the
+     * disk, or 0 to leave that to the OS
+     */
+    public AsyncFileWriter(FileOutputStream fos, int bufferSize, int numBuffers, int syncIntervalMs) {
+        this.channel = fos.getChannel();
+        this.bufferSize = Math.max(ALIGNMENT, (bufferSize + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT);
+        this.syncIntervalMs = syncIntervalMs;
+        freeBuffers = new ArrayBlockingQueue<>(numBuffers);
+        filledBuffers = new ArrayBlockingQueue<>(numBuffers + 1);
+        for (int i = 0; i < numBuffers; i++) {
+            freeBuffers.add(ByteBuffer.allocateDirect(this.bufferSize));
+        }
+        writerThread = new Thread(this::writeBuffers, "AsyncFileWriter");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Queues the remaining bytes of the buffer for writing, or drops them all
+     * if there is not enough free buffer space.
+     *
+     * @param src the data, which is consumed in either case
+     * @return true if the data was queued, false if it was dropped
+     * @throws IOException if the file could not be written or is closed
+     */
+    synchronized public boolean offer(ByteBuffer src) throws IOException {
+        if (closed) {
+            throw new IOException("writer is closed");
+        }
+        if (error != null) {
+            throw error;
+        }
+        final int n = src.remaining();
+        if (n > (current == null ? 0 : current.remaining()) + ((long) freeBuffers.size() * bufferSize)) {
+            if (bytesDropped == 0) {
+                log.warning("disk cannot keep up, dropping data; " + getStatus());
+            }
+            bytesDropped += n;
+            src.position(src.limit());
+            return false;
+        }
+        final int limit = src.limit();
+        while (src.hasRemaining()) {
+            if (current == null) {
+                current = freeBuffers.poll(); // there is one, we checked for enough space above
+            }
+            src.limit(src.position() + Math.min(src.remaining(), current.remaining()));
+            current.put(src);
+            src.limit(limit);
+            if (!current.hasRemaining()) {
+                queueCurrent();
+            }
+        }
+        if (syncIntervalMs > 0 && System.currentTimeMillis() - lastSyncTimeMs > syncIntervalMs) {
+            lastSyncTimeMs = System.currentTimeMillis();
+            syncRequested = true;
+            queueCurrent();
+        }
+        return true;
+    }
+
+    private void queueCurrent() {
+        if (current == null || current.position() == 0) {
+            return;
+        }
+        bytesQueued.addAndGet(current.position());
+        filledBuffers.add(current);
+        current = null;
+    }
+
+    @Override
+    synchronized public void write(int b) throws IOException {
+        oneByte.clear();
+        oneByte.put((byte) b).flip();
+        offer(oneByte);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        offer(ByteBuffer.wrap(b, off, len));
+    }
+
+    /**
+     * Hands the partially filled buffer to the writer thread and waits until
+     * all queued data is written to the file. Does not force it to the disk.
+     * Since this blocks the calling thread on the disk, the thread that
+     * produces the data should not call it per write.
+     *
+     * @throws IOException if any of the data could not be written
+     */
+    @Override
+    synchronized public void flush() throws IOException {
+        if (error != null) {
+            throw error;
+        }
+        queueCurrent();
+        synchronized (drained) {
+            while (bytesQueued.get() > 0 && error == null && writerThread.isAlive()) {
+                try {
+                    drained.wait(100);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("interrupted while waiting for queued data to be written");
+                }
+            }
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    /**
+     * Writes out all queued data and closes the file.
+     *
+     * @throws IOException if any of the data could not be written
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            queueCurrent();
+            filledBuffers.add(END);
+        }
+        try {
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            if (syncIntervalMs > 0 && channel.isOpen()) {
+                channel.force(false);
+            }
+        } finally {
+            channel.close();
+        }
+        log.info("closed; " + getStatus());
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    private void writeBuffers() {
+        final ArrayList<ByteBuffer> batch = new ArrayList<>();
+        ByteBuffer[] buffers = new ByteBuffer[0];
+        boolean end = false;
+        while (!end) {
+            batch.clear();
+            try {
+                batch.add(filledBuffers.take());
+            } catch (InterruptedException e) {
+                continue; // only close ends the thread
+            }
+            filledBuffers.drainTo(batch);
+            if (batch.get(batch.size() - 1) == END) { // by identity, ByteBuffer.equals compares the contents
+                batch.remove(batch.size() - 1);
+                end = true;
+            }
+            long n = 0;
+            for (ByteBuffer b : batch) {
+                b.flip();
+                n += b.remaining();
+            }
+            if (error == null) {
+                try {
+                    buffers = batch.toArray(buffers);
+                    long written = 0;
+                    while (written < n) {
+                        written += channel.write(buffers, 0, batch.size());
+                    }
+                    if (syncRequested) {
+                        syncRequested = false;
+                        channel.force(false);
+                    }
+                    bytesWritten += n;
+                } catch (IOException e) {
+                    log.warning("writing failed, discarding further data: " + e);
+                    error = e;
+                }
+            }
+            bytesQueued.addAndGet(-n);
+            for (ByteBuffer b : batch) {
+                b.clear();
+                freeBuffers.add(b);
+            }
+            synchronized (drained) {
+                drained.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * @return the number of bytes waiting to be written
+     */
+    synchronized public long getBytesQueued() {
+        return bytesQueued.get() + (current == null ? 0 : current.position());
+    }
+
+    /**
+     * @return the number of bytes written to the file so far
+     */
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    /**
+     * @return the number of bytes dropped because the disk could not keep up
+     */
+    public long getBytesDropped() {
+        return bytesDropped;
+    }
+
+    /**
+     * @return a status string with the bytes written, queued and dropped
+     */
+    public String getStatus() {
+        return String.format("%.1f MB written, %d kB queued, %d kB dropped", bytesWritten / 1048576f, getBytesQueued() >> 10, bytesDropped >> 10);
+    }
+
+    /**
+     * @return the size of each buffer in kB for new writers
+     */
+    public static int getBufferSizeKB() {
+        return bufferSizeKB;
+    }
+
+    /**
+     * @param bufferSizeKB the size of each buffer in kB for new writers
+     */
+    public static void setBufferSizeKB(int bufferSizeKB) {
+        AsyncFileWriter.bufferSizeKB = bufferSizeKB;
+        prefs.putInt("AsyncFileWriter.bufferSizeKB", bufferSizeKB);
+    }
+
+    /**
+     * @return the number of buffers in the ring for new writers
+     */
+    public static int getNumBuffers() {
+        return numBuffers;
+    }
+
+    /**
+     * @param numBuffers the number of buffers in the ring for new writers
+     */
+    public static void setNumBuffers(int numBuffers) {
+        AsyncFileWriter.numBuffers = numBuffers;
+        prefs.putInt("AsyncFileWriter.numBuffers", numBuffers);
+    }
+
+    /**
+     * @return the fsync interval in ms for new writers, 0 to disable
+     */
+    public static int getFsyncIntervalMs() {
+        return fsyncIntervalMs;
+    }
+
+    /**
+     * @param fsyncIntervalMs the fsync interval in ms for new writers, 0 to
+     * disable
+     */
+    public static void setFsyncIntervalMs(int fsyncIntervalMs) {
+        AsyncFileWriter.fsyncIntervalMs = fsyncIntervalMs;
+        prefs.putInt("AsyncFileWriter.fsyncIntervalMs", fsyncIntervalMs);
+    }
+}
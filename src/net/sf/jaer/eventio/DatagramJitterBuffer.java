@@ -0,0 +1,402 @@
+/*
+ * DatagramJitterBuffer.java
+ *
+ * Copyright (C) 2026 jAER project.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ */
+package net.sf.jaer.eventio;
+
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.logging.Logger;
+
+import net.sf.jaer.aemonitor.AENetworkRawPacket;
+
+/**
+ * Puts event datagrams from one or more senders back into order and merges
+ * the senders into one stream in timestamp order.
+ * <p>
+ * Each datagram carries the sequence number the sender gave it. Datagrams of
+ * each sender are held until all datagrams before them have arrived, or until
+ * the earliest held datagram has waited the latency window; then the missing
+ * ones are counted as lost and skipped. Datagrams that arrive after their slot
+ * was passed are counted as late and discarded. Released events of all
+ * senders are merged by timestamp up to the newest timestamp that every
+ * active sender has released, so that a sender whose datagram is in flight
+ * does not get its events placed after later events of another sender;
+ * events that have waited twice the latency window are released anyway, so
+ * senders with unrelated clocks still make progress.
+ * <p>
+ * Thread safe: typically a receiving thread calls
+ * {@link #add(InetSocketAddress, int, ByteBuffer, long) add} and the consumer
+ * calls {@link #read(AENetworkRawPacket, int, long) read}.
+ *
+ * @author agent
+ * @see AEMulticastInput
+ */
+public class DatagramJitterBuffer {
+
+    private static final Logger log = Logger.getLogger("AESocketStream");
+    /**
+     * Datagrams held per sender before the oldest gap is given up regardless
+     * of the latency window
+     */
+    public static final int MAX_PENDING_DATAGRAMS = 1024;
+    /**
+     * A jump of the sequence number by more than this is taken as a restarted
+     * sender rather than loss
+     */
+    private static final int RESYNC_DISTANCE = 1 << 16;
+
+    private long latencyNs;
+    private final LinkedHashMap<InetSocketAddress, Source> sources = new LinkedHashMap<>();
+    private final ArrayDeque<Chunk> freeChunks = new ArrayDeque<>();
+    private int[] scratch = new int[0];
+    private long receivedCount = 0, lostCount = 0, lateCount = 0, reorderedCount = 0, duplicateCount = 0;
+
+    /**
+     * The decoded events of one datagram
+     */
+    private static final class Chunk {
+
+        long seq; // sequence number, extended to long so it does not wrap
+        long arrivalNs;
+        int[] addresses = new int[0], timestamps = new int[0];
+        int numEvents, position;
+    }
+
+    /**
+     * The state of one sender
+     */
+    private final class Source {
+
+        final InetSocketAddress address;
+        long nextSeq, highestSeq;
+        final TreeMap<Long, Chunk> pending = new TreeMap<>();
+        final ArrayDeque<Chunk> ready = new ArrayDeque<>();
+        long lastArrivalNs;
+        int lastReadyTimestamp;
+        boolean hasReadyTimestamp = false;
+        long received = 0, lost = 0, late = 0;
+
+        Source(InetSocketAddress address, int seq) {
+            this.address = address;
+            nextSeq = seq;
+            highestSeq = seq - 1;
+        }
+
+        /**
+         * Moves held datagrams that are next in sequence to the ready queue
+         */
+        void drain() {
+            while (!pending.isEmpty() && pending.firstKey() == nextSeq) {
+                makeReady(pending.pollFirstEntry().getValue());
+            }
+        }
+
+        void makeReady(Chunk c) {
+            nextSeq = c.seq + 1;
+            if (c.numEvents > 0) {
+                ready.add(c);
+                lastReadyTimestamp = c.timestamps[c.numEvents - 1];
+                hasReadyTimestamp = true;
+            } else {
+                freeChunks.add(c);
+            }
+        }
+
+        /**
+         * Gives up the gap before the first held datagram
+         */
+        void skipGap() {
+            final long first = pending.firstKey();
+            final long n = first - nextSeq;
+            lost += n;
+            lostCount += n;
+            nextSeq = first;
+            drain();
+        }
+    }
+
+    /**
+     * Creates a buffer.
+     *
+     * @param latencyMs how long to wait for a missing datagram
+     */
+    public DatagramJitterBuffer(float latencyMs) {
+        setLatencyMs(latencyMs);
+    }
+
+    /**
+     * Adds a received datagram.
+     *
+     * @param sender the sender
+     * @param seq the sequence number of the datagram
+     * @param events the events, address and timestamp ints of each event, from
+     * the buffer position to its limit; the buffer is not kept
+     * @param nowNs the arrival time from System.nanoTime()
+     */
+    synchronized public void add(InetSocketAddress sender, int seq, ByteBuffer events, long nowNs) {
+        receivedCount++;
+        Source s = sources.get(sender);
+        if (s == null) {
+            s = new Source(sender, seq);
+            sources.put(sender, s);
+            log.info("receiving datagrams from " + sender + " starting with sequence number " + seq);
+        }
+        s.received++;
+        s.lastArrivalNs = nowNs;
+        long useq = s.nextSeq + (seq - (int) s.nextSeq); // signed 32 bit distance from the expected number
+        if (Math.abs(useq - s.nextSeq) > RESYNC_DISTANCE) {
+            log.info(sender + " jumped from sequence number " + (int) s.nextSeq + " to " + seq + ", assuming it restarted");
+            while (!s.pending.isEmpty()) {
+                s.makeReady(s.pending.pollFirstEntry().getValue());
+            }
+            s.nextSeq = useq;
+            s.highestSeq = useq - 1;
+        }
+        if (useq < s.nextSeq) {
+            s.late++;
+            lateCount++;
+            return;
+        }
+        if (s.pending.containsKey(useq)) {
+            duplicateCount++;
+            return;
+        }
+        if (useq < s.highestSeq) {
+            reorderedCount++;
+        } else {
+            s.highestSeq = useq;
+        }
+        Chunk c = decode(events);
+        c.seq = useq;
+        c.arrivalNs = nowNs;
+        if (useq == s.nextSeq && s.pending.isEmpty()) {
+            s.makeReady(c);
+        } else {
+            s.pending.put(useq, c);
+            s.drain();
+            while (s.pending.size() > MAX_PENDING_DATAGRAMS) {
+                s.skipGap();
+            }
+        }
+    }
+
+    private Chunk decode(ByteBuffer events) {
+        Chunk c = freeChunks.isEmpty() ? new Chunk() : freeChunks.poll();
+        final int n = events.remaining() / AENetworkInterfaceConstants.EVENT_SIZE_BYTES;
+        if (c.addresses.length < n) {
+            c.addresses = new int[n];
+            c.timestamps = new int[n];
+        }
+        if (scratch.length < 2 * n) {
+            scratch = new int[2 * n];
+        }
+        events.asIntBuffer().get(scratch, 0, 2 * n); // bulk decode, then deinterleave
+        for (int i = 0, j = 0; i < n; i++) {
+            c.addresses[i] = scratch[j++];
+            c.timestamps[i] = scratch[j++];
+        }
+        c.numEvents = n;
+        c.position = 0;
+        return c;
+    }
+
+    /**
+     * Gives up gaps that have waited the latency window and appends released
+     * events of all senders to the packet in timestamp order, marking where
+     * each sender's events start with
+     * {@link AENetworkRawPacket#addClientAddress(InetSocketAddress, int)}.
+     *
+     * @param packet the packet to append to
+     * @param maxEvents stop after about this many events
+     * @param nowNs the current time from System.nanoTime()
+     * @return the number of events appended
+     */
+    synchronized public int read(AENetworkRawPacket packet, int maxEvents, long nowNs) {
+        boolean haveWatermark = false;
+        int watermark = 0;
+        for (Source s : sources.values()) {
+            while (!s.pending.isEmpty() && nowNs - s.pending.firstEntry().getValue().arrivalNs >= latencyNs) {
+                s.skipGap();
+            }
+            final boolean active = !s.ready.isEmpty() || !s.pending.isEmpty() || nowNs - s.lastArrivalNs < latencyNs;
+            if (active && s.hasReadyTimestamp && (!haveWatermark || s.lastReadyTimestamp - watermark < 0)) {
+                watermark = s.lastReadyTimestamp;
+                haveWatermark = true;
+            }
+        }
+        final int start = packet.getNumEvents();
+        Source previous = null;
+        while (packet.getNumEvents() - start < maxEvents) {
+            // the sender whose next event is earliest, among those that may be released
+            Source best = null;
+            int bestTs = 0;
+            for (Source s : sources.values()) {
+                final Chunk c = s.ready.peek();
+                if (c == null) {
+                    continue;
+                }
+                final int t = c.timestamps[c.position];
+                if (!mayRelease(c, t, haveWatermark, watermark, nowNs)) {
+                    continue;
+                }
+                if (best == null || t - bestTs < 0) {
+                    best = s;
+                    bestTs = t;
+                }
+            }
+            if (best == null) {
+                break;
+            }
+            // copy its events up to the next event of any other sender
+            final Chunk c = best.ready.peek();
+            int limit = watermark;
+            boolean limited = haveWatermark && nowNs - c.arrivalNs < 2 * latencyNs;
+            for (Source s : sources.values()) {
+                final Chunk o = s.ready.peek();
+                if (s == best || o == null) {
+                    continue;
+                }
+                final int t = o.timestamps[o.position];
+                if (!limited || t - limit < 0) {
+                    limit = t;
+                    limited = true;
+                }
+            }
+            int end = c.position + 1;
+            while (end < c.numEvents && (!limited || c.timestamps[end] - limit <= 0)) {
+                end++;
+            }
+            final int n = end - c.position, at = packet.getNumEvents();
+            packet.ensureCapacity(at + n);
+            System.arraycopy(c.addresses, c.position, packet.addresses, at, n);
+            System.arraycopy(c.timestamps, c.position, packet.timestamps, at, n);
+            packet.setNumEvents(at + n);
+            if (best != previous) {
+                packet.addClientAddress(best.address, at);
+                previous = best;
+            }
+            c.position = end;
+            if (c.position >= c.numEvents) {
+                freeChunks.add(best.ready.poll());
+            }
+        }
+        return packet.getNumEvents() - start;
+    }
+
+    private boolean mayRelease(Chunk c, int ts, boolean haveWatermark, int watermark, long nowNs) {
+        return !haveWatermark || ts - watermark <= 0 || nowNs - c.arrivalNs >= 2 * latencyNs;
+    }
+
+    /**
+     * Forgets all senders and held datagrams, but not the counts.
+     */
+    synchronized public void clear() {
+        sources.clear();
+    }
+
+    /**
+     * @return the latency window in ms
+     */
+    public float getLatencyMs() {
+        return latencyNs * 1e-6f;
+    }
+
+    /**
+     * @param latencyMs how long to wait for a missing datagram before
+     * counting it as lost
+     */
+    synchronized public void setLatencyMs(float latencyMs) {
+        this.latencyNs = (long) (Math.max(0, latencyMs) * 1e6);
+    }
+
+    /**
+     * @return the number of datagrams received from all senders
+     */
+    public long getReceivedCount() {
+        return receivedCount;
+    }
+
+    /**
+     * @return the number of datagrams that did not arrive within the latency
+     * window
+     */
+    public long getLostCount() {
+        return lostCount;
+    }
+
+    /**
+     * @return the number of datagrams that arrived after they were given up,
+     * or were duplicates of released ones
+     */
+    public long getLateCount() {
+        return lateCount;
+    }
+
+    /**
+     * @return the number of datagrams that arrived out of order and were put
+     * back in order
+     */
+    public long getReorderedCount() {
+        return reorderedCount;
+    }
+
+    /**
+     * @return the number of duplicates of held datagrams
+     */
+    public long getDuplicateCount() {
+        return duplicateCount;
+    }
+
+    /**
+     * @return the number of senders seen
+     */
+    synchronized public int getNumSources() {
+        return sources.size();
+    }
+
+    /**
+     * Returns the received, lost and late datagrams of each sender.
+     *
+     * @return counts by sender
+     */
+    synchronized public Map<InetSocketAddress, long[]> getSourceCounts() {
+        LinkedHashMap<InetSocketAddress, long[]> m = new LinkedHashMap<>();
+        for (Source s : sources.values()) {
+            m.put(s.address, new long[]{s.received, s.lost, s.late});
+        }
+        return m;
+    }
+
+    /**
+     * Resets all counts.
+     */
+    synchronized public void resetCounts() {
+        receivedCount = 0;
+        lostCount = 0;
+        lateCount = 0;
+        reorderedCount = 0;
+        duplicateCount = 0;
+        for (Source s : sources.values()) {
+            s.received = 0;
+            s.lost = 0;
+            s.late = 0;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d senders, %d datagrams received, %d lost, %d late, %d reordered, %d duplicate, latency window %.1f ms",
+                getNumSources(), receivedCount, lostCount, lateCount, reorderedCount, duplicateCount, getLatencyMs());
+    }
+}
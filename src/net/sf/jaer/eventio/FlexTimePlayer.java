@@ -60,6 +60,7 @@ public class FlexTimePlayer extends EventFilter2D implements FrameAnnotater {
 
     // AreaEventCount stuff
     protected int areaEventNumberSubsampling = getInt("areaEventNumberSubsampling", 5);
+    private boolean adaptivePlayback = getBoolean("adaptivePlayback", false);
     private int[][] areaCounts = null;
     private int numAreas = 1;
     private int sx, sy;
@@ -79,6 +80,7 @@ public class FlexTimePlayer extends EventFilter2D implements FrameAnnotater {
         setPropertyTooltip("maxPacketDurationUs", "Maximum duration of packet in us; set to 0 to disable");
         setPropertyTooltip("minPacketDurationUs", "Minimum duration of packet in us; set to 0 to disable");
         setPropertyTooltip("areaEventNumberSubsampling", "How many bits to shift x and y addresses for AreaEventCount method; determines the size of the areas.");
+        setPropertyTooltip("adaptivePlayback", "<html>Puts the player in Adaptive playback mode with constantEventNumber as its target events per packet,<br>so that its time slice follows the event rate and filter cost, instead of stepping it faster and slower by the left over events");
         engFmt.setPrecision(2);
         out.allocate(constantEventNumber);
         try {
@@ -115,7 +117,14 @@ public class FlexTimePlayer extends EventFilter2D implements FrameAnnotater {
         // if leftOverEvents is growing, slow down playback, otherwise speed it up
         if ((chip.getAeViewer() != null) && (chip.getAeViewer().getAePlayer() != null)) {
             AbstractAEPlayer player = chip.getAeViewer().getAePlayer();
-            if (leftOverEvents.getSize() > 1000) {
+            if (adaptivePlayback) { // the player's sizer aims for our packet size
+                if (!player.isAdaptiveEnabled()) {
+                    player.setAdaptiveEnabled();
+                }
+                if (player.getAdaptivePacketSizer().getTargetEventsPerPacket() != constantEventNumber) {
+                    player.getAdaptivePacketSizer().setTargetEventsPerPacket(constantEventNumber);
+                }
+            } else if (leftOverEvents.getSize() > 1000) {
                 player.slowerAction.actionPerformed(null);
             } else {
                 player.fasterAction.actionPerformed(null);
@@ -345,6 +354,21 @@ public class FlexTimePlayer extends EventFilter2D implements FrameAnnotater {
         putInt("minPacketDurationUs", minPacketDurationUs);
     }
 
+    /**
+     * @return the adaptivePlayback
+     */
+    public boolean isAdaptivePlayback() {
+        return adaptivePlayback;
+    }
+
+    /**
+     * @param adaptivePlayback the adaptivePlayback to set
+     */
+    public void setAdaptivePlayback(boolean adaptivePlayback) {
+        this.adaptivePlayback = adaptivePlayback;
+        putBoolean("adaptivePlayback", adaptivePlayback);
+    }
+
     /**
      * @return the areaEventNumberSubsampling
      */
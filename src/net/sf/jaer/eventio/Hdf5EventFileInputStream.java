@@ -0,0 +1,450 @@
+/*
+ * Hdf5EventFileInputStream.java
+ *
+ * Copyright (C) 2026 jAER project.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ */
+package net.sf.jaer.eventio;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import ncsa.hdf.hdf5lib.H5;
+import ncsa.hdf.hdf5lib.HDF5Constants;
+import ncsa.hdf.hdf5lib.exceptions.HDF5Exception;
+import net.sf.jaer.chip.AEChip;
+import net.sf.jaer.chip.TypedEventExtractor;
+import net.sf.jaer.event.ApsDvsEvent;
+import net.sf.jaer.event.PolarityEvent;
+import net.sf.jaer.event.TypedEvent;
+import net.sf.jaer.util.EngineeringFormat;
+
+/**
+ * Reads HDF5 event files with the layout written by
+ * {@link Hdf5FileOutputWriter}, i.e. /events/x,y,t,p with /ms_to_idx and
+ * /t_offset as in the DSEC files, so that files written from Python can be
+ * played as well.
+ * <p>
+ * Events are read in blocks of whole HDF5 chunks. After a block is loaded the
+ * next block is read and decompressed by a background thread, so that playback
+ * does not wait when it crosses into the next block. Seeking by time looks up
+ * the event index in /ms_to_idx and loads only the block that holds it.
+ * <p>
+ * Raw addresses are taken from /events/address if it is present, otherwise
+ * they are reconstructed from x, y and p with the chip's event extractor. APS
+ * frames in /frames are not played back as events; they can be read with
+ * {@link #readFrame(int, float[])}.
+ *
+ * @author agent
+ */
+public class Hdf5EventFileInputStream extends AbstractBlockFileInputStream {
+
+    public static final String DATA_FILE_EXTENSION = Hdf5FileOutputWriter.DATA_FILE_EXTENSION;
+    private static final int DEFAULT_BLOCK_SIZE = 1 << 16;
+
+    /**
+     * A block of events with raw addresses and timestamps.
+     */
+    private static class Block {
+
+        final int index;
+        final int[] addr, ts;
+
+        Block(int index, int size) {
+            this.index = index;
+            addr = new int[size];
+            ts = new int[size];
+        }
+    }
+
+    private final AEChip chip;
+    private int fileId = -1, xId = -1, yId = -1, tId = -1, pId = -1, addressId = -1, msToIdxId = -1, frameDataId = -1, frameTId = -1;
+    private long tOffset = 0;
+    private int blockSize = DEFAULT_BLOCK_SIZE, numBlocks = 0, numFrames = 0, sizeX, sizeY;
+    private long numMs = 0;
+
+    // address reconstruction when there is no address dataset
+    private TypedEvent addressEvent = null;
+    private TypedEventExtractor extractor = null;
+
+    private final ExecutorService prefetcher = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "Hdf5EventPrefetcher");
+        t.setDaemon(true);
+        return t;
+    });
+    private Block block = null;
+    private Future<Block> prefetched = null;
+
+    /**
+     * Opens a file and its datasets.
+     *
+     * @param f the file
+     * @param chip the chip, used to reconstruct raw addresses if the file has
+     * none
+     * @throws IOException if the file cannot be read, has no events, or the
+     * HDF5 library is not available
+     */
+    public Hdf5EventFileInputStream(File f, AEChip chip) throws IOException {
+        super(f);
+        this.chip = chip;
+        try {
+            fileId = H5.H5Fopen(f.getPath(), HDF5Constants.H5F_ACC_RDONLY, HDF5Constants.H5P_DEFAULT);
+            if (!H5.H5Lexists(fileId, "/events", HDF5Constants.H5P_DEFAULT) || !H5.H5Lexists(fileId, "/events/t", HDF5Constants.H5P_DEFAULT)) {
+                throw new IOException(f + " has no /events/t dataset");
+            }
+            xId = H5.H5Dopen(fileId, "/events/x", HDF5Constants.H5P_DEFAULT);
+            yId = H5.H5Dopen(fileId, "/events/y", HDF5Constants.H5P_DEFAULT);
+            tId = H5.H5Dopen(fileId, "/events/t", HDF5Constants.H5P_DEFAULT);
+            pId = H5.H5Dopen(fileId, "/events/p", HDF5Constants.H5P_DEFAULT);
+            addressId = openIfExists("/events/address");
+            msToIdxId = openIfExists("/ms_to_idx");
+            frameDataId = openIfExists("/frames/data");
+            frameTId = openIfExists("/frames/t");
+            numEvents = dims(tId)[0];
+            numMs = msToIdxId >= 0 ? dims(msToIdxId)[0] : 0;
+            numFrames = frameTId >= 0 ? (int) dims(frameTId)[0] : 0;
+            final int tOffsetId = openIfExists("/t_offset");
+            if (tOffsetId >= 0) {
+                final long[] v = new long[1];
+                H5.H5Dread(tOffsetId, HDF5Constants.H5T_NATIVE_INT64, HDF5Constants.H5S_ALL, HDF5Constants.H5S_ALL, HDF5Constants.H5P_DEFAULT, v);
+                H5.H5Dclose(tOffsetId);
+                tOffset = v[0];
+            }
+            sizeX = readIntAttribute("sizeX", chip == null ? 0 : chip.getSizeX());
+            sizeY = readIntAttribute("sizeY", chip == null ? 0 : chip.getSizeY());
+            blockSize = chunkSize(tId);
+            if (H5.H5Aexists(fileId, "creation_time_ms")) {
+                final int a = H5.H5Aopen(fileId, "creation_time_ms", HDF5Constants.H5P_DEFAULT);
+                final long[] v = new long[1];
+                H5.H5Aread(a, HDF5Constants.H5T_NATIVE_INT64, v);
+                H5.H5Aclose(a);
+                absoluteStartingTimeMs = v[0];
+            }
+            if (H5.H5Aexists(fileId, "chip") && chip != null) {
+                final String c = readStringAttribute("chip");
+                if (!c.equals(chip.getClass().getName())) {
+                    log.warning(f + " was recorded with " + c + " but is played with " + chip.getClass().getName());
+                }
+            }
+        } catch (HDF5Exception e) {
+            closeIds();
+            throw new IOException("could not open " + f + ": " + e.toString(), e);
+        } catch (IOException e) {
+            closeIds();
+            throw e;
+        } catch (LinkageError e) {
+            throw new IOException("HDF5 native library is not available: " + e.toString(), e);
+        }
+        if (addressId < 0) {
+            if (chip == null || !(chip.getEventExtractor() instanceof TypedEventExtractor)) {
+                closeIds();
+                throw new IOException(f + " has no /events/address dataset and the raw addresses cannot be reconstructed without a chip event extractor");
+            }
+            extractor = (TypedEventExtractor) chip.getEventExtractor();
+            if (ApsDvsEvent.class.isAssignableFrom(chip.getEventClass())) {
+                final ApsDvsEvent e = new ApsDvsEvent();
+                e.setReadoutType(ApsDvsEvent.ReadoutType.DVS);
+                addressEvent = e;
+            } else {
+                addressEvent = new PolarityEvent();
+            }
+            log.info(f + " has no raw addresses, reconstructing them from x, y and p with " + extractor);
+        }
+        numBlocks = (int) ((numEvents + blockSize - 1) / blockSize);
+        initTimestamps(timestampAt(0), timestampAt(numEvents - 1));
+    }
+
+    private int openIfExists(String path) throws HDF5Exception {
+        final int slash = path.lastIndexOf('/');
+        if (slash > 0 && !H5.H5Lexists(fileId, path.substring(0, slash), HDF5Constants.H5P_DEFAULT)) {
+            return -1;
+        }
+        return H5.H5Lexists(fileId, path, HDF5Constants.H5P_DEFAULT) ? H5.H5Dopen(fileId, path, HDF5Constants.H5P_DEFAULT) : -1;
+    }
+
+    private static long[] dims(int dataset) throws HDF5Exception {
+        final int space = H5.H5Dget_space(dataset);
+        try {
+            final long[] d = new long[H5.H5Sget_simple_extent_ndims(space)];
+            H5.H5Sget_simple_extent_dims(space, d, null);
+            return d;
+        } finally {
+            H5.H5Sclose(space);
+        }
+    }
+
+    /**
+     * @return the chunk size of a 1-d dataset, so that blocks are read as
+     * whole chunks
+     */
+    private static int chunkSize(int dataset) throws HDF5Exception {
+        final int plist = H5.H5Dget_create_plist(dataset);
+        try {
+            if (H5.H5Pget_layout(plist) != HDF5Constants.H5D_CHUNKED) {
+                return DEFAULT_BLOCK_SIZE;
+            }
+            final long[] c = new long[1];
+            H5.H5Pget_chunk(plist, 1, c);
+            return (int) Math.max(1024, Math.min(c[0], AEFileInputStream.MAX_BUFFER_SIZE_EVENTS));
+        } finally {
+            H5.H5Pclose(plist);
+        }
+    }
+
+    private int readIntAttribute(String name, int defaultValue) throws HDF5Exception {
+        if (!H5.H5Aexists(fileId, name)) {
+            return defaultValue;
+        }
+        final int a = H5.H5Aopen(fileId, name, HDF5Constants.H5P_DEFAULT);
+        try {
+            final int[] v = new int[1];
+            H5.H5Aread(a, HDF5Constants.H5T_NATIVE_INT, v);
+            return v[0];
+        } finally {
+            H5.H5Aclose(a);
+        }
+    }
+
+    private String readStringAttribute(String name) throws HDF5Exception {
+        final int a = H5.H5Aopen(fileId, name, HDF5Constants.H5P_DEFAULT);
+        final int type = H5.H5Aget_type(a);
+        try {
+            final byte[] b = new byte[(int) H5.H5Tget_size(type)];
+            H5.H5Aread(a, type, b);
+            int n = b.length;
+            while (n > 0 && b[n - 1] == 0) {
+                n--;
+            }
+            return new String(b, 0, n, StandardCharsets.UTF_8);
+        } finally {
+            H5.H5Tclose(type);
+            H5.H5Aclose(a);
+        }
+    }
+
+    /**
+     * Reads rows [start,start+n) of a 1-d dataset into the start of an array.
+     */
+    private static void read(int dataset, int memType, long start, int n, Object data) throws HDF5Exception {
+        final int fileSpace = H5.H5Dget_space(dataset);
+        final int memSpace = H5.H5Screate_simple(1, new long[]{n}, null);
+        try {
+            H5.H5Sselect_hyperslab(fileSpace, HDF5Constants.H5S_SELECT_SET, new long[]{start}, null, new long[]{n}, null);
+            H5.H5Dread(dataset, memType, memSpace, fileSpace, HDF5Constants.H5P_DEFAULT, data);
+        } finally {
+            H5.H5Sclose(memSpace);
+            H5.H5Sclose(fileSpace);
+        }
+    }
+
+    /**
+     * Reads and converts a block; called by the prefetch thread or, after a
+     * jump, by the reading thread.
+     */
+    private Block readBlock(int b) throws IOException {
+        final long start = (long) b * blockSize;
+        final int n = (int) Math.min(blockSize, numEvents - start);
+        final Block block = new Block(b, n);
+        try {
+            final long[] t = new long[n];
+            read(tId, HDF5Constants.H5T_NATIVE_INT64, start, n, t);
+            for (int i = 0; i < n; i++) {
+                block.ts[i] = (int) (t[i] + tOffset);
+            }
+            if (addressId >= 0) {
+                read(addressId, HDF5Constants.H5T_NATIVE_INT, start, n, block.addr);
+            } else {
+                final short[] x = new short[n], y = new short[n];
+                final byte[] p = new byte[n];
+                read(xId, HDF5Constants.H5T_NATIVE_USHORT, start, n, x);
+                read(yId, HDF5Constants.H5T_NATIVE_USHORT, start, n, y);
+                read(pId, HDF5Constants.H5T_NATIVE_UINT8, start, n, p);
+                synchronized (addressEvent) {
+                    for (int i = 0; i < n; i++) {
+                        addressEvent.x = x[i];
+                        addressEvent.y = y[i];
+                        addressEvent.type = p[i];
+                        addressEvent.address = 0;
+                        block.addr[i] = addressEvent instanceof ApsDvsEvent ? extractor.reconstructRawAddressFromEvent(addressEvent)
+                                : extractor.reconstructDefaultRawAddressFromEvent(addressEvent);
+                    }
+                }
+            }
+        } catch (HDF5Exception e) {
+            throw new IOException("reading block " + b + " of " + getFile() + ": " + e.toString(), e);
+        }
+        return block;
+    }
+
+    /**
+     * Makes a block the current one and starts prefetching the next block.
+     */
+    @Override
+    protected void loadBlock(int b) throws IOException {
+        if (block != null && block.index == b) {
+            return;
+        }
+        Block next = null;
+        if (prefetched != null) {
+            try {
+                next = prefetched.get();
+            } catch (InterruptedException | ExecutionException e) {
+                log.warning("prefetching failed: " + e);
+            }
+            prefetched = null;
+        }
+        block = (next != null && next.index == b) ? next : readBlock(b);
+        final int n = b + 1;
+        if (n < numBlocks) {
+            prefetched = prefetcher.submit(() -> readBlock(n));
+        }
+    }
+
+    @Override
+    protected int blockOf(long pos) {
+        return (int) Math.max(0, Math.min(pos / blockSize, numBlocks - 1));
+    }
+
+    @Override
+    protected long getBlockStart(int b) {
+        return (long) b * blockSize;
+    }
+
+    @Override
+    protected int getBlockNumEvents(int b) {
+        return (int) Math.min(blockSize, numEvents - getBlockStart(b));
+    }
+
+    @Override
+    protected int[] getBlockAddresses() {
+        return block.addr;
+    }
+
+    @Override
+    protected int[] getBlockTimestamps() {
+        return block.ts;
+    }
+
+    /**
+     * The ms index gives the event index to within a ms; without it the
+     * position is found by bisection.
+     */
+    @Override
+    protected long findTimestamp(int raw) throws IOException {
+        final long rel = (long) raw - tOffset;
+        long lo = 0, hi = numEvents;
+        if (numMs > 0) {
+            final long ms = Math.max(0, Math.min(rel / 1000, numMs - 1));
+            lo = msToIdx(ms);
+            hi = ms + 1 < numMs ? msToIdx(ms + 1) : numEvents;
+        }
+        while (lo < hi) {
+            final long mid = (lo + hi) >>> 1;
+            if ((timestampAt(mid) - raw) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+
+    private long msToIdx(long ms) throws IOException {
+        final long[] v = new long[1];
+        try {
+            read(msToIdxId, HDF5Constants.H5T_NATIVE_INT64, ms, 1, v);
+        } catch (HDF5Exception e) {
+            throw new IOException(e.toString(), e);
+        }
+        return Math.max(0, Math.min(v[0], numEvents));
+    }
+
+    /**
+     * @return the number of APS frames in the file
+     */
+    public int getNumFrames() {
+        return numFrames;
+    }
+
+    /**
+     * Reads an APS frame.
+     *
+     * @param i the frame number
+     * @param frame the frame, indexed by y*sizeX+x, sizeX*sizeY long
+     * @return the frame timestamp in us
+     * @throws IOException if the frame cannot be read
+     */
+    synchronized public int readFrame(int i, float[] frame) throws IOException {
+        if (i < 0 || i >= numFrames) {
+            throw new IOException("frame " + i + " does not exist, there are " + numFrames + " frames");
+        }
+        final long[] t = new long[1];
+        try {
+            read(frameTId, HDF5Constants.H5T_NATIVE_INT64, i, 1, t);
+            final int fileSpace = H5.H5Dget_space(frameDataId);
+            final long[] count = {1, sizeY, sizeX};
+            final int memSpace = H5.H5Screate_simple(3, count, null);
+            try {
+                H5.H5Sselect_hyperslab(fileSpace, HDF5Constants.H5S_SELECT_SET, new long[]{i, 0, 0}, null, count, null);
+                H5.H5Dread(frameDataId, HDF5Constants.H5T_NATIVE_FLOAT, memSpace, fileSpace, HDF5Constants.H5P_DEFAULT, frame);
+            } finally {
+                H5.H5Sclose(memSpace);
+                H5.H5Sclose(fileSpace);
+            }
+        } catch (HDF5Exception e) {
+            throw new IOException("reading frame " + i + " of " + getFile() + ": " + e.toString(), e);
+        }
+        return (int) t[0];
+    }
+
+    @Override
+    synchronized public void close() throws IOException {
+        prefetcher.shutdownNow();
+        if (prefetched != null) {
+            try {
+                prefetched.get(); // the datasets must not be closed under the prefetch thread
+            } catch (InterruptedException | ExecutionException e) {
+                // not needed anymore
+            } catch (java.util.concurrent.CancellationException e) {
+                // not started
+            }
+            prefetched = null;
+        }
+        block = null;
+        closeIds();
+    }
+
+    private void closeIds() {
+        try {
+            for (int id : new int[]{xId, yId, tId, pId, addressId, msToIdxId, frameDataId, frameTId}) {
+                if (id >= 0) {
+                    H5.H5Dclose(id);
+                }
+            }
+            if (fileId >= 0) {
+                H5.H5Fclose(fileId);
+            }
+        } catch (HDF5Exception e) {
+            log.warning("closing " + getFile() + ": " + e.toString());
+        }
+        fileId = xId = yId = tId = pId = addressId = msToIdxId = frameDataId = frameTId = -1;
+    }
+
+    @Override
+    public String toString() {
+        final EngineeringFormat fmt = new EngineeringFormat();
+        return "Hdf5EventFileInputStream with size=" + fmt.format(size()) + " events in " + numBlocks + " blocks of " + blockSize + " events, "
+                + numFrames + " frames, firstTimestamp=" + getFirstTimestamp() + " lastTimestamp=" + getLastTimestamp()
+                + " duration=" + fmt.format(getDurationUs() / 1e6f) + "s";
+    }
+}
\ No newline at end of file
@@ -0,0 +1,164 @@
+/*
+ * Hdf5EventRecorder.java
+ *
+ * Copyright (C) 2026 jAER project.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ */
+package net.sf.jaer.eventio;
+
+import ch.unizh.ini.jaer.projects.davis.frames.ApsFrameExtractor;
+import eu.seebetter.ini.chips.DavisChip;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.io.File;
+import java.io.IOException;
+import javax.swing.JFileChooser;
+import javax.swing.filechooser.FileNameExtensionFilter;
+import net.sf.jaer.Description;
+import net.sf.jaer.DevelopmentStatus;
+import net.sf.jaer.chip.AEChip;
+import net.sf.jaer.event.EventPacket;
+import net.sf.jaer.eventprocessing.EventFilter2D;
+import net.sf.jaer.eventprocessing.FilterChain;
+
+/**
+ * Records the events of the live pipeline, and optionally the APS frames, to
+ * an HDF5 file with {@link Hdf5FileOutputWriter}. The filter only copies the
+ * events into chunks; compressing and writing happen on the writer thread.
+ *
+ * @author agent
+ */
+@Description("Records DVS events and APS frames to chunked, compressed HDF5 files for use from Python")
+@DevelopmentStatus(DevelopmentStatus.Status.Experimental)
+public class Hdf5EventRecorder extends EventFilter2D implements PropertyChangeListener {
+
+    private String lastFileName = getString("lastFileName", "jAER." + Hdf5FileOutputWriter.DATA_FILE_EXTENSION);
+    private boolean writeFrames = getBoolean("writeFrames", true);
+    private ApsFrameExtractor frameExtractor = null;
+    private volatile Hdf5FileOutputWriter writer = null;
+
+    public Hdf5EventRecorder(AEChip chip) {
+        super(chip);
+        if (chip instanceof DavisChip) {
+            FilterChain chain = new FilterChain(chip);
+            frameExtractor = new ApsFrameExtractor(chip);
+            frameExtractor.setShowAPSFrameDisplay(false);
+            chain.add(frameExtractor);
+            frameExtractor.getSupport().addPropertyChangeListener(ApsFrameExtractor.EVENT_NEW_FRAME, this);
+            setEnclosedFilterChain(chain);
+        }
+        setPropertyTooltip("startRecordingAndSaveAs", "Opens the HDF5 output file and starts writing to it");
+        setPropertyTooltip("closeFile", "Closes the output file if it is open");
+        setPropertyTooltip("writeFrames", "Also writes the APS frames of DAVIS cameras to /frames");
+    }
+
+    @Override
+    synchronized public EventPacket<?> filterPacket(EventPacket<?> in) {
+        final Hdf5FileOutputWriter w = writer;
+        if (w == null) {
+            return in;
+        }
+        if (frameExtractor != null && writeFrames) {
+            frameExtractor.filterPacket(in); // calls propertyChange for each new frame
+        }
+        try {
+            w.writePacket(in);
+        } catch (IOException e) {
+            log.warning("writing " + w.getFile() + " failed, closing it: " + e.toString());
+            doCloseFile();
+        }
+        return in;
+    }
+
+    @Override
+    public void propertyChange(PropertyChangeEvent evt) {
+        final Hdf5FileOutputWriter w = writer;
+        if (w == null || frameExtractor == null || !ApsFrameExtractor.EVENT_NEW_FRAME.equals(evt.getPropertyName())) {
+            return;
+        }
+        try {
+            w.writeFrame(frameExtractor.getDisplayBuffer(), frameExtractor.getLastFrameTimestamp());
+        } catch (IOException | IllegalArgumentException e) {
+            log.warning("could not write frame: " + e.toString());
+        }
+    }
+
+    synchronized public void doStartRecordingAndSaveAs() {
+        if (writer != null) {
+            log.warning("already recording to " + writer.getFile() + "; close it first");
+            return;
+        }
+        JFileChooser c = new JFileChooser(lastFileName);
+        c.setFileFilter(new FileNameExtensionFilter("HDF5 event file", Hdf5FileOutputWriter.DATA_FILE_EXTENSION));
+        c.setSelectedFile(new File(lastFileName));
+        if (c.showSaveDialog(null) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        File f = c.getSelectedFile();
+        if (!f.getName().toLowerCase().endsWith("." + Hdf5FileOutputWriter.DATA_FILE_EXTENSION)) {
+            f = new File(f.getPath() + "." + Hdf5FileOutputWriter.DATA_FILE_EXTENSION);
+        }
+        lastFileName = f.getPath();
+        putString("lastFileName", lastFileName);
+        try {
+            writer = new Hdf5FileOutputWriter(f, chip);
+        } catch (IOException e) {
+            log.warning(e.toString());
+            showWarningDialogInSwingThread(e.toString(), "Couldn't create output file");
+        }
+    }
+
+    synchronized public void doCloseFile() {
+        final Hdf5FileOutputWriter w = writer;
+        writer = null;
+        if (w == null) {
+            return;
+        }
+        try {
+            w.close();
+            log.info("closed " + w.getFile() + ": " + w.getStatus());
+        } catch (IOException e) {
+            log.warning("closing " + w.getFile() + ": " + e.toString());
+        }
+    }
+
+    @Override
+    public void resetFilter() {
+    }
+
+    @Override
+    public void initFilter() {
+    }
+
+    @Override
+    synchronized public void cleanup() {
+        doCloseFile();
+    }
+
+    /**
+     * @return the writeFrames
+     */
+    public boolean isWriteFrames() {
+        return writeFrames;
+    }
+
+    /**
+     * @param writeFrames the writeFrames to set
+     */
+    public void setWriteFrames(boolean writeFrames) {
+        this.writeFrames = writeFrames;
+        putBoolean("writeFrames", writeFrames);
+    }
+
+    /**
+     * @return the status of the writer, or null if not recording
+     */
+    public String getStatus() {
+        final Hdf5FileOutputWriter w = writer;
+        return w == null ? null : w.getStatus();
+    }
+}
@@ -5,209 +5,504 @@
  */
 package net.sf.jaer.eventio;
 
-//import ch.systemsx.cisd.hdf5.hdf5lib.HDF5Constants; // this library not available  via maven cental; comes from http://svnsis.ethz.ch/
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.logging.Logger;
+import java.util.prefs.Preferences;
+
 import ncsa.hdf.hdf5lib.H5;
 import ncsa.hdf.hdf5lib.HDF5Constants; // tobi replaced from standard ncsa library
+import ncsa.hdf.hdf5lib.exceptions.HDF5Exception;
+import net.sf.jaer.chip.AEChip;
+import net.sf.jaer.event.ApsDvsEvent;
+import net.sf.jaer.event.ApsDvsEventPacket;
+import net.sf.jaer.event.BasicEvent;
+import net.sf.jaer.event.EventPacket;
+import net.sf.jaer.event.PolarityEvent;
 
 /**
- * Test of writing HDF5 output file
- * @author minliu
+ * Writes DVS events and APS frames to an HDF5 file that can be read back with
+ * {@link Hdf5EventFileInputStream} or from Python with h5py.
+ * <p>
+ * The layout follows the DSEC event files:
+ * <ul>
+ * <li>/events/x, /events/y (uint16), /events/t (int64 us relative to
+ * /t_offset), /events/p (uint8, 0=OFF 1=ON) and /events/address (int32 raw
+ * jAER address)
+ * <li>/ms_to_idx (uint64): the index of the first event at or after each ms
+ * <li>/t_offset (int64): the timestamp of the first event in us
+ * <li>/frames/data (float32 [n,sizeY,sizeX]) and /frames/t (int64 us, jAER
+ * timestamp), if frames are written
+ * </ul>
+ * All datasets are chunked and deflate compressed. The root group has the
+ * attributes sizeX, sizeY, chip, creation_time_ms and chunk_size.
+ * <p>
+ * Events are copied into columnar chunks by the caller, e.g. a filter in the
+ * live pipeline, and whole chunks are compressed and written by a background
+ * thread. When the disk cannot keep up and all chunks are in use, the events of
+ * the full chunk are dropped and counted.
+ *
+ * @author minliu, tobi
  */
 public class Hdf5FileOutputWriter {
-    private static String fname  = "rec1498945830.hdf5";
-    private static String dsname  = "dvs";
-    private static long[] dims2D = { 20, 20 };
 
-    public static void main(String args[]) throws Exception {
-        int file_id = -1;
-        int dataset_id = -1;
+    static final Logger log = Logger.getLogger("net.sf.jaer.eventio");
+    static Preferences prefs = Preferences.userNodeForPackage(Hdf5FileOutputWriter.class);
+    public static final String DATA_FILE_EXTENSION = "h5";
+    private static int chunkSize = prefs.getInt("Hdf5FileOutputWriter.chunkSize", 1 << 16);
+    private static int numChunks = prefs.getInt("Hdf5FileOutputWriter.numChunks", 16);
+    private static int compressionLevel = prefs.getInt("Hdf5FileOutputWriter.compressionLevel", 4);
+    private static final int MS_TO_IDX_CHUNK_SIZE = 4096;
 
-        // create the file and add groups and dataset into the file
-        createFile();
+    /**
+     * A chunk of events in columns.
+     */
+    private static class Chunk {
 
-        // Open file using the default properties.
-        try {
-            file_id = H5.H5Fopen(fname, HDF5Constants.H5F_ACC_RDWR, HDF5Constants.H5P_DEFAULT);
-        }
-        catch (Exception e) {
-            e.printStackTrace();
-        }
+        final short[] x, y;
+        final long[] t;
+        final byte[] p;
+        final int[] address;
+        int size = 0;
 
-        // Open dataset using the default properties.
-        try {
-            if (file_id >= 0)
-                dataset_id = H5.H5Dopen(file_id, dsname, HDF5Constants.H5P_DEFAULT);
-        }
-        catch (Exception e) {
-            e.printStackTrace();
+        Chunk(int capacity) {
+            x = new short[capacity];
+            y = new short[capacity];
+            t = new long[capacity];
+            p = new byte[capacity];
+            address = new int[capacity];
         }
+    }
 
-        // Allocate array of pointers to two-dimensional arrays (the
-        // elements of the dataset.
-        int[][] dataRead = new int[(int) dims2D[0]][(int) (dims2D[1])];
+    /**
+     * An APS frame.
+     */
+    private static class Frame {
 
-        try {
-            if (dataset_id >= 0)
-                H5.H5Dread(dataset_id, HDF5Constants.H5T_NATIVE_INT,
-                        HDF5Constants.H5S_ALL, HDF5Constants.H5S_ALL,
-                        HDF5Constants.H5P_DEFAULT, dataRead);
-        }
-        catch (Exception e) {
-            e.printStackTrace();
-        }
+        final float[] data;
+        final int timestamp;
 
-        // print out the data values
-        System.out.println("\n\nOriginal Data Values");
-        for (int i = 0; i < (int) dims2D[0]; i++) {
-            System.out.print("\n" + dataRead[i][0]);
-            for (int j = 1; j < (int) dims2D[1]; j++) {
-                System.out.print(", " + dataRead[i][j]);
-            }
-        }
-
-        // change data value and write it to file.
-        for (int i = 0; i < (int) dims2D[0]; i++) {
-            for (int j = 0; j < (int) dims2D[1]; j++) {
-                dataRead[i][j]++;
-            }
+        Frame(float[] data, int timestamp) {
+            this.data = data;
+            this.timestamp = timestamp;
         }
+    }
 
-        // Write the data to the dataset.
-        try {
-            if (dataset_id >= 0)
-                H5.H5Dwrite(dataset_id, HDF5Constants.H5T_NATIVE_INT,
-                        HDF5Constants.H5S_ALL, HDF5Constants.H5S_ALL, HDF5Constants.H5P_DEFAULT, 
-                        dataRead);
-        }
-        catch (Exception e) {
-            e.printStackTrace();
-        }
+    private static final Object END = new Object(); // marks the end of the queue
+    private final File file;
+    private final int sizeX, sizeY, capacity;
+    private final ArrayBlockingQueue<Chunk> freeChunks;
+    private final ArrayBlockingQueue<Object> filled;
+    private Chunk current;
+    private final Thread writerThread;
+    private volatile IOException error = null;
+    private boolean closed = false;
 
-        // reload the data value
-        int[][] dataModified = new int[(int) dims2D[0]][(int) (dims2D[1])];
+    // HDF5 ids, only used by the writer thread after construction
+    private int fileId = -1, eventsGroup = -1, framesGroup = -1;
+    private int xId = -1, yId = -1, tId = -1, pId = -1, addressId = -1, msToIdxId = -1, frameDataId = -1, frameTId = -1;
+    private long numEventsWritten = 0, numFramesWritten = 0, numMsIndexed = 0, tOffset = 0;
+    private boolean tOffsetSet = false;
+    private long[] msToIdxBuf = new long[MS_TO_IDX_CHUNK_SIZE];
+    private volatile long eventsDropped = 0, framesDropped = 0, eventsWritten = 0;
 
+    /**
+     * Creates the file and its datasets and starts the writer thread.
+     *
+     * @param file the file, which is overwritten if it exists
+     * @param chip the chip, which sets the array size and is recorded in the
+     * attributes
+     * @throws IOException if the file cannot be created or the HDF5 library is
+     * not available
+     */
+    public Hdf5FileOutputWriter(File file, AEChip chip) throws IOException {
+        this.file = file;
+        this.sizeX = chip.getSizeX();
+        this.sizeY = chip.getSizeY();
+        this.capacity = Math.max(1024, chunkSize);
         try {
-            if (dataset_id >= 0)
-                H5.H5Dread(dataset_id, HDF5Constants.H5T_NATIVE_INT,
-                        HDF5Constants.H5S_ALL, HDF5Constants.H5S_ALL,
-                        HDF5Constants.H5P_DEFAULT, dataModified);
-        }
-        catch (Exception e) {
-            e.printStackTrace();
-        }
+            fileId = H5.H5Fcreate(file.getPath(), HDF5Constants.H5F_ACC_TRUNC, HDF5Constants.H5P_DEFAULT, HDF5Constants.H5P_DEFAULT);
+            eventsGroup = H5.H5Gcreate(fileId, "/events", HDF5Constants.H5P_DEFAULT, HDF5Constants.H5P_DEFAULT, HDF5Constants.H5P_DEFAULT);
+            xId = createDataset(eventsGroup, "x", HDF5Constants.H5T_STD_U16LE, new long[]{capacity});
+            yId = createDataset(eventsGroup, "y", HDF5Constants.H5T_STD_U16LE, new long[]{capacity});
+            tId = createDataset(eventsGroup, "t", HDF5Constants.H5T_STD_I64LE, new long[]{capacity});
+            pId = createDataset(eventsGroup, "p", HDF5Constants.H5T_STD_U8LE, new long[]{capacity});
+            addressId = createDataset(eventsGroup, "address", HDF5Constants.H5T_STD_I32LE, new long[]{capacity});
+            msToIdxId = createDataset(fileId, "ms_to_idx", HDF5Constants.H5T_STD_U64LE, new long[]{MS_TO_IDX_CHUNK_SIZE});
+            writeAttribute(fileId, "sizeX", HDF5Constants.H5T_STD_I32LE, HDF5Constants.H5T_NATIVE_INT, new int[]{sizeX});
+            writeAttribute(fileId, "sizeY", HDF5Constants.H5T_STD_I32LE, HDF5Constants.H5T_NATIVE_INT, new int[]{sizeY});
+            writeAttribute(fileId, "chunk_size", HDF5Constants.H5T_STD_I32LE, HDF5Constants.H5T_NATIVE_INT, new int[]{capacity});
+            writeAttribute(fileId, "creation_time_ms", HDF5Constants.H5T_STD_I64LE, HDF5Constants.H5T_NATIVE_INT64, new long[]{System.currentTimeMillis()});
+            writeStringAttribute(fileId, "chip", chip.getClass().getName());
+        } catch (HDF5Exception e) {
+            closeIds();
+            throw new IOException("could not create " + file + ": " + e.toString(), e);
+        } catch (LinkageError e) {
+            throw new IOException("HDF5 native library is not available: " + e.toString(), e);
+        }
+        freeChunks = new ArrayBlockingQueue<>(numChunks);
+        filled = new ArrayBlockingQueue<>(numChunks + 2);
+        for (int i = 0; i < numChunks; i++) {
+            freeChunks.add(new Chunk(capacity));
+        }
+        current = freeChunks.poll();
+        writerThread = new Thread(this::writeChunks, "Hdf5FileOutputWriter");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        log.info("writing " + file);
+    }
 
-        // print out the modified data values
-        System.out.println("\n\nModified Data Values");
-        for (int i = 0; i < (int) dims2D[0]; i++) {
-            System.out.print("\n" + dataModified[i][0]);
-            for (int j = 1; j < (int) dims2D[1]; j++) {
-                System.out.print(", " + dataModified[i][j]);
-            }
+    /**
+     * Creates a chunked, compressed and extendible dataset with an initial
+     * size of 0 along the first dimension.
+     */
+    private static int createDataset(int loc, String name, int type, long[] chunkDims) throws HDF5Exception {
+        final int rank = chunkDims.length;
+        final long[] dims = Arrays.copyOf(chunkDims, rank), maxDims = Arrays.copyOf(chunkDims, rank);
+        dims[0] = 0;
+        maxDims[0] = HDF5Constants.H5S_UNLIMITED;
+        final int space = H5.H5Screate_simple(rank, dims, maxDims);
+        final int plist = H5.H5Pcreate(HDF5Constants.H5P_DATASET_CREATE);
+        try {
+            H5.H5Pset_chunk(plist, rank, chunkDims);
+            H5.H5Pset_shuffle(plist);
+            H5.H5Pset_deflate(plist, compressionLevel);
+            return H5.H5Dcreate(loc, name, type, space, HDF5Constants.H5P_DEFAULT, plist, HDF5Constants.H5P_DEFAULT);
+        } finally {
+            H5.H5Pclose(plist);
+            H5.H5Sclose(space);
         }
+    }
 
-        // Close the dataset.
+    private static void writeAttribute(int loc, String name, int fileType, int memType, Object value) throws HDF5Exception {
+        final int space = H5.H5Screate(HDF5Constants.H5S_SCALAR);
+        final int attr = H5.H5Acreate(loc, name, fileType, space, HDF5Constants.H5P_DEFAULT, HDF5Constants.H5P_DEFAULT);
         try {
-            if (dataset_id >= 0)
-                H5.H5Dclose(dataset_id);
-        }
-        catch (Exception e) {
-            e.printStackTrace();
+            H5.H5Awrite(attr, memType, value);
+        } finally {
+            H5.H5Aclose(attr);
+            H5.H5Sclose(space);
         }
+    }
 
-        // Close the file.
+    private static void writeStringAttribute(int loc, String name, String value) throws HDF5Exception {
+        final byte[] b = value.getBytes(StandardCharsets.UTF_8);
+        final int type = H5.H5Tcopy(HDF5Constants.H5T_C_S1);
         try {
-            if (file_id >= 0)
-                H5.H5Fclose(file_id);
-        }
-        catch (Exception e) {
-            e.printStackTrace();
+            H5.H5Tset_size(type, Math.max(1, b.length));
+            writeAttribute(loc, name, type, type, b);
+        } finally {
+            H5.H5Tclose(type);
         }
     }
 
     /**
-     * create the file and add groups ans dataset into the file, which is the
-     * same as javaExample.H5DatasetCreate
-     * 
-     * @see HDF5DatasetCreate.H5DatasetCreate
-     * @throws Exception
+     * Appends rows to a dataset from the start of an array.
      */
-    private static void createFile() throws Exception {
-        int file_id = -1;
-        int dataspace_id = -1;
-        int dataset_id = -1;
-        
-        // Create a new file using default properties.
+    private static void append(int dataset, int memType, long offset, long[] rowDims, Object data) throws HDF5Exception {
+        final int rank = rowDims.length;
+        final long[] newDims = Arrays.copyOf(rowDims, rank), start = new long[rank];
+        newDims[0] = offset + rowDims[0];
+        start[0] = offset;
+        H5.H5Dset_extent(dataset, newDims);
+        final int fileSpace = H5.H5Dget_space(dataset);
+        final int memSpace = H5.H5Screate_simple(rank, rowDims, null);
         try {
-            file_id = H5.H5Fcreate(fname, HDF5Constants.H5F_ACC_TRUNC,
-                    HDF5Constants.H5P_DEFAULT, HDF5Constants.H5P_DEFAULT);
+            H5.H5Sselect_hyperslab(fileSpace, HDF5Constants.H5S_SELECT_SET, start, null, rowDims, null);
+            H5.H5Dwrite(dataset, memType, memSpace, fileSpace, HDF5Constants.H5P_DEFAULT, data);
+        } finally {
+            H5.H5Sclose(memSpace);
+            H5.H5Sclose(fileSpace);
         }
-        catch (Exception e) {
-            e.printStackTrace();
+    }
+
+    /**
+     * Copies the DVS events of a packet into the current chunk. IMU samples
+     * and APS samples are skipped; frames are written with
+     * {@link #writeFrame(float[], int)}.
+     *
+     * @param packet the packet, usually the input of a filter
+     * @throws IOException if writing failed or the writer is closed
+     */
+    synchronized public void writePacket(EventPacket<?> packet) throws IOException {
+        checkOpen();
+        final Iterator<? extends BasicEvent> itr = packet instanceof ApsDvsEventPacket ? ((ApsDvsEventPacket<?>) packet).fullIterator() : packet.inputIterator();
+        while (itr.hasNext()) {
+            final BasicEvent e = itr.next();
+            if (e.isFilteredOut() || ((e instanceof ApsDvsEvent) && !((ApsDvsEvent) e).isDVSEvent())) {
+                continue;
+            }
+            final Chunk c = current;
+            final int i = c.size++;
+            c.x[i] = e.x;
+            c.y[i] = e.y;
+            c.t[i] = e.timestamp;
+            c.p[i] = (byte) ((e instanceof PolarityEvent) && ((PolarityEvent) e).polarity == PolarityEvent.Polarity.On ? 1 : 0);
+            c.address[i] = e.address;
+            if (c.size == capacity) {
+                queueCurrent();
+            }
         }
+    }
 
-        // Create the data space for the dataset.
-        try {
-            dataspace_id = H5.H5Screate_simple(2, dims2D, null);
+    /**
+     * Queues a copy of an APS frame for writing.
+     *
+     * @param frame the frame, indexed by y*sizeX+x
+     * @param timestamp the frame timestamp in us
+     * @throws IOException if writing failed or the writer is closed
+     */
+    synchronized public void writeFrame(float[] frame, int timestamp) throws IOException {
+        checkOpen();
+        if (frame.length != sizeX * sizeY) {
+            throw new IllegalArgumentException("frame has " + frame.length + " pixels, not " + sizeX + "*" + sizeY);
         }
-        catch (Exception e) {
-            e.printStackTrace();
+        queueCurrent(); // keeps frames in order with the events
+        if (!filled.offer(new Frame(frame.clone(), timestamp))) {
+            framesDropped++;
         }
+    }
 
-        // Create the dataset.
-        try {
-            if ((file_id >= 0) && (dataspace_id >= 0))
-                dataset_id = H5.H5Dcreate(file_id, dsname,
-                        HDF5Constants.H5T_STD_I32LE, dataspace_id,
-                        HDF5Constants.H5P_DEFAULT, HDF5Constants.H5P_DEFAULT, HDF5Constants.H5P_DEFAULT);
+    private void checkOpen() throws IOException {
+        if (closed) {
+            throw new IOException("writer is closed");
         }
-        catch (Exception e) {
-            e.printStackTrace();
+        if (error != null) {
+            throw error;
         }
+    }
 
-        // Terminate access to the data space.
-        try {
-            if (dataspace_id >= 0)
-                H5.H5Sclose(dataspace_id);
+    /**
+     * Hands the current chunk to the writer thread, or drops its events if the
+     * writer has no free chunk.
+     */
+    private void queueCurrent() {
+        if (current.size == 0) {
+            return;
+        }
+        final Chunk next = freeChunks.poll();
+        if (next == null || !filled.offer(current)) {
+            if (eventsDropped == 0) {
+                log.warning("disk cannot keep up, dropping events; " + getStatus());
+            }
+            eventsDropped += current.size;
+            current.size = 0;
+            if (next != null) {
+                freeChunks.offer(next);
+            }
+            return;
         }
-        catch (Exception e) {
-            e.printStackTrace();
+        current = next;
+    }
+
+    private void writeChunks() {
+        while (true) {
+            final Object o;
+            try {
+                o = filled.take();
+            } catch (InterruptedException e) {
+                continue; // only close ends the thread
+            }
+            if (o == END) {
+                break;
+            }
+            if (error == null) {
+                try {
+                    if (o instanceof Chunk) {
+                        writeChunk((Chunk) o);
+                    } else {
+                        writeFrame((Frame) o);
+                    }
+                } catch (HDF5Exception e) {
+                    log.warning("writing " + file + " failed, discarding further data: " + e);
+                    error = new IOException(e.toString(), e);
+                }
+            }
+            if (o instanceof Chunk) {
+                ((Chunk) o).size = 0;
+                freeChunks.add((Chunk) o);
+            }
         }
+    }
 
-        // set the data values
-        int[] dataIn = new int[(int)dims2D[0] * (int)dims2D[1]];
-        for (int i = 0; i < (int)dims2D[0]; i++) {
-            for (int j = 0; j < (int)dims2D[1]; j++) {
-                dataIn[i * (int)dims2D[1] + j] = i * 100 + j;
+    private void writeChunk(Chunk c) throws HDF5Exception {
+        final int n = c.size;
+        if (!tOffsetSet) {
+            tOffset = c.t[0];
+            tOffsetSet = true;
+        }
+        int m = 0;
+        for (int i = 0; i < n; i++) {
+            c.t[i] -= tOffset;
+            while (numMsIndexed * 1000 <= c.t[i]) {
+                if (m == msToIdxBuf.length) {
+                    msToIdxBuf = Arrays.copyOf(msToIdxBuf, 2 * m);
+                }
+                msToIdxBuf[m++] = numEventsWritten + i;
+                numMsIndexed++;
             }
         }
+        final long[] rows = {n};
+        append(xId, HDF5Constants.H5T_NATIVE_USHORT, numEventsWritten, rows, c.x);
+        append(yId, HDF5Constants.H5T_NATIVE_USHORT, numEventsWritten, rows, c.y);
+        append(tId, HDF5Constants.H5T_NATIVE_INT64, numEventsWritten, rows, c.t);
+        append(pId, HDF5Constants.H5T_NATIVE_UINT8, numEventsWritten, rows, c.p);
+        append(addressId, HDF5Constants.H5T_NATIVE_INT, numEventsWritten, rows, c.address);
+        if (m > 0) {
+            append(msToIdxId, HDF5Constants.H5T_NATIVE_INT64, numMsIndexed - m, new long[]{m}, msToIdxBuf);
+        }
+        numEventsWritten += n;
+        eventsWritten = numEventsWritten;
+    }
 
-        // Write the data to the dataset.
-        try {
-            if (dataset_id >= 0)
-                H5.H5Dwrite(dataset_id, HDF5Constants.H5T_NATIVE_INT,
-                        HDF5Constants.H5S_ALL, HDF5Constants.H5S_ALL,
-                        HDF5Constants.H5P_DEFAULT, dataIn);
+    private void writeFrame(Frame f) throws HDF5Exception {
+        if (framesGroup < 0) {
+            framesGroup = H5.H5Gcreate(fileId, "/frames", HDF5Constants.H5P_DEFAULT, HDF5Constants.H5P_DEFAULT, HDF5Constants.H5P_DEFAULT);
+            frameDataId = createDataset(framesGroup, "data", HDF5Constants.H5T_IEEE_F32LE, new long[]{1, sizeY, sizeX});
+            frameTId = createDataset(framesGroup, "t", HDF5Constants.H5T_STD_I64LE, new long[]{256});
+        }
+        append(frameDataId, HDF5Constants.H5T_NATIVE_FLOAT, numFramesWritten, new long[]{1, sizeY, sizeX}, f.data);
+        append(frameTId, HDF5Constants.H5T_NATIVE_INT64, numFramesWritten, new long[]{1}, new long[]{f.timestamp});
+        numFramesWritten++;
+    }
+
+    /**
+     * Writes the remaining events, the time offset and closes the file.
+     *
+     * @throws IOException if any of the data could not be written
+     */
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            queueCurrent();
+            try {
+                filled.put(END);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
         }
-        catch (Exception e) {
-            e.printStackTrace();
+        try {
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
-
-        // End access to the dataset and release resources used by it.
         try {
-            if (dataset_id >= 0)
-                H5.H5Dclose(dataset_id);
+            final int space = H5.H5Screate(HDF5Constants.H5S_SCALAR);
+            final int ds = H5.H5Dcreate(fileId, "t_offset", HDF5Constants.H5T_STD_I64LE, space, HDF5Constants.H5P_DEFAULT, HDF5Constants.H5P_DEFAULT, HDF5Constants.H5P_DEFAULT);
+            H5.H5Dwrite(ds, HDF5Constants.H5T_NATIVE_INT64, HDF5Constants.H5S_ALL, HDF5Constants.H5S_ALL, HDF5Constants.H5P_DEFAULT, new long[]{tOffset});
+            H5.H5Dclose(ds);
+            H5.H5Sclose(space);
+        } catch (HDF5Exception e) {
+            if (error == null) {
+                error = new IOException(e.toString(), e);
+            }
+        } finally {
+            closeIds();
         }
-        catch (Exception e) {
-            e.printStackTrace();
+        log.info("closed " + file + "; " + getStatus());
+        if (error != null) {
+            throw error;
         }
+    }
 
-        // Close the file.
+    private void closeIds() {
         try {
-            if (file_id >= 0)
-                H5.H5Fclose(file_id);
-        }
-        catch (Exception e) {
-            e.printStackTrace();
+            for (int id : new int[]{xId, yId, tId, pId, addressId, msToIdxId, frameDataId, frameTId}) {
+                if (id >= 0) {
+                    H5.H5Dclose(id);
+                }
+            }
+            if (framesGroup >= 0) {
+                H5.H5Gclose(framesGroup);
+            }
+            if (eventsGroup >= 0) {
+                H5.H5Gclose(eventsGroup);
+            }
+            if (fileId >= 0) {
+                H5.H5Fclose(fileId);
+            }
+        } catch (HDF5Exception e) {
+            log.warning("closing " + file + ": " + e.toString());
         }
-    }    
+        fileId = eventsGroup = framesGroup = -1;
+        xId = yId = tId = pId = addressId = msToIdxId = frameDataId = frameTId = -1;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * @return the number of events written to the file so far
+     */
+    public long getEventsWritten() {
+        return eventsWritten;
+    }
+
+    /**
+     * @return the number of events dropped because the disk could not keep up
+     */
+    public long getEventsDropped() {
+        return eventsDropped;
+    }
+
+    /**
+     * @return a status string with the events and frames written and dropped
+     */
+    public String getStatus() {
+        return String.format("%d events written, %d events and %d frames dropped", eventsWritten, eventsDropped, framesDropped);
+    }
+
+    /**
+     * @return the number of events per chunk for new writers
+     */
+    public static int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * @param chunkSize the number of events per chunk for new writers
+     */
+    public static void setChunkSize(int chunkSize) {
+        Hdf5FileOutputWriter.chunkSize = chunkSize;
+        prefs.putInt("Hdf5FileOutputWriter.chunkSize", chunkSize);
+    }
+
+    /**
+     * @return the number of chunks buffered for the writer thread
+     */
+    public static int getNumChunks() {
+        return numChunks;
+    }
+
+    /**
+     * @param numChunks the number of chunks buffered for the writer thread of
+     * new writers
+     */
+    public static void setNumChunks(int numChunks) {
+        Hdf5FileOutputWriter.numChunks = numChunks;
+        prefs.putInt("Hdf5FileOutputWriter.numChunks", numChunks);
+    }
+
+    /**
+     * @return the deflate level 0-9 for new writers
+     */
+    public static int getCompressionLevel() {
+        return compressionLevel;
+    }
+
+    /**
+     * @param compressionLevel the deflate level 0-9 for new writers
+     */
+    public static void setCompressionLevel(int compressionLevel) {
+        Hdf5FileOutputWriter.compressionLevel = compressionLevel;
+        prefs.putInt("Hdf5FileOutputWriter.compressionLevel", compressionLevel);
+    }
 }
@@ -16,6 +16,7 @@ import java.util.logging.Logger;
 
 import eu.seebetter.ini.chips.davis.DavisBaseCamera;
 import net.sf.jaer.aemonitor.AEPacketRaw;
+import net.sf.jaer.aemonitor.EventRaw;
 import net.sf.jaer.aemonitor.EventRaw.EventType;
 import net.sf.jaer.chip.AEChip;
 import net.sf.jaer.chip.EventExtractor2D;
@@ -98,6 +99,9 @@ public class Jaer3BufferParser {
     // pixel data is packed as one single complete jaer 2 event.
     private int frameCurrentEventOffset; // TODO ?? counter for something
     private boolean readOutType = false; // TODO ?? flag for something
+    private int frameXLength, frameYLength, frameNumPixels; // header of the frame being read, parsed once per frame
+    private int frameStartOfCaptureTimestamp, frameEndOfCaptureTimestamp;
+    private final EventRaw jaer2Event = new EventRaw(); // reused by getJaer2EventBuf
 
     private static AEChip ORIGINAL_CHIP = null;
     private static EventExtractor2D ORIGINAL_EVENT_EXTRACTOR = null;
@@ -620,131 +624,132 @@ public class Jaer3BufferParser {
     }
 
     /**
-     * This is most important method. It returns the 16-byte events (eventtype,
-     * addr, ts and pixeldata) like it's a jaer2 event. Pixeldata is only used
-     * by frame event, in other case it's 0.
+     * Returns the next event as the 16-byte jAER 2 style event (eventtype,
+     * addr, ts and pixeldata). Pixeldata is only used by frame event, in other
+     * case it's 0.
      *
      * @return one buffer that contains the standard 16-byte event.
      * @throws IOException
+     * @see #readNextEvent(net.sf.jaer.aemonitor.EventRaw)
      */
     public ByteBuffer getJaer2EventBuf() throws IOException {
+        readNextEvent(jaer2Event);
         ByteBuffer jaer2Buffer = ByteBuffer.allocate(16);
+        jaer2Buffer.putInt(jaer2Event.eventtype.getValue());
+        jaer2Buffer.putInt(jaer2Event.address);
+        jaer2Buffer.putInt(jaer2Event.timestamp);
+        jaer2Buffer.putInt(jaer2Event.pixelData);
+        jaer2Buffer.flip();
+        return jaer2Buffer;
+    } // getJaer2EventBuf
 
+    /**
+     * This is most important method. It decodes the next event straight from
+     * the buffer into a caller supplied EventRaw, like it's a jaer2 event.
+     * Frame events are returned pixel by pixel, with the pixel value read in
+     * place from the buffer into pixelData; pixelData is 0 for other events.
+     * The frame header is parsed once per frame.
+     *
+     * @param e the event to fill in
+     * @throws IOException
+     * @throws BufferUnderflowException at the end of the buffer
+     */
+    public void readNextEvent(EventRaw e) throws IOException {
         int nextEventOffset = 0;
         if (!inFrameEvent) { // we are a Polarity or Special event currently
             nextEventOffset = getNextValidEventOffset();
             frameCurrentEventOffset = nextEventOffset;
-            if (currentPkt.pktHeader.eventType == EventType.FrameEvent) { // ?? tobi doesn't understand this logic
-                int xlengthOffset = frameCurrentEventOffset + 20;
-                int xlength = in.getInt(xlengthOffset);
-                int ylengthOffset = frameCurrentEventOffset + 24;
-                int ylength = in.getInt(ylengthOffset);
-                translatedArrayIndex = (2 * xlength * ylength) - 1; // TODO handle mutliple channels
+            if (currentPkt.pktHeader.eventType == EventType.FrameEvent) {
+                parseFrameHeader(frameCurrentEventOffset);
+                translatedArrayIndex = (2 * frameXLength * frameYLength) - 1; // TODO handle mutliple channels
             }
         }
 
-        // First check if it's a frame event, if it's a frame event, we must check
-        // whether the current event is finished or not (tobi: does this mean current *frame* is finished??)
-        if (currentPkt.pktHeader.eventType == EventType.FrameEvent) {   // TODO why does it parse the frame header over and over again
-            // it only needs to read the frame header once per frame???
-            final int frameInfoOffset = frameCurrentEventOffset;
-            final int frameInfo = in.getInt(frameInfoOffset); // http://inilabs.com/support/software/fileformat/#h.k6b3f6wpvb87
-            final boolean frameValidFlag = (frameInfo & 1) != 0;
-            if (frameValidFlag == false) {
-                log.warning("parsing a frame that has been marked invalid - this frame should have been skipped by earlier parsing");
-            }
-            final int numChannels = (frameInfo >>> 1) & 7;
-            if (numChannels > 1) {
-                log.warning("number of (color) channels is larger than 1, cannot currently handle multi-channel input");
-            }
-            final int filterInformationCode = (frameInfo >>> 4) & 0xf;
-            if (filterInformationCode > 0) {
-                log.warning("color filter information indicates color input, cannot currently parse");
-            }
-            final int roiIdentifier = (frameInfo >>> 8) & 0x1ff;
-            if (roiIdentifier > 0) {
-                log.warning("ROI input not current handled");
-            }
-            final int xlengthOffset = frameCurrentEventOffset + 20; // see http://inilabs.com/support/software/fileformat/#h.k6b3f6wpvb87 
-            final int xlength = in.getInt(xlengthOffset);
-            final int ylengthOffset = frameCurrentEventOffset + 24; // http://inilabs.com/support/software/fileformat/#h.k6b3f6wpvb87
-            final int ylength = in.getInt(ylengthOffset);
-
-            final int numPixels = xlength * ylength * numChannels;
-
-            // int channelNumber = (in.getInt(frameCurrentEventOffset) & 0xe) >> 1;
-            final int tsOffset = currentPkt.pktHeader.eventTSOffset;
-            int ts = in.getInt(frameCurrentEventOffset + tsOffset); // Start of Exposure timestamp
-
+        // frames are sent as a reset read followed by a signal read of every pixel, counted down by translatedArrayIndex
+        if (currentPkt.pktHeader.eventType == EventType.FrameEvent) {
             if (translatedArrayIndex >= 0) {
                 inFrameEvent = true;
-                // framePixelArrayOffset = translatedArrayIndex;
-                jaer2Buffer.putInt(currentPkt.pktHeader.eventType.getValue()); // type 2, frame event
-                // jaer2Buffer.putInt(((framePixelArrayOffset/ylength)<< 16) + framePixelArrayOffset%ylength); //addr
-
+                final int ylength = frameYLength;
+                final int numPixels = frameNumPixels;
                 int jaer2FrameAddr;
                 int data;
+                int ts;
 
                 // TODO: The frame pixel size should be xlength * ylength * channelNumber. Here we always set the channelNumber to 1.
                 if ((translatedArrayIndex >= (numPixels)) && (translatedArrayIndex <= ((2 * numPixels) - 1))) {
-                    jaer2FrameAddr = ((((translatedArrayIndex - (numPixels)) / ylength)) << 17)
-                            + (((translatedArrayIndex - (numPixels)) % ylength) << 2) + 0;
+                    final int i = translatedArrayIndex - numPixels;
+                    jaer2FrameAddr = ((i / ylength) << 17) + ((i % ylength) << 2) + 0;
 
-                    // TODO: 239 should be replaced by the chip width, added the code to get the current chip size.
                     // Reset Read Array
-                    // TODO why was 239 hardcoded for the first xlength below when it is available from the frame event header?? (tobi)
-                    framePixelArrayOffset = (xlength/* was 239 hardcoded */ - 1 - ((translatedArrayIndex - (numPixels)) / ylength))
-                            + (xlength * ((translatedArrayIndex - (numPixels)) % ylength));
+                    framePixelArrayOffset = (frameXLength - 1 - (i / ylength)) + (frameXLength * (i % ylength));
 
                     int dataOffset = 36 + (2 * (framePixelArrayOffset));
                     if ((frameCurrentEventOffset + dataOffset) >= in.limit()) {
                         throw new BufferUnderflowException(); // Reach the end of the buffer
                     }
                     data = in.getShort(frameCurrentEventOffset + dataOffset);  // Reset read array
-                    ts = in.getInt(frameCurrentEventOffset + 4); // Start of Frame Capture timestamp
+                    ts = frameStartOfCaptureTimestamp;
                 } else {
-                    jaer2FrameAddr = ((((translatedArrayIndex) / ylength)) << 17) + (((translatedArrayIndex) % ylength) << 2) + 1;
+                    jaer2FrameAddr = ((translatedArrayIndex / ylength) << 17) + ((translatedArrayIndex % ylength) << 2) + 1;
 
                     // Signal Read Array
                     data = 0;
-                    ts = in.getInt(frameCurrentEventOffset + 8); // End of Frame Capture timestamp
+                    ts = frameEndOfCaptureTimestamp;
                 }
 
-                jaer2Buffer.putInt(jaer2FrameAddr);
-                jaer2Buffer.putInt(ts); // ts
-                jaer2Buffer.putInt(data); // pixeldata
-                jaer2Buffer.flip();
-
-                // outFile.writeInt(jaer2FrameData);
-                // outFile.writeInt(ts);
-                // outFile.close();
+                e.eventtype = EventType.FrameEvent;
+                e.address = jaer2FrameAddr;
+                e.timestamp = ts;
+                e.pixelData = data;
                 translatedArrayIndex -= 1;
-                return jaer2Buffer;
+                return;
             } else {
                 inFrameEvent = false;
                 readOutType = !readOutType;
-                // framePixelArrayOffset = 0;
                 in.position(frameCurrentEventOffset + currentPkt.pktHeader.eventSize);
-                return getJaer2EventBuf();
+                readNextEvent(e);
+                return;
             }
+        }
 
-        } // end of dealing with frame??
-
-        int dataOffset = getDataOffset(currentPkt.pktHeader);
-        int tsOffset = currentPkt.pktHeader.eventTSOffset;
-
-        in.position(nextEventOffset + dataOffset);
-        int addr = in.getInt();
-        in.position(nextEventOffset + tsOffset);
-        int ts = in.getInt();
+        final PacketHeader h = currentPkt.pktHeader;
+        e.eventtype = h.eventType;
+        e.address = in.getInt(nextEventOffset + getDataOffset(h));
+        e.timestamp = in.getInt(nextEventOffset + h.eventTSOffset);
+        e.pixelData = 0; // pixelData just for frame event, other events don't use it;
+        in.position(nextEventOffset + h.eventTSOffset + 4);
+    } // readNextEvent
 
-        jaer2Buffer.putInt(currentPkt.pktHeader.eventType.getValue());
-        jaer2Buffer.putInt(addr);
-        jaer2Buffer.putInt(ts);
-        jaer2Buffer.putInt(0); // pixelData just for frame event, other events don't use it;
-        jaer2Buffer.flip();
-        return jaer2Buffer;
-    } // getJaer2EventBuf
+    /**
+     * Reads the header of the frame event at an offset into the frame fields,
+     * warning about frame features that cannot be handled yet.
+     *
+     * @param offset offset of the frame event
+     */
+    private void parseFrameHeader(int offset) {
+        final int frameInfo = in.getInt(offset); // http://inilabs.com/support/software/fileformat/#h.k6b3f6wpvb87
+        final boolean frameValidFlag = (frameInfo & 1) != 0;
+        if (frameValidFlag == false) {
+            log.warning("parsing a frame that has been marked invalid - this frame should have been skipped by earlier parsing");
+        }
+        final int numChannels = (frameInfo >>> 1) & 7;
+        if (numChannels > 1) {
+            log.warning("number of (color) channels is larger than 1, cannot currently handle multi-channel input");
+        }
+        final int filterInformationCode = (frameInfo >>> 4) & 0xf;
+        if (filterInformationCode > 0) {
+            log.warning("color filter information indicates color input, cannot currently parse");
+        }
+        final int roiIdentifier = (frameInfo >>> 8) & 0x1ff;
+        if (roiIdentifier > 0) {
+            log.warning("ROI input not current handled");
+        }
+        frameStartOfCaptureTimestamp = in.getInt(offset + 4);
+        frameEndOfCaptureTimestamp = in.getInt(offset + 8);
+        frameXLength = in.getInt(offset + 20); // see http://inilabs.com/support/software/fileformat/#h.k6b3f6wpvb87
+        frameYLength = in.getInt(offset + 24);
+        frameNumPixels = frameXLength * frameYLength * numChannels;
+    }
 
     /**
      * This function gets the total events number of the buffer
@@ -868,6 +873,7 @@ public class Jaer3BufferParser {
     public class Jaer3EventExtractor extends RetinaExtractor {
 
         protected int autoshotEventsSinceLastShot = 0; // autoshot counter
+        private DavisBaseCamera.DavisEventExtractor frameCounter = null; // only used to count frames of DAVIS chips
 
         public Jaer3EventExtractor(final AEChip chip) {
             super(chip);
@@ -1077,9 +1083,10 @@ public class Jaer3BufferParser {
 
                 if (Jaer3BufferParser.this.chip instanceof DavisBaseCamera) {
                     DavisBaseCamera davisBasechip = (DavisBaseCamera) (Jaer3BufferParser.this.chip);
-                    davisBasechip.getFrameCount();
-                    DavisBaseCamera.DavisEventExtractor extractor = davisBasechip.new DavisEventExtractor(davisBasechip);
-                    extractor.increaseFrameCount(1);
+                    if (frameCounter == null) {
+                        frameCounter = davisBasechip.new DavisEventExtractor(davisBasechip);
+                    }
+                    frameCounter.increaseFrameCount(1);
                 }
 
             }
@@ -0,0 +1,113 @@
+/*
+ * RosbagChunkReader.java
+ *
+ * Copyright (C) 2026 jAER project.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ */
+package net.sf.jaer.eventio.ros;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Logger;
+
+/**
+ * Reads the serialized data of indexed messages straight from the memory
+ * mapped chunks of a ROS bag. The chunk after the current one is mapped and
+ * loaded into memory by a background thread, so that playback does not wait
+ * for the disk when it crosses into the next chunk.
+ *
+ * @see RosbagIndex
+ * @author agent
+ */
+public class RosbagChunkReader {
+
+    private static final Logger log = Logger.getLogger("RosbagChunkReader");
+    private final RosbagIndex index;
+    private final FileChannel channel;
+    private final ExecutorService prefetcher = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "RosbagChunkPrefetcher");
+        t.setDaemon(true);
+        return t;
+    });
+    private int currentChunk = -1, prefetchedChunk = -1;
+    private MappedByteBuffer current = null;
+    private Future<MappedByteBuffer> prefetched = null;
+
+    public RosbagChunkReader(File bag, RosbagIndex index) throws IOException {
+        this.index = index;
+        channel = FileChannel.open(bag.toPath(), StandardOpenOption.READ);
+    }
+
+    /**
+     * Returns the serialized message, i.e. the data of its message data record.
+     * The buffer is little endian, as ROS serializes, and valid until the
+     * reader moves to another chunk.
+     *
+     * @param i the message number in the index
+     * @return the message data
+     * @throws IOException
+     */
+    public ByteBuffer getMessageData(int i) throws IOException {
+        ByteBuffer chunk = getChunk(index.chunkIdx[i]).duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        int pos = index.offset[i];
+        int headerLen = chunk.getInt(pos);
+        int dataLen = chunk.getInt(pos + 4 + headerLen);
+        chunk.position(pos + 8 + headerLen);
+        chunk.limit(chunk.position() + dataLen);
+        return chunk.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private MappedByteBuffer getChunk(int c) throws IOException {
+        if (c == currentChunk) {
+            return current;
+        }
+        MappedByteBuffer b = null;
+        if (c == prefetchedChunk && prefetched != null) {
+            try {
+                b = prefetched.get();
+            } catch (InterruptedException | ExecutionException e) {
+                log.warning("prefetching chunk " + c + " failed: " + e);
+            }
+        } else if (prefetched != null) {
+            prefetched.cancel(false); // we jumped somewhere else
+        }
+        if (b == null) {
+            b = map(c);
+        }
+        current = b;
+        currentChunk = c;
+        final int next = c + 1;
+        if (next < index.getNumChunks()) {
+            prefetchedChunk = next;
+            prefetched = prefetcher.submit(() -> map(next).load());
+        } else {
+            prefetched = null;
+            prefetchedChunk = -1;
+        }
+        return current;
+    }
+
+    private MappedByteBuffer map(int c) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, index.chunkDataPos[c], index.chunkDataLen[c]);
+    }
+
+    public void close() throws IOException {
+        prefetcher.shutdownNow();
+        current = null;
+        prefetched = null;
+        channel.close();
+    }
+}
@@ -49,6 +49,7 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
 import java.nio.channels.ClosedByInterruptException;
 import java.nio.channels.FileChannel;
 import java.sql.Timestamp;
@@ -126,6 +127,10 @@ public class RosbagFileInputStream implements AEFileInputStreamInterface, Rosbag
     private ArrayList<String> topicFieldNames = new ArrayList();
     private boolean wasIndexed = false;
     private List<BagFile.MessageIndex> msgIndexes = new ArrayList();
+    private RosbagIndex index = null; // index of the standard topics that are decoded straight from the mapped chunks, null if bag could not be indexed this way
+    private RosbagChunkReader chunkReader = null;
+    private List<BagFile.MessageIndex> listenerMsgIndexes = new ArrayList(); // messages of listener topics when index is used, read with the bag reader
+    private int nextListenerMessageNumber = 0;
     private HashMultimap<String, PropertyChangeListener> msgListeners = HashMultimap.create();
     private boolean firstReadCompleted = false;
     private ArrayList<String> extraTopics = null; // extra topics that listeners can subscribe to
@@ -188,6 +193,9 @@ public class RosbagFileInputStream implements AEFileInputStreamInterface, Rosbag
         this.chip = chip;
 
         log.info("reading rosbag file " + f + " for chip " + chip);
+        if (openIndexed(progressMonitor)) {
+            return;
+        }
         bagFile = BagReader.readFile(file);
         StringBuilder sb = new StringBuilder("Bagfile information:\n");
         for (TopicInfo topic : bagFile.getTopics()) {
@@ -216,6 +224,71 @@ public class RosbagFileInputStream implements AEFileInputStreamInterface, Rosbag
         generateMessageIndexes(progressMonitor);
     }
 
+    /**
+     * Opens the bag with the fast index of the standard topics, whose messages
+     * are decoded straight from the mapped chunks without the generic bag
+     * reader.
+     *
+     * @return true if successful, false if the bag must be read with the
+     * generic bag reader, e.g. because its chunks are compressed
+     */
+    private boolean openIndexed(ProgressMonitor progressMonitor) throws InterruptedException {
+        ArrayList<String> wantedTopics = new ArrayList();
+        for (RosbagFileType t : new RosbagFileType[]{RosbagFileType.RPG, RosbagFileType.MVSEC}) {
+            for (String s : STANARD_TOPICS) {
+                wantedTopics.add(t.header + s);
+            }
+        }
+        try {
+            index = RosbagIndex.load(file, wantedTopics, progressMonitor);
+        } catch (IOException e) {
+            log.info("cannot index " + file + " directly (" + e.getMessage() + "), using the generic bag reader");
+            return false;
+        }
+        if (index.size() == 0) {
+            log.warning("no messages of the standard topics " + wantedTopics + " in " + file + ", using the generic bag reader");
+            index = null;
+            return false;
+        }
+        int[] counts = new int[wantedTopics.size()];
+        for (int i = 0; i < index.size(); i++) {
+            counts[index.topicIdx[i]]++;
+        }
+        rosbagFileType = RosbagFileType.RPG;
+        StringBuilder sb = new StringBuilder("Bagfile information:\n");
+        for (int t = 0; t < counts.length; t++) {
+            if (counts[t] > 0) {
+                sb.append(wantedTopics.get(t) + " \t\t" + counts[t] + " msgs \t: " + index.types[t] + "\n");
+                if (wantedTopics.get(t).contains(RosbagFileType.MVSEC.header)) {
+                    rosbagFileType = RosbagFileType.MVSEC;
+                }
+            }
+        }
+        sb.append("Duration: " + getDurationUs() * 1e-6f + "s\n");
+        sb.append("Chunks: " + index.getNumChunks() + "\n");
+        sb.append("File type is detected as " + rosbagFileType);
+        log.info(sb.toString());
+        for (String s : STANARD_TOPICS) {
+            String topic = rosbagFileType.header + s;
+            topicList.add(topic);
+            topicFieldNames.add(topic.substring(topic.lastIndexOf("/") + 1));
+        }
+        try {
+            chunkReader = new RosbagChunkReader(file, index);
+        } catch (IOException e) {
+            log.warning("cannot open " + file + ": " + e);
+            index = null;
+            return false;
+        }
+        numMessages = index.size();
+        markIn = 0;
+        markOut = numMessages;
+        firstTimestamp = getTimestampUsRelative(index.getTimeNs(0) / 1000, true);
+        lastTimestamp = getTimestampUsRelative(index.getTimeNs(numMessages - 1) / 1000, false);
+        wasIndexed = true;
+        return true;
+    }
+
     @Override
     public Collection<String> getMessageListenerTopics() {
         return msgListeners.keySet();
@@ -303,11 +376,25 @@ public class RosbagFileInputStream implements AEFileInputStreamInterface, Rosbag
      * @return timestamp for jAER in us
      */
     private int getTimestampUsRelative(Timestamp timestamp, boolean updateLargestTimestamp) {
-        updateLargestTimestamp = true; // TODO hack before removing
         long tsNs = timestamp.getNanos(); // gets the fractional seconds in ns
         // https://docs.oracle.com/javase/8/docs/api/java/sql/Timestamp.html "Only integral seconds are stored in the java.util.Date component. The fractional seconds - the nanos - are separate."
         long tsMs = timestamp.getTime(); // the time in ms including ns, i.e. time(s)*1000+ns/1000000. 
         long timestampUsAbsolute = (1000000 * (tsMs / 1000)) + tsNs / 1000; // truncate ms back to s, then turn back to us, then appendCopy fractional part of s in us
+        return getTimestampUsRelative(timestampUsAbsolute, updateLargestTimestamp);
+    }
+
+    /**
+     * Computes the us timestamp relative to the first timestamp in the
+     * recording.
+     *
+     * @param timestampUsAbsolute the ROS time in us since 1970
+     * @param updateLargestTimestamp true if we want to update the largest
+     * timestamp with this value, false if we leave it unchanged
+     *
+     * @return timestamp for jAER in us
+     */
+    private int getTimestampUsRelative(long timestampUsAbsolute, boolean updateLargestTimestamp) {
+        updateLargestTimestamp = true; // TODO hack before removing
         if (!firstTimestampWasRead) {
             firstTimestampUsAbsolute = timestampUsAbsolute;
             firstTimestampWasRead = true;
@@ -322,7 +409,7 @@ public class RosbagFileInputStream implements AEFileInputStreamInterface, Rosbag
         final int dt = ts - mostRecentTimestamp;
         if (dt < 0 && nonMonotonicTimestampExceptionsChecked) {
             if (nonmonotonicTimestampCounter % NONMONOTONIC_TIMESTAMP_WARNING_INTERVAL == 0) {
-                log.warning("Nonmonotonic timestamp=" + timestamp + " with dt=" + dt + "; replacing with largest timestamp=" + largestTimestamp + "; skipping next " + NONMONOTONIC_TIMESTAMP_WARNING_INTERVAL + " warnings");
+                log.warning("Nonmonotonic timestamp=" + timestampUsAbsolute + "us with dt=" + dt + "; replacing with largest timestamp=" + largestTimestamp + "; skipping next " + NONMONOTONIC_TIMESTAMP_WARNING_INTERVAL + " warnings");
             }
             nonmonotonicTimestampCounter++;
             ts = largestTimestamp; // replace actual timestamp with largest one so far
@@ -367,223 +454,28 @@ public class RosbagFileInputStream implements AEFileInputStreamInterface, Rosbag
         try {
             boolean gotEventsOrFrame = false;
             while (!gotEventsOrFrame) {
-                MessageWithIndex message = getNextMsg();
-                // send to listeners if topic is one we have subscribers for
-                String topic = message.messageIndex.topic;
-                Set<PropertyChangeListener> listeners = msgListeners.get(topic);
-                if (!listeners.isEmpty()) {
-                    for (PropertyChangeListener l : listeners) {
-                        l.propertyChange(new PropertyChangeEvent(this, topic, null, message));
+                if (index != null) {
+                    int msg = getNextIndexedMsg();
+                    if (msg < 0) {
+                        break; // reached markOut without repeat
                     }
-                }
-
-                // now deal with standard DAVIS data
-                String pkg = message.messageType.getPackage();
-                String type = message.messageType.getType();
-                switch (pkg) {
-                    case "std_msgs": { // exposure
-                        MessageType messageType = message.messageType;
-//                         List<String> fieldNames = messageType.getFieldNames();
-                        try {
-                            int exposureUs = messageType.<Int32Type>getField("data").getValue(); // message seems to be exposure in ms as float although https://github.com/uzh-rpg/rpg_dvs_ros/blob/master/davis_ros_driver/src/driver.cpp publishes as Int32, very confusing
-                            lastExposureUs = (int) (exposureUs);
-                        } catch (Exception ex) {
-                            float exposureUs = messageType.<Float32Type>getField("data").getValue(); // message seems to be exposure in ms as float although https://github.com/uzh-rpg/rpg_dvs_ros/blob/master/davis_ros_driver/src/driver.cpp publishes as Int32, very confusing
-                            lastExposureUs = (int) (exposureUs); // hack to deal with recordings made with pre-Int32 version of rpg-ros-dvs
-                        }
-
-                    }
-                    break;
-                    case "sensor_msgs":
-                        switch (type) {
-                            case "Image": { // http://docs.ros.org/api/sensor_msgs/html/index-msg.html
-                                // Make sure the image is from APS, otherwise some other image topic will be also processed here.
-                                if (!(topic.equalsIgnoreCase("/davis/left/image_raw") || topic.equalsIgnoreCase("/dvs/image_raw"))) {
-                                    continue;
-                                }
-                                hasAps.setTrue();
-                                MessageType messageType = message.messageType;
-//                                List<String> fieldNames = messageType.getFieldNames();
-                                MessageType header = messageType.getField("header"); // http://docs.ros.org/api/std_msgs/html/msg/Header.html
-                                ArrayType data = messageType.<ArrayType>getField("data");
-//                                int width = (int) (messageType.<UInt32Type>getField("width").getValue()).intValue();
-//                                int height = (int) (messageType.<UInt32Type>getField("height").getValue()).intValue();
-                                Timestamp timestamp = header.<TimeType>getField("stamp").getValue();
-                                int ts = getTimestampUsRelative(timestamp, true); // don't update largest timestamp with frame time
-                                gotEventsOrFrame = true;
-                                byte[] bytes = data.getAsBytes();
-                                final int sizey1 = chip.getSizeY() - 1, sizex = chip.getSizeX();
-                                // construct frames as events, so that reconstuction as raw packet results in frame again. 
-                                // what a hack...
-                                // start of frame
-                                e.setReadoutType(ApsDvsEvent.ReadoutType.SOF);
-                                e.x = (short) 0;
-                                e.y = (short) 0;
-                                e.setTimestamp(ts);
-                                maybePushEvent(e, apsFifo, outItr);
-                                // start of exposure
-                                e.setReadoutType(ApsDvsEvent.ReadoutType.SOE);
-                                e.x = (short) 0;
-                                e.y = (short) 0;
-                                e.setTimestamp(ts);
-                                maybePushEvent(e, apsFifo, outItr);
-                                Point firstPixel = new Point(0, 0), lastPixel = new Point(chip.getSizeX() - 1, chip.getSizeY() - 1);
-                                if (davisCamera != null) {
-                                    firstPixel.setLocation(davisCamera.getApsFirstPixelReadOut());
-                                    lastPixel.setLocation(davisCamera.getApsLastPixelReadOut());
-                                }
-                                int xinc = firstPixel.x < lastPixel.x ? 1 : -1;
-                                int yinc = firstPixel.y < lastPixel.y ? 1 : -1;
-                                // see AEFrameChipRenderer for putting event streams into textures to be drawn,
-                                //    in particular AEFrameChipRenderer.renderApsDvsEvents 
-                                //    and AEFrameChipRenderer.updateFrameBuffer for how cooked event stream is interpreted
-                                // see ChipRendererDisplayMethodRGBA for OpenGL drawing of textures of frames
-                                // see DavisBaseCamera.DavisEventExtractor for extraction of event stream
-                                // See specific chip classes, e.g. Davis346mini for setup of first and last pixel adddresses for readout order of APS images
-                                // The order is important because in AEFrameChipRenderer the frame buffer is cleared at the first
-                                // pixel and copied to output after the last pixel, so the pixels must be written in correct order
-                                // to the packet...
-                                // Also, y is flipped for the rpg-dvs driver which is based on libcaer where the frame starts at
-                                // upper left corner as in most computer vision, 
-                                // unlike jaer that starts like in cartesian coordinates at lower left.
-                                for (int f = 0; f < 2; f++) { // reset/signal pixels samples
-                                    // now we start at 
-                                    for (int y = firstPixel.y; (yinc > 0 ? y <= lastPixel.y : y >= lastPixel.y); y += yinc) {
-                                        for (int x = firstPixel.x; (xinc > 0 ? x <= lastPixel.x : x >= lastPixel.x); x += xinc) {
-                                            // above x and y are in jAER image space
-                                            final int yrpg = sizey1 - y; // flips y to get to rpg from jaer coordinates (jaer uses 0,0 as lower left, rpg-dvs uses 0,0 as upper left)
-                                            final int idx = yrpg * sizex + x;
-                                            e.setReadoutType(f == 0 ? ApsDvsEvent.ReadoutType.ResetRead : ApsDvsEvent.ReadoutType.SignalRead);
-                                            e.x = (short) x;
-                                            e.y = (short) y;
-                                            e.setAdcSample(f == 0 ? 255 : (255 - (0xff & bytes[idx])));
-                                            if (davisCamera == null) {
-                                                e.setTimestamp(ts);
-                                            } else {
-                                                if (davisCamera.lastFrameAddress((short) x, (short) y)) {
-                                                    e.setTimestamp(ts + lastExposureUs); // set timestamp of last event written out to the frame end timestamp, TODO complete hack to have 1 pixel with larger timestamp
-                                                } else {
-                                                    e.setTimestamp(ts);
-                                                }
-                                            }
-                                            maybePushEvent(e, apsFifo, outItr);
-                                            // debug
-//                                            if(x==firstPixel.x && y==firstPixel.y){
-//                                                log.info("pushed first frame pixel event "+e);
-//                                            }else if(x==lastPixel.x && y==lastPixel.y){
-//                                                log.info("pushed last frame pixel event "+e);
-//                                            }
-                                        }
-                                    }
-                                }
-
-                                // end of exposure event
-//                                e = outItr.nextOutput();
-                                e.setReadoutType(ApsDvsEvent.ReadoutType.EOE);
-                                e.x = (short) 0;
-                                e.y = (short) 0;
-                                e.setTimestamp(ts + lastExposureUs); // TODO should really be end of exposure timestamp, have to get that from last exposure message
-                                maybePushEvent(e, apsFifo, outItr);
-                                // end of frame event
-//                                e = outItr.nextOutput();
-                                e.setReadoutType(ApsDvsEvent.ReadoutType.EOF);
-                                e.x = (short) 0;
-                                e.y = (short) 0;
-                                e.setTimestamp(ts + lastExposureUs);
-                                maybePushEvent(e, apsFifo, outItr);
-
-                            }
-                            break;
-                            case "Imu": { // http://docs.ros.org/api/sensor_msgs/html/index-msg.html
-                                hasImu.setTrue();
-                                MessageType messageType = message.messageType;
-//                                List<String> fieldNames = messageType.getFieldNames();
-//                                for(String s:fieldNames){
-//                                    System.out.println("fieldName: "+s);
-//                                }
-//                                List<String> fieldNames = messageType.getFieldNames();
-                                MessageType header = messageType.getField("header"); // http://docs.ros.org/api/std_msgs/html/msg/Header.html
-                                Timestamp timestamp = header.<TimeType>getField("stamp").getValue();
-                                int ts = getTimestampUsRelative(timestamp, false); // do update largest timestamp with IMU time
-                                MessageType angular_velocity = messageType.getField("angular_velocity");
-//                                List<String> angvelfields=angular_velocity.getFieldNames();
-//                                for(String s:angvelfields){
-//                                    System.out.println("angular_velocity field: "+s);
-//                                }
-                                // units rad/s http://docs.ros.org/api/sensor_msgs/html/msg/Imu.html
-                                float xrot = (float) (angular_velocity.<Float64Type>getField("x").getValue().doubleValue());
-                                float yrot = (float) (angular_velocity.<Float64Type>getField("y").getValue().doubleValue());
-                                float zrot = (float) (angular_velocity.<Float64Type>getField("z").getValue().doubleValue());
-                                MessageType linear_acceleration = messageType.getField("linear_acceleration");
-//                                List<String> linaccfields=linear_acceleration.getFieldNames();
-//                                for(String s:linaccfields){
-//                                    System.out.println("linaccfields field: "+s);
-//                                }
-                                // units m/s^2 http://docs.ros.org/api/sensor_msgs/html/msg/Imu.html
-                                float xacc = (float) (angular_velocity.<Float64Type>getField("x").getValue().doubleValue());
-                                float yacc = (float) (angular_velocity.<Float64Type>getField("y").getValue().doubleValue());
-                                float zacc = (float) (angular_velocity.<Float64Type>getField("z").getValue().doubleValue());
-                                short[] buf = new short[7];
-
-                                buf[IMUSampleType.ax.code] = (short) (G_PER_MPS2 * xacc / IMUSample.getAccelSensitivityScaleFactorGPerLsb()); // TODO set these scales from caer parameter messages in stream
-                                buf[IMUSampleType.ay.code] = (short) (G_PER_MPS2 * yacc / IMUSample.getAccelSensitivityScaleFactorGPerLsb());
-                                buf[IMUSampleType.az.code] = (short) (G_PER_MPS2 * zacc / IMUSample.getAccelSensitivityScaleFactorGPerLsb());
-
-                                buf[IMUSampleType.gx.code] = (short) (DEG_PER_RAD * xrot / IMUSample.getGyroSensitivityScaleFactorDegPerSecPerLsb());
-                                buf[IMUSampleType.gy.code] = (short) (DEG_PER_RAD * yrot / IMUSample.getGyroSensitivityScaleFactorDegPerSecPerLsb());
-                                buf[IMUSampleType.gz.code] = (short) (DEG_PER_RAD * zrot / IMUSample.getGyroSensitivityScaleFactorDegPerSecPerLsb());
-//                                ApsDvsEvent e = null;
-//                                e = outItr.nextOutput();
-                                IMUSample imuSample = new IMUSample(ts, buf);
-                                e.setImuSample(imuSample);
-                                e.setTimestamp(ts);
-                                maybePushEvent(e, imuFifo, outItr);
-                            }
-                            break;
-                        }
-                        break;
-                    case "dvs_msgs":
-                        hasDvs.setTrue();
-                        switch (type) {
-                            case "EventArray":
-                                MessageType messageType = message.messageType;
-                                ArrayType data = messageType.<ArrayType>getField("events");
-                                if (data == null) {
-                                    log.warning("got null data for field events in message " + message);
-                                    continue;
-                                }
-                                List<Field> eventFields = data.getFields();
-                                gotEventsOrFrame = true;
-
-                                int sizeY = chip.getSizeY();
-                                int eventIdxThisPacket = 0;
-                                //            int nEvents = eventFields.size();
-                                for (Field eventField : eventFields) {
-                                    MessageType eventMsg = (MessageType) eventField;
-                                    // https://github.com/uzh-rpg/rpg_dvs_ros/tree/master/dvs_msgs/msg]
-                                    int x = eventMsg.<UInt16Type>getField("x").getValue();
-                                    int y = eventMsg.<UInt16Type>getField("y").getValue();
-                                    boolean pol = eventMsg.<BoolType>getField("polarity").getValue(); // false==off, true=on
-                                    Timestamp timestamp = (Timestamp) eventMsg.<TimeType>getField("ts").getValue();
-                                    int ts = getTimestampUsRelative(timestamp, true); // sets nonMonotonicTimestampDetected flag, faster than throwing exception, updates largest timestamp
-//                                    ApsDvsEvent e = outItr.nextOutput();
-                                    e.setReadoutType(ApsDvsEvent.ReadoutType.DVS);
-                                    e.timestamp = ts;
-                                    e.x = (short) x;
-                                    e.y = (short) (sizeY - y - 1);
-                                    e.polarity = pol ? PolarityEvent.Polarity.Off : PolarityEvent.Polarity.On;
-                                    e.type = (byte) (pol ? 0 : 1);
-                                    maybePushEvent(e, dvsFifo, outItr);
-                                    eventIdxThisPacket++;
-                                }
-                        }
+                    gotEventsOrFrame = decodeIndexedMsg(msg, davisCamera, e, outItr);
+                } else {
+                    MessageWithIndex message = getNextMsg();
+                    if (message == null) {
                         break;
+                    }
+                    gotEventsOrFrame = decodeMsg(message, davisCamera, e, outItr);
                 }
-
             }
         } catch (UninitializedFieldException ex) {
             Logger.getLogger(ExampleRosBagReader.class.getName()).log(Level.SEVERE, null, ex);
             throw new BagReaderException(ex);
+        } catch (IOException | IndexOutOfBoundsException ex) {
+            if (ex instanceof EOFException) {
+                throw (EOFException) ex;
+            }
+            throw new BagReaderException(ex);
         }
         if (nonMonotonicTimestampExceptionsChecked) {
             // now pop events in time order from the FIFOs to the output packet and then reconstruct the raw packet
@@ -598,6 +490,364 @@ public class RosbagFileInputStream implements AEFileInputStreamInterface, Rosbag
         return aePacketRawCollecting;
     }
 
+    /**
+     * Returns the number of the next message of the standard topics in the
+     * index, first sending the messages of listener topics up to its time to
+     * the listeners.
+     *
+     * @return the message number, or -1 if markOut is reached and repeat is
+     * off
+     */
+    synchronized private int getNextIndexedMsg() throws BagReaderException, EOFException {
+        if (nextMessageNumber == markOut) { // TODO check exceptions here for markOut set before markIn
+            getSupport().firePropertyChange(AEInputStream.EVENT_EOF, null, position());
+            if (isRepeat()) {
+                try {
+                    rewind();
+                } catch (IOException ex) {
+                    Logger.getLogger(RosbagFileInputStream.class.getName()).log(Level.SEVERE, null, ex);
+                    throw new BagReaderException("on reaching markOut, got " + ex);
+                }
+                return getNextIndexedMsg();
+            } else {
+                return -1;
+            }
+        }
+        if (nextMessageNumber >= numMessages) {
+            throw new EOFException();
+        }
+        sendListenerMsgs(index.getTimeNs(nextMessageNumber));
+        return nextMessageNumber++;
+    }
+
+    /**
+     * Sends the messages of the listener topics up to the time to their
+     * listeners. These messages are read with the generic bag reader.
+     */
+    private void sendListenerMsgs(long tNs) throws BagReaderException {
+        while (nextListenerMessageNumber < listenerMsgIndexes.size()) {
+            BagFile.MessageIndex mi = listenerMsgIndexes.get(nextListenerMessageNumber);
+            if (timeNs(mi.timestamp) > tNs) {
+                return;
+            }
+            MessageType msg = getBagFile().getMessageFromIndex(listenerMsgIndexes, nextListenerMessageNumber);
+            nextListenerMessageNumber++;
+            sendToListeners(new MessageWithIndex(msg, mi));
+        }
+    }
+
+    /** Moves the listener topics to the current position in the standard topics */
+    private void syncListenerMsgs() {
+        if (index == null || listenerMsgIndexes.isEmpty()) {
+            return;
+        }
+        long tNs = nextMessageNumber < numMessages ? index.getTimeNs(nextMessageNumber) : Long.MAX_VALUE;
+        int lo = 0, hi = listenerMsgIndexes.size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (timeNs(listenerMsgIndexes.get(mid).timestamp) < tNs) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        nextListenerMessageNumber = lo;
+    }
+
+    private static long timeNs(Timestamp t) {
+        return 1000000000L * Math.floorDiv(t.getTime(), 1000) + t.getNanos();
+    }
+
+    private void sendToListeners(MessageWithIndex message) {
+        Set<PropertyChangeListener> listeners = msgListeners.get(message.messageIndex.topic);
+        if (!listeners.isEmpty()) {
+            for (PropertyChangeListener l : listeners) {
+                l.propertyChange(new PropertyChangeEvent(this, message.messageIndex.topic, null, message));
+            }
+        }
+    }
+
+    private BagFile getBagFile() throws BagReaderException {
+        if (bagFile == null) {
+            bagFile = BagReader.readFile(file);
+        }
+        return bagFile;
+    }
+
+    /**
+     * Decodes an indexed message straight from the serialized bytes in the
+     * mapped chunk. ROS serialization is little endian; a Header is uint32 seq,
+     * time stamp and string frame_id.
+     *
+     * @return true if it was DVS events or an APS frame
+     */
+    private boolean decodeIndexedMsg(int msg, DavisBaseCamera davisCamera, ApsDvsEvent e, OutputEventIterator<ApsDvsEvent> outItr) throws IOException {
+        String topic = index.getTopic(msg);
+        if (!topicList.contains(topic)) {
+            return false; // topic of the other kind of bag
+        }
+        String type = index.getType(msg);
+        ByteBuffer b = chunkReader.getMessageData(msg);
+        switch (type) {
+            case "std_msgs/Int32": // exposure
+                lastExposureUs = b.getInt();
+                return false;
+            case "std_msgs/Float32":
+                lastExposureUs = (int) b.getFloat(); // hack to deal with recordings made with pre-Int32 version of rpg-ros-dvs
+                return false;
+            case "sensor_msgs/Image": { // http://docs.ros.org/api/sensor_msgs/html/msg/Image.html
+                hasAps.setTrue();
+                int ts = getTimestampUsRelative(readHeaderStampUs(b), true);
+                b.getInt(); // height
+                b.getInt(); // width
+                skipString(b); // encoding
+                b.get(); // is_bigendian
+                b.getInt(); // step
+                byte[] bytes = new byte[b.getInt()];
+                b.get(bytes);
+                pushFrame(ts, bytes, davisCamera, e, outItr);
+                return true;
+            }
+            case "sensor_msgs/Imu": { // http://docs.ros.org/api/sensor_msgs/html/msg/Imu.html
+                hasImu.setTrue();
+                int ts = getTimestampUsRelative(readHeaderStampUs(b), false);
+                b.position(b.position() + 8 * (4 + 9)); // orientation and its covariance
+                float xrot = (float) b.getDouble(), yrot = (float) b.getDouble(), zrot = (float) b.getDouble();
+                b.position(b.position() + 8 * 9);
+                float xacc = (float) b.getDouble(), yacc = (float) b.getDouble(), zacc = (float) b.getDouble();
+                pushImu(ts, xrot, yrot, zrot, xacc, yacc, zacc, e, outItr);
+                return false;
+            }
+            case "dvs_msgs/EventArray": { // https://github.com/uzh-rpg/rpg_dvs_ros/tree/master/dvs_msgs/msg
+                hasDvs.setTrue();
+                readHeaderStampUs(b);
+                b.getInt(); // height
+                b.getInt(); // width
+                int n = b.getInt();
+                final int sizeY = chip.getSizeY();
+                for (int i = 0; i < n; i++) { // each event is uint16 x, uint16 y, time ts, bool polarity
+                    int x = b.getShort() & 0xffff, y = b.getShort() & 0xffff;
+                    long sec = b.getInt() & 0xffffffffL, nsec = b.getInt() & 0xffffffffL;
+                    boolean pol = b.get() != 0;
+                    pushDvsEvent(x, sizeY - y - 1, pol, getTimestampUsRelative(1000000 * sec + nsec / 1000, true), e, outItr);
+                }
+                return true;
+            }
+            default:
+                return false;
+        }
+    }
+
+    /** Reads a std_msgs/Header and returns its stamp in us since 1970 */
+    private static long readHeaderStampUs(ByteBuffer b) {
+        b.getInt(); // seq
+        long sec = b.getInt() & 0xffffffffL, nsec = b.getInt() & 0xffffffffL;
+        skipString(b); // frame_id
+        return 1000000 * sec + nsec / 1000;
+    }
+
+    private static void skipString(ByteBuffer b) {
+        int len = b.getInt();
+        b.position(b.position() + len);
+    }
+
+    /**
+     * Decodes a message read by the generic bag reader.
+     *
+     * @return true if it was DVS events or an APS frame
+     */
+    private boolean decodeMsg(MessageWithIndex message, DavisBaseCamera davisCamera, ApsDvsEvent e, OutputEventIterator<ApsDvsEvent> outItr) throws UninitializedFieldException {
+        // send to listeners if topic is one we have subscribers for
+        String topic = message.messageIndex.topic;
+        sendToListeners(message);
+
+        // now deal with standard DAVIS data
+        String pkg = message.messageType.getPackage();
+        String type = message.messageType.getType();
+        switch (pkg) {
+            case "std_msgs": { // exposure
+                MessageType messageType = message.messageType;
+                try {
+                    int exposureUs = messageType.<Int32Type>getField("data").getValue(); // message seems to be exposure in ms as float although https://github.com/uzh-rpg/rpg_dvs_ros/blob/master/davis_ros_driver/src/driver.cpp publishes as Int32, very confusing
+                    lastExposureUs = (int) (exposureUs);
+                } catch (Exception ex) {
+                    float exposureUs = messageType.<Float32Type>getField("data").getValue(); // message seems to be exposure in ms as float although https://github.com/uzh-rpg/rpg_dvs_ros/blob/master/davis_ros_driver/src/driver.cpp publishes as Int32, very confusing
+                    lastExposureUs = (int) (exposureUs); // hack to deal with recordings made with pre-Int32 version of rpg-ros-dvs
+                }
+            }
+            break;
+            case "sensor_msgs":
+                switch (type) {
+                    case "Image": { // http://docs.ros.org/api/sensor_msgs/html/index-msg.html
+                        // Make sure the image is from APS, otherwise some other image topic will be also processed here.
+                        if (!(topic.equalsIgnoreCase("/davis/left/image_raw") || topic.equalsIgnoreCase("/dvs/image_raw"))) {
+                            return false;
+                        }
+                        hasAps.setTrue();
+                        MessageType messageType = message.messageType;
+                        MessageType header = messageType.getField("header"); // http://docs.ros.org/api/std_msgs/html/msg/Header.html
+                        ArrayType data = messageType.<ArrayType>getField("data");
+                        Timestamp timestamp = header.<TimeType>getField("stamp").getValue();
+                        int ts = getTimestampUsRelative(timestamp, true); // don't update largest timestamp with frame time
+                        pushFrame(ts, data.getAsBytes(), davisCamera, e, outItr);
+                        return true;
+                    }
+                    case "Imu": { // http://docs.ros.org/api/sensor_msgs/html/index-msg.html
+                        hasImu.setTrue();
+                        MessageType messageType = message.messageType;
+                        MessageType header = messageType.getField("header"); // http://docs.ros.org/api/std_msgs/html/msg/Header.html
+                        Timestamp timestamp = header.<TimeType>getField("stamp").getValue();
+                        int ts = getTimestampUsRelative(timestamp, false); // do update largest timestamp with IMU time
+                        // units rad/s http://docs.ros.org/api/sensor_msgs/html/msg/Imu.html
+                        MessageType angular_velocity = messageType.getField("angular_velocity");
+                        float xrot = (float) (angular_velocity.<Float64Type>getField("x").getValue().doubleValue());
+                        float yrot = (float) (angular_velocity.<Float64Type>getField("y").getValue().doubleValue());
+                        float zrot = (float) (angular_velocity.<Float64Type>getField("z").getValue().doubleValue());
+                        // units m/s^2 http://docs.ros.org/api/sensor_msgs/html/msg/Imu.html
+                        MessageType linear_acceleration = messageType.getField("linear_acceleration");
+                        float xacc = (float) (linear_acceleration.<Float64Type>getField("x").getValue().doubleValue());
+                        float yacc = (float) (linear_acceleration.<Float64Type>getField("y").getValue().doubleValue());
+                        float zacc = (float) (linear_acceleration.<Float64Type>getField("z").getValue().doubleValue());
+                        pushImu(ts, xrot, yrot, zrot, xacc, yacc, zacc, e, outItr);
+                    }
+                    break;
+                }
+                break;
+            case "dvs_msgs":
+                hasDvs.setTrue();
+                switch (type) {
+                    case "EventArray":
+                        MessageType messageType = message.messageType;
+                        ArrayType data = messageType.<ArrayType>getField("events");
+                        if (data == null) {
+                            log.warning("got null data for field events in message " + message);
+                            return false;
+                        }
+                        List<Field> eventFields = data.getFields();
+                        int sizeY = chip.getSizeY();
+                        for (Field eventField : eventFields) {
+                            MessageType eventMsg = (MessageType) eventField;
+                            // https://github.com/uzh-rpg/rpg_dvs_ros/tree/master/dvs_msgs/msg]
+                            int x = eventMsg.<UInt16Type>getField("x").getValue();
+                            int y = eventMsg.<UInt16Type>getField("y").getValue();
+                            boolean pol = eventMsg.<BoolType>getField("polarity").getValue(); // false==off, true=on
+                            Timestamp timestamp = (Timestamp) eventMsg.<TimeType>getField("ts").getValue();
+                            int ts = getTimestampUsRelative(timestamp, true); // sets nonMonotonicTimestampDetected flag, faster than throwing exception, updates largest timestamp
+                            pushDvsEvent(x, sizeY - y - 1, pol, ts, e, outItr);
+                        }
+                        return true;
+                }
+                break;
+        }
+        return false;
+    }
+
+    private void pushDvsEvent(int x, int y, boolean pol, int ts, ApsDvsEvent e, OutputEventIterator<ApsDvsEvent> outItr) {
+        e.setReadoutType(ApsDvsEvent.ReadoutType.DVS);
+        e.timestamp = ts;
+        e.x = (short) x;
+        e.y = (short) y;
+        e.polarity = pol ? PolarityEvent.Polarity.Off : PolarityEvent.Polarity.On;
+        e.type = (byte) (pol ? 0 : 1);
+        maybePushEvent(e, dvsFifo, outItr);
+    }
+
+    private void pushImu(int ts, float xrot, float yrot, float zrot, float xacc, float yacc, float zacc, ApsDvsEvent e, OutputEventIterator<ApsDvsEvent> outItr) {
+        short[] buf = new short[7];
+
+        buf[IMUSampleType.ax.code] = (short) (G_PER_MPS2 * xacc / IMUSample.getAccelSensitivityScaleFactorGPerLsb()); // TODO set these scales from caer parameter messages in stream
+        buf[IMUSampleType.ay.code] = (short) (G_PER_MPS2 * yacc / IMUSample.getAccelSensitivityScaleFactorGPerLsb());
+        buf[IMUSampleType.az.code] = (short) (G_PER_MPS2 * zacc / IMUSample.getAccelSensitivityScaleFactorGPerLsb());
+
+        buf[IMUSampleType.gx.code] = (short) (DEG_PER_RAD * xrot / IMUSample.getGyroSensitivityScaleFactorDegPerSecPerLsb());
+        buf[IMUSampleType.gy.code] = (short) (DEG_PER_RAD * yrot / IMUSample.getGyroSensitivityScaleFactorDegPerSecPerLsb());
+        buf[IMUSampleType.gz.code] = (short) (DEG_PER_RAD * zrot / IMUSample.getGyroSensitivityScaleFactorDegPerSecPerLsb());
+        IMUSample imuSample = new IMUSample(ts, buf);
+        e.setImuSample(imuSample);
+        e.setTimestamp(ts);
+        maybePushEvent(e, imuFifo, outItr);
+    }
+
+    /**
+     * Pushes an APS frame as events, so that reconstruction as raw packet
+     * results in frame again.
+     *
+     * @param bytes the mono8 image, starting at upper left corner
+     */
+    private void pushFrame(int ts, byte[] bytes, DavisBaseCamera davisCamera, ApsDvsEvent e, OutputEventIterator<ApsDvsEvent> outItr) {
+        final int sizey1 = chip.getSizeY() - 1, sizex = chip.getSizeX();
+        // construct frames as events, so that reconstuction as raw packet results in frame again. 
+        // what a hack...
+        // start of frame
+        e.setReadoutType(ApsDvsEvent.ReadoutType.SOF);
+        e.x = (short) 0;
+        e.y = (short) 0;
+        e.setTimestamp(ts);
+        maybePushEvent(e, apsFifo, outItr);
+        // start of exposure
+        e.setReadoutType(ApsDvsEvent.ReadoutType.SOE);
+        e.x = (short) 0;
+        e.y = (short) 0;
+        e.setTimestamp(ts);
+        maybePushEvent(e, apsFifo, outItr);
+        Point firstPixel = new Point(0, 0), lastPixel = new Point(chip.getSizeX() - 1, chip.getSizeY() - 1);
+        if (davisCamera != null) {
+            firstPixel.setLocation(davisCamera.getApsFirstPixelReadOut());
+            lastPixel.setLocation(davisCamera.getApsLastPixelReadOut());
+        }
+        int xinc = firstPixel.x < lastPixel.x ? 1 : -1;
+        int yinc = firstPixel.y < lastPixel.y ? 1 : -1;
+        // see AEFrameChipRenderer for putting event streams into textures to be drawn,
+        //    in particular AEFrameChipRenderer.renderApsDvsEvents 
+        //    and AEFrameChipRenderer.updateFrameBuffer for how cooked event stream is interpreted
+        // see ChipRendererDisplayMethodRGBA for OpenGL drawing of textures of frames
+        // see DavisBaseCamera.DavisEventExtractor for extraction of event stream
+        // See specific chip classes, e.g. Davis346mini for setup of first and last pixel adddresses for readout order of APS images
+        // The order is important because in AEFrameChipRenderer the frame buffer is cleared at the first
+        // pixel and copied to output after the last pixel, so the pixels must be written in correct order
+        // to the packet...
+        // Also, y is flipped for the rpg-dvs driver which is based on libcaer where the frame starts at
+        // upper left corner as in most computer vision, 
+        // unlike jaer that starts like in cartesian coordinates at lower left.
+        for (int f = 0; f < 2; f++) { // reset/signal pixels samples
+            // now we start at 
+            for (int y = firstPixel.y; (yinc > 0 ? y <= lastPixel.y : y >= lastPixel.y); y += yinc) {
+                for (int x = firstPixel.x; (xinc > 0 ? x <= lastPixel.x : x >= lastPixel.x); x += xinc) {
+                    // above x and y are in jAER image space
+                    final int yrpg = sizey1 - y; // flips y to get to rpg from jaer coordinates (jaer uses 0,0 as lower left, rpg-dvs uses 0,0 as upper left)
+                    final int idx = yrpg * sizex + x;
+                    e.setReadoutType(f == 0 ? ApsDvsEvent.ReadoutType.ResetRead : ApsDvsEvent.ReadoutType.SignalRead);
+                    e.x = (short) x;
+                    e.y = (short) y;
+                    e.setAdcSample(f == 0 ? 255 : (255 - (0xff & bytes[idx])));
+                    if (davisCamera == null) {
+                        e.setTimestamp(ts);
+                    } else {
+                        if (davisCamera.lastFrameAddress((short) x, (short) y)) {
+                            e.setTimestamp(ts + lastExposureUs); // set timestamp of last event written out to the frame end timestamp, TODO complete hack to have 1 pixel with larger timestamp
+                        } else {
+                            e.setTimestamp(ts);
+                        }
+                    }
+                    maybePushEvent(e, apsFifo, outItr);
+                }
+            }
+        }
+
+        // end of exposure event
+        e.setReadoutType(ApsDvsEvent.ReadoutType.EOE);
+        e.x = (short) 0;
+        e.y = (short) 0;
+        e.setTimestamp(ts + lastExposureUs); // TODO should really be end of exposure timestamp, have to get that from last exposure message
+        maybePushEvent(e, apsFifo, outItr);
+        // end of frame event
+        e.setReadoutType(ApsDvsEvent.ReadoutType.EOF);
+        e.x = (short) 0;
+        e.y = (short) 0;
+        e.setTimestamp(ts + lastExposureUs);
+        maybePushEvent(e, apsFifo, outItr);
+    }
+
     /**
      * Either pushes event to fifo or just directly writes it to output packet,
      * depending on flag nonMonotonicTimestampExceptionsChecked.
@@ -779,6 +1029,9 @@ public class RosbagFileInputStream implements AEFileInputStreamInterface, Rosbag
      */
     @Override
     public long getAbsoluteStartingTimeMs() {
+        if (index != null) {
+            return index.getTimeNs(0) / 1000000;
+        }
         return bagFile.getStartTime().getTime();
     }
 
@@ -789,6 +1042,9 @@ public class RosbagFileInputStream implements AEFileInputStreamInterface, Rosbag
 
     @Override
     public int getDurationUs() {
+        if (index != null) {
+            return (int) ((index.getTimeNs(index.size() - 1) - index.getTimeNs(0)) / 1000);
+        }
         return (int) (bagFile.getDurationS() * 1e6);
     }
 
@@ -822,6 +1078,7 @@ public class RosbagFileInputStream implements AEFileInputStreamInterface, Rosbag
         nextMessageNumber = (int) (isMarkInSet() ? getMarkInPosition() : 0);
         currentStartTimestamp = (int) firstTimestamp;
         clearAccumulatedEvents();
+        syncListenerMsgs();
         rewindFlag = true;
     }
 
@@ -844,6 +1101,7 @@ public class RosbagFileInputStream implements AEFileInputStreamInterface, Rosbag
     synchronized public void setFractionalPosition(float frac) {
         nextMessageNumber = (int) (frac * numMessages); // must also clear partially accumulated events in collecting packet and reset the timestamp
         clearAccumulatedEvents();
+        syncListenerMsgs();
         try {
             aePacketRawBuffered.append(getNextRawPacket()); // reaching EOF here will throw EOFException
         } catch (EOFException ex) {
@@ -960,6 +1218,10 @@ public class RosbagFileInputStream implements AEFileInputStreamInterface, Rosbag
                 // ignore this error
             }
         }
+        if (chunkReader != null) {
+            chunkReader.close();
+            chunkReader = null;
+        }
         bagFile = null;
         file = null;
         System.gc();
@@ -973,8 +1235,13 @@ public class RosbagFileInputStream implements AEFileInputStreamInterface, Rosbag
     @Override
     synchronized public void setCurrentStartTimestamp(int currentStartTimestamp) {
         this.currentStartTimestamp = currentStartTimestamp;
-        nextMessageNumber = (int) (numMessages * (float) currentStartTimestamp / getDurationUs());
+        if (index != null) {
+            nextMessageNumber = index.findMessage(index.getTimeNs(0) + 1000L * currentStartTimestamp);
+        } else {
+            nextMessageNumber = (int) (numMessages * (float) currentStartTimestamp / getDurationUs());
+        }
         aePacketRawBuffered.clear();
+        syncListenerMsgs();
     }
 
     @Override
@@ -1036,11 +1303,17 @@ public class RosbagFileInputStream implements AEFileInputStreamInterface, Rosbag
         }
 
         addPropertyChangeListener(listener);
-        List<BagFile.MessageIndex> idx = bagFile.generateIndexesForTopicList(topicsToAdd, progressMonitor);
-        msgIndexes.addAll(idx);
+        List<BagFile.MessageIndex> idx = getBagFile().generateIndexesForTopicList(topicsToAdd, progressMonitor);
         for (String topic : topics) {
             msgListeners.put(topic, listener);
         }
+        if (index != null) { // listener topics are merged by time with the indexed standard topics
+            listenerMsgIndexes.addAll(idx);
+            Collections.sort(listenerMsgIndexes);
+            syncListenerMsgs();
+            return;
+        }
+        msgIndexes.addAll(idx);
         Collections.sort(msgIndexes);
     }
 
@@ -0,0 +1,421 @@
+/*
+ * RosbagIndex.java
+ *
+ * Copyright (C) 2026 jAER project.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ */
+package net.sf.jaer.eventio.ros;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.logging.Logger;
+import javax.swing.ProgressMonitor;
+
+/**
+ * Compact time-sorted index of the messages of some topics of a ROS bag
+ * (format 2.0). The index is built from the connection, chunk info and index
+ * data records of the bag, so no message is read or decompressed, and it is
+ * cached on disk in the temporary directory for the next time the bag is
+ * opened. Each message is located by its chunk and its offset in the chunk.
+ * <p>
+ * Only bags with uncompressed chunks can be indexed; for bz2 or lz4 chunks an
+ * IOException is thrown.
+ *
+ * @see <a href="http://wiki.ros.org/Bags/Format/2.0">ROS bag format 2.0</a>
+ * @author agent
+ */
+public class RosbagIndex {
+
+    private static final Logger log = Logger.getLogger("RosbagIndex");
+    static final String MAGIC = "#ROSBAG V2.0\n";
+    private static final int CACHE_MAGIC = 0x52424958, CACHE_VERSION = 1;
+    private static final byte OP_BAG_HEADER = 3, OP_INDEX_DATA = 4, OP_CHUNK = 5, OP_CHUNK_INFO = 6, OP_CONNECTION = 7;
+
+    /** Topics and their message types, e.g. dvs_msgs/EventArray */
+    final String[] topics, types;
+    /** Message times in ns since 1970, sorted */
+    final long[] timeNs;
+    /** Topic, chunk and offset of the message record in the uncompressed chunk data */
+    final byte[] topicIdx;
+    final int[] chunkIdx, offset;
+    /** File position and length of the data of each chunk */
+    final long[] chunkDataPos;
+    final int[] chunkDataLen;
+
+    private RosbagIndex(String[] topics, String[] types, long[] timeNs, byte[] topicIdx, int[] chunkIdx, int[] offset, long[] chunkDataPos, int[] chunkDataLen) {
+        this.topics = topics;
+        this.types = types;
+        this.timeNs = timeNs;
+        this.topicIdx = topicIdx;
+        this.chunkIdx = chunkIdx;
+        this.offset = offset;
+        this.chunkDataPos = chunkDataPos;
+        this.chunkDataLen = chunkDataLen;
+    }
+
+    /** @return number of indexed messages */
+    public int size() {
+        return timeNs.length;
+    }
+
+    /** @return number of chunks in the bag */
+    public int getNumChunks() {
+        return chunkDataPos.length;
+    }
+
+    /** @return the topic of message i */
+    public String getTopic(int i) {
+        return topics[topicIdx[i]];
+    }
+
+    /** @return the message type of message i, e.g. sensor_msgs/Imu, or null if no connection of the topic was found */
+    public String getType(int i) {
+        return types[topicIdx[i]];
+    }
+
+    /** @return time of message i in ns since 1970 */
+    public long getTimeNs(int i) {
+        return timeNs[i];
+    }
+
+    /** @return the index of the first message at or after the time, or size() if there is none */
+    public int findMessage(long tNs) {
+        int i = Arrays.binarySearch(timeNs, tNs);
+        if (i < 0) {
+            return -i - 1;
+        }
+        while (i > 0 && timeNs[i - 1] == tNs) {
+            i--;
+        }
+        return i;
+    }
+
+    /**
+     * Loads the cached index of the bag for the topics, or builds it and caches
+     * it.
+     *
+     * @param bag the file
+     * @param wantedTopics the topics to index
+     * @param progressMonitor optional, to show progress and cancel
+     * @return the index
+     * @throws IOException if the bag cannot be read or has compressed chunks
+     * @throws InterruptedException if canceled
+     */
+    public static RosbagIndex load(File bag, List<String> wantedTopics, ProgressMonitor progressMonitor) throws IOException, InterruptedException {
+        File cache = new File(System.getProperty("java.io.tmpdir"), bag.getName() + ".rosbagidx2");
+        RosbagIndex idx = readCache(cache, bag, wantedTopics);
+        if (idx != null) {
+            log.info("read cached index of " + idx.size() + " messages for " + bag + " from " + cache);
+            return idx;
+        }
+        long startTime = System.currentTimeMillis();
+        idx = build(bag, wantedTopics, progressMonitor);
+        log.info("indexed " + idx.size() + " messages in " + idx.getNumChunks() + " chunks of " + bag + " in " + (System.currentTimeMillis() - startTime) + "ms");
+        try {
+            idx.writeCache(cache, bag, wantedTopics);
+        } catch (IOException e) {
+            log.warning("could not cache the index in " + cache + ": " + e);
+        }
+        return idx;
+    }
+
+    /** A record header with the position and length of its data */
+    private static class Record {
+
+        HashMap<String, byte[]> fields = new HashMap();
+        long dataPos;
+        int dataLen;
+
+        byte op() {
+            byte[] b = fields.get("op");
+            return b == null ? -1 : b[0];
+        }
+
+        int getInt(String name) throws IOException {
+            return le(field(name)).getInt();
+        }
+
+        long getLong(String name) throws IOException {
+            return le(field(name)).getLong();
+        }
+
+        String getString(String name) throws IOException {
+            return new String(field(name), StandardCharsets.UTF_8);
+        }
+
+        private byte[] field(String name) throws IOException {
+            byte[] b = fields.get(name);
+            if (b == null) {
+                throw new IOException("record has no field " + name);
+            }
+            return b;
+        }
+
+        long end() {
+            return dataPos + dataLen;
+        }
+    }
+
+    private static ByteBuffer le(byte[] b) {
+        return ByteBuffer.wrap(b).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static ByteBuffer read(FileChannel ch, long pos, int len) throws IOException {
+        ByteBuffer b = ByteBuffer.allocate(len).order(ByteOrder.LITTLE_ENDIAN);
+        while (b.hasRemaining()) {
+            if (ch.read(b, pos + b.position()) < 0) {
+                throw new EOFException("bag ends at " + (pos + b.position()));
+            }
+        }
+        b.flip();
+        return b;
+    }
+
+    /** Parses name=value fields as they are used in record headers and connection data */
+    private static void parseFields(ByteBuffer b, HashMap<String, byte[]> fields) {
+        while (b.remaining() >= 4) {
+            int len = b.getInt();
+            byte[] f = new byte[len];
+            b.get(f);
+            int eq = 0;
+            while (eq < len && f[eq] != '=') {
+                eq++;
+            }
+            fields.put(new String(f, 0, eq, StandardCharsets.US_ASCII), Arrays.copyOfRange(f, Math.min(eq + 1, len), len));
+        }
+    }
+
+    private static Record readRecord(FileChannel ch, long pos) throws IOException {
+        Record r = new Record();
+        int headerLen = read(ch, pos, 4).getInt();
+        parseFields(read(ch, pos + 4, headerLen), r.fields);
+        r.dataLen = read(ch, pos + 4 + headerLen, 4).getInt();
+        r.dataPos = pos + 8 + headerLen;
+        return r;
+    }
+
+    private static RosbagIndex build(File bag, List<String> wantedTopics, ProgressMonitor progressMonitor) throws IOException, InterruptedException {
+        try (FileChannel ch = FileChannel.open(bag.toPath(), StandardOpenOption.READ)) {
+            byte[] magic = new byte[MAGIC.length()];
+            read(ch, 0, magic.length).get(magic);
+            if (!MAGIC.equals(new String(magic, StandardCharsets.US_ASCII))) {
+                throw new IOException(bag + " is not a ROS bag version 2.0");
+            }
+            Record header = readRecord(ch, magic.length);
+            if (header.op() != OP_BAG_HEADER) {
+                throw new IOException("no bag header record in " + bag);
+            }
+            long indexPos = header.getLong("index_pos");
+            int connCount = header.getInt("conn_count"), chunkCount = header.getInt("chunk_count");
+            if (indexPos == 0) {
+                throw new IOException(bag + " is not indexed, run rosbag reindex on it");
+            }
+            // connections, mapped to the wanted topics
+            String[] topics = wantedTopics.toArray(new String[wantedTopics.size()]);
+            String[] types = new String[topics.length];
+            HashMap<Integer, Integer> connToTopic = new HashMap();
+            long pos = indexPos;
+            for (int i = 0; i < connCount; i++) {
+                Record r = readRecord(ch, pos);
+                if (r.op() != OP_CONNECTION) {
+                    throw new IOException("expected connection record at " + pos + " but found op=" + r.op());
+                }
+                int t = wantedTopics.indexOf(r.getString("topic"));
+                if (t >= 0) {
+                    connToTopic.put(r.getInt("conn"), t);
+                    HashMap<String, byte[]> data = new HashMap();
+                    parseFields(read(ch, r.dataPos, r.dataLen), data);
+                    if (data.containsKey("type")) {
+                        types[t] = new String(data.get("type"), StandardCharsets.US_ASCII);
+                    }
+                }
+                pos = r.end();
+            }
+            // chunk infos, then for each chunk the index data records that follow it
+            long[] chunkDataPos = new long[chunkCount];
+            int[] chunkDataLen = new int[chunkCount];
+            int n = 0, capacity = 1 << 16;
+            long[] timeNs = new long[capacity];
+            byte[] topicIdx = new byte[capacity];
+            int[] chunkIdx = new int[capacity], offset = new int[capacity];
+            if (progressMonitor != null) {
+                progressMonitor.setMaximum(chunkCount);
+            }
+            for (int c = 0; c < chunkCount; c++) {
+                if (progressMonitor != null) {
+                    if (progressMonitor.isCanceled()) {
+                        throw new InterruptedException("canceled indexing " + bag);
+                    }
+                    progressMonitor.setProgress(c);
+                    progressMonitor.setNote("indexing chunk " + c + "/" + chunkCount);
+                }
+                Record info = readRecord(ch, pos);
+                if (info.op() != OP_CHUNK_INFO) {
+                    throw new IOException("expected chunk info record at " + pos + " but found op=" + info.op());
+                }
+                pos = info.end();
+                int nConnsInChunk = info.getInt("count");
+                Record chunk = readRecord(ch, info.getLong("chunk_pos"));
+                String compression = chunk.getString("compression");
+                if (!compression.equals("none")) {
+                    throw new IOException("chunks compressed with " + compression + " are not supported");
+                }
+                chunkDataPos[c] = chunk.dataPos;
+                chunkDataLen[c] = chunk.dataLen;
+                long ipos = chunk.end();
+                for (int k = 0; k < nConnsInChunk; k++) {
+                    Record ir = readRecord(ch, ipos);
+                    if (ir.op() != OP_INDEX_DATA) {
+                        throw new IOException("expected index data record at " + ipos + " but found op=" + ir.op());
+                    }
+                    ipos = ir.end();
+                    Integer t = connToTopic.get(ir.getInt("conn"));
+                    if (t == null) {
+                        continue;
+                    }
+                    int count = ir.getInt("count");
+                    if (n + count > capacity) {
+                        capacity = Math.max(2 * capacity, n + count);
+                        timeNs = Arrays.copyOf(timeNs, capacity);
+                        topicIdx = Arrays.copyOf(topicIdx, capacity);
+                        chunkIdx = Arrays.copyOf(chunkIdx, capacity);
+                        offset = Arrays.copyOf(offset, capacity);
+                    }
+                    ByteBuffer b = read(ch, ir.dataPos, 12 * count);
+                    for (int m = 0; m < count; m++, n++) {
+                        long sec = b.getInt() & 0xffffffffL, nsec = b.getInt() & 0xffffffffL;
+                        timeNs[n] = sec * 1000000000L + nsec;
+                        offset[n] = b.getInt();
+                        topicIdx[n] = (byte) t.intValue();
+                        chunkIdx[n] = c;
+                    }
+                }
+            }
+            // sort messages by time, keeping the order of messages with the same time
+            int[] perm = new int[n];
+            for (int i = 0; i < n; i++) {
+                perm[i] = i;
+            }
+            mergeSort(perm, new int[n], 0, n, timeNs);
+            long[] sTimeNs = new long[n];
+            byte[] sTopicIdx = new byte[n];
+            int[] sChunkIdx = new int[n], sOffset = new int[n];
+            for (int i = 0; i < n; i++) {
+                int j = perm[i];
+                sTimeNs[i] = timeNs[j];
+                sTopicIdx[i] = topicIdx[j];
+                sChunkIdx[i] = chunkIdx[j];
+                sOffset[i] = offset[j];
+            }
+            return new RosbagIndex(topics, types, sTimeNs, sTopicIdx, sChunkIdx, sOffset, chunkDataPos, chunkDataLen);
+        }
+    }
+
+    /** Stable sort of the permutation by key, sorting [from,to) */
+    private static void mergeSort(int[] a, int[] tmp, int from, int to, long[] key) {
+        if (to - from < 2) {
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        mergeSort(a, tmp, from, mid, key);
+        mergeSort(a, tmp, mid, to, key);
+        if (key[a[mid - 1]] <= key[a[mid]]) {
+            return; // already in order, the usual case since chunks are written in time order
+        }
+        System.arraycopy(a, from, tmp, from, to - from);
+        int i = from, j = mid;
+        for (int k = from; k < to; k++) {
+            if (j >= to || (i < mid && key[tmp[i]] <= key[tmp[j]])) {
+                a[k] = tmp[i++];
+            } else {
+                a[k] = tmp[j++];
+            }
+        }
+    }
+
+    private void writeCache(File cache, File bag, List<String> wantedTopics) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(cache), 1 << 16))) {
+            out.writeInt(CACHE_MAGIC);
+            out.writeInt(CACHE_VERSION);
+            out.writeLong(bag.length());
+            out.writeLong(bag.lastModified());
+            out.writeUTF(String.join(",", wantedTopics));
+            for (String t : types) {
+                out.writeUTF(t == null ? "" : t);
+            }
+            out.writeInt(chunkDataPos.length);
+            for (int c = 0; c < chunkDataPos.length; c++) {
+                out.writeLong(chunkDataPos[c]);
+                out.writeInt(chunkDataLen[c]);
+            }
+            out.writeInt(timeNs.length);
+            for (int i = 0; i < timeNs.length; i++) {
+                out.writeLong(timeNs[i]);
+                out.writeByte(topicIdx[i]);
+                out.writeInt(chunkIdx[i]);
+                out.writeInt(offset[i]);
+            }
+        }
+    }
+
+    /** @return the cached index, or null if there is none that matches the bag and topics */
+    private static RosbagIndex readCache(File cache, File bag, List<String> wantedTopics) {
+        if (!cache.isFile()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(cache), 1 << 16))) {
+            if (in.readInt() != CACHE_MAGIC || in.readInt() != CACHE_VERSION
+                    || in.readLong() != bag.length() || in.readLong() != bag.lastModified()
+                    || !in.readUTF().equals(String.join(",", wantedTopics))) {
+                log.info("cached index " + cache + " does not match " + bag + ", indexing again");
+                return null;
+            }
+            String[] topics = wantedTopics.toArray(new String[wantedTopics.size()]);
+            String[] types = new String[topics.length];
+            for (int t = 0; t < types.length; t++) {
+                String s = in.readUTF();
+                types[t] = s.isEmpty() ? null : s;
+            }
+            int nChunks = in.readInt();
+            long[] chunkDataPos = new long[nChunks];
+            int[] chunkDataLen = new int[nChunks];
+            for (int c = 0; c < nChunks; c++) {
+                chunkDataPos[c] = in.readLong();
+                chunkDataLen[c] = in.readInt();
+            }
+            int n = in.readInt();
+            long[] timeNs = new long[n];
+            byte[] topicIdx = new byte[n];
+            int[] chunkIdx = new int[n], offset = new int[n];
+            for (int i = 0; i < n; i++) {
+                timeNs[i] = in.readLong();
+                topicIdx[i] = in.readByte();
+                chunkIdx[i] = in.readInt();
+                offset[i] = in.readInt();
+            }
+            return new RosbagIndex(topics, types, timeNs, topicIdx, chunkIdx, offset, chunkDataPos, chunkDataLen);
+        } catch (IOException e) {
+            log.warning("could not read cached index " + cache + ": " + e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * BatchMetrics.java
+ *
+ * Copyright (C) 2026 jAER project.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ */
+package net.sf.jaer.eventprocessing;
+
+import java.util.Map;
+
+/**
+ * A filter that counts things while it processes a recording, e.g. the true
+ * and false positives of a noise filter, so that batch runs can report them
+ * per file and summed over all files.
+ *
+ * @author agent
+ * @see BatchPipelineRunner
+ */
+public interface BatchMetrics {
+
+    /**
+     * Returns the counts accumulated since the filter was constructed or last
+     * reset. Counts of several runs of the same filter class are summed key by
+     * key.
+     *
+     * @return the counts by name, in the order they should be reported
+     */
+    Map<String, Long> getBatchCounts();
+
+    /**
+     * Formats counts returned by {@link #getBatchCounts()}, or their sums over
+     * several files, e.g. adding rates derived from them.
+     *
+     * @param counts the counts
+     * @return a one line description
+     */
+    default String formatBatchCounts(Map<String, Long> counts) {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, Long> e : counts.entrySet()) {
+            sb.append(e.getKey()).append('=').append(e.getValue()).append(' ');
+        }
+        return sb.toString().trim();
+    }
+}
@@ -0,0 +1,457 @@
+/*
+ * BatchPipelineRunner.java
+ *
+ * Copyright (C) 2026 jAER project.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ */
+package net.sf.jaer.eventprocessing;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import net.sf.jaer.eventio.AEDataFile;
+import net.sf.jaer.util.PreferencesBackup;
+
+/**
+ * Reprocesses many recordings through the same filter settings as fast as the
+ * machine allows. Each file is run by its own {@link HeadlessPipelineRunner}
+ * with its own AEChip and FilterChain on a thread of a fixed pool; the files
+ * are queued largest first so that one long file does not finish alone at the
+ * end. The filter settings file is imported once before any chip is
+ * constructed, and the preference nodes of the settings file and the chip are
+ * put back once all files are done, so a batch run does not change the stored
+ * settings. Every chip gets a private snapshot of its preferences
+ * (see {@link HeadlessPipelineRunner#setIsolatePreferences(boolean)}), so
+ * filters that write preferences while running do not affect each other, and
+ * the results for a file do not depend on the number
+ * of threads or on which files run next to it.
+ * <p>
+ * Filtered events of each file go to their own output file and report in the
+ * output folder, and a summary with the per-file results, the summed
+ * throughput and the summed counts of filters implementing
+ * {@link BatchMetrics} is printed at the end, e.g.
+ * <pre>
+ * java -Djava.awt.headless=true -cp ... net.sf.jaer.eventprocessing.BatchPipelineRunner \
+ *   -chip eu.seebetter.ini.chips.davis.DAVIS240C -settings filterSettings/denoise.xml \
+ *   -threads 8 -out filtered -report summary.txt recordings/
+ * </pre>
+ *
+ * @author agent
+ */
+public class BatchPipelineRunner {
+
+    static final Logger log = Logger.getLogger("BatchPipelineRunner");
+    /**
+     * Appended to the input file name for the output of each file
+     */
+    public static final String OUTPUT_SUFFIX = "-filtered";
+    /**
+     * Appended to the input file name for the report of each file
+     */
+    public static final String REPORT_SUFFIX = "-report.txt";
+
+    private String chipClassName = null;
+    private File settingsFile = null;
+    private final ArrayList<File> inputFiles = new ArrayList<>();
+    private File outputDir = null;
+    private File reportFile = null;
+    private int numThreads = Runtime.getRuntime().availableProcessors();
+    private int packetSize = 10000;
+    private boolean prefetch = false;
+    private FilterChain.ProcessingMode processingMode = null;
+
+    private final ArrayList<Job> jobs = new ArrayList<>();
+    private long wallNs = 0;
+    private volatile boolean stopRequested = false;
+    private final CountDownLatch finished = new CountDownLatch(1);
+
+    /**
+     * The run of one input file
+     */
+    private static class Job {
+
+        final File inputFile;
+        final HeadlessPipelineRunner runner = new HeadlessPipelineRunner();
+        Throwable failure = null;
+        long startNs, endNs;
+
+        Job(File inputFile) {
+            this.inputFile = inputFile;
+        }
+    }
+
+    /**
+     * Imports the settings, processes all files and prints the summary.
+     *
+     * @throws Exception if the settings cannot be imported or the summary
+     * cannot be written; failures of single files are reported in the summary
+     */
+    public void run() throws Exception {
+        try {
+            if (chipClassName == null) {
+                throw new IllegalArgumentException("no AEChip class given");
+            }
+            if (inputFiles.isEmpty()) {
+                throw new IllegalArgumentException("no input files given");
+            }
+            final PreferencesBackup backup = HeadlessPipelineRunner.backupPreferences(chipClassName, settingsFile);
+            try {
+                if (settingsFile != null) {
+                    HeadlessPipelineRunner.importSettings(settingsFile); // once, before any chip reads its preferences
+                }
+                runJobs();
+            } finally {
+                backup.restore(); // after all chips are constructed
+            }
+        } finally {
+            finished.countDown();
+        }
+        report(System.out);
+        if (reportFile != null) {
+            try (PrintStream ps = new PrintStream(new FileOutputStream(reportFile))) {
+                report(ps);
+            }
+        }
+    }
+
+    private void runJobs() throws InterruptedException {
+        if (outputDir != null && !outputDir.isDirectory() && !outputDir.mkdirs()) {
+            throw new IllegalArgumentException("cannot create output folder " + outputDir);
+        }
+        synchronized (jobs) { // stop() may run on the shutdown hook thread
+            jobs.clear();
+        }
+        HashSet<String> names = new HashSet<>();
+        for (File f : inputFiles) {
+            Job job = new Job(f);
+            HeadlessPipelineRunner r = job.runner;
+            r.setChipClassName(chipClassName);
+            r.setSource(HeadlessPipelineRunner.Source.FILE);
+            r.setInputFile(f);
+            r.setPacketSize(packetSize);
+            r.setPrefetch(prefetch);
+            r.setProcessingMode(processingMode);
+            r.setIsolatePreferences(true);
+            r.setRestorePreferences(false); // restored once by run()
+            r.setPrintReport(false);
+            if (outputDir != null) {
+                String base = baseName(f);
+                for (int i = 2; !names.add(base); i++) {
+                    base = baseName(f) + "-" + i; // same name from another folder
+                }
+                r.setOutputFile(new File(outputDir, base + OUTPUT_SUFFIX + AEDataFile.DATA_FILE_EXTENSION));
+                r.setReportFile(new File(outputDir, base + REPORT_SUFFIX));
+            }
+            synchronized (jobs) {
+                jobs.add(job);
+            }
+        }
+        ArrayList<Job> queue = new ArrayList<>(jobs);
+        queue.sort((a, b) -> Long.compare(b.inputFile.length(), a.inputFile.length())); // largest first
+        final int threads = Math.max(1, Math.min(numThreads, jobs.size()));
+        log.info("processing " + jobs.size() + " files with " + threads + " threads");
+        final AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "BatchPipelineRunner-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        final long startNs = System.nanoTime();
+        try {
+            ArrayList<Future<?>> futures = new ArrayList<>();
+            for (Job job : queue) {
+                futures.add(pool.submit(() -> runJob(job)));
+            }
+            for (Future<?> f : futures) {
+                try {
+                    f.get();
+                } catch (ExecutionException e) {
+                    log.log(Level.WARNING, e.getCause().toString(), e.getCause()); // runJob catches everything, so this is unexpected
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        wallNs = System.nanoTime() - startNs;
+    }
+
+    /**
+     * Asks a running {@link #run()} to stop: files that have not started are
+     * skipped and running ones stop after their current packet.
+     */
+    public void stop() {
+        stopRequested = true;
+        synchronized (jobs) {
+            for (Job job : jobs) {
+                job.runner.stop();
+            }
+        }
+    }
+
+    /**
+     * Waits until {@link #run()} has finished and put back the preferences.
+     *
+     * @param timeoutMs the longest time to wait in ms
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void awaitFinished(long timeoutMs) throws InterruptedException {
+        finished.await(timeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void runJob(Job job) {
+        job.startNs = System.nanoTime();
+        if (stopRequested) {
+            job.failure = new InterruptedException("stopped before start");
+            job.endNs = job.startNs;
+            return;
+        }
+        try {
+            job.runner.run();
+            log.info("finished " + job.inputFile);
+        } catch (Throwable t) {
+            job.failure = t;
+            log.log(Level.WARNING, job.inputFile + ": " + t.toString(), t);
+        }
+        job.endNs = System.nanoTime();
+    }
+
+    private static String baseName(File f) {
+        String n = f.getName();
+        int dot = n.lastIndexOf('.');
+        return dot > 0 ? n.substring(0, dot) : n;
+    }
+
+    /**
+     * Prints the summary of the last run, with the files in the order they
+     * were given.
+     *
+     * @param ps where to print it
+     */
+    public void report(PrintStream ps) {
+        long eventsIn = 0, eventsOut = 0, dataUs = 0, filterNs = 0, busyNs = 0;
+        int failed = 0;
+        LinkedHashMap<String, Map<String, Long>> sums = new LinkedHashMap<>();
+        LinkedHashMap<String, BatchMetrics> formatters = new LinkedHashMap<>();
+        ps.println("BatchPipelineRunner report");
+        ps.println("  chip:     " + chipClassName);
+        ps.println("  settings: " + (settingsFile == null ? "(current preferences)" : settingsFile));
+        ps.println("  files:    " + jobs.size() + ", threads: " + Math.max(1, Math.min(numThreads, jobs.size())));
+        for (Job job : jobs) {
+            HeadlessPipelineRunner r = job.runner;
+            if (job.failure != null) {
+                failed++;
+                ps.println("  " + job.inputFile + ": FAILED " + job.failure);
+                continue;
+            }
+            final double wallS = r.getWallNs() * 1e-9, dataS = r.getDataDurationUs() * 1e-6;
+            ps.println(String.format("  %s: %d / %d events, %.3f s of data in %.3f s (%.1fx real time, %.3f Meps)",
+                    job.inputFile, r.getEventsIn(), r.getEventsOut(), dataS, wallS, wallS > 0 ? dataS / wallS : 0, wallS > 0 ? r.getEventsIn() / wallS * 1e-6 : 0));
+            for (Map.Entry<BatchMetrics, Map<String, Long>> e : r.getBatchMetrics().entrySet()) {
+                final String name = e.getKey().getClass().getSimpleName();
+                ps.println("      " + name + ": " + e.getKey().formatBatchCounts(e.getValue()));
+                formatters.putIfAbsent(name, e.getKey());
+                Map<String, Long> sum = sums.computeIfAbsent(name, k -> new LinkedHashMap<>());
+                for (Map.Entry<String, Long> c : e.getValue().entrySet()) {
+                    sum.merge(c.getKey(), c.getValue(), Long::sum);
+                }
+            }
+            eventsIn += r.getEventsIn();
+            eventsOut += r.getEventsOut();
+            dataUs += r.getDataDurationUs();
+            filterNs += r.getFilterNs();
+            busyNs += job.endNs - job.startNs;
+        }
+        final double wallS = wallNs * 1e-9, dataS = dataUs * 1e-6;
+        final int threads = Math.max(1, Math.min(numThreads, jobs.size()));
+        ps.println("  total");
+        if (failed > 0) {
+            ps.println(String.format("  failed files:    %d", failed));
+        }
+        ps.println(String.format("  events in/out:   %d / %d", eventsIn, eventsOut));
+        ps.println(String.format("  wall time:       %.3f s for %.3f s of data (%.1fx real time)", wallS, dataS, wallS > 0 ? dataS / wallS : 0));
+        ps.println(String.format("  throughput:      %.3f Meps overall, %.3f Meps per thread in filter chains", wallS > 0 ? eventsIn / wallS * 1e-6 : 0, filterNs > 0 ? eventsIn / (filterNs * 1e-9) * 1e-6 : 0));
+        ps.println(String.format("  thread usage:    %.0f%%", wallNs > 0 ? 100.0 * busyNs / ((double) wallNs * threads) : 0));
+        for (Map.Entry<String, Map<String, Long>> e : sums.entrySet()) {
+            ps.println("  " + e.getKey() + ": " + formatters.get(e.getKey()).formatBatchCounts(e.getValue()));
+        }
+    }
+
+    /**
+     * @param chipClassName the fully qualified AEChip class name
+     */
+    public void setChipClassName(String chipClassName) {
+        this.chipClassName = chipClassName;
+    }
+
+    /**
+     * @param settingsFile a filter settings XML file to import once before
+     * processing, or null to use the current preferences
+     */
+    public void setSettingsFile(File settingsFile) {
+        this.settingsFile = settingsFile;
+    }
+
+    /**
+     * Adds an input file, or all AEDAT files in a folder, sorted by name.
+     *
+     * @param f the file or folder
+     */
+    public void addInput(File f) {
+        if (f.isDirectory()) {
+            File[] files = f.listFiles((dir, name) -> name.endsWith(AEDataFile.DATA_FILE_EXTENSION) || name.endsWith(AEDataFile.COMPRESSED_DATA_FILE_EXTENSION));
+            if (files != null) {
+                Arrays.sort(files);
+                inputFiles.addAll(Arrays.asList(files));
+            }
+        } else {
+            inputFiles.add(f);
+        }
+    }
+
+    /**
+     * @return the input files, in the order they are reported
+     */
+    public List<File> getInputFiles() {
+        return inputFiles;
+    }
+
+    /**
+     * @param outputDir folder for the filtered events and report of each file,
+     * or null to not write them
+     */
+    public void setOutputDir(File outputDir) {
+        this.outputDir = outputDir;
+    }
+
+    /**
+     * @param reportFile file for the summary in addition to stdout, or null
+     */
+    public void setReportFile(File reportFile) {
+        this.reportFile = reportFile;
+    }
+
+    /**
+     * @param numThreads the number of files processed at the same time
+     */
+    public void setNumThreads(int numThreads) {
+        this.numThreads = Math.max(1, numThreads);
+    }
+
+    /**
+     * @param packetSize the number of events read per packet
+     */
+    public void setPacketSize(int packetSize) {
+        this.packetSize = packetSize;
+    }
+
+    /**
+     * @param prefetch true to read the files with prefetching
+     */
+    public void setPrefetch(boolean prefetch) {
+        this.prefetch = prefetch;
+    }
+
+    /**
+     * @param processingMode the FilterChain processing mode, or null to keep
+     * the chip's preference
+     */
+    public void setProcessingMode(FilterChain.ProcessingMode processingMode) {
+        this.processingMode = processingMode;
+    }
+
+    /**
+     * @return the wall time of the last run in ns
+     */
+    public long getWallNs() {
+        return wallNs;
+    }
+
+    private static void usage() {
+        System.err.println("usage: BatchPipelineRunner -chip <AEChip class> [-settings <filter settings xml>]\n"
+                + "        [-threads <n>] [-out <folder>] [-report <text file>] [-prefetch] [-packet <events>]\n"
+                + "        [-mode RENDERING|ACQUISITION|PIPELINED] <aedat file or folder>...");
+    }
+
+    /**
+     * Command line entry point, see {@link #usage()}.
+     *
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true"); // before any AWT class is loaded
+        final BatchPipelineRunner runner = new BatchPipelineRunner();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "-chip":
+                        runner.setChipClassName(args[++i]);
+                        break;
+                    case "-settings":
+                        runner.setSettingsFile(new File(args[++i]));
+                        break;
+                    case "-threads":
+                        runner.setNumThreads(Integer.parseInt(args[++i]));
+                        break;
+                    case "-out":
+                        runner.setOutputDir(new File(args[++i]));
+                        break;
+                    case "-report":
+                        runner.setReportFile(new File(args[++i]));
+                        break;
+                    case "-prefetch":
+                        runner.setPrefetch(true);
+                        break;
+                    case "-packet":
+                        runner.setPacketSize(Integer.parseInt(args[++i]));
+                        break;
+                    case "-mode":
+                        runner.setProcessingMode(FilterChain.ProcessingMode.valueOf(args[++i]));
+                        break;
+                    default:
+                        if (args[i].startsWith("-")) {
+                            usage();
+                            System.exit(1);
+                        }
+                        runner.addInput(new File(args[i]));
+                }
+            }
+        } catch (RuntimeException e) {
+            usage();
+            System.exit(1);
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            runner.stop();
+            try {
+                runner.awaitFinished(HeadlessPipelineRunner.SHUTDOWN_WAIT_MS); // so that run() puts back the preferences
+            } catch (InterruptedException e) {
+            }
+        }));
+        try {
+            runner.run();
+        } catch (Exception e) {
+            log.log(Level.SEVERE, e.toString(), e);
+            System.exit(1);
+        }
+        System.exit(0);
+    }
+}
@@ -4,7 +4,6 @@
  */
 package net.sf.jaer.eventprocessing;
 
-import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
@@ -19,6 +18,7 @@ import net.sf.jaer.chip.AEChip;
 import net.sf.jaer.event.EventPacket;
 import net.sf.jaer.eventio.AEDataFile;
 import net.sf.jaer.eventio.AEFileOutputStream;
+import net.sf.jaer.eventio.AsyncFileWriter;
 import net.sf.jaer.util.DATFileFilter;
 
 /**
@@ -30,6 +30,8 @@ public class DataLogger extends EventFilter2D {
 
     private boolean loggingEnabled = false; // controlled by filterEnabled
     private AEFileOutputStream loggingOutputStream;
+    private AsyncFileWriter loggingWriter; // writes the loggingOutputStream in the background
+    private long lastBytesDropped = 0, lastDropWarningTimeMs = 0;
     private String defaultLoggingFolderName = System.getProperty("user.dir");
     // lastLoggingFolder starts off at user.dir which is startup folder "host/java" where .exe launcher lives
     private String loggingFolder = getPrefs().get("DataLogger.loggingFolder", defaultLoggingFolderName);
@@ -75,6 +77,11 @@ public class DataLogger extends EventFilter2D {
             try {
                 loggingOutputStream.writePacket(eventPacket); // log all events
                 bytesWritten += eventPacket.getSize();
+                if (loggingWriter.getBytesDropped() > lastBytesDropped && System.currentTimeMillis() - lastDropWarningTimeMs > 1000) {
+                    lastBytesDropped = loggingWriter.getBytesDropped();
+                    lastDropWarningTimeMs = System.currentTimeMillis();
+                    log.warning("disk cannot keep up with logging to " + loggingFile + ": " + loggingWriter.getStatus());
+                }
                 if (bytesWritten >>> 20 > maxLogFileSizeMB) {
                     setLoggingEnabled(false);
                     if (rotateFilesEnabled) {
@@ -142,7 +149,9 @@ public class DataLogger extends EventFilter2D {
         try {
             loggingFile = new File(filename);
 
-            loggingOutputStream = new AEFileOutputStream(new BufferedOutputStream(new FileOutputStream(loggingFile), 100000));
+            loggingWriter = new AsyncFileWriter(new FileOutputStream(loggingFile));
+            lastBytesDropped = 0;
+            loggingOutputStream = new AEFileOutputStream(loggingWriter);
             loggingEnabled = true;
             getSupport().firePropertyChange("loggingEnabled", null, true);
             log.info("starting logging to " + loggingFile);
@@ -12,14 +12,16 @@
 
 package net.sf.jaer.eventprocessing;
 
-import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.PrintStream;
+import java.nio.charset.Charset;
 import java.util.logging.Logger;
+import net.sf.jaer.eventio.AsyncFileWriter;
 
 /**
- * Eases writing data log files for a filter.
+ * Eases writing data log files for a filter. The file is written by an
+ * AsyncFileWriter, so logging does not stall the filter on disk writes.
  
  * @author tobi
  */
@@ -27,6 +29,8 @@ public class EventFilterDataLogger {
     
     static Logger log=Logger.getLogger("EventFilterDataLogger");
     protected PrintStream logStream;
+    private final Charset charset=Charset.defaultCharset(); // what the PrintStream encodes with
+    private AsyncFileWriter writer;
     boolean logDataEnabled=false;
     EventFilter2D filter;
     String headerLine;
@@ -44,7 +48,10 @@ public class EventFilterDataLogger {
     
     synchronized public void log(String s) {
         if(logStream!=null) {
-            logStream.println(s);
+            // one write to the AsyncFileWriter, so that a line is either written or dropped whole;
+            // print(String) would hand long lines to it in pieces of the encoder buffer size
+            final byte[] line=(s + System.lineSeparator()).getBytes(charset);
+            logStream.write(line,0,line.length);
             if(logStream.checkError()) log.warning("eroror logging data");
         }
     }
@@ -63,7 +70,8 @@ public class EventFilterDataLogger {
             try{
                 file=new File(filter.getClass().getSimpleName()+".txt");
                 FileOutputStream fos=new FileOutputStream(file);
-                logStream=new PrintStream(new BufferedOutputStream(fos));
+                writer=new AsyncFileWriter(fos);
+                logStream=new PrintStream(writer);
                 logStream.println(headerLine);
             }catch(Exception e){
                 e.printStackTrace();
@@ -77,6 +85,11 @@ public class EventFilterDataLogger {
         return file;
     }
     
+    /** Returns the status of the file writer, with the bytes written, queued and dropped, or null if not initialized. */
+    public String getStatus(){
+        return writer==null? null: writer.getStatus();
+    }
+    
     /** Returns the PrintStream, or null if not initialized. */
     public PrintStream getPrintStream(){
         return logStream;
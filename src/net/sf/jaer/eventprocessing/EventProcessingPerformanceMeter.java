@@ -33,6 +33,8 @@ public class EventProcessingPerformanceMeter {
     private EventFilter filter;
     private String filterClassName;
     private EventProcessingPerformanceView view=null;
+    private int queueDepth=-1; // -1 when not running in a FilterChainPipeline stage
+    private long droppedPacketCount=0;
  
     /** Creates a new instance of EventProcessingPerformanceMeter */
     public EventProcessingPerformanceMeter(EventFilter f, EventProcessingPerformanceView view) {
@@ -109,6 +111,9 @@ public class EventProcessingPerformanceMeter {
                 NSPS*stdErrSecPerEvent(),
                 nSamples
                 );
+        if(queueDepth>=0){
+            s=s+String.format("stage queue depth %d packets, %d packets dropped, ", queueDepth, droppedPacketCount);
+        }
         return s;
     }
 
@@ -130,6 +135,40 @@ public class EventProcessingPerformanceMeter {
         this.view = view;
     }
 
+    /**
+     * Returns the number of packets waiting in the input queue of the
+     * FilterChainPipeline stage running this filter.
+     *
+     * @return the queue depth in packets, or -1 if the filter is not run in a
+     * pipeline stage
+     * @see FilterChain.ProcessingMode#PIPELINED
+     */
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    /**
+     * @param queueDepth the stage queue depth in packets
+     */
+    public void setQueueDepth(int queueDepth) {
+        this.queueDepth = queueDepth;
+    }
+
+    /**
+     * @return the number of packets dropped at the entry of the pipeline
+     */
+    public long getDroppedPacketCount() {
+        return droppedPacketCount;
+    }
+
+    /**
+     * @param droppedPacketCount the number of packets dropped at the entry of
+     * the pipeline
+     */
+    public void setDroppedPacketCount(long droppedPacketCount) {
+        this.droppedPacketCount = droppedPacketCount;
+    }
+
     /**
      * @return the filter
      */
@@ -20,6 +20,7 @@ import java.util.prefs.BackingStoreException;
 import java.util.prefs.Preferences;
 
 import net.sf.jaer.chip.AEChip;
+import net.sf.jaer.event.BasicEvent;
 import net.sf.jaer.event.EventPacket;
 import net.sf.jaer.util.ClassChooserDialog;
 
@@ -114,13 +115,27 @@ public class FilterChain extends LinkedList<EventFilter2D> {
      * graphics this processing can cause threading problems, e.g. if the
      * annotation modifies the graphics buffer while the image is being
      * rendered.
+     * <p>
+     * In the PIPELINED mode the packets are handed from the rendering cycle to
+     * a FilterChainPipeline, where each enabled filter (or group of filters)
+     * runs on its own stage thread. This uses one core per stage but delays the
+     * output by the pipeline depth.
+     *
+     * @see FilterChainPipeline
      */
     public enum ProcessingMode {
 
-        RENDERING, ACQUISITION
+        RENDERING, ACQUISITION, PIPELINED
     };
     private ProcessingMode processingMode = ProcessingMode.RENDERING;
 
+    private FilterChainPipeline pipeline = null;
+    private int pipelineNumStages;
+    private int pipelineQueueCapacity;
+    private FilterChainPipeline.BackpressurePolicy pipelineBackpressurePolicy = FilterChainPipeline.BackpressurePolicy.BLOCK;
+    private EventPacket<?> pipelineDrainedOutput = null; // drained from a pipeline that was shut down, returned with the next output
+    private static final long PIPELINE_DRAIN_TIMEOUT_MS = 1000;
+
     /**
      * Creates a new instance of FilterChain. Use
      * <@link #contructPreferredFilters> to build the stored preferences for
@@ -136,7 +151,16 @@ public class FilterChain extends LinkedList<EventFilter2D> {
         timeLimitMs = chip.getPrefs().getInt("FilterChain.timeLimitMs", 10);
         updateIntervalMs = chip.getPrefs().getFloat("FilterChain.updateIntervalMs", 10);
 
+        pipelineNumStages = chip.getPrefs().getInt("FilterChain.pipelineNumStages", Runtime.getRuntime().availableProcessors());
+        pipelineQueueCapacity = chip.getPrefs().getInt("FilterChain.pipelineQueueCapacity", 4);
+
         timedOut = false;
+        try {
+            pipelineBackpressurePolicy = FilterChainPipeline.BackpressurePolicy.valueOf(
+                    chip.getPrefs().get("FilterChain.pipelineBackpressurePolicy", FilterChainPipeline.BackpressurePolicy.BLOCK.toString()));
+        } catch (IllegalArgumentException e) {
+            log.warning("unknown FilterChain.pipelineBackpressurePolicy, using " + pipelineBackpressurePolicy + ": " + e.toString());
+        }
         try {
             processingMode = ProcessingMode.valueOf(
                     chip.getPrefs().get("FilterChain.processingMode", FilterChain.ProcessingMode.RENDERING.toString())); // ProcessingMode.RENDERING;
@@ -162,6 +186,8 @@ public class FilterChain extends LinkedList<EventFilter2D> {
      * @see EventFilter#cleanup()
      */
     public void cleanup() {
+        shutdownPipeline();
+        pipelineDrainedOutput = null; // nobody is left to take it
         for (EventFilter f : this) {
             f.cleanup();
         }
@@ -179,7 +205,7 @@ public class FilterChain extends LinkedList<EventFilter2D> {
      */
     synchronized public EventPacket filterPacket(EventPacket in) {
         if (!filteringEnabled || size() == 0) {
-            return in;
+            return prependDrainedOutput(in);
         }
         EventPacket out;
 //        if (timeLimitEnabled) {
@@ -201,21 +227,15 @@ public class FilterChain extends LinkedList<EventFilter2D> {
             log.info("compute performance statistics reset");
             resetPerformanceMeasurementStatistics = false;
         }
+        if (processingMode == ProcessingMode.PIPELINED) {
+            return prependDrainedOutput(filterPacketPipelined(in));
+        }
         for (EventFilter2D f : this) {
             if (!f.isFilterEnabled()) {
                 continue;
             }
             if (measurePerformanceEnabled) {
-                if (f.perf == null) {
-                    EventProcessingPerformanceView view = new EventProcessingPerformanceView(f.getChip().getFilterFrame());
-                    f.perf = new EventProcessingPerformanceMeter(f, view);
-                    view.setModel(f.perf);
-                }
-                if (f.perf.getView() != null && !f.perf.getView().isVisible()) {
-                    f.perf.getView().setFocusableWindowState(false);
-                    f.perf.getView().setVisible(true);  // only set visible if not visible
-                    f.perf.getView().setFocusableWindowState(true);
-                }
+                checkPerformanceMeter(f);
                 f.perf.start(in);
             }
             out = f.filterPacket(in);
@@ -227,7 +247,198 @@ public class FilterChain extends LinkedList<EventFilter2D> {
             }
             in = out;
         }
-        return in;
+        return prependDrainedOutput(in);
+    }
+
+    /**
+     * Returns the output drained from a pipeline that was shut down, followed
+     * by the events of out, so that no output is lost when the pipeline is
+     * rebuilt or the processing mode is changed.
+     */
+    private EventPacket<?> prependDrainedOutput(EventPacket<?> out) {
+        if (pipelineDrainedOutput == null) {
+            return out;
+        }
+        EventPacket<?> merged = pipelineDrainedOutput;
+        pipelineDrainedOutput = null;
+        if (out != null && out != merged) {
+            appendCopy(merged, out);
+        }
+        return merged;
+    }
+
+    /**
+     * Appends the events of src to dst. Both packets come from the same chain
+     * and hold the same event class, which EventPacket.appendCopy checks.
+     */
+    @SuppressWarnings("unchecked")
+    private static <E extends BasicEvent> void appendCopy(EventPacket<E> dst, EventPacket<?> src) {
+        dst.appendCopy((EventPacket<E>) src);
+    }
+
+    /**
+     * Waits for the packets in flight in the PIPELINED mode to pass all
+     * stages, e.g. at the end of the input, and returns their output. The
+     * pipeline keeps running.
+     *
+     * @return the remaining output merged in one packet, or null if there is
+     * none
+     */
+    synchronized public EventPacket<?> flushPipeline() {
+        drainPipeline();
+        EventPacket<?> out = pipelineDrainedOutput;
+        pipelineDrainedOutput = null;
+        return out;
+    }
+
+    /**
+     * Appends the packets in flight in the pipeline to pipelineDrainedOutput.
+     */
+    private void drainPipeline() {
+        if (pipeline == null) {
+            return;
+        }
+        for (EventPacket<?> p : pipeline.drain(PIPELINE_DRAIN_TIMEOUT_MS)) {
+            if (p.isEmpty()) {
+                continue;
+            }
+            if (pipelineDrainedOutput == null) {
+                pipelineDrainedOutput = p.constructNewPacket();
+            }
+            appendCopy(pipelineDrainedOutput, p);
+        }
+    }
+
+    /**
+     * Constructs the performance meter of a filter if needed and makes its view
+     * visible.
+     */
+    private void checkPerformanceMeter(EventFilter2D f) {
+        if (f.perf == null) {
+            EventProcessingPerformanceView view = new EventProcessingPerformanceView(f.getChip().getFilterFrame());
+            f.perf = new EventProcessingPerformanceMeter(f, view);
+            view.setModel(f.perf);
+        }
+        if (f.perf.getView() != null && !f.perf.getView().isVisible()) {
+            f.perf.getView().setFocusableWindowState(false);
+            f.perf.getView().setVisible(true);  // only set visible if not visible
+            f.perf.getView().setFocusableWindowState(true);
+        }
+    }
+
+    /**
+     * Hands the packet to the FilterChainPipeline, (re)building it if the set
+     * of enabled filters has changed.
+     *
+     * @param in the input packet, which is copied by the pipeline
+     * @return the oldest completed output of the pipeline
+     */
+    private EventPacket<?> filterPacketPipelined(EventPacket<?> in) {
+        ArrayList<EventFilter2D> enabledFilters = new ArrayList<>();
+        for (EventFilter2D f : this) {
+            if (f.isFilterEnabled()) {
+                enabledFilters.add(f);
+                if (measurePerformanceEnabled) {
+                    checkPerformanceMeter(f);
+                }
+            }
+        }
+        if (enabledFilters.isEmpty()) {
+            shutdownPipeline();
+            return in;
+        }
+        if (pipeline == null || !pipeline.matches(enabledFilters, pipelineNumStages)) {
+            shutdownPipeline();
+            pipeline = new FilterChainPipeline(this, enabledFilters, pipelineNumStages, pipelineQueueCapacity, pipelineBackpressurePolicy);
+        }
+        return pipeline.filterPacket(in);
+    }
+
+    /**
+     * Drains the pipeline into pipelineDrainedOutput and stops it.
+     */
+    private void shutdownPipeline() {
+        if (pipeline != null) {
+            drainPipeline();
+            pipeline.shutdown();
+            pipeline = null;
+        }
+    }
+
+    /**
+     * Returns the running pipeline in the PIPELINED processing mode.
+     *
+     * @return the pipeline, or null if none is running
+     */
+    public FilterChainPipeline getPipeline() {
+        return pipeline;
+    }
+
+    /**
+     * @return the maximum number of stage threads in the PIPELINED mode
+     */
+    public int getPipelineNumStages() {
+        return pipelineNumStages;
+    }
+
+    /**
+     * Sets the maximum number of stage threads in the PIPELINED mode. The
+     * enabled filters are divided into this many contiguous groups. The
+     * pipeline is rebuilt on the next packet.
+     *
+     * @param pipelineNumStages the number of stages
+     */
+    synchronized public void setPipelineNumStages(int pipelineNumStages) {
+        if (pipelineNumStages < 1) {
+            pipelineNumStages = 1;
+        }
+        this.pipelineNumStages = pipelineNumStages;
+        chip.getPrefs().putInt("FilterChain.pipelineNumStages", pipelineNumStages);
+        shutdownPipeline();
+    }
+
+    /**
+     * @return the capacity in packets of each stage queue in the PIPELINED
+     * mode
+     */
+    public int getPipelineQueueCapacity() {
+        return pipelineQueueCapacity;
+    }
+
+    /**
+     * Sets the capacity in packets of each stage queue in the PIPELINED mode.
+     * The pipeline is rebuilt on the next packet.
+     *
+     * @param pipelineQueueCapacity the capacity in packets
+     */
+    synchronized public void setPipelineQueueCapacity(int pipelineQueueCapacity) {
+        if (pipelineQueueCapacity < 1) {
+            pipelineQueueCapacity = 1;
+        }
+        this.pipelineQueueCapacity = pipelineQueueCapacity;
+        chip.getPrefs().putInt("FilterChain.pipelineQueueCapacity", pipelineQueueCapacity);
+        shutdownPipeline();
+    }
+
+    /**
+     * @return what happens to new packets when the first pipeline stage is
+     * full
+     */
+    public FilterChainPipeline.BackpressurePolicy getPipelineBackpressurePolicy() {
+        return pipelineBackpressurePolicy;
+    }
+
+    /**
+     * Sets what happens to new packets when the first pipeline stage is full.
+     * The pipeline is rebuilt on the next packet.
+     *
+     * @param pipelineBackpressurePolicy BLOCK to block the rendering cycle or
+     * DROP to drop the packet
+     */
+    synchronized public void setPipelineBackpressurePolicy(FilterChainPipeline.BackpressurePolicy pipelineBackpressurePolicy) {
+        this.pipelineBackpressurePolicy = pipelineBackpressurePolicy;
+        chip.getPrefs().put("FilterChain.pipelineBackpressurePolicy", pipelineBackpressurePolicy.toString());
+        shutdownPipeline();
     }
 
     /**
@@ -293,9 +504,26 @@ public class FilterChain extends LinkedList<EventFilter2D> {
      * @see #processingMode
      */
     synchronized public void setProcessingMode(ProcessingMode processingMode) {
+        setProcessingMode(processingMode, true);
+    }
+
+    /**
+     * Sets the processing mode like {@link #setProcessingMode(ProcessingMode)},
+     * optionally without storing it in the chip's preferences, e.g. for a
+     * headless run that should not change the mode AEViewer starts with.
+     *
+     * @param processingMode the mode
+     * @param storePreference true to store the mode as the chip's preference
+     */
+    synchronized public void setProcessingMode(ProcessingMode processingMode, boolean storePreference) {
         getSupport().firePropertyChange("processingmode", this.processingMode, processingMode);
         this.processingMode = processingMode;
-        chip.getPrefs().put("FilterChain.processingMode", processingMode.toString());
+        if (processingMode != ProcessingMode.PIPELINED) {
+            shutdownPipeline();
+        }
+        if (storePreference) {
+            chip.getPrefs().put("FilterChain.processingMode", processingMode.toString());
+        }
     }
 
     /**
@@ -0,0 +1,387 @@
+/*
+ * FilterChainPipeline.java
+ *
+ * Copyright (C) 2026 jAER project.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ */
+package net.sf.jaer.eventprocessing;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import net.sf.jaer.event.ApsDvsEventPacket;
+import net.sf.jaer.event.BasicEvent;
+import net.sf.jaer.event.EventPacket;
+import net.sf.jaer.event.OutputEventIterator;
+
+/**
+ * Runs the enabled filters of a {@link FilterChain} as a pipeline of stage
+ * threads for {@link FilterChain.ProcessingMode#PIPELINED}. Each stage runs
+ * one filter, or a contiguous group of filters, and is connected to the next
+ * stage by a bounded single-producer/single-consumer queue. Packets are copied
+ * into recycled packets at each hand-off, because filters reuse their own
+ * output packets and the next packet would otherwise overwrite the one still
+ * being processed downstream.
+ * <p>
+ * Packet order is preserved since every stage is a single thread that takes
+ * packets in FIFO order. When the first stage cannot keep up, the
+ * {@link BackpressurePolicy} decides if the caller blocks or if the packet is
+ * dropped; between stages the pipeline always blocks so that no packet that has
+ * entered the pipeline is lost.
+ * <p>
+ * The output of {@link #filterPacket(net.sf.jaer.event.EventPacket)} is the
+ * oldest packet that has left the last stage, so results lag the input by the
+ * pipeline depth. {@link #drain(long)} returns the packets still in flight,
+ * e.g. at the end of the input or before the pipeline is shut down. Filters
+ * that annotate graphics run concurrently with rendering, just as in the
+ * ACQUISITION mode.
+ *
+ * @author agent
+ */
+public class FilterChainPipeline {
+
+    static final Logger log = Logger.getLogger("FilterChainPipeline");
+
+    /**
+     * What to do with a new packet when the first stage queue is full.
+     */
+    public enum BackpressurePolicy {
+        /**
+         * Block the caller until there is room
+         */
+        BLOCK,
+        /**
+         * Drop the new packet and count it
+         */
+        DROP
+    };
+
+    private final FilterChain chain;
+    private final List<EventFilter2D> filters;
+    private final ArrayList<Stage> stages = new ArrayList<>();
+    private final ArrayBlockingQueue<EventPacket<?>> outputQueue;
+    private final ConcurrentLinkedQueue<EventPacket<?>> freePackets = new ConcurrentLinkedQueue<>();
+    private final BackpressurePolicy policy;
+    private final AtomicLong droppedPacketCount = new AtomicLong(), droppedEventCount = new AtomicLong();
+    private final AtomicInteger inFlightCount = new AtomicInteger(); // packets submitted and not yet taken from outputQueue
+    private EventPacket<?> lastReturned = null, emptyPacket = null;
+    private volatile boolean running = true;
+
+    /**
+     * Constructs and starts the pipeline.
+     *
+     * @param chain the enclosing chain, used for performance measurement
+     * settings
+     * @param filters the enabled filters, in chain order
+     * @param numStages the number of stage threads; the filters are divided
+     * into this many contiguous groups
+     * @param queueCapacity the capacity in packets of each stage queue
+     * @param policy the backpressure policy for the first stage
+     */
+    public FilterChainPipeline(FilterChain chain, List<EventFilter2D> filters, int numStages, int queueCapacity, BackpressurePolicy policy) {
+        this.chain = chain;
+        this.filters = new ArrayList<>(filters);
+        this.policy = policy;
+        if (queueCapacity < 1) {
+            queueCapacity = 1;
+        }
+        int n = filters.size();
+        if (numStages > n) {
+            numStages = n;
+        }
+        if (numStages < 1) {
+            numStages = 1;
+        }
+        outputQueue = new ArrayBlockingQueue<>(queueCapacity);
+        int start = 0;
+        for (int k = 0; k < numStages; k++) {
+            int end = (int) Math.round((double) n * (k + 1) / numStages);
+            stages.add(new Stage(k, this.filters.subList(start, end), queueCapacity));
+            start = end;
+        }
+        for (int k = 0; k < stages.size(); k++) {
+            stages.get(k).next = k < stages.size() - 1 ? stages.get(k + 1).queue : outputQueue;
+            stages.get(k).start();
+        }
+        log.info("started " + this);
+    }
+
+    /**
+     * Returns true if this pipeline was built for the same list of filters.
+     *
+     * @param enabledFilters the currently enabled filters
+     * @param numStages the desired number of stages
+     * @return true if the pipeline can be reused
+     */
+    boolean matches(List<EventFilter2D> enabledFilters, int numStages) {
+        return filters.equals(enabledFilters) && stages.size() == Math.max(1, Math.min(numStages, enabledFilters.size()));
+    }
+
+    /**
+     * Submits a copy of the input packet to the first stage and returns the
+     * oldest output available from the last stage, or an empty packet if no
+     * output is ready yet. The returned packet is valid until the next call.
+     *
+     * @param in the input packet, which is copied and may be reused by the
+     * caller after this call returns
+     * @return the next output packet
+     */
+    public EventPacket<?> filterPacket(EventPacket<?> in) {
+        if (lastReturned != null) {
+            recycle(lastReturned);
+            lastReturned = null;
+        }
+        if (in != null && !in.isEmpty()) {
+            EventPacket<?> copy = copyOf(in);
+            ArrayBlockingQueue<EventPacket<?>> q = stages.get(0).queue;
+            try {
+                inFlightCount.incrementAndGet();
+                if (policy == BackpressurePolicy.BLOCK) {
+                    q.put(copy);
+                } else if (!q.offer(copy)) {
+                    inFlightCount.decrementAndGet();
+                    droppedPacketCount.incrementAndGet();
+                    droppedEventCount.addAndGet(copy.getSize());
+                    recycle(copy);
+                }
+            } catch (InterruptedException e) {
+                inFlightCount.decrementAndGet();
+                recycle(copy);
+                Thread.currentThread().interrupt();
+            }
+        }
+        EventPacket<?> out = outputQueue.poll();
+        if (out != null) {
+            inFlightCount.decrementAndGet();
+            lastReturned = out;
+            return out;
+        }
+        if (emptyPacket == null || (in != null && emptyPacket.getEventClass() != in.getEventClass())) {
+            emptyPacket = in != null ? in.constructNewPacket() : new EventPacket<>();
+        }
+        emptyPacket.clear();
+        return emptyPacket;
+    }
+
+    /**
+     * Waits until all packets that entered the pipeline have passed the last
+     * stage and returns them in order. The returned packets are no longer used
+     * by the pipeline. Call this from the thread that calls filterPacket, so
+     * that no new packets enter while draining.
+     *
+     * @param timeoutMs the longest time to wait for the next packet; if no
+     * packet leaves the last stage within this time, e.g. because a filter
+     * hangs, the remaining packets are given up
+     * @return the remaining output packets, oldest first, possibly empty
+     */
+    public List<EventPacket<?>> drain(long timeoutMs) {
+        ArrayList<EventPacket<?>> remaining = new ArrayList<>();
+        if (lastReturned != null) {
+            recycle(lastReturned);
+            lastReturned = null;
+        }
+        while (inFlightCount.get() > 0) {
+            EventPacket<?> out;
+            try {
+                out = outputQueue.poll(timeoutMs, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            if (out == null) {
+                break;
+            }
+            inFlightCount.decrementAndGet();
+            remaining.add(out);
+        }
+        if (inFlightCount.get() > 0) {
+            log.warning("gave up draining " + inFlightCount.get() + " packets from " + this);
+        }
+        return remaining;
+    }
+
+    /**
+     * Stops the stage threads and discards the packets in flight. Call
+     * {@link #drain(long)} first to obtain them.
+     */
+    public void shutdown() {
+        running = false;
+        for (Stage s : stages) {
+            s.interrupt();
+        }
+        for (Stage s : stages) {
+            try {
+                s.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        log.info("shut down " + this);
+    }
+
+    /**
+     * @return the number of packets dropped at the entry of the pipeline
+     */
+    public long getDroppedPacketCount() {
+        return droppedPacketCount.get();
+    }
+
+    /**
+     * @return the number of events in packets dropped at the entry of the
+     * pipeline
+     */
+    public long getDroppedEventCount() {
+        return droppedEventCount.get();
+    }
+
+    /**
+     * @return the number of packets that entered the pipeline and were not
+     * yet returned
+     */
+    public int getInFlightCount() {
+        return inFlightCount.get();
+    }
+
+    /**
+     * @return the number of stage threads
+     */
+    public int getNumStages() {
+        return stages.size();
+    }
+
+    /**
+     * Returns the number of packets waiting in the input queue of a stage.
+     *
+     * @param stage the stage number, 0 is the first stage
+     * @return the queue depth in packets
+     */
+    public int getQueueDepth(int stage) {
+        return stages.get(stage).queue.size();
+    }
+
+    private EventPacket<?> obtainPacket(EventPacket<?> like) {
+        EventPacket<?> p = freePackets.poll();
+        if (p == null || p.getEventClass() != like.getEventClass() || p.getClass() != like.getClass()) {
+            p = like.constructNewPacket();
+        }
+        return p;
+    }
+
+    private void recycle(EventPacket<?> p) {
+        if (p != emptyPacket) {
+            freePackets.offer(p);
+        }
+    }
+
+    /**
+     * Copies the not filtered-out events of a packet into a recycled packet.
+     * For ApsDvsEventPacket the APS and IMU events are also copied.
+     */
+    private EventPacket<?> copyOf(EventPacket<? extends BasicEvent> in) {
+        EventPacket<?> copy = obtainPacket(in);
+        OutputEventIterator<?> outItr = copy.outputIterator();
+        Iterator<? extends BasicEvent> itr = in instanceof ApsDvsEventPacket ? ((ApsDvsEventPacket<?>) in).fullIterator() : in.inputIterator();
+        while (itr.hasNext()) {
+            BasicEvent e = itr.next();
+            if (e.isFilteredOut()) {
+                continue;
+            }
+            outItr.nextOutput().copyFrom(e);
+        }
+        copy.systemModificationTimeNs = in.systemModificationTimeNs;
+        return copy;
+    }
+
+    @Override
+    public String toString() {
+        return "FilterChainPipeline with " + stages.size() + " stages for " + filters.size() + " filters, policy=" + policy;
+    }
+
+    /**
+     * One stage thread, running a contiguous group of filters.
+     */
+    private class Stage extends Thread {
+
+        final List<EventFilter2D> stageFilters;
+        final ArrayBlockingQueue<EventPacket<?>> queue;
+        ArrayBlockingQueue<EventPacket<?>> next;
+
+        Stage(int number, List<EventFilter2D> stageFilters, int queueCapacity) {
+            super("FilterChainPipeline-stage-" + number);
+            setDaemon(true);
+            this.stageFilters = stageFilters;
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                EventPacket<?> in;
+                try {
+                    in = queue.poll(100, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    break;
+                }
+                if (in == null) {
+                    continue;
+                }
+                EventPacket<?> packet = in;
+                for (EventFilter2D f : stageFilters) {
+                    if (!f.isFilterEnabled()) {
+                        continue;
+                    }
+                    boolean measure = chain.isMeasurePerformanceEnabled() && f.perf != null;
+                    if (measure) {
+                        f.perf.start(packet);
+                    }
+                    try {
+                        packet = f.filterPacket(packet);
+                    } catch (Exception e) {
+                        log.log(Level.WARNING, "Caught " + e + " in " + getName() + ", disabling " + f, e);
+                        f.setFilterEnabled(false);
+                    }
+                    if (measure) {
+                        f.perf.stop();
+                        f.perf.setQueueDepth(queue.size());
+                        f.perf.setDroppedPacketCount(droppedPacketCount.get());
+                        f.perf.updateView();
+                    }
+                    if (packet == null) {
+                        break;
+                    }
+                }
+                // filters reuse their own output packets, so hand a private copy to the next stage
+                EventPacket<?> handOff;
+                if (packet == in) {
+                    handOff = in;
+                } else {
+                    if (packet == null) {
+                        handOff = obtainPacket(in);
+                        handOff.clear();
+                    } else {
+                        handOff = copyOf(packet);
+                    }
+                    recycle(in);
+                }
+                try {
+                    next.put(handOff);
+                } catch (InterruptedException e) {
+                    break;
+                }
+            }
+        }
+    }
+}
@@ -102,6 +102,9 @@ public class FilterFrame<PanelType extends FilterPanel> extends javax.swing.JFra
             case ACQUISITION:
                 acquisitionModeMenuItem.setSelected(true);
                 break;
+            case PIPELINED:
+                pipelinedModeMenuItem.setSelected(true);
+                break;
             default:
 
         }
@@ -202,6 +205,7 @@ public class FilterFrame<PanelType extends FilterPanel> extends javax.swing.JFra
         modeMenu = new javax.swing.JMenu();
         renderingModeMenuItem = new javax.swing.JRadioButtonMenuItem();
         acquisitionModeMenuItem = new javax.swing.JRadioButtonMenuItem();
+        pipelinedModeMenuItem = new javax.swing.JRadioButtonMenuItem();
         jSeparator1 = new javax.swing.JSeparator();
         measurePerformanceCheckBoxMenuItem = new javax.swing.JCheckBoxMenuItem();
         resetPerformanceMeasurementMI = new javax.swing.JMenuItem();
@@ -406,6 +410,17 @@ public class FilterFrame<PanelType extends FilterPanel> extends javax.swing.JFra
             }
         });
         modeMenu.add(acquisitionModeMenuItem);
+
+        modeButtonGroup.add(pipelinedModeMenuItem);
+        pipelinedModeMenuItem.setMnemonic('t');
+        pipelinedModeMenuItem.setText("Process in pipelined threads");
+        pipelinedModeMenuItem.setToolTipText("Process events in a pipeline with one thread per filter; output is delayed by the pipeline depth");
+        pipelinedModeMenuItem.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                pipelinedModeMenuItemActionPerformed(evt);
+            }
+        });
+        modeMenu.add(pipelinedModeMenuItem);
         modeMenu.add(jSeparator1);
 
         measurePerformanceCheckBoxMenuItem.setAccelerator(javax.swing.KeyStroke.getKeyStroke(java.awt.event.KeyEvent.VK_P, java.awt.event.InputEvent.CTRL_MASK));
@@ -543,6 +558,10 @@ public class FilterFrame<PanelType extends FilterPanel> extends javax.swing.JFra
             filterChain.setProcessingMode(FilterChain.ProcessingMode.ACQUISITION);
 	}//GEN-LAST:event_acquisitionModeMenuItemActionPerformed
 
+	private void pipelinedModeMenuItemActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_pipelinedModeMenuItemActionPerformed
+            filterChain.setProcessingMode(FilterChain.ProcessingMode.PIPELINED);
+	}//GEN-LAST:event_pipelinedModeMenuItemActionPerformed
+
 	private void renderingModeMenuItemActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_renderingModeMenuItemActionPerformed
             filterChain.setProcessingMode(FilterChain.ProcessingMode.RENDERING);
 	}//GEN-LAST:event_renderingModeMenuItemActionPerformed
@@ -825,6 +844,8 @@ public class FilterFrame<PanelType extends FilterPanel> extends javax.swing.JFra
                 acquisitionModeMenuItem.setSelected(true);
             } else if (evt.getNewValue() == FilterChain.ProcessingMode.RENDERING) {
                 renderingModeMenuItem.setSelected(true);
+            } else if (evt.getNewValue() == FilterChain.ProcessingMode.PIPELINED) {
+                pipelinedModeMenuItem.setSelected(true);
             }
         }
     }
@@ -909,6 +930,7 @@ public class FilterFrame<PanelType extends FilterPanel> extends javax.swing.JFra
 
     // Variables declaration - do not modify//GEN-BEGIN:variables
     private javax.swing.JRadioButtonMenuItem acquisitionModeMenuItem;
+    private javax.swing.JRadioButtonMenuItem pipelinedModeMenuItem;
     private javax.swing.JMenuItem customizeMenuItem;
     private javax.swing.JToggleButton disableFilteringToggleButton;
     private javax.swing.JMenuItem exitMenuItem;
@@ -0,0 +1,753 @@
+/*
+ * HeadlessPipelineRunner.java
+ *
+ * Copyright (C) 2026 jAER project.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ */
+package net.sf.jaer.eventprocessing;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.prefs.Preferences;
+
+import net.sf.jaer.aemonitor.AEMonitorInterface;
+import net.sf.jaer.aemonitor.AEPacketRaw;
+import net.sf.jaer.chip.AEChip;
+import net.sf.jaer.event.ApsDvsEventPacket;
+import net.sf.jaer.event.EventPacket;
+import net.sf.jaer.eventio.AECompressedFileOutputStream;
+import net.sf.jaer.eventio.AEDataFile;
+import net.sf.jaer.eventio.AEFileInputStream;
+import net.sf.jaer.eventio.AEFileInputStreamInterface;
+import net.sf.jaer.eventio.AEFileOutputStream;
+import net.sf.jaer.eventio.AEUnicastInput;
+import net.sf.jaer.hardwareinterface.HardwareInterface;
+import net.sf.jaer.hardwareinterface.HardwareInterfaceException;
+import net.sf.jaer.hardwareinterface.HardwareInterfaceFactory;
+import net.sf.jaer.util.PreferencesBackup;
+import net.sf.jaer.util.SnapshotPreferences;
+
+/**
+ * Runs the FilterChain of an AEChip without AEViewer, i.e. without any Swing
+ * window, OpenGL ChipCanvas or FilterFrame. The runner loads an AEChip class,
+ * optionally imports a filter settings XML file saved from the FilterFrame
+ * (e.g. from filterSettings/), reads events from an AEDAT file, a UDP port or
+ * the first USB device, and passes every packet through the filter chain,
+ * either as fast as possible or paced to real time. The filtered events can be
+ * written to an AEDAT output file, and a throughput report is printed at the
+ * end.
+ * <p>
+ * Run it from the jAER root folder, e.g.
+ * <pre>
+ * java -Djava.awt.headless=true -cp ... net.sf.jaer.eventprocessing.HeadlessPipelineRunner \
+ *   -chip eu.seebetter.ini.chips.davis.DAVIS240C -settings filterSettings/denoise.xml \
+ *   -file in.aedat -out filtered.aedat -report report.txt
+ * </pre> The settings file is imported into the user preferences before the
+ * chip is constructed, just as loading it in the FilterFrame does, because
+ * chips and filters read their preferences in their constructors. The
+ * preference nodes of the settings file and the chip are saved before and put
+ * back after the run (see {@link PreferencesBackup}), so a run does not change
+ * the settings AEViewer uses next time.
+ *
+ * @author agent
+ */
+public class HeadlessPipelineRunner {
+
+    static final Logger log = Logger.getLogger("HeadlessPipelineRunner");
+    /**
+     * Chips are constructed one at a time even by parallel runners, since
+     * constructors read and write shared preferences and static state.
+     */
+    static final Object CONSTRUCTION_LOCK = new Object();
+    /**
+     * How long the shutdown hook waits for run() to put back the preferences
+     */
+    static final long SHUTDOWN_WAIT_MS = 10000;
+    /**
+     * Preference node of the net.sf.jaer packages
+     */
+    private static final String FRAMEWORK_PREFERENCES_PATH = "/net/sf/jaer";
+
+    /**
+     * Where the events come from
+     */
+    public enum Source {
+        /**
+         * An AEDAT (or rosbag) file
+         */
+        FILE,
+        /**
+         * AEUnicastInput on a UDP port
+         */
+        UDP,
+        /**
+         * The first available USB AEMonitorInterface
+         */
+        USB
+    };
+
+    private String chipClassName = null;
+    private File settingsFile = null;
+    private Source source = Source.FILE;
+    private File inputFile = null;
+    private int udpPort = -1;
+    private File outputFile = null;
+    private File reportFile = null;
+    private boolean realTime = false;
+    private boolean prefetch = false;
+    private int packetSize = 10000;
+    private float durationS = 0;
+    private FilterChain.ProcessingMode processingMode = null;
+    private boolean isolatePreferences = false;
+    private boolean restorePreferences = true;
+    private boolean printReport = true;
+
+    private AEChip chip;
+    private AEFileInputStreamInterface fileInput = null;
+    private AEUnicastInput udpInput = null;
+    private AEMonitorInterface aemon = null;
+    private AEFileOutputStream output = null;
+    private volatile boolean stopRequested = false;
+    private final CountDownLatch finished = new CountDownLatch(1);
+
+    private long packetsIn = 0, eventsIn = 0, eventsOut = 0;
+    private long readNs = 0, filterNs = 0, writeNs = 0, wallNs = 0;
+    private int firstTimestamp = 0, lastTimestamp = 0;
+
+    /**
+     * Loads the chip and the filter settings, opens the source and output,
+     * processes all input and closes everything.
+     *
+     * @throws Exception if the chip cannot be constructed or the input or
+     * output cannot be opened
+     */
+    public void run() throws Exception {
+        try {
+            if (chipClassName == null) {
+                throw new IllegalArgumentException("no AEChip class given");
+            }
+            final PreferencesBackup backup = restorePreferences ? backupPreferences(chipClassName, settingsFile) : null;
+            try {
+                if (settingsFile != null) {
+                    importSettings(settingsFile);
+                }
+                runChip();
+            } finally {
+                if (backup != null) {
+                    backup.restore();
+                }
+            }
+        } finally {
+            finished.countDown();
+        }
+        if (printReport) {
+            report(System.out);
+        }
+        if (reportFile != null) {
+            try (PrintStream ps = new PrintStream(new FileOutputStream(reportFile))) {
+                report(ps);
+            }
+        }
+    }
+
+    private void runChip() throws Exception {
+        FilterChain chain;
+        synchronized (CONSTRUCTION_LOCK) {
+            chip = (AEChip) Class.forName(chipClassName).newInstance();
+            if (isolatePreferences) {
+                isolatePreferences(chip);
+            }
+            chain = chip.getFilterChain();
+            chain.initFilters(); // as AEViewer.setChip does once the chip is fully constructed
+            if (processingMode != null) {
+                chain.setProcessingMode(processingMode, false); // only for this run
+            }
+        }
+        log.info("running " + chain.size() + " filters of " + chip + " from " + source + " in " + chain.getProcessingMode() + " mode");
+        try {
+            openSource();
+            if (outputFile != null) {
+                if (outputFile.getName().endsWith(AEDataFile.COMPRESSED_DATA_FILE_EXTENSION)) {
+                    output = new AECompressedFileOutputStream(new FileOutputStream(outputFile), chip);
+                } else {
+                    output = new AEFileOutputStream(new FileOutputStream(outputFile), chip, AEDataFile.DATA_FILE_VERSION_NUMBER); // buffers writes itself
+                }
+            }
+            process(chain);
+        } finally {
+            close();
+        }
+    }
+
+    /**
+     * Asks a running {@link #run()} to stop after the current packet.
+     */
+    public void stop() {
+        stopRequested = true;
+    }
+
+    /**
+     * Waits until {@link #run()} has finished and put back the preferences.
+     *
+     * @param timeoutMs the longest time to wait in ms
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void awaitFinished(long timeoutMs) throws InterruptedException {
+        finished.await(timeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Saves the preference nodes that constructing a chip and importing a
+     * settings file write to: the node of the chip class, which also holds
+     * the nodes of its filters, the jAER framework nodes, which hold those of
+     * renderers, display methods and filter classes, and all nodes of the
+     * settings file.
+     *
+     * @param chipClassName the AEChip class
+     * @param settingsFile the settings file, or null
+     * @return the backup to restore after the run
+     * @throws Exception if the chip class is not found or the preferences
+     * or settings file cannot be read
+     */
+    static PreferencesBackup backupPreferences(String chipClassName, File settingsFile) throws Exception {
+        final PreferencesBackup backup = new PreferencesBackup();
+        backup.save(Preferences.userNodeForPackage(Class.forName(chipClassName))); // the node Chip uses
+        backup.save(FRAMEWORK_PREFERENCES_PATH);
+        if (settingsFile != null) {
+            backup.saveNodesOf(settingsFile);
+        }
+        return backup;
+    }
+
+    /**
+     * Imports a filter settings XML file into the user preferences, as
+     * FilterFrame.loadFile does. Callers save the nodes first with
+     * {@link #backupPreferences(String, File)} and restore them afterwards.
+     *
+     * @param f the file
+     * @throws Exception if the file cannot be read or parsed
+     */
+    static void importSettings(File f) throws Exception {
+        try (FileInputStream fis = new FileInputStream(f)) {
+            Preferences.importPreferences(fis); // same as FilterFrame.loadFile
+        }
+        log.info("imported preferences from " + f);
+    }
+
+    /**
+     * Moves the chip and all its filters, including enclosed ones, to a
+     * private {@link SnapshotPreferences} copy of their current preference
+     * nodes, so that nothing they write is seen by other chips or stored.
+     * Static preferences of filter classes stay shared.
+     *
+     * @param chip the chip
+     */
+    static void isolatePreferences(AEChip chip) {
+        SnapshotPreferences snapshot = new SnapshotPreferences();
+        chip.setPrefs(snapshot.snapshotOf(chip.getPrefs()));
+        isolatePreferences(chip.getFilterChain(), snapshot);
+    }
+
+    private static void isolatePreferences(FilterChain chain, SnapshotPreferences snapshot) {
+        if (chain == null) {
+            return;
+        }
+        for (EventFilter f : chain) {
+            if (f.getPrefs() != null) {
+                f.setPrefs(snapshot.snapshotOf(f.getPrefs()));
+            }
+            isolatePreferences(f.getEnclosedFilterChain(), snapshot);
+        }
+    }
+
+    private void openSource() throws Exception {
+        switch (source) {
+            case FILE:
+                if (inputFile == null) {
+                    throw new IllegalArgumentException("no input file given");
+                }
+                fileInput = chip.constuctFileInputStream(inputFile, null);
+                fileInput.setRepeat(false);
+                if (prefetch && (fileInput instanceof AEFileInputStream)) {
+                    ((AEFileInputStream) fileInput).setPrefetchEnabled(true);
+                }
+                break;
+            case UDP:
+                udpInput = udpPort > 0 ? new AEUnicastInput(udpPort, chip) : new AEUnicastInput(chip);
+                udpInput.open();
+                break;
+            case USB:
+                HardwareInterface hw = HardwareInterfaceFactory.instance().getFirstAvailableInterface();
+                if (!(hw instanceof AEMonitorInterface)) {
+                    throw new HardwareInterfaceException("no AEMonitorInterface found, got " + hw);
+                }
+                chip.setHardwareInterface(hw);
+                aemon = (AEMonitorInterface) hw;
+                aemon.setChip(chip);
+                aemon.open();
+                aemon.setEventAcquisitionEnabled(true);
+                break;
+        }
+    }
+
+    /**
+     * Returns the next raw packet, an empty packet if a live source has
+     * nothing yet, or null at the end of the input.
+     */
+    private AEPacketRaw readPacket() throws IOException, HardwareInterfaceException {
+        switch (source) {
+            case FILE:
+                try {
+                    return fileInput.readPacketByNumber(packetSize);
+                } catch (EOFException e) {
+                    return null;
+                }
+            case UDP:
+                return udpInput.readPacket();
+            case USB:
+                return aemon.acquireAvailableEventsFromDriver();
+        }
+        return null;
+    }
+
+    private void process(FilterChain chain) throws Exception {
+        final long startNs = System.nanoTime();
+        final long endNs = durationS > 0 ? startNs + (long) (durationS * 1e9) : Long.MAX_VALUE;
+        final boolean live = source != Source.FILE;
+        long realTimeStartNs = 0;
+        while (!stopRequested && System.nanoTime() < endNs) {
+            long t0 = System.nanoTime();
+            AEPacketRaw raw = readPacket();
+            long t1 = System.nanoTime();
+            readNs += t1 - t0;
+            if (raw == null) {
+                break;
+            }
+            final int n = raw.getNumEvents();
+            if (n == 0) {
+                if (!live) {
+                    break; // end of file
+                }
+                Thread.sleep(1);
+                continue;
+            }
+            if (packetsIn == 0) {
+                firstTimestamp = raw.getFirstTimestamp();
+                realTimeStartNs = t1;
+            }
+            lastTimestamp = raw.getLastTimestamp();
+            if (realTime && !live) {
+                // wait until the wall clock catches up with the last timestamp of the packet
+                long aheadUs = (lastTimestamp - firstTimestamp) - (System.nanoTime() - realTimeStartNs) / 1000;
+                if (aheadUs > 1000) {
+                    Thread.sleep(aheadUs / 1000);
+                }
+                t1 = System.nanoTime();
+            }
+            packetsIn++;
+            eventsIn += n;
+            EventPacket<?> out = chain.filterPacket(chip.getEventExtractor().extractPacket(raw));
+            long t2 = System.nanoTime();
+            filterNs += t2 - t1;
+            writeOutput(out);
+        }
+        // in the PIPELINED mode the last packets are still in the stages
+        long t0 = System.nanoTime();
+        EventPacket<?> rest = chain.flushPipeline();
+        filterNs += System.nanoTime() - t0;
+        writeOutput(rest);
+        wallNs = System.nanoTime() - startNs;
+    }
+
+    private void writeOutput(EventPacket<?> out) throws IOException {
+        if (out == null) {
+            return;
+        }
+        long t0 = System.nanoTime();
+        eventsOut += countPassedEvents(out);
+        if (output != null) {
+            output.writePacket(chip.getEventExtractor().reconstructRawPacket(out));
+        }
+        writeNs += System.nanoTime() - t0;
+    }
+
+    /**
+     * Counts the events that are not filtered out, including the APS and IMU
+     * events of an ApsDvsEventPacket.
+     */
+    private static int countPassedEvents(EventPacket<?> out) {
+        int n = 0;
+        Iterator<?> itr = out instanceof ApsDvsEventPacket ? ((ApsDvsEventPacket<?>) out).fullIterator() : out.inputIterator();
+        while (itr.hasNext()) { // the input iterators skip the filtered out events
+            itr.next();
+            n++;
+        }
+        return n;
+    }
+
+    private void close() {
+        try {
+            if (fileInput != null) {
+                fileInput.close();
+            }
+            if (udpInput != null) {
+                udpInput.close();
+            }
+            if (aemon != null) {
+                aemon.close();
+            }
+            if (output != null) {
+                output.close();
+                log.info("wrote filtered events to " + outputFile);
+            }
+        } catch (IOException e) {
+            log.log(Level.WARNING, "closing: " + e.toString(), e);
+        }
+        FilterChain chain = chip.getFilterChain();
+        if (chain != null) {
+            chain.cleanup();
+        }
+        chip.cleanup();
+    }
+
+    /**
+     * Prints the throughput report.
+     *
+     * @param ps where to print it
+     */
+    public void report(PrintStream ps) {
+        double wallS = wallNs * 1e-9;
+        double dataS = (lastTimestamp - firstTimestamp) * 1e-6; // timestamps are in us
+        ps.println("HeadlessPipelineRunner report");
+        ps.println("  chip:            " + chip.getClass().getName());
+        ps.println("  settings:        " + (settingsFile == null ? "(current preferences)" : settingsFile));
+        ps.println("  source:          " + source + (inputFile != null && source == Source.FILE ? " " + inputFile : ""));
+        ps.println("  processing mode: " + chip.getFilterChain().getProcessingMode() + (realTime ? ", real time" : ", as fast as possible"));
+        StringBuilder sb = new StringBuilder();
+        for (EventFilter2D f : chip.getFilterChain()) {
+            if (f.isFilterEnabled()) {
+                sb.append(f.getClass().getSimpleName()).append(' ');
+            }
+        }
+        ps.println("  enabled filters: " + sb.toString().trim());
+        ps.println(String.format("  packets:         %d", packetsIn));
+        ps.println(String.format("  events in/out:   %d / %d", eventsIn, eventsOut));
+        ps.println(String.format("  wall time:       %.3f s for %.3f s of data (%.1fx real time)", wallS, dataS, wallS > 0 ? dataS / wallS : 0));
+        ps.println(String.format("  throughput:      %.3f Meps overall, %.3f Meps in filter chain", wallS > 0 ? eventsIn / wallS * 1e-6 : 0, filterNs > 0 ? eventsIn / (filterNs * 1e-9) * 1e-6 : 0));
+        ps.println(String.format("  time split:      read %.3f s, extract+filter %.3f s, write %.3f s", readNs * 1e-9, filterNs * 1e-9, writeNs * 1e-9));
+        for (Map.Entry<BatchMetrics, Map<String, Long>> e : getBatchMetrics().entrySet()) {
+            ps.println("  " + e.getKey().getClass().getSimpleName() + ": " + e.getKey().formatBatchCounts(e.getValue()));
+        }
+    }
+
+    /**
+     * Returns the counts of all enabled filters of the chain that implement
+     * {@link BatchMetrics}.
+     *
+     * @return the counts by filter, in chain order
+     */
+    public Map<BatchMetrics, Map<String, Long>> getBatchMetrics() {
+        LinkedHashMap<BatchMetrics, Map<String, Long>> map = new LinkedHashMap<>();
+        if (chip != null) {
+            collectBatchMetrics(chip.getFilterChain(), map);
+        }
+        return map;
+    }
+
+    private static void collectBatchMetrics(FilterChain chain, Map<BatchMetrics, Map<String, Long>> map) {
+        if (chain == null) {
+            return;
+        }
+        for (EventFilter f : chain) {
+            if (!f.isFilterEnabled()) {
+                continue;
+            }
+            if (f instanceof BatchMetrics) {
+                map.put((BatchMetrics) f, ((BatchMetrics) f).getBatchCounts());
+            }
+            collectBatchMetrics(f.getEnclosedFilterChain(), map);
+        }
+    }
+
+    /**
+     * @param isolatePreferences true to give the chip and its filters a
+     * private copy of their preferences, see
+     * {@link #isolatePreferences(AEChip)}; needed when several runners run at
+     * the same time
+     */
+    public void setIsolatePreferences(boolean isolatePreferences) {
+        this.isolatePreferences = isolatePreferences;
+    }
+
+    /**
+     * @param restorePreferences false to leave the imported settings and the
+     * preferences written by the chip constructor in the user preferences,
+     * e.g. when the caller saves and restores them around several runners
+     */
+    public void setRestorePreferences(boolean restorePreferences) {
+        this.restorePreferences = restorePreferences;
+    }
+
+    /**
+     * @param printReport false to not print the report to stdout at the end
+     * of run()
+     */
+    public void setPrintReport(boolean printReport) {
+        this.printReport = printReport;
+    }
+
+    /**
+     * @param chipClassName the fully qualified AEChip class name
+     */
+    public void setChipClassName(String chipClassName) {
+        this.chipClassName = chipClassName;
+    }
+
+    /**
+     * @param settingsFile a filter settings XML file to import before
+     * constructing the chip, or null to use the current preferences
+     */
+    public void setSettingsFile(File settingsFile) {
+        this.settingsFile = settingsFile;
+    }
+
+    /**
+     * @param source where the events come from
+     */
+    public void setSource(Source source) {
+        this.source = source;
+    }
+
+    /**
+     * @param inputFile the input file for Source.FILE
+     */
+    public void setInputFile(File inputFile) {
+        this.inputFile = inputFile;
+    }
+
+    /**
+     * @param udpPort the port for Source.UDP, or -1 for the AEUnicastInput
+     * default
+     */
+    public void setUdpPort(int udpPort) {
+        this.udpPort = udpPort;
+    }
+
+    /**
+     * @param outputFile AEDAT file for the filtered events, or null to not
+     * write them
+     */
+    public void setOutputFile(File outputFile) {
+        this.outputFile = outputFile;
+    }
+
+    /**
+     * @param reportFile file for the throughput report in addition to stdout,
+     * or null
+     */
+    public void setReportFile(File reportFile) {
+        this.reportFile = reportFile;
+    }
+
+    /**
+     * @param realTime true to pace file input to its timestamps, false to run
+     * as fast as possible
+     */
+    public void setRealTime(boolean realTime) {
+        this.realTime = realTime;
+    }
+
+    /**
+     * @param prefetch true to read file input with
+     * {@link AEFileInputStream#setPrefetchEnabled(boolean) prefetching}
+     */
+    public void setPrefetch(boolean prefetch) {
+        this.prefetch = prefetch;
+    }
+
+    /**
+     * @param packetSize the number of events read from a file per packet
+     */
+    public void setPacketSize(int packetSize) {
+        this.packetSize = packetSize;
+    }
+
+    /**
+     * @param durationS stop after this many seconds of wall time, 0 to run
+     * until the end of the input (live sources then run until stopped)
+     */
+    public void setDurationS(float durationS) {
+        this.durationS = durationS;
+    }
+
+    /**
+     * @param processingMode the FilterChain processing mode for this run,
+     * which is not stored in the chip's preferences, or null to keep the
+     * chip's preference
+     */
+    public void setProcessingMode(FilterChain.ProcessingMode processingMode) {
+        this.processingMode = processingMode;
+    }
+
+    /**
+     * @return the chip, once run() has constructed it
+     */
+    public AEChip getChip() {
+        return chip;
+    }
+
+    /**
+     * @return the number of events read
+     */
+    public long getEventsIn() {
+        return eventsIn;
+    }
+
+    /**
+     * @return the number of events output by the filter chain that are not
+     * filtered out
+     */
+    public long getEventsOut() {
+        return eventsOut;
+    }
+
+    /**
+     * @return the wall time of the processing loop in ns
+     */
+    public long getWallNs() {
+        return wallNs;
+    }
+
+    /**
+     * @return the time spent extracting and filtering in ns
+     */
+    public long getFilterNs() {
+        return filterNs;
+    }
+
+    /**
+     * @return the number of packets read
+     */
+    public long getPacketsIn() {
+        return packetsIn;
+    }
+
+    /**
+     * @return the time span of the processed data in us
+     */
+    public long getDataDurationUs() {
+        return (long) lastTimestamp - firstTimestamp;
+    }
+
+    /**
+     * @return the input file
+     */
+    public File getInputFile() {
+        return inputFile;
+    }
+
+    /**
+     * @return the output file, or null
+     */
+    public File getOutputFile() {
+        return outputFile;
+    }
+
+    private static void usage() {
+        System.err.println("usage: HeadlessPipelineRunner -chip <AEChip class> [-settings <filter settings xml>]\n"
+                + "        (-file <aedat file> | -udp [port] | -usb)\n"
+                + "        [-out <aedat or aedatz file>] [-report <text file>] [-realtime] [-prefetch] [-packet <events>]\n"
+                + "        [-duration <s>] [-mode RENDERING|ACQUISITION|PIPELINED]");
+    }
+
+    /**
+     * Command line entry point, see {@link #usage()}.
+     *
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true"); // before any AWT class is loaded
+        final HeadlessPipelineRunner runner = new HeadlessPipelineRunner();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "-chip":
+                        runner.setChipClassName(args[++i]);
+                        break;
+                    case "-settings":
+                        runner.setSettingsFile(new File(args[++i]));
+                        break;
+                    case "-file":
+                        runner.setSource(Source.FILE);
+                        runner.setInputFile(new File(args[++i]));
+                        break;
+                    case "-udp":
+                        runner.setSource(Source.UDP);
+                        if (i + 1 < args.length && !args[i + 1].startsWith("-")) {
+                            runner.setUdpPort(Integer.parseInt(args[++i]));
+                        }
+                        break;
+                    case "-usb":
+                        runner.setSource(Source.USB);
+                        break;
+                    case "-out":
+                        runner.setOutputFile(new File(args[++i]));
+                        break;
+                    case "-report":
+                        runner.setReportFile(new File(args[++i]));
+                        break;
+                    case "-realtime":
+                        runner.setRealTime(true);
+                        break;
+                    case "-prefetch":
+                        runner.setPrefetch(true);
+                        break;
+                    case "-packet":
+                        runner.setPacketSize(Integer.parseInt(args[++i]));
+                        break;
+                    case "-duration":
+                        runner.setDurationS(Float.parseFloat(args[++i]));
+                        break;
+                    case "-mode":
+                        runner.setProcessingMode(FilterChain.ProcessingMode.valueOf(args[++i]));
+                        break;
+                    default:
+                        usage();
+                        System.exit(1);
+                }
+            }
+        } catch (RuntimeException e) {
+            usage();
+            System.exit(1);
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            runner.stop();
+            try {
+                runner.awaitFinished(SHUTDOWN_WAIT_MS); // so that run() puts back the preferences
+            } catch (InterruptedException e) {
+            }
+        }));
+        try {
+            runner.run();
+        } catch (Exception e) {
+            log.log(Level.SEVERE, e.toString(), e);
+            System.exit(1);
+        }
+        System.exit(0);
+    }
+}
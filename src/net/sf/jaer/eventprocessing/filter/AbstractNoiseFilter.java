@@ -22,15 +22,31 @@ import com.jogamp.opengl.GL2;
 import com.jogamp.opengl.GLAutoDrawable;
 import com.jogamp.opengl.util.gl2.GLUT;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import net.sf.jaer.chip.AEChip;
+import net.sf.jaer.event.BasicEvent;
+import net.sf.jaer.event.ColumnarEventPacket;
+import net.sf.jaer.event.EventPacket;
 import net.sf.jaer.eventprocessing.EventFilter2D;
 import net.sf.jaer.graphics.FrameAnnotater;
 import net.sf.jaer.util.RemoteControlCommand;
 import net.sf.jaer.util.RemoteControlled;
 
 /**
- * Superclass for all noise filters
+ * Superclass for all noise filters.
+ * <p>
+ * Filters with local support can optionally be run data-parallel by
+ * {@link #filterPacketTiled}: the sensor is split into horizontal tiles of
+ * rows, each tile also replays the events of its halo rows so that its private
+ * state is exactly the state the serial filter would see, the tiles are
+ * filtered concurrently on the ForkJoin pool, and the decisions are finally
+ * applied to the events in their original (timestamp) order. The events are
+ * sorted into per tile buckets in one pass, so that each tile only visits its
+ * own and its halo events. Results are identical to the serial path.
  *
  * @author tobi
  */
@@ -43,9 +59,27 @@ public abstract class AbstractNoiseFilter extends EventFilter2D implements Frame
     static protected HashMap<AbstractNoiseFilter,Integer> noiseStatDrawingMap=new HashMap<AbstractNoiseFilter,Integer>();
     protected int statisticsDrawingPosition=-10; // y coordinate we write ourselves to, start with -10 so we end up at 0 for first one (hack)
 
+    protected boolean tiledProcessingEnabled = getBoolean("tiledProcessingEnabled", false);
+    protected int numTiles = getInt("numTiles", Runtime.getRuntime().availableProcessors());
+    /** Return values of {@link #routeTiledEvent} */
+    protected static final int ROUTE_TILED = 0, ROUTE_SKIP = -1, ROUTE_SERIAL = -2;
+    /** Default decisions returned by {@link NoiseFilterTile#filterEvent} */
+    protected static final int TILE_PASS = 0, TILE_FILTERED_OUT = 1;
+    private NoiseFilterTile[][] tiles = null; // [pass][tile]
+    private int[] tileRowCounts = null;
+    private BasicEvent[] tiledEvents = new BasicEvent[0];
+    private int[][] tiledRows = new int[0][0]; // [pass][event]
+    private int[] tiledDecisions = new int[0];
+    private BasicEvent[] routedEvents = new BasicEvent[0]; // all events seen by routeTiledEvent, to undo an aborted packet
+    private int[][] tileOfRow = null; // [pass][row]
+    private int[] bucketStarts = new int[0], bucketNext = new int[0]; // tile k of the current pass gets bucketEvents[bucketStarts[k]..bucketStarts[k+1])
+    private int[] bucketEvents = new int[0];
+
     public AbstractNoiseFilter(AEChip chip) {
         super(chip);
         setPropertyTooltip("showFilteringStatistics", "Annotates screen with percentage of filtered out events, if filter implements this count");
+        setPropertyTooltip("tiledProcessingEnabled", "<html>Filters horizontal tiles of the sensor in parallel on the ForkJoin pool, if the filter supports it.<br>Results are identical to serial processing.");
+        setPropertyTooltip("numTiles", "Number of tiles (parallel tasks) used by tiledProcessingEnabled");
         
         if (chip.getRemoteControl() != null) {
             chip.getRemoteControl().addCommandListener(this, "setNoiseFilterParameters", "set correlation time or distance.");
@@ -67,6 +101,395 @@ public abstract class AbstractNoiseFilter extends EventFilter2D implements Frame
         putBoolean("showFilteringStatistics", showFilteringStatistics);
     }
 
+    /**
+     * @return the tiledProcessingEnabled
+     */
+    public boolean isTiledProcessingEnabled() {
+        return tiledProcessingEnabled;
+    }
+
+    /**
+     * @param tiledProcessingEnabled the tiledProcessingEnabled to set
+     */
+    synchronized public void setTiledProcessingEnabled(boolean tiledProcessingEnabled) {
+        boolean old = this.tiledProcessingEnabled;
+        this.tiledProcessingEnabled = tiledProcessingEnabled;
+        putBoolean("tiledProcessingEnabled", tiledProcessingEnabled);
+        invalidateTiles();
+        getSupport().firePropertyChange("tiledProcessingEnabled", old, tiledProcessingEnabled);
+    }
+
+    /**
+     * @return the numTiles
+     */
+    public int getNumTiles() {
+        return numTiles;
+    }
+
+    /**
+     * @param numTiles the numTiles to set, at least 1
+     */
+    synchronized public void setNumTiles(int numTiles) {
+        if (numTiles < 1) {
+            numTiles = 1;
+        }
+        int old = this.numTiles;
+        this.numTiles = numTiles;
+        putInt("numTiles", numTiles);
+        invalidateTiles();
+        getSupport().firePropertyChange("numTiles", old, numTiles);
+    }
+
+    /**
+     * One tile of rows of a tiled noise filter. The tile owns the rows
+     * [firstRow,endRow) and is also given the events of the halo rows within
+     * {@link #getTileHaloRows} of its own rows, so that it can keep private
+     * copies of the halo state it reads.
+     */
+    protected static abstract class NoiseFilterTile {
+
+        /** First owned row and one past the last owned row, in the coordinates of {@link #getTileRow} */
+        protected final int firstRow, endRow;
+
+        protected NoiseFilterTile(int firstRow, int endRow) {
+            this.firstRow = firstRow;
+            this.endRow = endRow;
+        }
+
+        /**
+         * Processes one event of this tile or of its halo; events arrive in
+         * packet order. The tile must only write the shared filter state of
+         * its own rows and must not read shared state of other rows, since
+         * other tiles are writing them concurrently. Events must not be
+         * modified.
+         *
+         * @param e the event
+         * @param row the row of the event for this pass
+         * @param owned true if the row belongs to this tile, false for halo
+         * events
+         * @param decision the decision of the previous pass, or TILE_PASS in
+         * the first pass; only meaningful for owned events
+         * @return the new decision for owned events; ignored for halo events
+         */
+        protected abstract int filterEvent(BasicEvent e, int row, boolean owned, int decision);
+    }
+
+    /**
+     * @return number of sequential tiled passes; 0 (the default) means the
+     * filter does not support tiled processing
+     */
+    protected int getTilePassCount() {
+        return 0;
+    }
+
+    /**
+     * @param pass the pass
+     * @return the number of rows that are split into tiles, or 0 if the filter
+     * state is not allocated yet
+     */
+    protected int getTileRowCount(int pass) {
+        return 0;
+    }
+
+    /**
+     * @param pass the pass
+     * @return the number of halo rows on each side of a tile, i.e. the
+     * spatial radius in rows over which an event reads or writes state
+     */
+    protected int getTileHaloRows(int pass) {
+        return 0;
+    }
+
+    /**
+     * @param e an event that was routed to the tiles
+     * @param pass the pass
+     * @return the row of the event in the pass
+     */
+    protected int getTileRow(BasicEvent e, int pass) {
+        return e.y;
+    }
+
+    /**
+     * Called serially in packet order for each event before the tiles run.
+     * Counts the event and handles events that do not need the tiles, like
+     * special events or events outside the array.
+     *
+     * @param e the event
+     * @return ROUTE_TILED to send it to the tiles, ROUTE_SKIP if it was
+     * handled here, or ROUTE_SERIAL to give up and process the packet
+     * serially
+     */
+    protected int routeTiledEvent(BasicEvent e) {
+        if (e.isSpecial()) {
+            return ROUTE_SKIP;
+        }
+        totalEventCount++;
+        return ROUTE_TILED;
+    }
+
+    /**
+     * Constructs a tile; called when tiles are (re)built, so tiles should copy
+     * the halo state they need from the current filter state.
+     *
+     * @param pass the pass
+     * @param firstRow the first row of the tile
+     * @param endRow one past the last row of the tile
+     * @return the tile
+     */
+    protected NoiseFilterTile createTile(int pass, int firstRow, int endRow) {
+        return null;
+    }
+
+    /**
+     * Called before events are routed, e.g. to reset per-packet statistics
+     */
+    protected void beginTiledPacket() {
+    }
+
+    /**
+     * Called after all decisions have been applied
+     */
+    protected void endTiledPacket() {
+    }
+
+    /**
+     * Applies the final decision of a tile to the event; called serially in
+     * packet order.
+     *
+     * @param e the event
+     * @param decision the decision
+     */
+    protected void applyTileDecision(BasicEvent e, int decision) {
+        if (decision == TILE_FILTERED_OUT) {
+            e.setFilteredOut(true);
+            filteredOutEventCount++;
+        }
+    }
+
+    /**
+     * Discards the tiles, so that they are rebuilt from the filter state for
+     * the next packet. Must be called whenever the filter state is reset or
+     * reallocated, or modified by the serial path.
+     */
+    protected void invalidateTiles() {
+        tiles = null;
+    }
+
+    /**
+     * Filters the packet in place with parallel tiles, if tiledProcessingEnabled
+     * and the filter supports it. Counts totalEventCount and
+     * filteredOutEventCount.
+     *
+     * @param in the packet
+     * @return true if the packet was filtered, false if it must be filtered
+     * serially
+     */
+    protected boolean filterPacketTiled(EventPacket<?> in) {
+        final int passes = getTilePassCount();
+        if (!tiledProcessingEnabled || passes < 1 || in instanceof ColumnarEventPacket) { // columnar packets use flyweight events
+            invalidateTiles();
+            return false;
+        }
+        if (!tilesValid(passes) && !buildTiles(passes)) {
+            return false;
+        }
+        totalEventCount = 0;
+        filteredOutEventCount = 0;
+        beginTiledPacket();
+        int n = 0, routed = 0;
+        for (BasicEvent e : in) {
+            if (e == null) {
+                break;
+            }
+            if (routed == routedEvents.length) {
+                routedEvents = Arrays.copyOf(routedEvents, Math.max(1024, routed * 2));
+            }
+            routedEvents[routed++] = e;
+            int route = routeTiledEvent(e);
+            if (route == ROUTE_SERIAL) {
+                // undo the routing, so that the serial path sees and counts the packet as if it came first
+                for (int i = 0; i < routed; i++) {
+                    routedEvents[i].setFilteredOut(false); // the input iterator only returns events that are not filtered out
+                    routedEvents[i] = null;
+                }
+                for (int i = 0; i < n; i++) {
+                    tiledEvents[i] = null;
+                }
+                totalEventCount = 0;
+                filteredOutEventCount = 0;
+                invalidateTiles();
+                return false;
+            } else if (route == ROUTE_SKIP) {
+                continue;
+            }
+            if (n == tiledEvents.length) {
+                growTiledArrays(passes);
+            }
+            tiledEvents[n] = e;
+            for (int p = 0; p < passes; p++) {
+                tiledRows[p][n] = getTileRow(e, p);
+            }
+            tiledDecisions[n] = TILE_PASS;
+            n++;
+        }
+        Arrays.fill(routedEvents, 0, routed, null);
+        if (n > 0) {
+            for (int p = 0; p < passes; p++) {
+                bucketEvents(p, n);
+                ForkJoinPool.commonPool().invoke(new TiledPassTask(p));
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            applyTileDecision(tiledEvents[i], tiledDecisions[i]);
+            tiledEvents[i] = null;
+        }
+        endTiledPacket();
+        return true;
+    }
+
+    private boolean tilesValid(int passes) {
+        if (tiles == null || tiles.length != passes) {
+            return false;
+        }
+        for (int p = 0; p < passes; p++) {
+            if (tileRowCounts[p] != getTileRowCount(p)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean buildTiles(int passes) {
+        NoiseFilterTile[][] newTiles = new NoiseFilterTile[passes][];
+        int[][] newTileOfRow = new int[passes][];
+        tileRowCounts = new int[passes];
+        for (int p = 0; p < passes; p++) {
+            int rows = getTileRowCount(p);
+            if (rows <= 0) {
+                return false;
+            }
+            int nt = Math.min(numTiles, rows);
+            newTiles[p] = new NoiseFilterTile[nt];
+            newTileOfRow[p] = new int[rows];
+            for (int k = 0; k < nt; k++) {
+                newTiles[p][k] = createTile(p, (rows * k) / nt, (rows * (k + 1)) / nt);
+                if (newTiles[p][k] == null) {
+                    return false;
+                }
+                Arrays.fill(newTileOfRow[p], newTiles[p][k].firstRow, newTiles[p][k].endRow, k);
+            }
+            tileRowCounts[p] = rows;
+        }
+        tiles = newTiles;
+        tileOfRow = newTileOfRow;
+        return true;
+    }
+
+    /**
+     * Sorts the indices of the tiled events into one bucket per tile of the
+     * pass, in packet order. An event goes to every tile whose rows or halo
+     * rows contain its row.
+     */
+    private void bucketEvents(int pass, int n) {
+        final int nt = tiles[pass].length, rowCount = tileRowCounts[pass], halo = getTileHaloRows(pass);
+        final int[] rows = tiledRows[pass], owner = tileOfRow[pass];
+        if (bucketStarts.length < nt + 1) {
+            bucketStarts = new int[nt + 1];
+            bucketNext = new int[nt];
+        }
+        Arrays.fill(bucketStarts, 0, nt + 1, 0);
+        for (int i = 0; i < n; i++) { // count
+            final int lo = Math.max(rows[i] - halo, 0), hi = Math.min(rows[i] + halo, rowCount - 1);
+            if (lo <= hi) {
+                for (int k = owner[lo]; k <= owner[hi]; k++) {
+                    bucketStarts[k + 1]++;
+                }
+            }
+        }
+        for (int k = 0; k < nt; k++) {
+            bucketStarts[k + 1] += bucketStarts[k];
+        }
+        if (bucketEvents.length < bucketStarts[nt]) {
+            bucketEvents = new int[Math.max(bucketStarts[nt], bucketEvents.length * 2)];
+        }
+        System.arraycopy(bucketStarts, 0, bucketNext, 0, nt);
+        for (int i = 0; i < n; i++) { // fill
+            final int lo = Math.max(rows[i] - halo, 0), hi = Math.min(rows[i] + halo, rowCount - 1);
+            if (lo <= hi) {
+                for (int k = owner[lo]; k <= owner[hi]; k++) {
+                    bucketEvents[bucketNext[k]++] = i;
+                }
+            }
+        }
+    }
+
+    private void growTiledArrays(int passes) {
+        int n = Math.max(1024, tiledEvents.length * 2);
+        BasicEvent[] events = new BasicEvent[n];
+        System.arraycopy(tiledEvents, 0, events, 0, tiledEvents.length);
+        tiledEvents = events;
+        int[][] rows = new int[passes][n];
+        for (int p = 0; p < passes && p < tiledRows.length; p++) {
+            System.arraycopy(tiledRows[p], 0, rows[p], 0, tiledRows[p].length);
+        }
+        tiledRows = rows;
+        int[] decisions = new int[n];
+        System.arraycopy(tiledDecisions, 0, decisions, 0, tiledDecisions.length);
+        tiledDecisions = decisions;
+    }
+
+    /**
+     * Runs all tiles of one pass concurrently
+     */
+    private class TiledPassTask extends RecursiveAction {
+
+        final int pass;
+
+        TiledPassTask(int pass) {
+            this.pass = pass;
+        }
+
+        @Override
+        protected void compute() {
+            ArrayList<TileTask> tasks = new ArrayList<>(tiles[pass].length);
+            for (int k = 0; k < tiles[pass].length; k++) {
+                tasks.add(new TileTask(tiles[pass][k], pass, bucketStarts[k], bucketStarts[k + 1]));
+            }
+            invokeAll(tasks);
+        }
+    }
+
+    /**
+     * Feeds one tile the events of its bucket, i.e. of its rows and halo
+     * rows, in packet order
+     */
+    private class TileTask extends RecursiveAction {
+
+        final NoiseFilterTile tile;
+        final int pass, start, end;
+
+        TileTask(NoiseFilterTile tile, int pass, int start, int end) {
+            this.tile = tile;
+            this.pass = pass;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            final int[] rows = tiledRows[pass];
+            for (int b = start; b < end; b++) {
+                final int i = bucketEvents[b];
+                final int row = rows[i];
+                if (row >= tile.firstRow && row < tile.endRow) {
+                    tiledDecisions[i] = tile.filterEvent(tiledEvents[i], row, true, tiledDecisions[i]);
+                } else {
+                    tile.filterEvent(tiledEvents[i], row, false, TILE_PASS);
+                }
+            }
+        }
+    }
+
     @Override
     public void annotate(GLAutoDrawable drawable) {
         if (!showFilteringStatistics) {
@@ -71,6 +71,9 @@ public class BackgroundActivityFilter extends AbstractNoiseFilter {
         if (lastTimesMap == null) {
             allocateMaps(chip);
         }
+        if (filterPacketTiled(in)) {
+            return in;
+        }
         totalEventCount = 0;
         filteredOutEventCount = 0;
 
@@ -121,6 +124,85 @@ public class BackgroundActivityFilter extends AbstractNoiseFilter {
         return in;
     }
 
+    @Override
+    protected int getTilePassCount() {
+        return 1;
+    }
+
+    @Override
+    protected int getTileRowCount(int pass) {
+        return lastTimesMap == null ? 0 : lastTimesMap[0].length;
+    }
+
+    @Override
+    protected int getTileHaloRows(int pass) {
+        return 1; // events write their 8 neighbors
+    }
+
+    @Override
+    protected int getTileRow(BasicEvent e, int pass) {
+        return (short) (e.y >>> subsampleBy);
+    }
+
+    @Override
+    protected int routeTiledEvent(BasicEvent e) {
+        if (e.isSpecial()) {
+            return ROUTE_SKIP;
+        }
+        totalEventCount++;
+        short x = (short) (e.x >>> subsampleBy), y = (short) (e.y >>> subsampleBy);
+        if ((x < 0) || (x > sx) || (y < 0) || (y > sy)) {
+            filteredOutEventCount++;
+            return ROUTE_SKIP;
+        }
+        return ROUTE_TILED;
+    }
+
+    @Override
+    protected NoiseFilterTile createTile(int pass, int firstRow, int endRow) {
+        return new ActivityTile(firstRow, endRow);
+    }
+
+    @Override
+    protected void applyTileDecision(BasicEvent e, int decision) {
+        ts = e.timestamp;
+        super.applyTileDecision(e, decision);
+    }
+
+    /**
+     * Tile that only reads its own pixel and writes the neighbors that lie in
+     * its own rows; the halo events supply the writes from adjacent rows.
+     */
+    private class ActivityTile extends NoiseFilterTile {
+
+        ActivityTile(int firstRow, int endRow) {
+            super(firstRow, endRow);
+        }
+
+        @Override
+        protected int filterEvent(BasicEvent e, int y, boolean owned, int decision) {
+            final short x = (short) (e.x >>> subsampleBy);
+            final int ts = e.timestamp;
+            if (owned) {
+                int lastT = lastTimesMap[x][y];
+                int deltaT = (ts - lastT);
+                if (!((deltaT < dt) && (lastT != DEFAULT_TIMESTAMP)) && !(letFirstEventThrough && lastT == DEFAULT_TIMESTAMP)) {
+                    decision = TILE_FILTERED_OUT;
+                }
+            }
+            if (((x > 0) && (x < sx)) && ((y > 0) && (y < sy))) {
+                for (int yy = Math.max(y - 1, firstRow); (yy <= y + 1) && (yy < endRow); yy++) {
+                    lastTimesMap[x - 1][yy] = ts;
+                    lastTimesMap[x + 1][yy] = ts;
+                    if (yy != y) {
+                        lastTimesMap[x][yy] = ts;
+                    }
+                }
+            }
+            return decision;
+        }
+    }
+
     @Override
     public synchronized final void resetFilter() {
         initFilter();
@@ -134,6 +216,7 @@ public class BackgroundActivityFilter extends AbstractNoiseFilter {
     }
 
     private void allocateMaps(AEChip chip) {
+        invalidateTiles();
         if ((chip != null) && (chip.getNumCells() > 0)) {
             lastTimesMap = new int[chip.getSizeX()][chip.getSizeY()];
             for (int[] arrayRow : lastTimesMap) {
@@ -28,6 +28,8 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Random;
 import net.sf.jaer.Description;
 import net.sf.jaer.DevelopmentStatus;
@@ -39,6 +41,7 @@ import net.sf.jaer.event.OutputEventIterator;
 import net.sf.jaer.event.PolarityEvent;
 import net.sf.jaer.eventio.AEInputStream;
 import static net.sf.jaer.eventprocessing.EventFilter.log;
+import net.sf.jaer.eventprocessing.BatchMetrics;
 import net.sf.jaer.eventprocessing.EventFilter2D;
 import net.sf.jaer.eventprocessing.FilterChain;
 import net.sf.jaer.graphics.AEViewer;
@@ -53,7 +56,7 @@ import net.sf.jaer.util.RemoteControlled;
  */
 @Description("Tests noise filters by injecting known noise and measuring how much signal and noise is filtered")
 @DevelopmentStatus(DevelopmentStatus.Status.InDevelopment)
-public class NoiseTesterFilter extends AbstractNoiseFilter implements FrameAnnotater, RemoteControlled {
+public class NoiseTesterFilter extends AbstractNoiseFilter implements FrameAnnotater, RemoteControlled, BatchMetrics {
 
     FilterChain chain;
     private float shotNoiseRateHz = getFloat("shotNoiseRateHz", .1f);
@@ -80,8 +83,14 @@ public class NoiseTesterFilter extends AbstractNoiseFilter implements FrameAnnot
     private float TNR = 0;
     private float accuracy = 0;
     private float BR = 0;
+    private long totalTP = 0, totalTN = 0, totalFP = 0, totalFN = 0; // summed since reset, for batch reports
     private EventPacket<ApsDvsEvent> outputPacketWithNoiseAdded = null;
-    private Random random = new Random();
+    /**
+     * Seed of the injected noise, reset with the filter so that the same
+     * recording always gets the same noise and batch reports are reproducible
+     */
+    private static final long NOISE_SEED = 0x5eed;
+    private final Random random = new Random(NOISE_SEED);
     private int poissonDtUs = 1;
     private AbstractNoiseFilter[] noiseFilters = null;
     private AbstractNoiseFilter selectedFilter = null;
@@ -242,6 +251,10 @@ public class NoiseTesterFilter extends AbstractNoiseFilter implements FrameAnnot
 //        System.out.println("added noise：" + addedNoise2.size());
         addedNoise2.removeAll(addedNoise); // noise subtraction FP, get TN
         TN = addedNoise2.size();
+        totalTP += TP;
+        totalTN += TN;
+        totalFP += FP;
+        totalFN += FN;
 //        System.out.println("TN " + TN);
 
 //        System.out.printf("every packet is: %d %d %d %d %d, %d %d %d: %d %d %d %d\n", inList.size(), newInList.size(), outList.size(), outRealList.size(), outNoiseList.size(), outInitList.size(), outInitRealList.size(), outInitNoiseList.size(), TP, TN, FP, FN);
@@ -269,6 +282,29 @@ public class NoiseTesterFilter extends AbstractNoiseFilter implements FrameAnnot
     @Override
     public void resetFilter() {
         getEnclosedFilterChain().reset();
+        random.setSeed(NOISE_SEED);
+        totalTP = 0;
+        totalTN = 0;
+        totalFP = 0;
+        totalFN = 0;
+    }
+
+    @Override
+    public Map<String, Long> getBatchCounts() {
+        LinkedHashMap<String, Long> m = new LinkedHashMap<>();
+        m.put("TP", totalTP);
+        m.put("TN", totalTN);
+        m.put("FP", totalFP);
+        m.put("FN", totalFN);
+        return m;
+    }
+
+    @Override
+    public String formatBatchCounts(Map<String, Long> counts) {
+        long tp = counts.getOrDefault("TP", 0L), tn = counts.getOrDefault("TN", 0L), fp = counts.getOrDefault("FP", 0L), fn = counts.getOrDefault("FN", 0L);
+        long all = tp + tn + fp + fn;
+        return String.format("TP=%d TN=%d FP=%d FN=%d TPR=%.4f TNR=%.4f accuracy=%.4f", tp, tn, fp, fn,
+                tp + fn == 0 ? 0 : (double) tp / (tp + fn), tn + fp == 0 ? 0 : (double) tn / (tn + fp), all == 0 ? 0 : (double) (tp + tn) / all);
     }
 
     @Override
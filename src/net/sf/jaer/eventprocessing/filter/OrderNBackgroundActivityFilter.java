@@ -46,6 +46,8 @@ public class OrderNBackgroundActivityFilter extends AbstractNoiseFilter implemen
     int[] lastRowTs, lastColTs; // these arrays hold last timestamp of event in each row/column. A value of 0 means no event since reset.
     int[] lastXByRow, lastYByCol;
     int sx = 0, sy = 0;
+    /** Decision bits of the row pass of tiled processing */
+    private static final int ROW_CORRELATED = 2, SELF_CORRELATED = 4;
 
     public OrderNBackgroundActivityFilter(AEChip chip) {
         super(chip);
@@ -55,6 +57,9 @@ public class OrderNBackgroundActivityFilter extends AbstractNoiseFilter implemen
 
     @Override
     public EventPacket<?> filterPacket(EventPacket<?> in) {
+        if (filterPacketTiled(in)) {
+            return in;
+        }
         totalEventCount = 0;
         filteredOutEventCount = 0;
         for (BasicEvent e : in) {
@@ -70,6 +75,7 @@ public class OrderNBackgroundActivityFilter extends AbstractNoiseFilter implemen
 
     @Override
     public void resetFilter() {
+        invalidateTiles();
         sx = chip.getSizeX();
         sy = chip.getSizeY();
         if (lastRowTs == null) {
@@ -86,6 +92,7 @@ public class OrderNBackgroundActivityFilter extends AbstractNoiseFilter implemen
 
     @Override
     public void initFilter() {
+        invalidateTiles();
         sx = chip.getSizeX();
         sy = chip.getSizeY();
         lastRowTs = new int[sy];
@@ -129,6 +136,194 @@ public class OrderNBackgroundActivityFilter extends AbstractNoiseFilter implemen
         saveEvent(e);
     }
 
+    /**
+     * The filter state is separable: the row arrays only depend on the events
+     * in each row and the column arrays only on the events in each column. The
+     * first tiled pass therefore evaluates the row checks on horizontal tiles
+     * and the second pass evaluates the column checks on vertical tiles,
+     * combining them exactly as {@link #checkAndFilterEvent} does.
+     */
+    @Override
+    protected int getTilePassCount() {
+        return 2;
+    }
+
+    @Override
+    protected int getTileRowCount(int pass) {
+        if (lastRowTs == null || sx * sy == 0) {
+            return 0;
+        }
+        return pass == 0 ? lastRowTs.length : lastColTs.length;
+    }
+
+    @Override
+    protected int getTileHaloRows(int pass) {
+        return 1;
+    }
+
+    @Override
+    protected int getTileRow(BasicEvent e, int pass) {
+        return pass == 0 ? e.y : e.x;
+    }
+
+    @Override
+    protected int routeTiledEvent(BasicEvent e) {
+        totalEventCount++;
+        if (e.x < 0 || e.y < 0 || e.x >= sx || e.y >= sy) {
+            return ROUTE_SERIAL;
+        }
+        return ROUTE_TILED;
+    }
+
+    @Override
+    protected NoiseFilterTile createTile(int pass, int firstRow, int endRow) {
+        return pass == 0 ? new RowTile(firstRow, endRow) : new ColumnTile(firstRow, endRow);
+    }
+
+    @Override
+    protected void applyTileDecision(BasicEvent e, int decision) {
+        e.setFilteredOut(decision == TILE_FILTERED_OUT);
+        if (decision == TILE_FILTERED_OUT) {
+            filteredOutEventCount++;
+        }
+    }
+
+    private boolean isEdgeEvent(BasicEvent e) {
+        return e.x <= 0 || e.y <= 0 || e.x >= sx - 1 || e.y >= sy - 1;
+    }
+
+    /**
+     * @return true if a neighbor row or column slot that was just written by
+     * the same event would correlate with it
+     */
+    private boolean isSavedEventCorrelated(BasicEvent e) {
+        return e.timestamp != 0 && 0 < dtUs;
+    }
+
+    /**
+     * Evaluates the row checks; the rows just outside the tile are private
+     * copies updated by the halo events.
+     */
+    private class RowTile extends NoiseFilterTile {
+
+        int aboveTs, aboveX, belowTs, belowX;
+
+        RowTile(int firstRow, int endRow) {
+            super(firstRow, endRow);
+            aboveTs = firstRow > 0 ? lastRowTs[firstRow - 1] : 0;
+            aboveX = firstRow > 0 ? lastXByRow[firstRow - 1] : -1;
+            belowTs = endRow < sy ? lastRowTs[endRow] : 0;
+            belowX = endRow < sy ? lastXByRow[endRow] : -1;
+        }
+
+        private boolean correlated(BasicEvent e, int y) {
+            final int ts, x;
+            if (y < firstRow) {
+                ts = aboveTs;
+                x = aboveX;
+            } else if (y >= endRow) {
+                ts = belowTs;
+                x = belowX;
+            } else {
+                ts = lastRowTs[y];
+                x = lastXByRow[y];
+            }
+            return ts != 0 && e.timestamp - ts < dtUs && Math.abs(x - e.x) <= 1;
+        }
+
+        @Override
+        protected int filterEvent(BasicEvent e, int y, boolean owned, int decision) {
+            if (!owned) {
+                if (y < firstRow) {
+                    aboveTs = e.timestamp;
+                    aboveX = e.x;
+                } else {
+                    belowTs = e.timestamp;
+                    belowX = e.x;
+                }
+                return decision;
+            }
+            if (!isEdgeEvent(e)) {
+                // a correlated row above saves the event before our own row is checked
+                final boolean below = correlated(e, y - 1);
+                final boolean self = below ? isSavedEventCorrelated(e) : correlated(e, y);
+                final boolean above = correlated(e, y + 1);
+                if (below || self || above) {
+                    decision |= ROW_CORRELATED;
+                }
+                if (self && !above) {
+                    decision |= SELF_CORRELATED;
+                }
+            }
+            lastRowTs[y] = e.timestamp;
+            lastXByRow[y] = e.x;
+            return decision;
+        }
+    }
+
+    /**
+     * Evaluates the column checks and makes the final decision
+     */
+    private class ColumnTile extends NoiseFilterTile {
+
+        int leftTs, leftY, rightTs, rightY;
+
+        ColumnTile(int firstColumn, int endColumn) {
+            super(firstColumn, endColumn);
+            leftTs = firstColumn > 0 ? lastColTs[firstColumn - 1] : 0;
+            leftY = firstColumn > 0 ? lastYByCol[firstColumn - 1] : -1;
+            rightTs = endColumn < sx ? lastColTs[endColumn] : 0;
+            rightY = endColumn < sx ? lastYByCol[endColumn] : -1;
+        }
+
+        private boolean correlated(BasicEvent e, int x) {
+            final int ts, y;
+            if (x < firstRow) {
+                ts = leftTs;
+                y = leftY;
+            } else if (x >= endRow) {
+                ts = rightTs;
+                y = rightY;
+            } else {
+                ts = lastColTs[x];
+                y = lastYByCol[x];
+            }
+            return ts != 0 && e.timestamp - ts < dtUs && Math.abs(y - e.y) <= 1;
+        }
+
+        @Override
+        protected int filterEvent(BasicEvent e, int x, boolean owned, int decision) {
+            if (!owned) {
+                if (x < firstRow) {
+                    leftTs = e.timestamp;
+                    leftY = e.y;
+                } else {
+                    rightTs = e.timestamp;
+                    rightY = e.y;
+                }
+                return decision;
+            }
+            int result;
+            if (isEdgeEvent(e)) {
+                result = TILE_FILTERED_OUT;
+            } else {
+                final boolean rowCorrelated = (decision & ROW_CORRELATED) != 0;
+                if (correlated(e, x - 1)) {
+                    result = TILE_PASS;
+                } else if (rowCorrelated ? isSavedEventCorrelated(e) : correlated(e, x)) {
+                    result = (decision & SELF_CORRELATED) != 0 ? TILE_FILTERED_OUT : TILE_PASS;
+                } else if (correlated(e, x + 1)) {
+                    result = TILE_PASS;
+                } else {
+                    result = rowCorrelated ? TILE_PASS : TILE_FILTERED_OUT;
+                }
+            }
+            lastColTs[x] = e.timestamp;
+            lastYByCol[x] = e.y;
+            return result;
+        }
+    }
+
     private void saveEvent(BasicEvent e) {
         lastXByRow[e.y] = e.x;
         lastYByCol[e.x] = e.y;
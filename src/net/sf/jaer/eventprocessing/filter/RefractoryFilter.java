@@ -9,6 +9,7 @@ import net.sf.jaer.Description;
 import net.sf.jaer.DevelopmentStatus;
 import net.sf.jaer.chip.AEChip;
 import net.sf.jaer.event.BasicEvent;
+import net.sf.jaer.event.ColumnarEventPacket;
 import net.sf.jaer.event.EventPacket;
 import net.sf.jaer.eventio.AEFileInputStreamInterface;
 import net.sf.jaer.eventio.AEInputStream;
@@ -56,6 +57,7 @@ public class RefractoryFilter extends AbstractNoiseFilter implements PropertyCha
     }
 
     void allocateMaps(AEChip chip) {
+        invalidateTiles();
         lastTimestamps = new int[chip.getSizeX()][chip.getSizeY()];
     }
     int ts = 0; // used to reset filter
@@ -74,6 +76,13 @@ public class RefractoryFilter extends AbstractNoiseFilter implements PropertyCha
             allocateMaps(chip);
         }
         maybeAddListeners(chip);
+        if (in instanceof ColumnarEventPacket) {
+            filterColumnarPacket((ColumnarEventPacket) in);
+            return in;
+        }
+        if (filterPacketTiled(in)) {
+            return in;
+        }
         int sx = chip.getSizeX(), sy = chip.getSizeY();
         // for each event only write it to the out buffers if it is 
         // more than refractoryPeriodUs after the last time an event happened in neighborhood
@@ -109,6 +118,93 @@ public class RefractoryFilter extends AbstractNoiseFilter implements PropertyCha
         return in;
     }
 
+    /**
+     * Same as the loop over the events in filterPacket, but reads the columns
+     * of the packet instead of going through flyweight events.
+     */
+    private void filterColumnarPacket(ColumnarEventPacket<?> in) {
+        final int n = in.getSize(), sx = chip.getSizeX(), sy = chip.getSizeY();
+        final int[] timestamps = in.getTimestamps();
+        final short[] xs = in.getXs(), ys = in.getYs();
+        totalEventCount = 0;
+        filteredOutEventCount = 0;
+        for (int k = 0; k < n; k++) {
+            if (in.isFilteredOut(k) || in.isSpecial(k)) {
+                continue;
+            }
+            if (xs[k] >= sx || xs[k] < 0 || ys[k] >= sy || ys[k] < 0) {
+                continue;
+            }
+            totalEventCount++;
+            ts = timestamps[k];
+            short x = (short) (xs[k] >>> subsampleBy), y = (short) (ys[k] >>> subsampleBy);
+            int lastt = lastTimestamps[x][y];
+            int deltat = (ts - lastt);
+            boolean longISI = lastt == DEFAULT_TIMESTAMP || deltat > refractoryPeriodUs;
+            if ((longISI && !passShortISIsEnabled) || (!longISI && passShortISIsEnabled)) {
+                in.setFilteredOut(k, false);
+            } else {
+                in.setFilteredOut(k, true);
+                filteredOutEventCount++;
+            }
+            lastTimestamps[x][y] = ts;
+        }
+    }
+
+    @Override
+    protected int getTilePassCount() {
+        return 1;
+    }
+
+    @Override
+    protected int getTileRowCount(int pass) {
+        return lastTimestamps == null ? 0 : lastTimestamps[0].length;
+    }
+
+    @Override
+    protected int getTileRow(BasicEvent e, int pass) {
+        return (short) (e.y >>> subsampleBy);
+    }
+
+    @Override
+    protected int routeTiledEvent(BasicEvent e) {
+        if (e.isSpecial()) {
+            return ROUTE_SKIP;
+        }
+        if (e.x >= chip.getSizeX() || e.x < 0 || e.y >= chip.getSizeY() || e.y < 0) {
+            return ROUTE_SKIP;
+        }
+        totalEventCount++;
+        return ROUTE_TILED;
+    }
+
+    @Override
+    protected NoiseFilterTile createTile(int pass, int firstRow, int endRow) {
+        return new NoiseFilterTile(firstRow, endRow) { // pixels are independent, so no halo is needed
+            @Override
+            protected int filterEvent(BasicEvent e, int y, boolean owned, int decision) {
+                final int ts = e.timestamp;
+                final short x = (short) (e.x >>> subsampleBy);
+                int lastt = lastTimestamps[x][y];
+                int deltat = (ts - lastt);
+                boolean longISI = lastt == DEFAULT_TIMESTAMP || deltat > refractoryPeriodUs;
+                lastTimestamps[x][y] = ts;
+                return ((longISI && !passShortISIsEnabled) || (!longISI && passShortISIsEnabled)) ? TILE_PASS : TILE_FILTERED_OUT;
+            }
+        };
+    }
+
+    @Override
+    protected void applyTileDecision(BasicEvent e, int decision) {
+        ts = e.timestamp;
+        if (decision == TILE_PASS) {
+            e.setFilteredOut(false);
+        } else {
+            e.setFilteredOut(true);
+            filteredOutEventCount++;
+        }
+    }
+
     /**
      * gets the refractory period
      *
@@ -137,6 +233,7 @@ public class RefractoryFilter extends AbstractNoiseFilter implements PropertyCha
     }
 
     void resetLastTimestamps() {
+        invalidateTiles();
         for (int[] a : lastTimestamps) {
             Arrays.fill(a, DEFAULT_TIMESTAMP);
         }
@@ -66,6 +66,7 @@ public class SpatioTemporalCorrelationFilter extends AbstractNoiseFilter {
 
     int[][] lastTimesMap;
     private int ts = 0, lastTimestamp = DEFAULT_TIMESTAMP; // used to reset filter
+    private int tiledLastTimestamp = DEFAULT_TIMESTAMP;
 
     public SpatioTemporalCorrelationFilter(AEChip chip) {
         super(chip);
@@ -101,6 +102,12 @@ public class SpatioTemporalCorrelationFilter extends AbstractNoiseFilter {
         if (lastTimesMap == null || lastTimesMap.length != sx || lastTimesMap[0].length != sy) {
             allocateMaps(chip);
         }
+        if (filterPacketTiled(in)) {
+            if (totalEventCount > 0) {
+                adaptFiltering();
+            }
+            return in;
+        }
         resetActivityHistograms();
 
         // for each event only keep it if it is within dt of the last time
@@ -165,6 +172,136 @@ public class SpatioTemporalCorrelationFilter extends AbstractNoiseFilter {
         return in;
     }
 
+    @Override
+    protected int getTilePassCount() {
+        return 1;
+    }
+
+    @Override
+    protected int getTileRowCount(int pass) {
+        return lastTimesMap == null ? 0 : lastTimesMap[0].length;
+    }
+
+    @Override
+    protected int getTileHaloRows(int pass) {
+        return 1; // events read their 3x3 neighborhood
+    }
+
+    @Override
+    protected int getTileRow(BasicEvent e, int pass) {
+        return e.y >> subsampleBy;
+    }
+
+    @Override
+    protected void beginTiledPacket() {
+        resetActivityHistograms();
+        tiledLastTimestamp = lastTimestamp;
+    }
+
+    @Override
+    protected int routeTiledEvent(BasicEvent e) {
+        if (e.isSpecial()) {
+            return ROUTE_SKIP;
+        }
+        totalEventCount++;
+        final int ts = e.timestamp;
+        if (ts < tiledLastTimestamp) {
+            return ROUTE_SERIAL; // the serial path resets the filter in the middle of the packet
+        }
+        tiledLastTimestamp = ts;
+        final int x = (e.x >> subsampleBy), y = (e.y >> subsampleBy);
+        if ((x < 0) || (x >= lastTimesMap.length) || (y < 0) || (y >= lastTimesMap[0].length)) {
+            e.setFilteredOut(true);
+            filteredOutEventCount++;
+            return ROUTE_SKIP;
+        }
+        activityHistInput[x >> activityBinDimBits][y >> activityBinDimBits]++;
+        return ROUTE_TILED;
+    }
+
+    @Override
+    protected NoiseFilterTile createTile(int pass, int firstRow, int endRow) {
+        return new CorrelationTile(firstRow, endRow);
+    }
+
+    @Override
+    protected void applyTileDecision(BasicEvent e, int decision) {
+        if (decision == TILE_FILTERED_OUT) {
+            e.setFilteredOut(true);
+            filteredOutEventCount++;
+        } else {
+            activityHistFiltered[(e.x >> subsampleBy) >> activityBinDimBits][(e.y >> subsampleBy) >> activityBinDimBits]++;
+        }
+    }
+
+    @Override
+    protected void endTiledPacket() {
+        lastTimestamp = tiledLastTimestamp;
+    }
+
+    /**
+     * Tile that keeps private copies of the row above and the row below it,
+     * updated by the halo events.
+     */
+    private class CorrelationTile extends NoiseFilterTile {
+
+        final int[] above, below;
+
+        CorrelationTile(int firstRow, int endRow) {
+            super(firstRow, endRow);
+            final int sx = lastTimesMap.length, sy = lastTimesMap[0].length;
+            above = new int[sx];
+            below = new int[sx];
+            for (int x = 0; x < sx; x++) {
+                above[x] = firstRow > 0 ? lastTimesMap[x][firstRow - 1] : DEFAULT_TIMESTAMP;
+                below[x] = endRow < sy ? lastTimesMap[x][endRow] : DEFAULT_TIMESTAMP;
+            }
+        }
+
+        private int lastTime(int x, int y) {
+            if (y < firstRow) {
+                return above[x];
+            } else if (y >= endRow) {
+                return below[x];
+            }
+            return lastTimesMap[x][y];
+        }
+
+        @Override
+        protected int filterEvent(BasicEvent e, int y, boolean owned, int decision) {
+            final int x = e.x >> subsampleBy;
+            final int ts = e.timestamp;
+            if (!owned) {
+                if (y < firstRow) {
+                    above[x] = ts;
+                } else {
+                    below[x] = ts;
+                }
+                return decision;
+            }
+            final int sx = lastTimesMap.length, sy = lastTimesMap[0].length;
+            if (lastTimesMap[x][y] == DEFAULT_TIMESTAMP) {
+                lastTimesMap[x][y] = ts;
+                return letFirstEventThrough ? TILE_PASS : TILE_FILTERED_OUT;
+            }
+            int ncorrelated = 0;
+            for (int xx = x - 1; xx <= x + 1; xx++) {
+                for (int yy = y - 1; yy <= y + 1; yy++) {
+                    if ((xx < 0) || (xx >= sx) || (yy < 0) || (yy >= sy)) {
+                        continue;
+                    }
+                    final int lastT = lastTime(xx, yy);
+                    final int deltaT = (ts - lastT);
+                    if (deltaT < dt && lastT != DEFAULT_TIMESTAMP) {
+                        ncorrelated++;
+                    }
+                }
+            }
+            lastTimesMap[x][y] = ts;
+            return ncorrelated < numMustBeCorrelated ? TILE_FILTERED_OUT : decision;
+        }
+    }
+
     @Override
     public void annotate(GLAutoDrawable drawable) {
         if (!showFilteringStatistics) {
@@ -201,6 +338,7 @@ public class SpatioTemporalCorrelationFilter extends AbstractNoiseFilter {
     }
 
     private void allocateMaps(AEChip chip) {
+        invalidateTiles();
         if ((chip != null) && (chip.getNumCells() > 0)) {
             lastTimesMap = new int[chip.getSizeX() >> subsampleBy][chip.getSizeY() >> subsampleBy];
             for (int[] arrayRow : lastTimesMap) {
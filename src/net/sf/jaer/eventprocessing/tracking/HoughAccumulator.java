@@ -0,0 +1,355 @@
+/*
+ * HoughAccumulator.java
+ *
+ * Copyright (C) 2026 jAER project.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ */
+package net.sf.jaer.eventprocessing.tracking;
+
+import java.util.Arrays;
+
+/**
+ * Hough accumulator for trackers that vote per event and decay all cells by
+ * the same factor, e.g. once per packet. The cost of votes, decay and maxima
+ * search depends on the number of votes, not on the size of the accumulator.
+ * <p>
+ * Since every cell decays by the same factor, the decay is kept as one scale
+ * that multiplies all stored values, and it is applied to a cell only when the
+ * cell is read or written. The scale does not change the order of the cells,
+ * so the cells that got votes are kept in a max-heap by stored value, which is
+ * updated on each vote; the largest cells and local maxima are then found by
+ * walking down the heap.
+ *
+ * @author agent
+ */
+public class HoughAccumulator {
+
+    /**
+     * Cells whose absolute value falls below this are dropped when the scale
+     * is folded into the stored values
+     */
+    public static final float MIN_VALUE = 1e-6f;
+    private static final float MIN_SCALE = 1e-15f, MAX_SCALE = 1e15f;
+
+    private final int sizeX, sizeY; // cell of x,y is x*sizeY+y
+    private final float[] values; // the value of a cell is values[cell]*scale
+    private final int[] heap; // cells that got votes, max-heap by stored value
+    private final int[] heapPos; // position of each cell in heap, or -1
+    private int heapSize = 0;
+    private float scale = 1;
+
+    /**
+     * Creates an accumulator with all cells zero.
+     *
+     * @param sizeX the number of cells in x
+     * @param sizeY the number of cells in y
+     */
+    public HoughAccumulator(int sizeX, int sizeY) {
+        this.sizeX = sizeX;
+        this.sizeY = sizeY;
+        final int n = sizeX * sizeY;
+        values = new float[n];
+        heap = new int[n];
+        heapPos = new int[n];
+        Arrays.fill(heapPos, -1);
+    }
+
+    /**
+     * @return the number of cells in x
+     */
+    public int getSizeX() {
+        return sizeX;
+    }
+
+    /**
+     * @return the number of cells in y
+     */
+    public int getSizeY() {
+        return sizeY;
+    }
+
+    /**
+     * @return the number of cells that got votes and have not decayed away
+     */
+    public int getNumActiveCells() {
+        return heapSize;
+    }
+
+    /**
+     * Returns the value of a cell.
+     *
+     * @param x the cell x, must be in range
+     * @param y the cell y, must be in range
+     * @return the value
+     */
+    public float get(int x, int y) {
+        return values[(x * sizeY) + y] * scale;
+    }
+
+    /**
+     * Adds a vote to a cell.
+     *
+     * @param x the cell x, must be in range
+     * @param y the cell y, must be in range
+     * @param weight the weight of the vote, may be negative to remove a vote
+     */
+    public void add(int x, int y, float weight) {
+        final int c = (x * sizeY) + y;
+        final float old = values[c];
+        values[c] = old + (weight / scale);
+        update(c, old);
+    }
+
+    /**
+     * Multiplies the value of one cell, e.g. to suppress a maximum that was
+     * already reported.
+     *
+     * @param x the cell x, must be in range
+     * @param y the cell y, must be in range
+     * @param factor the factor
+     */
+    public void multiply(int x, int y, float factor) {
+        final int c = (x * sizeY) + y;
+        final float old = values[c];
+        values[c] = old * factor;
+        update(c, old);
+    }
+
+    /**
+     * Multiplies all cells by a factor. Factors of 0 or less clear the
+     * accumulator.
+     *
+     * @param factor the decay factor, usually less than 1
+     */
+    public void decay(float factor) {
+        if (!(factor > 0)) {
+            clear();
+            return;
+        }
+        if (Float.isInfinite(factor)) {
+            return;
+        }
+        scale *= factor;
+        if ((scale < MIN_SCALE) || (scale > MAX_SCALE)) {
+            normalize();
+        }
+    }
+
+    /**
+     * Sets all cells to zero.
+     */
+    public void clear() {
+        for (int i = 0; i < heapSize; i++) {
+            final int c = heap[i];
+            values[c] = 0;
+            heapPos[c] = -1;
+        }
+        heapSize = 0;
+        scale = 1;
+    }
+
+    /**
+     * @return the largest value, or 0 if no cell got votes
+     */
+    public float getMaxValue() {
+        return heapSize == 0 ? 0 : values[heap[0]] * scale;
+    }
+
+    /**
+     * @return the x of the largest cell, or -1 if no cell got votes
+     */
+    public int getMaxX() {
+        return heapSize == 0 ? -1 : heap[0] / sizeY;
+    }
+
+    /**
+     * @return the y of the largest cell, or -1 if no cell got votes
+     */
+    public int getMaxY() {
+        return heapSize == 0 ? -1 : heap[0] % sizeY;
+    }
+
+    /**
+     * Returns true if a cell is not smaller than any of its 8 neighbors.
+     * Cells on the border are never local maxima.
+     *
+     * @param x the cell x
+     * @param y the cell y
+     * @return true for a local maximum
+     */
+    public boolean isLocalMax(int x, int y) {
+        if ((x < 1) || (x >= (sizeX - 1)) || (y < 1) || (y >= (sizeY - 1))) {
+            return false;
+        }
+        final int c = (x * sizeY) + y;
+        final float v = values[c];
+        return (v >= values[c + 1]) && (v >= values[c - 1])
+                && (v >= values[c + sizeY]) && (v >= values[c - sizeY])
+                && (v >= values[(c + sizeY) - 1]) && (v >= values[(c - sizeY) + 1])
+                && (v >= values[c + sizeY + 1]) && (v >= values[c - sizeY - 1]);
+    }
+
+    /**
+     * Finds the largest cells with values above a threshold, in descending
+     * order, optionally only local maxima. Only the cells above the threshold
+     * and the heap children of the rejected ones are visited.
+     *
+     * @param k the most cells to find
+     * @param threshold the value a cell must exceed
+     * @param localMaxima true to only return local maxima, see
+     * {@link #isLocalMax(int, int)}
+     * @param xs the x of the found cells
+     * @param ys the y of the found cells
+     * @param vs the values of the found cells, may be null
+     * @return the number of cells found, at most k
+     */
+    public int findMaxima(int k, float threshold, boolean localMaxima, int[] xs, int[] ys, float[] vs) {
+        if ((k <= 0) || (heapSize == 0)) {
+            return 0;
+        }
+        // best first walk down the heap; the frontier is a small max-heap of heap positions
+        int[] frontier = new int[16];
+        int nf = 1, found = 0;
+        frontier[0] = 0;
+        while ((nf > 0) && (found < k)) {
+            final int p = frontier[0];
+            frontier[0] = frontier[--nf];
+            siftDownFrontier(frontier, nf);
+            final int c = heap[p];
+            final float v = values[c] * scale;
+            if (!(v > threshold)) {
+                break; // the rest are smaller
+            }
+            final int x = c / sizeY, y = c % sizeY;
+            if (!localMaxima || isLocalMax(x, y)) {
+                xs[found] = x;
+                ys[found] = y;
+                if (vs != null) {
+                    vs[found] = v;
+                }
+                found++;
+            }
+            if ((nf + 2) > frontier.length) {
+                frontier = Arrays.copyOf(frontier, frontier.length * 2);
+            }
+            for (int ch = (2 * p) + 1; (ch <= ((2 * p) + 2)) && (ch < heapSize); ch++) {
+                int i = nf++; // sift up
+                final float cv = values[heap[ch]];
+                while ((i > 0) && (values[heap[frontier[(i - 1) / 2]]] < cv)) {
+                    frontier[i] = frontier[(i - 1) / 2];
+                    i = (i - 1) / 2;
+                }
+                frontier[i] = ch;
+            }
+        }
+        return found;
+    }
+
+    private void siftDownFrontier(int[] frontier, int nf) {
+        if (nf == 0) {
+            return;
+        }
+        final int e = frontier[0];
+        final float v = values[heap[e]];
+        int i = 0;
+        while (true) {
+            int child = (2 * i) + 1;
+            if (child >= nf) {
+                break;
+            }
+            if (((child + 1) < nf) && (values[heap[frontier[child + 1]]] > values[heap[frontier[child]]])) {
+                child++;
+            }
+            if (values[heap[frontier[child]]] <= v) {
+                break;
+            }
+            frontier[i] = frontier[child];
+            i = child;
+        }
+        frontier[i] = e;
+    }
+
+    private void update(int c, float old) {
+        int p = heapPos[c];
+        if (p < 0) {
+            p = heapSize++;
+            heap[p] = c;
+            heapPos[c] = p;
+            siftUp(p);
+        } else if (values[c] > old) {
+            siftUp(p);
+        } else if (values[c] < old) {
+            siftDown(p);
+        }
+    }
+
+    /**
+     * Folds the scale into the stored values, dropping cells that decayed
+     * away, and rebuilds the heap.
+     */
+    private void normalize() {
+        int n = 0;
+        for (int i = 0; i < heapSize; i++) {
+            final int c = heap[i];
+            final float v = values[c] * scale;
+            if (Math.abs(v) < MIN_VALUE) {
+                values[c] = 0;
+                heapPos[c] = -1;
+            } else {
+                values[c] = v;
+                heap[n] = c;
+                heapPos[c] = n;
+                n++;
+            }
+        }
+        heapSize = n;
+        scale = 1;
+        for (int i = (heapSize / 2) - 1; i >= 0; i--) {
+            siftDown(i);
+        }
+    }
+
+    private void siftUp(int p) {
+        final int c = heap[p];
+        final float v = values[c];
+        while (p > 0) {
+            final int parent = (p - 1) / 2;
+            final int pc = heap[parent];
+            if (values[pc] >= v) {
+                break;
+            }
+            heap[p] = pc;
+            heapPos[pc] = p;
+            p = parent;
+        }
+        heap[p] = c;
+        heapPos[c] = p;
+    }
+
+    private void siftDown(int p) {
+        final int c = heap[p];
+        final float v = values[c];
+        while (true) {
+            int child = (2 * p) + 1;
+            if (child >= heapSize) {
+                break;
+            }
+            if (((child + 1) < heapSize) && (values[heap[child + 1]] > values[heap[child]])) {
+                child++;
+            }
+            final int cc = heap[child];
+            if (values[cc] <= v) {
+                break;
+            }
+            heap[p] = cc;
+            heapPos[cc] = p;
+            p = child;
+        }
+        heap[p] = c;
+        heapPos[c] = p;
+    }
+}
@@ -39,7 +39,7 @@ public class HoughCircleTracker extends EventFilter2D implements FrameAnnotater
 	// the Hough space
 	int cameraX;
 	int cameraY;
-	float[][] accumulatorArray;
+	HoughAccumulator accumulator;
 
 	//for decay in Hough space
 	float timeStamp = 0;
@@ -50,6 +50,10 @@ public class HoughCircleTracker extends EventFilter2D implements FrameAnnotater
 	// the running values of the current maximum in Hough space
 	float[] maxValue;
 
+	// the maxima found in the last packet
+	int[] foundX, foundY;
+	float[] foundValue;
+
 	// history of the encountered spikes to remove the least recent one from
 	// hough space
 	Coordinate[] eventHistory;
@@ -122,8 +126,6 @@ public class HoughCircleTracker extends EventFilter2D implements FrameAnnotater
 
 		System.out.println("HoughCircleTracker initialising...");
 
-		accumulatorArray = new float[chip.getSizeX()][chip.getSizeY()];
-
 		if((chip.getSizeX()==0) || (chip.getSizeY()==0)){
 			return;
 		}
@@ -131,11 +133,7 @@ public class HoughCircleTracker extends EventFilter2D implements FrameAnnotater
 		cameraX = chip.getSizeX();
 		cameraY = chip.getSizeY();
 
-		for(int i=0;i<chip.getSizeX();i++){
-			for(int j=0; j < chip.getSizeY();j++){
-				accumulatorArray[i][j]=0;
-			}
-		}
+		accumulator = new HoughAccumulator(cameraX, cameraY);
 
 		eventHistory = new Coordinate[bufferLength];
 		for(int i=0;i<bufferLength;i++) {
@@ -144,6 +142,9 @@ public class HoughCircleTracker extends EventFilter2D implements FrameAnnotater
 
 		bufferIndex = 0;
 		maxValue = new float[nrMax];
+		foundX = new int[nrMax];
+		foundY = new int[nrMax];
+		foundValue = new float[nrMax];
 		maxCoordinate = new Coordinate[nrMax];
 		for(int i = 0; i<nrMax; i++)
 		{
@@ -292,7 +293,7 @@ public class HoughCircleTracker extends EventFilter2D implements FrameAnnotater
 		cameraY=chip.getSizeY();
 		cameraX=chip.getSizeX();
 
-		if((accumulatorArray == null) || (maxValue == null) || (maxCoordinate == null)) {
+		if((accumulator == null) || (maxValue == null) || (maxCoordinate == null)) {
 			return;
 		}
 
@@ -301,10 +302,11 @@ public class HoughCircleTracker extends EventFilter2D implements FrameAnnotater
 		// draw the Hough space
 		if(drawHough == true)
 		{
+			float max = accumulator.getMaxValue();
 			for (int x = 0; x < cameraX; x++) {
 				for (int y = 0; y < cameraY; y++) {
 
-					float red   = accumulatorArray[x][y]/maxValue[0];
+					float red   = accumulator.get(x,y)/max;
 					float green = 1.0f - red;
 
 					gl.glColor4f(red,green,0.0f,.3f);
@@ -505,41 +507,7 @@ public class HoughCircleTracker extends EventFilter2D implements FrameAnnotater
 
 	boolean islocmax(int x, int y)
 	{
-		int locMaxRad = 1;
-		int i =1;
-		if (((x-locMaxRad) < 0) || ((x+locMaxRad) > (chip.getSizeX()-1))
-			|| ((y-locMaxRad) < 0) || ((y+locMaxRad) > (chip.getSizeY()-1))) {
-			return false;
-		}
-		if(accumulatorArray[x][y]<accumulatorArray[x][y+1]) {
-			return false;
-		}
-		if(accumulatorArray[x][y]<accumulatorArray[x][y-1]) {
-			return false;
-		}
-		if(accumulatorArray[x][y]<accumulatorArray[x+1][y]) {
-			return false;
-		}
-		if(accumulatorArray[x][y]<accumulatorArray[x-1][y]) {
-			return false;
-		}
-		if(accumulatorArray[x][y]<accumulatorArray[x+1][y-1]) {
-			return false;
-		}
-		if(accumulatorArray[x][y]<accumulatorArray[x-1][y+1]) {
-			return false;
-		}
-		if(accumulatorArray[x][y]<accumulatorArray[x+1][y+1]) {
-			return false;
-		}
-		if(accumulatorArray[x][y]<accumulatorArray[x-1][y-1]) {
-			return false;
-		}
-
-
-		return true;
-
-
+		return accumulator.isLocalMax(x, y);
 	}
 
 	void increaseHoughPoint(int x, int y, float weight) {
@@ -548,23 +516,8 @@ public class HoughCircleTracker extends EventFilter2D implements FrameAnnotater
 			return;
 		}
 
-		// increase the value of the hough point
-		accumulatorArray[x][y] = accumulatorArray[x][y] + weight;
-
-		// check if this is a new maximum
-		for(int i=0; i<nrMax; i++)
-		{
-			if (accumulatorArray[x][y] >= maxValue[i]) {
-
-				maxValue[i] = accumulatorArray[x][y];
-
-				if ((maxValue[i] > threshold) && (maxCoordinate[i] != null)){
-					maxCoordinate[i].x = x;
-					maxCoordinate[i].y = y;
-				}
-				i += nrMax;
-			}
-		}
+		// increase the value of the hough point, the maxima are found once per packet
+		accumulator.add(x, y, weight);
 	}
 
 	@Override
@@ -580,12 +533,9 @@ public class HoughCircleTracker extends EventFilter2D implements FrameAnnotater
 			float delta_t = in.getLastTimestamp() - timeStamp;
 			float decay_factor = 1.0f/(0.0001f * decay * delta_t);
 
-			//for an exponentially decaying hough-space-weight.
-			for (int x = 0; x < cameraX; x++) {
-				for (int y = 0; y < cameraY; y++) {
-					accumulatorArray[x][y] *= decay_factor;
-
-				}
+			//for an exponentially decaying hough-space-weight, applied lazily to the cells
+			if(delta_t > 0) {
+				accumulator.decay(decay_factor);
 			}
 		}
 		timeStamp = in.getLastTimestamp();
@@ -621,29 +571,17 @@ public class HoughCircleTracker extends EventFilter2D implements FrameAnnotater
 				accumulate(eventHistory[bufferIndex], -1);
 			}
 		}
+		// the nrMax largest local maxima above threshold, walking only the cells that got votes
+		int found = accumulator.findMaxima(nrMax, threshold, true, foundX, foundY, foundValue);
 		for(int i = 0; i<nrMax; i++)
 		{
-			maxValue[i] = 0;
-		}
-		for (int x = 0; x < cameraX; x++) {
-			for (int y = 0; y < cameraY; y++) {
-
-				for(int i=0; i<nrMax; i++)
-				{
-					if ((accumulatorArray[x][y] >= maxValue[i])
-						&& islocmax(x,y)) {
-
-						maxValue[i] = accumulatorArray[x][y];
-
-						if (maxValue[i] > threshold){
-							maxCoordinate[i].x = x;
-							maxCoordinate[i].y = y;
-						}
-						i += nrMax;
-					}
-				}
+			if(i < found) {
+				maxValue[i] = foundValue[i];
+				maxCoordinate[i].x = foundX[i];
+				maxCoordinate[i].y = foundY[i];
+			} else {
+				maxValue[i] = 0;
 			}
-
 		}
 
 		OutputEventIterator itr = out.outputIterator();
@@ -657,15 +595,15 @@ public class HoughCircleTracker extends EventFilter2D implements FrameAnnotater
 				if(((x-1) > 0) && ((x+1) < (chip.getSizeX()-1))
 					&& ((y-1) > 0) && ((y+1) < (chip.getSizeY()-1)))
 				{
-					accumulatorArray[x][y] *= 0.01f;
-					accumulatorArray[x][y+1] *= 0.1f;
-					accumulatorArray[x][y-1] *= 0.1f;
-					accumulatorArray[x+1][y] *= 0.1f;
-					accumulatorArray[x-1][y] *= 0.1f;
-					accumulatorArray[x+1][y+1] *= 0.1f;
-					accumulatorArray[x-1][y+1] *= 0.1f;
-					accumulatorArray[x-1][y-1] *= 0.1f;
-					accumulatorArray[x-1][y-1] *= 0.1f;
+					accumulator.multiply(x,y,0.01f);
+					accumulator.multiply(x,y+1,0.1f);
+					accumulator.multiply(x,y-1,0.1f);
+					accumulator.multiply(x+1,y,0.1f);
+					accumulator.multiply(x-1,y,0.1f);
+					accumulator.multiply(x+1,y+1,0.1f);
+					accumulator.multiply(x-1,y+1,0.1f);
+					accumulator.multiply(x-1,y-1,0.1f);
+					accumulator.multiply(x-1,y-1,0.1f);
 				}
 
 			}
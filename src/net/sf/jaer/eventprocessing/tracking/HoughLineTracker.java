@@ -72,7 +72,7 @@ public class HoughLineTracker extends EventFilter2D implements FrameAnnotater, L
     private float rhoResPixels = getPrefs().getFloat("LineTracker.rhoResPixels", 6);
     private boolean showHoughWindow = false;
     private float rhoLimit;
-    private float[][] accumArray;
+    private HoughAccumulator accumArray;
     private int nTheta, nRho;
     private float tauMs = getPrefs().getFloat("LineTracker.tauMs", 10);
 
@@ -149,7 +149,7 @@ public class HoughLineTracker extends EventFilter2D implements FrameAnnotater, L
         // rho can span this +/- limit after hough transform of event
         // coordinate which shifted so that middle of chip is zero
         nRho = (int) ((2 * rhoLimit) / rhoResPixels);
-        accumArray = new float[nTheta][nRho];
+        accumArray = new HoughAccumulator(nTheta, nRho);
         //        accumUpdateTime=new int[nTheta][nRho];
         accumMax = Float.NEGATIVE_INFINITY;
         // precompute sin/cos for accumulator array updates for quantized angle values
@@ -232,9 +232,7 @@ public class HoughLineTracker extends EventFilter2D implements FrameAnnotater, L
      * @param rhoNumber the rho (radius) number. rho is spaced by rhoResPixels.
      */
     private void updateHoughAccumulator(int thetaNumber, int rhoNumber) {
-        float f = accumArray[thetaNumber][rhoNumber];
-        f++;
-        accumArray[thetaNumber][rhoNumber] = f; // update the accumulator
+        accumArray.add(thetaNumber, rhoNumber, 1); // update the accumulator
     }
 
     @Override
@@ -309,7 +307,7 @@ public class HoughLineTracker extends EventFilter2D implements FrameAnnotater, L
                 gl.glClear(GL.GL_COLOR_BUFFER_BIT);
                 for (int i = 0; i < nTheta; i++) {
                     for (int j = 0; j < nRho; j++) {
-                        float f = accumArray[i][j] / accumMax;
+                        float f = accumArray.get(i, j) / accumMax;
                         gl.glColor3f(f, f, f);
                         gl.glRectf(i, j, i + 1, j + 1);
                     }
@@ -397,19 +395,12 @@ public class HoughLineTracker extends EventFilter2D implements FrameAnnotater, L
     // also determines maximum accumulator value and sets line estimate according to this
 
     private void decayAccumArray() {
+        accumArray.decay(houghDecayFactor); // lazily applied to the cells, the order of cells is unchanged
         accumMax = 0;
-        for (int theta = 0; theta < nTheta; theta++) {
-            float[] f = accumArray[theta];
-            for (int rho = 0; rho < f.length; rho++) {
-                float fval = f[rho];
-                fval *= houghDecayFactor;
-                if (fval > accumMax) {
-                    accumMax = fval;
-                    thetaMaxIndex = theta;
-                    rhoMaxIndex = rho;
-                }
-                f[rho] = fval;
-            }
+        if (accumArray.getMaxValue() > 0) {
+            accumMax = accumArray.getMaxValue();
+            thetaMaxIndex = accumArray.getMaxX();
+            rhoMaxIndex = accumArray.getMaxY();
         }
     }
 
@@ -18,9 +18,9 @@ import java.io.PrintStream;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.Observable;
@@ -159,11 +159,14 @@ public class RectangularClusterTracker extends EventFilter2D
     private float smoothPosition = getFloat("smoothPosition", .001f);
     private float smoothIntegral = getFloat("smoothIntegral", .001f);
     private float surroundInhibitionCost = getFloat("surroundInhibitionCost", 1);
+    private boolean batchUpdateEnabled = getBoolean("batchUpdateEnabled", false);
+    private int batchSize = getInt("batchSize", 256);
+    private boolean parallelBatchUpdateEnabled = getBoolean("parallelBatchUpdateEnabled", false);
 
     /**
      * The list of clusters (visible and invisible).
      */
-    volatile protected LinkedList<Cluster> clusters = new LinkedList<>();
+    volatile protected ArrayList<Cluster> clusters = new ArrayList<>();
 
     /**
      * The list of visible clusters.
@@ -212,6 +215,18 @@ public class RectangularClusterTracker extends EventFilter2D
     protected Random random = new Random();
 
     protected FastClusterFinder fastClusterFinder = new FastClusterFinder();
+    private final ArrayList<Cluster> mergeCandidates = new ArrayList<>();
+
+    // the events of the present block in batchUpdateEnabled mode, with their clusters and distances, chained per cluster
+    private BasicEvent[] batchEvents = new BasicEvent[0];
+    private Cluster[] batchClusters = new Cluster[0];
+    private float[] batchDistance = new float[0], batchDistanceX = new float[0], batchDistanceY = new float[0];
+    private int[] batchNext = new int[0];
+    private final ArrayList<Cluster> batchTouched = new ArrayList<>();
+    // whether the cluster classes can take their events in blocks, see isBatchable
+    private final HashMap<Class<?>, Boolean> batchableClusterClasses = new HashMap<>();
+    // whether the cluster classes keep the per event update of Cluster, see isAggregatable
+    private final HashMap<Class<?>, Boolean> aggregatableClusterClasses = new HashMap<>();
 
     /**
      * Creates a new instance of RectangularClusterTracker.
@@ -292,6 +307,11 @@ public class RectangularClusterTracker extends EventFilter2D
         setPropertyTooltip(update, "useOffPolarityOnlyEnabled", "use only OFF events, not ON - if useOnePolarityOnlyEnabled");
         setPropertyTooltip(update, "growMergedSizeEnabled",
                 "enabling makes merged clusters take on sum of sizes, otherwise they take on size of older cluster");
+        setPropertyTooltip(update, "batchUpdateEnabled",
+                "assigns blocks of batchSize events to the clusters as they were at the start of the block, then updates each cluster with its events; faster with many clusters but differs slightly from updating per event. With filterEventsEnabled, clusters whose class writes its own output events are tracked per event");
+        setPropertyTooltip(update, "batchSize", "number of events per block if batchUpdateEnabled");
+        setPropertyTooltip(update, "parallelBatchUpdateEnabled",
+                "if batchUpdateEnabled, updates the clusters of a block in parallel; only for cluster classes whose addEvent changes nothing but the cluster");
         setPropertyTooltip(update, "velAngDiffDegToNotMerge",
                 "minimum relative angle in degrees of cluster velocity vectors for which not to merge overlapping clusters. Set this to zero to allow merging independent of cluster velocity. If clusters are moving in different directions, then this will prevent their merging.  The angle should be set at least to 90 deg for this to be effective.");
         setPropertyTooltip(logg, "logging", "toggles cluster logging according to method (see logDataEnabled)");
@@ -641,27 +661,29 @@ public class RectangularClusterTracker extends EventFilter2D
         Cluster c2 = null;
         do {
             mergePending = false;
-            int nc = clusters.size();
-            outer:
-            for (int i = 0; i < nc; i++) {
-                c1 = clusters.get(i);
-                for (int j = i + 1; j < nc; j++) {
-                    c2 = clusters.get(j); // getString the other cluster
-                    // final boolean overlapping = c1.distanceTo(c2) < (c1.getRadius() + c2.getRadius());
-                    final boolean overlapping = c1.isOverlappingCenterOf(c2);
-                    boolean velSimilar = true; // start assuming velocities are similar
-                    if (overlapping && (velAngDiffDegToNotMerge > 0) && c1.isVisible() && c2.isVisible() && c1.isVelocityValid()
-                            && c2.isVelocityValid() && (c1.velocityAngleToRad(c2) > ((velAngDiffDegToNotMerge * Math.PI) / 180))) {
-                        // if velocities valid for both and velocities are sufficiently different
-                        velSimilar = false; // then flag them as different velocities
-                    }
-                    if (overlapping && velSimilar) {
-                        // if cluster is close to another cluster, merge them
-                        // if distance is less than sum of radii merge them and if velAngle < threshold
-                        mergePending = true;
-                        break outer; // break out of the outer loop
+            // merge the first pair in list order, looking only at clusters with centers close enough to overlap
+            fastClusterFinder.sync(lastTimestamp);
+            float maxRadius = 0;
+            for (Cluster c : clusters) {
+                maxRadius = Math.max(maxRadius, c.getRadius());
+            }
+            for (Cluster c : clusters) {
+                c1 = c;
+                c2 = null;
+                final long order1 = fastClusterFinder.orderOf(c1);
+                long order2 = Long.MAX_VALUE;
+                fastClusterFinder.findClustersNear(c1, c1.getRadius() + maxRadius, mergeCandidates);
+                for (Cluster o : mergeCandidates) {
+                    final long order = fastClusterFinder.orderOf(o);
+                    if ((order > order1) && (order < order2) && isMergeable(c1, o)) {
+                        c2 = o;
+                        order2 = order;
                     }
                 }
+                if (c2 != null) {
+                    mergePending = true;
+                    break;
+                }
             }
             if (mergePending && (c1 != null) && (c2 != null)) {
                 pruneList.add(c1);
@@ -672,7 +694,9 @@ public class RectangularClusterTracker extends EventFilter2D
                 fastClusterFinder.removeCluster(c2);
 
                 // clusters.appendCopy(new Cluster(c1, c2)); // No good for cluster-class overriding!
-                clusters.add(createCluster(c1, c2));
+                final Cluster merged = createCluster(c1, c2);
+                clusters.add(merged);
+                fastClusterFinder.update(merged);
 
                 // System.out.println("merged "+c1+" and "+c2);
             }
@@ -687,6 +711,28 @@ public class RectangularClusterTracker extends EventFilter2D
         }
     }
 
+    /**
+     * Returns true if two clusters should merge: if the first overlaps the
+     * center of the second and, if velAngDiffDegToNotMerge is set and both are
+     * visible with valid velocities, they move in similar directions.
+     *
+     * @param c1 the cluster earlier in the list
+     * @param c2 the other cluster
+     * @return true to merge them
+     */
+    protected boolean isMergeable(Cluster c1, Cluster c2) {
+        // final boolean overlapping = c1.distanceTo(c2) < (c1.getRadius() + c2.getRadius());
+        final boolean overlapping = c1.isOverlappingCenterOf(c2);
+        boolean velSimilar = true; // start assuming velocities are similar
+        if (overlapping && (velAngDiffDegToNotMerge > 0) && c1.isVisible() && c2.isVisible() && c1.isVelocityValid()
+                && c2.isVelocityValid() && (c1.velocityAngleToRad(c2) > ((velAngDiffDegToNotMerge * Math.PI) / 180))) {
+            // if velocities valid for both and velocities are sufficiently different
+            velSimilar = false; // then flag them as different velocities
+        }
+        // if distance is less than sum of radii merge them and if velAngle < threshold
+        return overlapping && velSimilar;
+    }
+
     /**
      * Prunes out old clusters that don't have support or that should be purged
      * for some other reason.
@@ -769,7 +815,10 @@ public class RectangularClusterTracker extends EventFilter2D
             c.onPruning();
         }
 
-        clusters.removeAll(pruneList);
+        if (!pruneList.isEmpty()) {
+            final HashSet<Cluster> pruned = new HashSet<>(pruneList); // equal by cluster number, like removeAll
+            clusters.removeIf(pruned::contains); // one pass over the list instead of a search per pruned cluster
+        }
         for (Cluster c : pruneList) {
             if (c == null) {
                 continue;
@@ -802,6 +851,7 @@ public class RectangularClusterTracker extends EventFilter2D
                 visibleClusters.add(c);
             }
         }
+        fastClusterFinder.updateAll(t); // velocities and sizes changed
     }
 
     @Override
@@ -833,7 +883,6 @@ public class RectangularClusterTracker extends EventFilter2D
      * the tracked and visible Clusters, depending on filterEventsEnabled.
      */
     synchronized protected EventPacket<? extends BasicEvent> track(EventPacket<?> in) {
-        boolean updatedClusterList = false;
         checkOutputPacketEventType(RectangularClusterTrackerEvent.class);
         OutputEventIterator outItr = out.outputIterator();
         int sx = chip.getSizeX(), sy = chip.getSizeY();
@@ -845,6 +894,10 @@ public class RectangularClusterTracker extends EventFilter2D
         for (Cluster c : clusters) {
             c.getLastPacketLocation().setLocation(c.location);
         }
+        if (batchUpdateEnabled) {
+            trackBatched(in, outItr, sx, sy);
+            return out;
+        }
 
         // for each event, see which cluster it is closest to and appendCopy it to this cluster.
         // if its too far from any cluster, make a new cluster if we have not jet
@@ -857,29 +910,7 @@ public class RectangularClusterTracker extends EventFilter2D
             if ((ev.x < 0) || (ev.x >= sx) || (ev.y < 0) || (ev.y >= sy)) {
                 continue; // out of bounds from e.g. steadicom transform
             }
-            Cluster closest = fastClusterFinder.findClusterNear(ev);
-
-            if (closest != null) {
-                if (filterEventsEnabled) {
-                    closest.addEvent(ev, outItr);
-                } else {
-                    closest.addEvent(ev);
-                }
-            } else if (clusters.size() < maxNumClusters) { // start a new cluster
-                Cluster newCluster;
-                if (filterEventsEnabled) {
-                    newCluster = createCluster(ev, outItr);
-                } else {
-                    newCluster = createCluster(ev);
-                }
-                clusters.add(newCluster);
-            }
-
-            updatedClusterList = maybeCallUpdateObservers(in, (lastTimestamp = ev.timestamp)); // callback to update()
-
-            if (logDataEnabled) {
-                logData(ev, (EventPacket<BasicEvent>) in);
-            }
+            trackEvent(ev, in, outItr);
         }
         // TODO update here again, relying on the fact that lastEventTimestamp was set by possible previous update
         // according to
@@ -900,6 +931,41 @@ public class RectangularClusterTracker extends EventFilter2D
         return out;
     }
 
+    /**
+     * Adds one event to the closest cluster or starts a new cluster with it.
+     *
+     * @param ev the event
+     * @param in the input packet
+     * @param outItr the output iterator
+     */
+    private void trackEvent(BasicEvent ev, EventPacket<?> in, OutputEventIterator outItr) {
+        Cluster closest = fastClusterFinder.findClusterNear(ev);
+
+        if (closest != null) {
+            if (filterEventsEnabled) {
+                closest.addEvent(ev, outItr);
+            } else {
+                closest.addEvent(ev);
+            }
+            fastClusterFinder.update(closest, ev.timestamp);
+        } else if (clusters.size() < maxNumClusters) { // start a new cluster
+            Cluster newCluster;
+            if (filterEventsEnabled) {
+                newCluster = createCluster(ev, outItr);
+            } else {
+                newCluster = createCluster(ev);
+            }
+            clusters.add(newCluster);
+            fastClusterFinder.update(newCluster, ev.timestamp);
+        }
+
+        maybeCallUpdateObservers(in, (lastTimestamp = ev.timestamp)); // callback to update()
+
+        if (logDataEnabled) {
+            logData(ev, (EventPacket<BasicEvent>) in);
+        }
+    }
+
     /**
      * Returns total number of clusters, including those that have been seeded
      * but may not have received sufficient support yet.
@@ -950,8 +1016,11 @@ public class RectangularClusterTracker extends EventFilter2D
     protected Cluster getNearestCluster(BasicEvent event) { // TODO needs to account for the cluster angle
         float minDistance = Float.MAX_VALUE;
         Cluster closest = null;
-        float currentDistance = 0;
-        for (Cluster c : clusters) {
+        long closestOrder = Long.MAX_VALUE;
+        float currentDistance = 0, closestDx = 0, closestDy = 0;
+        final ArrayList<Cluster> candidates = fastClusterFinder.candidates(event); // only the clusters that can contain the event
+        for (int i = 0, n = candidates.size(); i < n; i++) {
+            final Cluster c = candidates.get(i);
             float rX = c.radiusX;
             float rY = c.radiusY; // this is surround region for purposes of dynamicSize scaling of cluster size or
             // aspect ratio
@@ -963,18 +1032,239 @@ public class RectangularClusterTracker extends EventFilter2D
             if (((dx = c.distanceToX(event)) < rX) && ((dy = c.distanceToY(event)) < rY)) { // TODO needs
                 // instantaneousAngle metric
                 currentDistance = dx + dy;
-                if (currentDistance < minDistance) {
+                if ((currentDistance < minDistance)
+                        || ((currentDistance == minDistance) && (fastClusterFinder.orderOf(c) < closestOrder))) { // ties go to the older cluster
                     closest = c;
+                    closestOrder = fastClusterFinder.orderOf(c);
                     minDistance = currentDistance;
-                    c.distanceToLastEvent = minDistance; // store data in cluste for later use in moving cluster
-                    c.xDistanceToLastEvent = dx;
-                    c.yDistanceToLastEvent = dy;
+                    closestDx = dx;
+                    closestDy = dy;
                 }
             }
         }
+        if (closest != null) {
+            closest.distanceToLastEvent = minDistance; // store data in cluste for later use in moving cluster
+            closest.xDistanceToLastEvent = closestDx;
+            closest.yDistanceToLastEvent = closestDy;
+        }
         return closest;
     }
 
+    /**
+     * Tracks in blocks of {@link #getBatchSize() batchSize} events. First each
+     * event of a block is assigned to a cluster, using the clusters as they
+     * were at the start of the block, or starts a new one. Then each cluster
+     * takes its events, in parallel if parallelBatchUpdateEnabled: clusters
+     * that keep the per event update of Cluster take them at once with one
+     * mixing update, others one by one with
+     * {@link Cluster#addEvent(BasicEvent)}. The cluster index and the update
+     * observers are updated once for the block. Output events are
+     * written after the block, for the clusters that are then visible.
+     * <p>
+     * If filterEventsEnabled, new clusters are made with
+     * {@link #createCluster(BasicEvent, OutputEventIterator)} after the block
+     * so far is done, and once an event falls in a cluster whose class
+     * overrides {@link Cluster#addEvent(BasicEvent, OutputEventIterator)} the
+     * rest of the packet is tracked per event, so that subclasses write their
+     * own output events.
+     *
+     * @param in the input packet
+     * @param outItr the output iterator
+     * @param sx the chip width
+     * @param sy the chip height
+     */
+    protected void trackBatched(EventPacket<?> in, OutputEventIterator outItr, int sx, int sy) {
+        final int size = Math.max(1, batchSize);
+        if (batchEvents.length != size) {
+            batchEvents = new BasicEvent[size];
+            batchClusters = new Cluster[size];
+            batchDistance = new float[size];
+            batchDistanceX = new float[size];
+            batchDistanceY = new float[size];
+            batchNext = new int[size];
+        }
+        int n = 0;
+        boolean perEvent = false;
+        for (BasicEvent ev : in) {
+            if ((ev == null) || ev.isSpecial() || ev.isFilteredOut()) {
+                continue;
+            }
+            if ((ev.x < 0) || (ev.x >= sx) || (ev.y < 0) || (ev.y >= sy)) {
+                continue; // out of bounds from e.g. steadicom transform
+            }
+            if (perEvent) {
+                trackEvent(ev, in, outItr);
+                continue;
+            }
+            Cluster c = fastClusterFinder.findClusterNear(ev);
+            if ((c != null) ? !isBatchable(c) : (filterEventsEnabled && (clusters.size() < maxNumClusters))) {
+                // the cluster writes its own output events, so the events before this one go out first
+                if (n > 0) {
+                    flushBatch(in, outItr, n);
+                    n = 0;
+                }
+                perEvent = c != null;
+                trackEvent(ev, in, outItr);
+                continue;
+            }
+            lastTimestamp = ev.timestamp;
+            batchEvents[n] = ev;
+            batchNext[n] = -1;
+            if (c != null) {
+                batchDistance[n] = c.distanceToLastEvent;
+                batchDistanceX[n] = c.xDistanceToLastEvent;
+                batchDistanceY[n] = c.yDistanceToLastEvent;
+                if (c.batchTail < 0) {
+                    c.batchHead = n;
+                    c.batchAggregated = isAggregatable(c);
+                    batchTouched.add(c);
+                } else {
+                    batchNext[c.batchTail] = n;
+                }
+                c.batchTail = n;
+            } else if (clusters.size() < maxNumClusters) { // start a new cluster, it already has this event
+                c = createCluster(ev);
+                clusters.add(c);
+                fastClusterFinder.update(c, ev.timestamp);
+            }
+            batchClusters[n] = c;
+            if (++n == size) {
+                flushBatch(in, outItr, n);
+                n = 0;
+            }
+        }
+        if (n > 0) {
+            flushBatch(in, outItr, n);
+        }
+    }
+
+    private void flushBatch(EventPacket<?> in, OutputEventIterator outItr, int n) {
+        if (parallelBatchUpdateEnabled && (batchTouched.size() > 1)) {
+            batchTouched.parallelStream().forEach(this::addBatchEvents);
+        } else {
+            for (Cluster c : batchTouched) {
+                addBatchEvents(c);
+            }
+        }
+        final int t = batchEvents[n - 1].timestamp;
+        for (Cluster c : batchTouched) {
+            fastClusterFinder.update(c, t);
+        }
+        batchTouched.clear();
+        for (int i = 0; i < n; i++) {
+            final BasicEvent ev = batchEvents[i];
+            final Cluster c = batchClusters[i];
+            if (filterEventsEnabled && (c != null) && c.isVisible()) {
+                RectangularClusterTrackerEvent oe = (RectangularClusterTrackerEvent) outItr.nextOutput();
+                oe.copyFrom(ev);
+                oe.setCluster(c);
+            }
+            if (logDataEnabled) {
+                lastTimestamp = ev.timestamp;
+                logData(ev, (EventPacket<BasicEvent>) in);
+            }
+            batchEvents[i] = null;
+            batchClusters[i] = null;
+        }
+        maybeCallUpdateObservers(in, (lastTimestamp = t)); // callback to update()
+    }
+
+    /**
+     * @return true if the cluster can take its events in blocks, i.e. if
+     * filterEventsEnabled is off or its class does not override
+     * {@link Cluster#addEvent(BasicEvent, OutputEventIterator)}
+     */
+    private boolean isBatchable(Cluster c) {
+        if (!filterEventsEnabled || (c.getClass() == Cluster.class)) {
+            return true;
+        }
+        Boolean batchable = batchableClusterClasses.get(c.getClass());
+        if (batchable == null) {
+            batchable = true;
+            for (Class<?> k = c.getClass(); (k != null) && (k != Cluster.class); k = k.getSuperclass()) {
+                try {
+                    k.getDeclaredMethod("addEvent", BasicEvent.class, OutputEventIterator.class);
+                    batchable = false;
+                    log.info(c.getClass().getName() + " overrides addEvent(BasicEvent, OutputEventIterator); its events are tracked per event");
+                    break;
+                } catch (NoSuchMethodException e) {
+                    // look further up
+                }
+            }
+            batchableClusterClasses.put(c.getClass(), batchable);
+        }
+        return batchable;
+    }
+
+    /**
+     * @return true if the cluster can be updated by a block of events at once
+     * with {@link Cluster#addBatchEventsAggregated(int)}, i.e. if the options
+     * leave the per event update a plain exponential mixing and its class
+     * overrides none of the methods of that update
+     */
+    private boolean isAggregatable(Cluster c) {
+        if (smoothMove || surroundInhibitionEnabled || dynamicAspectRatioEnabled || dynamicAngleEnabled) {
+            return false;
+        }
+        if (c.getClass() == Cluster.class) {
+            return true;
+        }
+        Boolean aggregatable = aggregatableClusterClasses.get(c.getClass());
+        if (aggregatable == null) {
+            aggregatable = !declaresMethod(c.getClass(), "addEvent", BasicEvent.class)
+                    && !declaresMethod(c.getClass(), "updateMass", int.class)
+                    && !declaresMethod(c.getClass(), "updatePosition", BasicEvent.class, float.class)
+                    && !declaresMethod(c.getClass(), "updateEventRate", BasicEvent.class, float.class)
+                    && !declaresMethod(c.getClass(), "updateAverageEventDistance", float.class)
+                    && !declaresMethod(c.getClass(), "updateShape", BasicEvent.class)
+                    && !declaresMethod(c.getClass(), "updateSize", BasicEvent.class)
+                    && !declaresMethod(c.getClass(), "setRadius", float.class);
+            if (!aggregatable) {
+                log.info(c.getClass().getName() + " overrides the per event update; in blocks its events are added one by one");
+            }
+            aggregatableClusterClasses.put(c.getClass(), aggregatable);
+        }
+        return aggregatable;
+    }
+
+    /**
+     * @return true if a subclass of Cluster up to the given class declares
+     * the method
+     */
+    private static boolean declaresMethod(Class<?> clusterClass, String name, Class<?>... parameterTypes) {
+        for (Class<?> k = clusterClass; (k != null) && (k != Cluster.class); k = k.getSuperclass()) {
+            try {
+                k.getDeclaredMethod(name, parameterTypes);
+                return true;
+            } catch (NoSuchMethodException e) {
+                // look further up
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds the events of the present block to a cluster, with the distances
+     * measured when they were assigned: all at once if the cluster keeps the
+     * per event update of Cluster, otherwise one by one.
+     */
+    private void addBatchEvents(Cluster c) {
+        if (c.batchAggregated && !(batchEvents[c.batchHead] instanceof ApsDvsOrientationEvent)) {
+            c.addBatchEventsAggregated(c.batchHead);
+            c.batchHead = -1;
+            c.batchTail = -1;
+            return;
+        }
+        for (int i = c.batchHead; i >= 0; i = batchNext[i]) {
+            c.distanceToLastEvent = batchDistance[i];
+            c.xDistanceToLastEvent = batchDistanceX[i];
+            c.yDistanceToLastEvent = batchDistanceY[i];
+            c.addEvent(batchEvents[i]);
+        }
+        c.batchHead = -1;
+        c.batchTail = -1;
+    }
+
     /**
      * Given AE, returns first (thus oldest) cluster that event is within. The
      * radius of the cluster here depends on whether
@@ -985,10 +1275,13 @@ public class RectangularClusterTracker extends EventFilter2D
      * by aspect ratio. null is returned if no cluster is close enough.
      */
     protected Cluster getFirstContainingCluster(BasicEvent event) {
-        float minDistance = Float.MAX_VALUE;
         Cluster closest = null;
-        float currentDistance = 0;
-        for (Cluster c : clusters) {
+        long closestOrder = Long.MAX_VALUE;
+        float closestDx = 0, closestDy = 0;
+        final ArrayList<Cluster> candidates = fastClusterFinder.candidates(event); // only the clusters that can contain the event
+        final boolean listOrder = candidates == clusters; // few clusters, the first match is the one
+        for (int i = 0, n = candidates.size(); i < n; i++) {
+            final Cluster c = candidates.get(i);
             float rX = c.radiusX;
             float rY = c.radiusY; // this is surround region for purposes of dynamicSize scaling of cluster size or
             // aspect ratio
@@ -999,16 +1292,23 @@ public class RectangularClusterTracker extends EventFilter2D
             float dx, dy;
             if (((dx = c.distanceToX(event)) < rX) && ((dy = c.distanceToY(event)) < rY)) { // TODO needs to account for
                 // instantaneousAngle
-                currentDistance = dx + dy;
-                closest = c;
-                minDistance = currentDistance;
-                c.distanceToLastEvent = minDistance;
-                c.xDistanceToLastEvent = dx;
-                c.yDistanceToLastEvent = dy;
-
-                break;
+                final long order = listOrder ? i : fastClusterFinder.orderOf(c); // otherwise unordered, keep the first in the cluster list
+                if (order < closestOrder) {
+                    closest = c;
+                    closestOrder = order;
+                    closestDx = dx;
+                    closestDy = dy;
+                    if (listOrder) {
+                        break;
+                    }
+                }
             }
         }
+        if (closest != null) {
+            closest.distanceToLastEvent = closestDx + closestDy;
+            closest.xDistanceToLastEvent = closestDx;
+            closest.yDistanceToLastEvent = closestDy;
+        }
         return closest;
     }
 
@@ -1212,6 +1512,9 @@ public class RectangularClusterTracker extends EventFilter2D
         protected float instantaneousISI; // ticks/event
         protected float distanceToLastEvent = Float.POSITIVE_INFINITY;
         protected float xDistanceToLastEvent = Float.POSITIVE_INFINITY, yDistanceToLastEvent = Float.POSITIVE_INFINITY;
+        private FastClusterFinder.Entry finderEntry = null; // where this cluster is in the spatial index
+        private int batchHead = -1, batchTail = -1; // first and last of its events in the present block
+        private boolean batchAggregated = false; // whether the events of the present block are added at once
 
         // public float tauMsVelocity=50; // LP filter time constant for velocityPPT change
         // private LowpassFilter velocityFilter=new LowpassFilter();
@@ -1823,6 +2126,89 @@ public class RectangularClusterTracker extends EventFilter2D
             lastUpdateTime = event.timestamp;
         }
 
+        /**
+         * Updates the cluster by its events of the present block in
+         * batchUpdateEnabled mode at once, with the mixing of
+         * {@link #addEvent(BasicEvent)} applied per event. The location, event
+         * rate and average event distance come out as from adding the events
+         * one by one. The mass is decayed once to the last event and gains the
+         * events decayed from their mean time, and the radius mixes in the
+         * distances of the events from the location at the start of the block,
+         * so these two differ only by the decay and movement within the block.
+         * Only used if the options and the cluster class leave the per event
+         * update a plain exponential mixing, see isAggregatable.
+         *
+         * @param head the index of the first event of the cluster in the block
+         */
+        private void addBatchEventsAggregated(int head) {
+            final float m = mixingFactor, m1 = 1 - m;
+            final float x0 = location.x, y0 = location.y;
+            // sums of the per event values, each weighted by m1 to the power of the number of events after it
+            float w = 0, sumX = 0, sumY = 0, sumIsi = 0, sumRate = 0, sumD = 0, sumDx = 0, sumDy = 0, sumR = 0;
+            int prevT = lastEventTimestamp, isi = 0, last = -1, k = 0, massIncrements = 0;
+            long massDtSum = 0; // of the incrementing events, relative to the first one
+            int firstMassT = 0, lastMassT = 0;
+            for (int i = head; i >= 0; i = batchNext[i]) {
+                final BasicEvent ev = batchEvents[i];
+                if ((ev instanceof TypedEvent) && useOnePolarityOnlyEnabled && (((TypedEvent) ev).type == (useOffPolarityOnlyEnabled ? 1 : 0))) {
+                    continue;
+                }
+                final int t = ev.timestamp;
+                if (t > prevT) { // updateMass increments only for a later event
+                    if (massIncrements++ == 0) {
+                        firstMassT = t;
+                    }
+                    massDtSum += t - firstMassT;
+                    lastMassT = t;
+                }
+                isi = Math.max(1, t - prevT);
+                prevT = t;
+                w = (w * m1) + 1;
+                sumX = (sumX * m1) + ev.x;
+                sumY = (sumY * m1) + ev.y;
+                sumIsi = (sumIsi * m1) + isi;
+                sumRate = (sumRate * m1) + (1f / isi);
+                sumD = (sumD * m1) + batchDistance[i];
+                sumDx = (sumDx * m1) + batchDistanceX[i];
+                sumDy = (sumDy * m1) + batchDistanceY[i];
+                if (dynamicSizeEnabled) {
+                    sumR = (sumR * m1) + distanceMetric(ev.x - x0, ev.y - y0);
+                }
+                last = i;
+                k++;
+            }
+            if (last < 0) {
+                return;
+            }
+            final float a = 1 - (m * w); // m1 to the power of the number of events
+            if (massIncrements > 0) {
+                final float meanMassT = firstMassT + ((float) massDtSum / massIncrements);
+                mass = (mass * (float) Math.exp((float) (lastEventTimestamp - lastMassT) / clusterMassDecayTauUs))
+                        + (massIncrements * (float) Math.exp((meanMassT - lastMassT) / clusterMassDecayTauUs));
+            }
+            location.x = (a * x0) + (m * sumX);
+            location.y = (a * y0) + (m * sumY);
+            numEvents += k;
+            lastEventTimestamp = prevT;
+            instantaneousISI = isi;
+            instantaneousEventRate = 1f / isi;
+            avgISI = (a * avgISI) + (m * sumIsi);
+            avgEventRate = (a * avgEventRate) + (m * sumRate);
+            distanceToLastEvent = batchDistance[last];
+            xDistanceToLastEvent = batchDistanceX[last];
+            yDistanceToLastEvent = batchDistanceY[last];
+            averageEventDistance = (a * averageEventDistance) + (m * sumD);
+            averageEventXDistance = (a * averageEventXDistance) + (m * sumDx);
+            averageEventYDistance = (a * averageEventYDistance) + (m * sumDy);
+            if (dynamicSizeEnabled) {
+                setRadius(Math.max(defaultClusterRadius / MAX_SCALE_RATIO, Math.min(defaultClusterRadius * MAX_SCALE_RATIO, (a * radius) + (m * sumR))));
+            }
+            if (angleFollowsVelocity && velocityValid) {
+                setAngle((float) Math.atan2(velocityPPS.y, velocityPPS.x));
+            }
+            lastUpdateTime = prevT;
+        }
+
         protected void updatePosition(final BasicEvent event, final float m) {
             float m1 = 1 - m;
             // float dt = event.timestamp - lastUpdateTime; // this timestamp may be bogus if it goes backwards in time,
@@ -2774,7 +3160,7 @@ public class RectangularClusterTracker extends EventFilter2D
      * @return list of clusters
      */
     @Override
-    public LinkedList<RectangularClusterTracker.Cluster> getClusters() {
+    public ArrayList<RectangularClusterTracker.Cluster> getClusters() {
         return this.clusters;
     }
 
@@ -2895,44 +3281,251 @@ public class RectangularClusterTracker extends EventFilter2D
     }
 
     /**
-     * Speeds up finding the nearest cluster to an event.
+     * Spatial index of the clusters, so that finding the clusters that can take
+     * an event, and the clusters that can merge, does not scan all clusters.
+     * <p>
+     * The sensor is divided into square cells about the size of the default
+     * cluster radius. Each cell lists every cluster whose capture region
+     * overlaps it, i.e. the region where the distance tests of
+     * {@link #getNearestCluster} and {@link #getFirstContainingCluster} can
+     * accept an event, including the surround, the cluster angle and the
+     * movement predicted from the cluster velocity. Since the predicted
+     * location moves with time, the region of a moving cluster is registered
+     * for a limited time span, after which its entry is renewed. A second set
+     * of cells lists the clusters by the cell of their center, to find merge
+     * candidates.
+     * <p>
+     * Entries are updated when a cluster is created, gets an event, moves or
+     * merges, and removed when it is pruned; all of them are renewed in
+     * {@link #updateClusterList}. If the cluster list was changed without the
+     * index, e.g. by a subclass, the index is rebuilt in list order on the
+     * next lookup.
+     * <p>
+     * With at most {@link #LINEAR_SCAN_MAX_CLUSTERS} clusters, scanning all of
+     * them is cheaper than keeping the index, so the index is dropped and the
+     * lookups return the whole cluster list until there are more.
      */
     protected class FastClusterFinder {
 
         /**
-         * How much the map is subsampled in bits relative to the pixel array
+         * Bounds of the time span in us for which the predicted capture region
+         * of a moving cluster is registered
          */
-        final int SUBSAMPLE_BY = 2;
-        private Cluster[][] grid = null;
-        private HashMap<Cluster, Point> map = new HashMap();
-        int nx = 0, ny = 0;
+        static final int MIN_SPAN_US = 1000, MAX_SPAN_US = 1000000;
+        /**
+         * Up to this many clusters the lookups scan the cluster list
+         */
+        static final int LINEAR_SCAN_MAX_CLUSTERS = 16;
+        private boolean active = false; // true while the index is kept
+        private int cellShift = 3, nx = 1, ny = 1;
+        private ArrayList<Cluster>[] captureCells = null, centerCells = null;
+        private int numEntries = 0, generation = 0; // entries of older generations were cleared
+        private long orderCounter = 0;
+        private boolean bounded = false; // true if some entry is only valid from validFrom to validUntil
+        private int validFrom = 0, validUntil = 0; // span in which all entries are valid
+        private final ArrayList<Cluster> empty = new ArrayList<>(0);
+
+        /**
+         * Where a cluster is registered
+         */
+        private final class Entry {
+
+            final int generation;
+            long order; // position in the cluster list, from order of insertion
+            int x0 = 0, y0 = 0, x1 = -1, y1 = -1; // capture cells
+            int center = -1; // center cell
+            boolean moving = false;
+            int from, until; // validity of the capture cells for moving clusters
+
+            Entry(int generation) {
+                this.generation = generation;
+            }
+        }
+
+        private Entry entryOf(Cluster c) {
+            final Entry en = c.finderEntry;
+            return (en != null) && (en.generation == generation) ? en : null;
+        }
 
         void init() {
-            nx = chip.getSizeX() >> SUBSAMPLE_BY;
-            ny = chip.getSizeY() >> SUBSAMPLE_BY;
-            grid = new Cluster[nx + 1][ny + 1];
+            int shift = 31 - Integer.numberOfLeadingZeros(Math.max(4, (int) defaultClusterRadius));
+            cellShift = Math.max(2, Math.min(6, shift));
+            nx = (chip.getSizeX() >> cellShift) + 1;
+            ny = (chip.getSizeY() >> cellShift) + 1;
+            captureCells = new ArrayList[nx * ny];
+            centerCells = new ArrayList[nx * ny];
+            numEntries = 0;
+            generation++;
+            bounded = false;
+            active = false;
+            sync(lastTimestamp);
         }
 
         /**
-         * Finds the nearest cluster to an event. If the cluster has been cached
-         * in the grid map it is returned, otherwise either nearest or first
-         * cluster is returned depending on useNearestCluster flag.
+         * Finds the cluster that takes an event, using either the nearest or
+         * first cluster depending on useNearestCluster flag.
          *
          * @param e the event
          * @return the nearest cluster or null
          */
         protected Cluster findClusterNear(BasicEvent e) {
-            Cluster c = null;
-            c = grid[(e.x) >>> SUBSAMPLE_BY][(e.y) >>> SUBSAMPLE_BY];
-            if (c == null) {
-                if (useNearestCluster) {
-                    c = getNearestCluster(e);
-                } else {
-                    c = getFirstContainingCluster(e); // find cluster that event falls within (or also within surround
-                    // if scaling enabled)
+            if (useNearestCluster) {
+                return getNearestCluster(e);
+            } else {
+                return getFirstContainingCluster(e); // find cluster that event falls within (or also within surround
+                // if scaling enabled)
+            }
+        }
+
+        /**
+         * Returns the clusters whose capture region may contain the event. The
+         * list must not be modified or kept.
+         *
+         * @param e the event
+         * @return the candidates, in no particular order
+         */
+        protected ArrayList<Cluster> candidates(BasicEvent e) {
+            sync(e.timestamp);
+            if (!active) {
+                return clusters;
+            }
+            final int cx = clampX(e.x >> cellShift), cy = clampY(e.y >> cellShift);
+            final ArrayList<Cluster> l = captureCells[cx + (nx * cy)];
+            return l == null ? empty : l;
+        }
+
+        /**
+         * Collects the clusters with centers within a distance in x and y of
+         * the center of a cluster, not including the cluster itself.
+         *
+         * @param c the cluster
+         * @param range the distance
+         * @param out the list to fill, cleared first
+         */
+        protected void findClustersNear(Cluster c, float range, ArrayList<Cluster> out) {
+            out.clear();
+            if (!active) {
+                for (Cluster o : clusters) {
+                    if (o != c) {
+                        out.add(o);
+                    }
+                }
+                return;
+            }
+            final int x0 = cell(c.location.x - range, nx), x1 = cell(c.location.x + range, nx);
+            final int y0 = cell(c.location.y - range, ny), y1 = cell(c.location.y + range, ny);
+            for (int y = y0; y <= y1; y++) {
+                for (int x = x0; x <= x1; x++) {
+                    final ArrayList<Cluster> l = centerCells[x + (nx * y)];
+                    if (l == null) {
+                        continue;
+                    }
+                    for (int i = 0, n = l.size(); i < n; i++) {
+                        final Cluster o = l.get(i);
+                        if (o != c) {
+                            out.add(o);
+                        }
+                    }
+                }
+            }
+        }
+
+        /**
+         * Returns the position of a cluster in the cluster list, as a number
+         * that grows with the position.
+         *
+         * @param c the cluster
+         * @return the order, or Long.MAX_VALUE if it is not indexed
+         */
+        protected long orderOf(Cluster c) {
+            if (!active) {
+                for (int i = 0, n = clusters.size(); i < n; i++) {
+                    if (clusters.get(i) == c) {
+                        return i;
+                    }
+                }
+                return Long.MAX_VALUE;
+            }
+            final Entry en = entryOf(c);
+            return en == null ? Long.MAX_VALUE : en.order;
+        }
+
+        /**
+         * Drops or builds the index depending on the number of clusters,
+         * rebuilds it if the cluster list changed without it and renews
+         * entries whose capture region is not valid at time t.
+         *
+         * @param t the timestamp
+         */
+        protected void sync(int t) {
+            if (captureCells == null) {
+                init();
+                return;
+            }
+            if (clusters.size() <= LINEAR_SCAN_MAX_CLUSTERS) {
+                if (active) {
+                    clear();
+                    active = false;
+                }
+            } else if (!active || (numEntries != clusters.size())) {
+                active = true;
+                rebuild(t);
+            } else if (bounded && ((t - validUntil > 0) || (t - validFrom < 0))) {
+                renew(t);
+            }
+        }
+
+        private void renew(int t) {
+            bounded = false;
+            for (Cluster c : clusters) {
+                final Entry en = entryOf(c);
+                if (en == null) { // replaced in the list without the index
+                    rebuild(t);
+                    return;
+                }
+                if (en.moving && ((t - en.until > 0) || (t - en.from < 0))) {
+                    update(c, t);
+                } else if (en.moving) {
+                    extendValidity(en);
+                }
+            }
+        }
+
+        private void rebuild(int t) {
+            clear();
+            for (Cluster c : clusters) {
+                update(c, t);
+            }
+        }
+
+        private void clear() {
+            for (int i = 0; i < captureCells.length; i++) {
+                if (captureCells[i] != null) {
+                    captureCells[i].clear();
+                }
+                if (centerCells[i] != null) {
+                    centerCells[i].clear();
                 }
             }
-            return c;
+            numEntries = 0;
+            generation++;
+            bounded = false;
+        }
+
+        /**
+         * Updates the entry of every cluster.
+         *
+         * @param t the timestamp of the update
+         */
+        protected void updateAll(int t) {
+            if ((captureCells == null) || !active || (numEntries != clusters.size())) {
+                sync(t);
+                return;
+            }
+            bounded = false;
+            for (Cluster c : clusters) {
+                update(c, t);
+            }
         }
 
         /**
@@ -2941,33 +3534,153 @@ public class RectangularClusterTracker extends EventFilter2D
          * @param c the cluster to update
          */
         protected void update(Cluster c) {
-            removeCluster(c);
-            int x = (int) (c.location.x) >> SUBSAMPLE_BY;
-            if (x < 0) {
-                x = 0;
-            } else if (x >= nx) {
-                x = nx - 1;
+            update(c, lastTimestamp);
+        }
+
+        /**
+         * Updates or adds the entry of a cluster after it was created, got an
+         * event or moved.
+         *
+         * @param c the cluster
+         * @param t the present timestamp
+         */
+        protected void update(Cluster c, int t) {
+            if (!active) {
+                return; // the next lookup builds the index if needed
+            }
+            Entry en = entryOf(c);
+            if (en == null) {
+                en = new Entry(generation);
+                en.order = ++orderCounter;
+                c.finderEntry = en;
+                numEntries++;
+            }
+            float rX = c.radiusX, rY = c.radiusY;
+            if (dynamicSizeEnabled) {
+                rX *= surround;
+                rY *= surround;
+            }
+            final float ac = Math.abs(c.cosAngle), as = Math.abs(c.sinAngle);
+            final float hx = (rX * ac) + (rY * as), hy = (rX * as) + (rY * ac); // bounds of the rotated rectangle
+            // the distance tests measure from location-velocity*dt, dt from the last event of the cluster
+            float minX = c.location.x, maxX = minX, minY = c.location.y, maxY = minY;
+            final float vx = c.velocityPPT.x, vy = c.velocityPPT.y;
+            en.moving = (vx != 0) || (vy != 0);
+            if (en.moving) {
+                final float speed = Math.max(Math.abs(vx), Math.abs(vy));
+                final int span = (int) Math.max(MIN_SPAN_US, Math.min(MAX_SPAN_US, (1 << cellShift) / speed));
+                en.from = t - span;
+                en.until = t + span;
+                final float dt0 = en.from - c.lastUpdateTime, dt1 = en.until - c.lastUpdateTime;
+                minX = Math.min(c.location.x - (vx * dt0), c.location.x - (vx * dt1));
+                maxX = Math.max(c.location.x - (vx * dt0), c.location.x - (vx * dt1));
+                minY = Math.min(c.location.y - (vy * dt0), c.location.y - (vy * dt1));
+                maxY = Math.max(c.location.y - (vy * dt0), c.location.y - (vy * dt1));
+                extendValidity(en);
+            }
+            int x0 = cell(minX - hx, nx), x1 = cell(maxX + hx, nx), y0 = cell(minY - hy, ny), y1 = cell(maxY + hy, ny);
+            if (Float.isNaN(minX + maxX + minY + maxY + hx + hy)) {
+                x0 = 0; // cover everything rather than lose the cluster
+                x1 = nx - 1;
+                y0 = 0;
+                y1 = ny - 1;
+            }
+            // keep the registered cells if they still cover the region and are not much larger
+            final boolean covered = (x0 >= en.x0) && (x1 <= en.x1) && (y0 >= en.y0) && (y1 <= en.y1)
+                    && ((en.x1 - en.x0) - (x1 - x0) <= 1) && ((en.y1 - en.y0) - (y1 - y0) <= 1);
+            if (!covered) {
+                forEachCell(en, captureCells, c, false);
+                en.x0 = x0;
+                en.x1 = x1;
+                en.y0 = y0;
+                en.y1 = y1;
+                forEachCell(en, captureCells, c, true);
+            }
+            final int center = cell(c.location.x, nx) + (nx * cell(c.location.y, ny));
+            if (center != en.center) {
+                if (en.center >= 0) {
+                    removeFrom(centerCells[en.center], c);
+                }
+                en.center = center;
+                if (centerCells[center] == null) {
+                    centerCells[center] = new ArrayList<>(4);
+                }
+                centerCells[center].add(c);
             }
-            int y = (int) (c.location.y) >> SUBSAMPLE_BY;
-            if (y < 0) {
-                y = 0;
-            } else if (y >= ny) {
-                y = ny - 1;
+        }
+
+        private void extendValidity(Entry en) {
+            if (!bounded) {
+                bounded = true;
+                validFrom = en.from;
+                validUntil = en.until;
+                return;
+            }
+            if (en.until - validUntil < 0) {
+                validUntil = en.until;
+            }
+            if (en.from - validFrom > 0) {
+                validFrom = en.from;
+            }
+        }
+
+        private void forEachCell(Entry en, ArrayList<Cluster>[] cells, Cluster c, boolean add) {
+            for (int y = en.y0; y <= en.y1; y++) {
+                for (int x = en.x0; x <= en.x1; x++) {
+                    final int i = x + (nx * y);
+                    if (add) {
+                        if (cells[i] == null) {
+                            cells[i] = new ArrayList<>(4);
+                        }
+                        cells[i].add(c);
+                    } else {
+                        removeFrom(cells[i], c);
+                    }
+                }
             }
-            grid[x][y] = c;
-            map.put(c, new Point(x, y));
+        }
+
+        /**
+         * Removes by identity, since clusters are equal by cluster number
+         */
+        private void removeFrom(ArrayList<Cluster> l, Cluster c) {
+            if (l == null) {
+                return;
+            }
+            for (int i = l.size() - 1; i >= 0; i--) {
+                if (l.get(i) == c) {
+                    l.set(i, l.get(l.size() - 1));
+                    l.remove(l.size() - 1);
+                    return;
+                }
+            }
+        }
+
+        private int cell(float v, int n) {
+            if (!(v >= 0)) {
+                return 0; // also NaN
+            }
+            return v >= (n << cellShift) ? n - 1 : ((int) v) >> cellShift;
+        }
+
+        private int clampX(int x) {
+            return x < 0 ? 0 : (x >= nx ? nx - 1 : x);
+        }
+
+        private int clampY(int y) {
+            return y < 0 ? 0 : (y >= ny ? ny - 1 : y);
         }
 
         /**
          * Clears the map
          */
         protected void reset() {
-            if (grid == null) {
+            if (captureCells == null) {
                 init();
             } else {
-                for (Cluster[] ca : grid) {
-                    Arrays.fill(ca, null);
-                }
+                clear();
+                active = false;
+                sync(lastTimestamp);
             }
         }
 
@@ -2977,10 +3690,15 @@ public class RectangularClusterTracker extends EventFilter2D
          * @param c the cluster to be removed
          */
         protected void removeCluster(Cluster c) {
-            if (map.containsKey(c)) {
-                Point p = map.get(c);
-                grid[p.x][p.y] = null;
-                map.remove(c);
+            final Entry en = entryOf(c);
+            if (en == null) {
+                return;
+            }
+            c.finderEntry = null;
+            numEntries--;
+            forEachCell(en, captureCells, c, false);
+            if (en.center >= 0) {
+                removeFrom(centerCells[en.center], c);
             }
         }
     }
@@ -3788,6 +4506,67 @@ public class RectangularClusterTracker extends EventFilter2D
     }
     // </editor-fold>
 
+    // <editor-fold defaultstate="collapsed" desc="getter/setter for --BatchUpdateEnabled--">
+    /**
+     * @return the batchUpdateEnabled
+     */
+    public boolean isBatchUpdateEnabled() {
+        return batchUpdateEnabled;
+    }
+
+    /**
+     * Enables tracking in blocks of events; see
+     * {@link #trackBatched(EventPacket, OutputEventIterator, int, int)}.
+     *
+     * @param batchUpdateEnabled the batchUpdateEnabled to set
+     */
+    synchronized public void setBatchUpdateEnabled(boolean batchUpdateEnabled) {
+        this.batchUpdateEnabled = batchUpdateEnabled;
+        putBoolean("batchUpdateEnabled", batchUpdateEnabled);
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="getter/setter for --BatchSize--">
+    /**
+     * @return the number of events per block if batchUpdateEnabled
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * @param batchSize the number of events per block if batchUpdateEnabled
+     */
+    synchronized public void setBatchSize(int batchSize) {
+        if (batchSize < 1) {
+            batchSize = 1;
+        }
+        this.batchSize = batchSize;
+        putInt("batchSize", batchSize);
+    }
+    // </editor-fold>
+
+    // <editor-fold defaultstate="collapsed" desc="getter/setter for --ParallelBatchUpdateEnabled--">
+    /**
+     * @return the parallelBatchUpdateEnabled
+     */
+    public boolean isParallelBatchUpdateEnabled() {
+        return parallelBatchUpdateEnabled;
+    }
+
+    /**
+     * Updates the clusters of a block in parallel if batchUpdateEnabled. Only
+     * safe if {@link Cluster#addEvent(BasicEvent)} of the cluster class
+     * changes nothing but the cluster.
+     *
+     * @param parallelBatchUpdateEnabled the parallelBatchUpdateEnabled to set
+     */
+    synchronized public void setParallelBatchUpdateEnabled(boolean parallelBatchUpdateEnabled) {
+        this.parallelBatchUpdateEnabled = parallelBatchUpdateEnabled;
+        putBoolean("parallelBatchUpdateEnabled", parallelBatchUpdateEnabled);
+    }
+    // </editor-fold>
+
     // <editor-fold defaultstate="collapsed" desc="getter/setter for --AngleFollowsVelocity--">
     /**
      * @return the angleFollowsVelocity
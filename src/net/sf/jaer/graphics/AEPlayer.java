@@ -22,7 +22,9 @@ import com.jogamp.opengl.GLException;
 import java.time.ZoneId;
 
 import net.sf.jaer.aemonitor.AEPacketRaw;
+import net.sf.jaer.eventio.AbstractBlockFileInputStream;
 import net.sf.jaer.eventio.AEDataFile;
+import net.sf.jaer.eventio.AEFileInputStream;
 import net.sf.jaer.eventio.AEFileInputStreamInterface;
 import net.sf.jaer.graphics.AEViewer.PlayMode;
 import net.sf.jaer.hardwareinterface.HardwareInterfaceException;
@@ -691,6 +693,20 @@ public class AEPlayer extends AbstractAEPlayer implements AEFileInputStreamInter
         }
     }
 
+    /**
+     * Seeks AEDAT, compressed AEDAT and HDF5 files by timestamp, see
+     * {@link AEFileInputStream#seekTimestamp(int)}.
+     */
+    @Override
+    public boolean seekTime(int time) {
+        if (aeFileInputStream instanceof AEFileInputStream) {
+            return ((AEFileInputStream) aeFileInputStream).seekTimestamp(time);
+        } else if (aeFileInputStream instanceof AbstractBlockFileInputStream) {
+            return ((AbstractBlockFileInputStream) aeFileInputStream).seekTimestamp(time);
+        }
+        return false;
+    }
+
     @Override
     public int getTime() {
         if (aeFileInputStream == null) {
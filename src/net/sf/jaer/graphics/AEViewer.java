@@ -102,10 +102,13 @@ import net.sf.jaer.chip.AEChip;
 import net.sf.jaer.chip.Calibratible;
 import net.sf.jaer.chip.EventExtractor2D;
 import net.sf.jaer.event.EventPacket;
+import net.sf.jaer.eventio.AECompressedFileOutputStream;
 import net.sf.jaer.eventio.AEDataFile;
 import net.sf.jaer.eventio.AEFileInputStream;
 import net.sf.jaer.eventio.AEFileInputStreamInterface;
 import net.sf.jaer.eventio.AEFileOutputStream;
+import net.sf.jaer.eventio.AsyncFileWriter;
+import net.sf.jaer.eventio.Hdf5EventFileInputStream;
 import net.sf.jaer.eventio.AEInputStream;
 import net.sf.jaer.eventio.AEMulticastInput;
 import net.sf.jaer.eventio.AEMulticastOutput;
@@ -277,6 +280,8 @@ public class AEViewer extends javax.swing.JFrame implements PropertyChangeListen
     volatile boolean loggingEnabled = false;
     private File loggingFile;
     AEFileOutputStream loggingOutputStream;
+    private AsyncFileWriter loggingWriter; // writes the loggingOutputStream in the background
+    private long loggingStatusTimeMs = 0;
     private boolean activeRenderingEnabled = prefs.getBoolean("AEViewer.activeRenderingEnabled", true);
     private boolean renderBlankFramesEnabled = prefs.getBoolean("AEViewer.renderBlankFramesEnabled", false);
     // number of packets to skip over rendering, used to speed up real time processing
@@ -288,6 +293,9 @@ public class AEViewer extends javax.swing.JFrame implements PropertyChangeListen
     private boolean enableFiltersOnStartup = prefs.getBoolean("AEViewer.enableFiltersOnStartup", false);
     private long loggingTimeLimit = 0, loggingStartTime = System.currentTimeMillis();
     private boolean logFilteredEventsEnabled = prefs.getBoolean("AEViewer.logFilteredEventsEnabled", false);
+    private boolean loggingCompressedEnabled = prefs.getBoolean("AEViewer.loggingCompressedEnabled", false);
+    private javax.swing.JCheckBoxMenuItem loggingCompressedCheckBoxMenuItem;
+    private javax.swing.JCheckBoxMenuItem prefetchPlaybackCheckBoxMenuItem;
     private DynamicFontSizeJLabel statisticsLabel;
     private boolean filterFrameBuilt = false; // flag to signal that the frame should be rebuilt when initially shown or when chip is changed
     private AEChip chip;
@@ -416,7 +424,7 @@ public class AEViewer extends javax.swing.JFrame implements PropertyChangeListen
 
         statisticsLabel = new DynamicFontSizeJLabel();
         //        statisticsLabel.setFont(new java.awt.Font("Bitstream Vera Sans Mono 11 Bold", 0, 8));
-        statisticsLabel.setToolTipText("Time slice/Absolute time, NumEvents/NumFiltered, events/sec, Graphics rendering frame rate desired/achieved, Time speedup X, delay after frame, color scale");
+        statisticsLabel.setToolTipText("Time slice (* if chosen by adaptive playback)/Absolute time, NumEvents/NumFiltered, events/sec, Graphics rendering frame rate desired/achieved, Time speedup X, delay after frame, color scale");
         statisticsPanel.add(statisticsLabel);
         PropertyChangeListener[] list = statisticsLabel.getPropertyChangeListeners();
         for (PropertyChangeListener p : list) {
@@ -517,6 +525,26 @@ public class AEViewer extends javax.swing.JFrame implements PropertyChangeListen
         pauseRenderingCheckBoxMenuItem.setSelected(false);// not isPaused because aePlayer doesn't exist yet
         viewRenderBlankFramesCheckBoxMenuItem.setSelected(isRenderBlankFramesEnabled());
         logFilteredEventsCheckBoxMenuItem.setSelected(logFilteredEventsEnabled);
+        loggingCompressedCheckBoxMenuItem = new javax.swing.JCheckBoxMenuItem("Log to compressed " + AEDataFile.COMPRESSED_DATA_FILE_EXTENSION + " files");
+        loggingCompressedCheckBoxMenuItem.setToolTipText("Logging writes the compressed columnar format (typically 3-8x smaller) instead of AEDAT-2.0");
+        loggingCompressedCheckBoxMenuItem.setSelected(loggingCompressedEnabled);
+        loggingCompressedCheckBoxMenuItem.addActionListener(new java.awt.event.ActionListener() {
+            @Override
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                setLoggingCompressedEnabled(loggingCompressedCheckBoxMenuItem.isSelected());
+            }
+        });
+        fileMenu.insert(loggingCompressedCheckBoxMenuItem, fileMenu.getPopupMenu().getComponentIndex(logFilteredEventsCheckBoxMenuItem) + 1);
+        prefetchPlaybackCheckBoxMenuItem = new javax.swing.JCheckBoxMenuItem("Prefetch file chunks during playback");
+        prefetchPlaybackCheckBoxMenuItem.setToolTipText("Maps the following chunks of AEDAT files on a background thread and decodes events in bulk");
+        prefetchPlaybackCheckBoxMenuItem.setSelected(AEFileInputStream.isPrefetchEnabledByDefault());
+        prefetchPlaybackCheckBoxMenuItem.addActionListener(new java.awt.event.ActionListener() {
+            @Override
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                setPrefetchPlaybackEnabled(prefetchPlaybackCheckBoxMenuItem.isSelected());
+            }
+        });
+        viewMenu.insert(prefetchPlaybackCheckBoxMenuItem, viewMenu.getPopupMenu().getComponentIndex(flextimePlaybackEnabledCheckBoxMenuItem) + 1);
         enableFiltersOnStartupCheckBoxMenuItem.setSelected(enableFiltersOnStartup);
         setJogNCount.setText("Set forward/rewind N... (currently " + getAePlayer().getJogPacketCount() + ")");
 
@@ -1475,6 +1503,7 @@ public class AEViewer extends javax.swing.JFrame implements PropertyChangeListen
                         }
 
                         numRawEvents = rawPacket.getNumEvents();
+                        final long processingStartNs = System.nanoTime();
                         cookedPacket = extractPacket(rawPacket);
                         if (cookedPacket == null) {
                             log.warning("packet became null after extracting events from raw input packet");
@@ -1483,6 +1512,9 @@ public class AEViewer extends javax.swing.JFrame implements PropertyChangeListen
                         numEvents = cookedPacket.getSize();
 
                         cookedPacket = filterPacket(cookedPacket);
+                        if (getPlayMode() == PlayMode.PLAYBACK) {
+                            getAePlayer().packetProcessed(numRawEvents, System.nanoTime() - processingStartNs); // lets adaptive playback choose the next time slice
+                        }
 
                     }
                     chip.setLastData(cookedPacket);// set the rendered data for use by various methods
@@ -1786,8 +1818,8 @@ public class AEViewer extends javax.swing.JFrame implements PropertyChangeListen
 
         /**
          * Filters packet through processing chain if ProcessingMode is
-         * RENDERING or LIVE. If any filter throws an exception, all filters are
-         * disabled.
+         * RENDERING or PIPELINED or not LIVE. If any filter throws an exception,
+         * all filters are disabled.
          *
          * @return true if packet is null, otherwise false.
          */
@@ -1797,7 +1829,7 @@ public class AEViewer extends javax.swing.JFrame implements PropertyChangeListen
                 return inputPacket; // don't run filters if user is manipulating position or playing backwards
             }
             // filter events, do processing on them in rendering loop here
-            if ((filterChain.getProcessingMode() == FilterChain.ProcessingMode.RENDERING) || (getPlayMode() != PlayMode.LIVE)) {
+            if ((filterChain.getProcessingMode() != FilterChain.ProcessingMode.ACQUISITION) || (getPlayMode() != PlayMode.LIVE)) {
                 try {
                     return filterChain.filterPacket(inputPacket);
                 } catch (Exception e) {
@@ -1835,6 +1867,7 @@ public class AEViewer extends javax.swing.JFrame implements PropertyChangeListen
                     }
                 }
             }
+            showLoggingStatus();
             if (loggingTimeLimit > 0) { // we may have a defined time for logging, if so, check here and abort logging
                 if ((System.currentTimeMillis() - loggingStartTime) > loggingTimeLimit) {
                     log.info("logging time limit reached, stopping logging");
@@ -1854,6 +1887,22 @@ public class AEViewer extends javax.swing.JFrame implements PropertyChangeListen
             }
         }
 
+        /**
+         * Shows the bytes written, queued and dropped by the logging writer
+         * once a second, in red if the disk cannot keep up.
+         */
+        private void showLoggingStatus() {
+            final long now = System.currentTimeMillis();
+            if ((loggingWriter == null) || ((now - loggingStatusTimeMs) < 1000)) {
+                return;
+            }
+            loggingStatusTimeMs = now;
+            setStatusMessage("Logging: " + loggingWriter.getStatus());
+            if (loggingWriter.getBytesDropped() > 0) {
+                setStatusColor(Color.red);
+            }
+        }
+
         /**
          * Write data to output streams Returns true if the run loop should
          * break.
@@ -1864,26 +1913,16 @@ public class AEViewer extends javax.swing.JFrame implements PropertyChangeListen
             // write to network socket if a client has opened a socket to us
             // we serve up events on this socket
 
-            if ((getAeServerSocket() != null) && (getAeServerSocket().getAESocket() != null)) {
-                AESocket s = getAeServerSocket().getAESocket();
-                try {
-                    if (!isLogFilteredEventsEnabled()) {
-                        s.writePacket(rawPacket);
-                    } else {
-                        // send the reconstructed packet after filtering
-                        AEPacketRaw aeRawRecon = extractor.reconstructRawPacket(cookedPacket);
-                        s.writePacket(aeRawRecon);
-                    }
-                } catch (IOException e) {
-                    log.warning("sending packet " + rawPacket + " from " + this + " to " + s + " failed, closing socket");
-                    try {
-                        s.close();
-                    } catch (IOException e2) {
-                        log.log(Level.SEVERE, e2.toString(), e2);
-
-                    } finally {
-                        getAeServerSocket().setSocket(null);
-                    }
+            // the server queues the packet to each client and never blocks on slow clients
+            AEServerSocket server = getAeServerSocket();
+            if ((server != null) && server.hasSubscribers()) {
+                server.setEventExtractor(extractor);
+                if (!isLogFilteredEventsEnabled()) {
+                    server.writePacket(rawPacket);
+                } else {
+                    // send the reconstructed packet after filtering
+                    AEPacketRaw aeRawRecon = extractor.reconstructRawPacket(cookedPacket);
+                    server.writePacket(aeRawRecon);
                 }
             }
 
@@ -2020,7 +2059,12 @@ public class AEViewer extends javax.swing.JFrame implements PropertyChangeListen
                     return;
                 }
                 float dtMs = getDtMs(packet);
-                String timeSliceString = String.format("%10ss", engFmt.format(dtMs / 1000));
+                String timeSliceString;
+                if ((getPlayMode() == PlayMode.PLAYBACK) && getAePlayer().isAdaptiveEnabled()) { // show the slice chosen by adaptive playback, marked with *
+                    timeSliceString = String.format("%9ss*", engFmt.format(Math.abs(getAePlayer().getTimesliceUs()) * 1e-6f));
+                } else {
+                    timeSliceString = String.format("%10ss", engFmt.format(dtMs / 1000));
+                }
 
                 float ratekeps = packet.getEventRateHz() / 1e3f;
                 switch (getPlayMode()) {
@@ -4317,8 +4361,10 @@ public class AEViewer extends javax.swing.JFrame implements PropertyChangeListen
      *
      * @param filename the filename to log to, including all path information.
      * Filenames without path are logged to the startup folder. The default
-     * extension of AEDataFile.DATA_FILE_EXTENSION is appended if there is no
-     * extension.
+     * extension of AEDataFile.DATA_FILE_EXTENSION, or
+     * AEDataFile.COMPRESSED_DATA_FILE_EXTENSION if compressed logging is
+     * enabled, is appended if there is no extension. Files with the compressed
+     * extension are written with AECompressedFileOutputStream.
      *
      * @param dataFileVersionNum the version number string, e.g. "2.0", "3.0",
      * or "3.1". ("2.0" is standard AEDAT file format for pre-caer records and
@@ -4331,14 +4377,20 @@ public class AEViewer extends javax.swing.JFrame implements PropertyChangeListen
             log.warning("tried to log to null filename, aborting");
             return null;
         }
-        if (!filename.toLowerCase().endsWith(AEDataFile.DATA_FILE_EXTENSION) && !filename.toLowerCase().endsWith(AEDataFile.OLD_DATA_FILE_EXTENSION)) {
+        if (!filename.toLowerCase().endsWith(AEDataFile.DATA_FILE_EXTENSION) && !filename.toLowerCase().endsWith(AEDataFile.OLD_DATA_FILE_EXTENSION)
+                && !filename.toLowerCase().endsWith(AEDataFile.COMPRESSED_DATA_FILE_EXTENSION)) {
             // allow both extensions for  backward compatibility
-            filename = filename + AEDataFile.DATA_FILE_EXTENSION;
-            log.info("Appended extension " + AEDataFile.DATA_FILE_EXTENSION + " to make filename=" + filename);
+            filename = filename + getLoggingFileExtension();
+            log.info("Appended extension " + getLoggingFileExtension() + " to make filename=" + filename);
         }
         try {
             loggingFile = new File(filename);
-            loggingOutputStream = new AEFileOutputStream(new FileOutputStream(loggingFile), chip, dataFileVersionNum); // tobi changed to 8k buffer (from 400k) because this has measurablly better performance than super large buffer
+            loggingWriter = new AsyncFileWriter(new FileOutputStream(loggingFile)); // so that the ViewLoop does not wait for the disk
+            if (filename.toLowerCase().endsWith(AEDataFile.COMPRESSED_DATA_FILE_EXTENSION)) {
+                loggingOutputStream = new AECompressedFileOutputStream(loggingWriter, chip);
+            } else {
+                loggingOutputStream = new AEFileOutputStream(loggingWriter, chip, dataFileVersionNum); // tobi changed to 8k buffer (from 400k) because this has measurablly better performance than super large buffer
+            }
 
             if (getPlayMode() == PlayMode.PLAYBACK) { // change listener for rewind to stop logging
                 getAePlayer().getAEInputStream().getSupport().addPropertyChangeListener(AEInputStream.EVENT_REWOUND, new PropertyChangeListener() {
@@ -4433,7 +4485,7 @@ public class AEViewer extends javax.swing.JFrame implements PropertyChangeListen
 
         do {
             // log files to tmp folder initially, later user will move or delete file on end of logging
-            filename = lastLoggingFolder + File.separator + className + "-" + dateString + serialNumber + "-" + suffixNumber + AEDataFile.DATA_FILE_EXTENSION;
+            filename = lastLoggingFolder + File.separator + className + "-" + dateString + serialNumber + "-" + suffixNumber + getLoggingFileExtension();
             File lf = new File(filename);
             if (!lf.isFile()) {
                 succeeded = true;
@@ -4489,7 +4541,8 @@ public class AEViewer extends javax.swing.JFrame implements PropertyChangeListen
                             = loggingFile.getName();
                     //                System.out.println("fn="+fn);
                     // strip off .aedat to make it easier to appendCopy comment to filename
-                    int extInd = fn.lastIndexOf(AEDataFile.DATA_FILE_EXTENSION);
+                    final String ext = fn.endsWith(AEDataFile.COMPRESSED_DATA_FILE_EXTENSION) ? AEDataFile.COMPRESSED_DATA_FILE_EXTENSION : AEDataFile.DATA_FILE_EXTENSION;
+                    int extInd = fn.lastIndexOf(ext);
                     String base = fn;
                     if (extInd > 0) {
                         base = fn.substring(0, extInd); // maybe trying to save old .dat extension
@@ -4520,8 +4573,8 @@ public class AEViewer extends javax.swing.JFrame implements PropertyChangeListen
                         if (retValue == JFileChooser.APPROVE_OPTION) {
                             File newFile = chooser.getSelectedFile();
                             // make sure filename ends with .aedat
-                            if (!newFile.getName().endsWith(AEDataFile.DATA_FILE_EXTENSION)) {
-                                newFile = new File(newFile.getCanonicalPath() + AEDataFile.DATA_FILE_EXTENSION);
+                            if (!newFile.getName().endsWith(ext)) {
+                                newFile = new File(newFile.getCanonicalPath() + ext);
                             }
                             // we'll rename the logged data file to the selection
                             lastLoggingFolder = chooser.getCurrentDirectory();
@@ -5655,6 +5708,8 @@ public class AEViewer extends javax.swing.JFrame implements PropertyChangeListen
                 for (File f : files) {
                     if (f.getName().endsWith(AEDataFile.DATA_FILE_EXTENSION) || f.getName().endsWith(AEDataFile.INDEX_FILE_EXTENSION)
                             || f.getName().endsWith(AEDataFile.OLD_DATA_FILE_EXTENSION) || f.getName().endsWith(AEDataFile.OLD_INDEX_FILE_EXTENSION)
+                            || f.getName().endsWith(AEDataFile.COMPRESSED_DATA_FILE_EXTENSION)
+                            || f.getName().endsWith("." + Hdf5EventFileInputStream.DATA_FILE_EXTENSION)
                             || f.getName().endsWith(RosbagFileInputStream.DATA_FILE_EXTENSION)) {
                         draggedFile = f;
                     } else {
@@ -5850,6 +5905,49 @@ public class AEViewer extends javax.swing.JFrame implements PropertyChangeListen
         logFilteredEventsCheckBoxMenuItem.setSelected(logFilteredEventsEnabled);
     }
 
+    /**
+     * @return true if logging writes compressed .aedatz files
+     */
+    public boolean isLoggingCompressedEnabled() {
+        return loggingCompressedEnabled;
+    }
+
+    /**
+     * Selects the format of new logging files.
+     *
+     * @param loggingCompressedEnabled true to write compressed .aedatz files
+     * with AECompressedFileOutputStream, false to write AEDAT-2.0 files
+     */
+    public void setLoggingCompressedEnabled(boolean loggingCompressedEnabled) {
+        this.loggingCompressedEnabled = loggingCompressedEnabled;
+        prefs.putBoolean("AEViewer.loggingCompressedEnabled", loggingCompressedEnabled);
+        if (loggingCompressedCheckBoxMenuItem != null) {
+            loggingCompressedCheckBoxMenuItem.setSelected(loggingCompressedEnabled);
+        }
+    }
+
+    /**
+     * Sets whether AEDAT files are played back with prefetching, both for the
+     * file being played and as the stored default for files opened afterwards.
+     *
+     * @param yes true to prefetch
+     * @see AEFileInputStream#setPrefetchEnabled(boolean)
+     */
+    public void setPrefetchPlaybackEnabled(boolean yes) {
+        AEFileInputStream.setPrefetchEnabledByDefault(yes);
+        AEFileInputStreamInterface in = getAePlayer().getAEInputStream();
+        if (in instanceof AEFileInputStream) {
+            ((AEFileInputStream) in).setPrefetchEnabled(yes);
+        }
+        if (prefetchPlaybackCheckBoxMenuItem != null) {
+            prefetchPlaybackCheckBoxMenuItem.setSelected(yes);
+        }
+    }
+
+    private String getLoggingFileExtension() {
+        return loggingCompressedEnabled ? AEDataFile.COMPRESSED_DATA_FILE_EXTENSION : AEDataFile.DATA_FILE_EXTENSION;
+    }
+
     /**
      * Returns the enclosing JAERViewer, which is the top level object in jAER.
      *
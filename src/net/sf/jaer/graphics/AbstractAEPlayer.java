@@ -155,7 +155,7 @@ public abstract class AbstractAEPlayer {
 
     public enum PlaybackMode {
 
-        FixedTimeSlice, FixedPacketSize, RealTime
+        FixedTimeSlice, FixedPacketSize, RealTime, Adaptive
     }
 
     public enum PlaybackDirection {
@@ -169,6 +169,15 @@ public abstract class AbstractAEPlayer {
     protected int jogPacketCount = 30;
     protected int jogPacketsLeft = 0;
     protected boolean jogOccuring = false;
+    /**
+     * Chooses the time slice in Adaptive playback mode
+     */
+    protected final AdaptivePacketSizer adaptivePacketSizer = new AdaptivePacketSizer();
+    /**
+     * The time slice and packet size set before entering Adaptive playback
+     * mode, put back when leaving it
+     */
+    private int fixedTimesliceUs = timesliceUs, fixedPacketSizeEvents = packetSizeEvents;
 
     abstract public void openAEInputFileDialog();
 
@@ -182,7 +191,9 @@ public abstract class AbstractAEPlayer {
      *
      */
     public void speedUp() {
-        if (isFlexTimeEnabled()) {
+        if (isAdaptiveEnabled()) {
+            adaptivePacketSizer.setTargetEventsPerPacket(adaptivePacketSizer.getTargetEventsPerPacket() * 2);
+        } else if (isFlexTimeEnabled()) {
             setPacketSizeEvents(getPacketSizeEvents() * 2);
         } else {
             long newTimeSlice = (long) getTimesliceUs() * 2;
@@ -200,7 +211,9 @@ public abstract class AbstractAEPlayer {
      *
      */
     public void slowDown() {
-        if (isFlexTimeEnabled()) {
+        if (isAdaptiveEnabled()) {
+            adaptivePacketSizer.setTargetEventsPerPacket(adaptivePacketSizer.getTargetEventsPerPacket() / 2);
+        } else if (isFlexTimeEnabled()) {
             setPacketSizeEvents(getPacketSizeEvents() / 2);
             if (getPacketSizeEvents() == 0) {
                 setPacketSizeEvents(1);
@@ -251,13 +264,24 @@ public abstract class AbstractAEPlayer {
     }
 
     /**
-     * Changes playback mode and fires PropertyChange EVENT_PLAYBACKMODE
+     * Changes playback mode and fires PropertyChange EVENT_PLAYBACKMODE. The
+     * time slice and packet size chosen by Adaptive mode are replaced by the
+     * ones set before entering it when leaving it, keeping the playback
+     * direction.
      *
      * @param playbackMode
      */
     public void setPlaybackMode(PlaybackMode playbackMode) {
         PlaybackMode old = this.playbackMode;
+        if ((old != PlaybackMode.Adaptive) && (playbackMode == PlaybackMode.Adaptive)) {
+            fixedTimesliceUs = Math.abs(getTimesliceUs());
+            fixedPacketSizeEvents = Math.abs(getPacketSizeEvents());
+        }
         this.playbackMode = playbackMode;
+        if ((old == PlaybackMode.Adaptive) && (playbackMode != PlaybackMode.Adaptive)) {
+            setTimesliceUs((getTimesliceUs() < 0 ? -1 : 1) * fixedTimesliceUs);
+            setPacketSizeEvents((getPacketSizeEvents() < 0 ? -1 : 1) * fixedPacketSizeEvents);
+        }
         support.firePropertyChange(EVENT_PLAYBACKMODE, old, playbackMode);
     }
 
@@ -338,6 +362,18 @@ public abstract class AbstractAEPlayer {
 
     abstract public void setTime(int time);
 
+    /**
+     * Moves playback to a time, unlike setTime which only sets the start time
+     * of the next packet. Players that can seek by time override this method.
+     *
+     * @param time the timestamp to seek to
+     * @return true if the player moved to the time, false if it cannot seek by
+     * time
+     */
+    public boolean seekTime(int time) {
+        return false;
+    }
+
     /**
      * Opens an input stream and starts playing it.
      *
@@ -421,6 +457,46 @@ public abstract class AbstractAEPlayer {
         setPlaybackMode(PlaybackMode.RealTime);
     }
 
+    public boolean isAdaptiveEnabled() {
+        return playbackMode == PlaybackMode.Adaptive;
+    }
+
+    public void setAdaptiveEnabled() {
+        adaptivePacketSizer.reset();
+        setPlaybackMode(PlaybackMode.Adaptive);
+    }
+
+    /**
+     * Returns the controller that chooses the time slice in Adaptive playback
+     * mode, e.g. to set its target number of events per packet.
+     *
+     * @return the sizer
+     */
+    public AdaptivePacketSizer getAdaptivePacketSizer() {
+        return adaptivePacketSizer;
+    }
+
+    /**
+     * Called by the viewer after each packet from this player has been
+     * extracted and filtered. In Adaptive playback mode this sets the time
+     * slice of the next packet from the event count and processing time.
+     *
+     * @param numEvents the number of events in the packet
+     * @param processingTimeNs the time taken to process the packet
+     */
+    public void packetProcessed(int numEvents, long processingTimeNs) {
+        if (!isAdaptiveEnabled() || isPaused() || jogOccuring) {
+            return;
+        }
+        int dt = adaptivePacketSizer.update(getTimesliceUs(), numEvents, processingTimeNs);
+        if (getTimesliceUs() < 0) {
+            dt = -dt; // keep playing backwards
+        }
+        if (dt != getTimesliceUs()) {
+            setTimesliceUs(dt);
+        }
+    }
+
     public void setTimesliceUs(int samplePeriodUs) {
         int old = this.timesliceUs;
         this.timesliceUs = samplePeriodUs;
@@ -439,7 +515,7 @@ public abstract class AbstractAEPlayer {
         } else if (playbackMode == PlaybackMode.FixedTimeSlice) {
             setFlexTimeEnabled();
         } else {
-            log.warning("cannot toggle flex time since we are in RealTime playback mode now");
+            log.warning("cannot toggle flex time since we are in " + playbackMode + " playback mode now");
         }
     }
 
@@ -653,6 +729,9 @@ public abstract class AbstractAEPlayer {
     private final EngineeringFormat engFmt = new EngineeringFormat();
 
     private final String speedText(boolean faster) {
+        if (isAdaptiveEnabled()) {
+            return String.format("DVS frames %s to about %d events", faster ? "increased" : "reduced", adaptivePacketSizer.getTargetEventsPerPacket());
+        }
         return String.format("DVS frames %s to %s%s", faster ? "increased" : "reduced",
                 isFlexTimeEnabled() ? Integer.toString(getPacketSizeEvents()) : engFmt.format(1e-6f*getTimesliceUs()),
                 isFlexTimeEnabled() ? " events" : "s"
@@ -0,0 +1,183 @@
+/*
+ * AdaptivePacketSizer.java
+ *
+ * Copyright (C) 2026 jAER project.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ */
+package net.sf.jaer.graphics;
+
+import java.util.prefs.Preferences;
+
+/**
+ * Chooses the playback time slice for each packet so that packets have about
+ * a target number of events and take at most a wall-clock budget to process.
+ * <p>
+ * After each packet the event rate of the recording and the processing cost
+ * per event are lowpass filtered. The next time slice is the one expected to
+ * give the target event count, or fewer events if processing that many would
+ * exceed the budget. Each step changes the slice by at most a factor of
+ * {@link #MAX_STEP} so that single bursts do not make the slice jump.
+ * <p>
+ * Used by {@link AbstractAEPlayer} in {@link AbstractAEPlayer.PlaybackMode#Adaptive}
+ * playback; filters that need packets of some size, like FlexTimePlayer, can
+ * set the target of the player's sizer.
+ *
+ * @author agent
+ */
+public class AdaptivePacketSizer {
+
+    private static final Preferences prefs = Preferences.userNodeForPackage(AdaptivePacketSizer.class);
+    /**
+     * The largest factor by which one update changes the time slice
+     */
+    public static final float MAX_STEP = 2;
+    private static final float MIX = 0.3f; // lowpass mixing factor per packet
+
+    private int targetEventsPerPacket = prefs.getInt("AdaptivePacketSizer.targetEventsPerPacket", 10000);
+    private float budgetMs = prefs.getFloat("AdaptivePacketSizer.budgetMs", 15);
+    private int minTimesliceUs = prefs.getInt("AdaptivePacketSizer.minTimesliceUs", 100);
+    private int maxTimesliceUs = prefs.getInt("AdaptivePacketSizer.maxTimesliceUs", 1000000);
+
+    private float eventsPerUs = Float.NaN, nsPerEvent = Float.NaN;
+    private boolean budgetLimited = false;
+
+    /**
+     * Computes the time slice for the next packet from the last one.
+     *
+     * @param timesliceUs the time slice of the last packet in us; its sign is
+     * ignored
+     * @param numEvents the number of events in the last packet
+     * @param processingTimeNs the time it took to process the last packet
+     * @return the time slice for the next packet in us, positive
+     */
+    synchronized public int update(int timesliceUs, int numEvents, long processingTimeNs) {
+        final int dt = Math.max(1, Math.abs(timesliceUs));
+        if (numEvents <= 0) {
+            return clamp(dt * MAX_STEP); // nothing happening, grow as fast as we may
+        }
+        final float rate = (float) numEvents / dt, cost = (float) processingTimeNs / numEvents;
+        eventsPerUs = Float.isNaN(eventsPerUs) ? rate : eventsPerUs + MIX * (rate - eventsPerUs);
+        nsPerEvent = Float.isNaN(nsPerEvent) ? cost : nsPerEvent + MIX * (cost - nsPerEvent);
+        float events = targetEventsPerPacket;
+        final float eventsInBudget = nsPerEvent > 0 ? budgetMs * 1e6f / nsPerEvent : Float.POSITIVE_INFINITY;
+        budgetLimited = eventsInBudget < events;
+        if (budgetLimited) {
+            events = eventsInBudget;
+        }
+        float next = events / eventsPerUs;
+        next = Math.max(dt / MAX_STEP, Math.min(dt * MAX_STEP, next));
+        return clamp(next);
+    }
+
+    private int clamp(float timesliceUs) {
+        return Math.round(Math.max(minTimesliceUs, Math.min(maxTimesliceUs, timesliceUs)));
+    }
+
+    /**
+     * Forgets the measured event rate and cost, e.g. after a new file is
+     * opened.
+     */
+    synchronized public void reset() {
+        eventsPerUs = Float.NaN;
+        nsPerEvent = Float.NaN;
+        budgetLimited = false;
+    }
+
+    /**
+     * @return true if the last time slice was limited by the processing
+     * budget rather than the target event count
+     */
+    public boolean isBudgetLimited() {
+        return budgetLimited;
+    }
+
+    /**
+     * @return the measured processing cost in ns per event, or NaN before the
+     * first packet
+     */
+    public float getNsPerEvent() {
+        return nsPerEvent;
+    }
+
+    /**
+     * @return the measured event rate in events per second, or NaN before the
+     * first packet
+     */
+    public float getEventRateHz() {
+        return eventsPerUs * 1e6f;
+    }
+
+    /**
+     * @return the targetEventsPerPacket
+     */
+    public int getTargetEventsPerPacket() {
+        return targetEventsPerPacket;
+    }
+
+    /**
+     * @param targetEventsPerPacket the targetEventsPerPacket to set
+     */
+    public void setTargetEventsPerPacket(int targetEventsPerPacket) {
+        if (targetEventsPerPacket < 1) {
+            targetEventsPerPacket = 1;
+        }
+        this.targetEventsPerPacket = targetEventsPerPacket;
+        prefs.putInt("AdaptivePacketSizer.targetEventsPerPacket", targetEventsPerPacket);
+    }
+
+    /**
+     * @return the wall-clock budget for processing one packet in ms
+     */
+    public float getBudgetMs() {
+        return budgetMs;
+    }
+
+    /**
+     * @param budgetMs the wall-clock budget for processing one packet in ms;
+     * 0 or less disables the budget
+     */
+    public void setBudgetMs(float budgetMs) {
+        this.budgetMs = budgetMs > 0 ? budgetMs : Float.POSITIVE_INFINITY;
+        prefs.putFloat("AdaptivePacketSizer.budgetMs", this.budgetMs);
+    }
+
+    /**
+     * @return the minTimesliceUs
+     */
+    public int getMinTimesliceUs() {
+        return minTimesliceUs;
+    }
+
+    /**
+     * @param minTimesliceUs the minTimesliceUs to set
+     */
+    public void setMinTimesliceUs(int minTimesliceUs) {
+        this.minTimesliceUs = Math.max(1, minTimesliceUs);
+        prefs.putInt("AdaptivePacketSizer.minTimesliceUs", this.minTimesliceUs);
+    }
+
+    /**
+     * @return the maxTimesliceUs
+     */
+    public int getMaxTimesliceUs() {
+        return maxTimesliceUs;
+    }
+
+    /**
+     * @param maxTimesliceUs the maxTimesliceUs to set
+     */
+    public void setMaxTimesliceUs(int maxTimesliceUs) {
+        this.maxTimesliceUs = Math.max(minTimesliceUs, maxTimesliceUs);
+        prefs.putInt("AdaptivePacketSizer.maxTimesliceUs", this.maxTimesliceUs);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("AdaptivePacketSizer target=%d events budget=%.1fms rate=%.3g Hz cost=%.3g ns/event%s",
+                targetEventsPerPacket, budgetMs, getEventRateHz(), nsPerEvent, budgetLimited ? " (budget limited)" : "");
+    }
+}
@@ -190,6 +190,9 @@ public class AePlayerAdvancedControlsPanel extends javax.swing.JPanel implements
                 break;
             case RealTime:
                 realtimeButton.setSelected(true);
+                break;
+            case Adaptive:
+                adaptiveButton.setSelected(true);
         }
         timesliceSpinner.setValue(aePlayer.getTimesliceUs());
         packetSizeSpinner.setValue(aePlayer.getPacketSizeEvents());
@@ -271,6 +274,7 @@ public class AePlayerAdvancedControlsPanel extends javax.swing.JPanel implements
         fixedTimeSliceButton = new javax.swing.JRadioButton();
         fixedPacketSizeButton = new javax.swing.JRadioButton();
         realtimeButton = new javax.swing.JRadioButton();
+        adaptiveButton = new javax.swing.JRadioButton();
         timesliceSpinner = new javax.swing.JSpinner();
         msLabel = new javax.swing.JLabel();
         packetSizeSpinner = new javax.swing.JSpinner();
@@ -511,6 +515,15 @@ public class AePlayerAdvancedControlsPanel extends javax.swing.JPanel implements
             }
         });
 
+        buttonGroup1.add(adaptiveButton);
+        adaptiveButton.setText("Adaptive");
+        adaptiveButton.setToolTipText("Adapts the time slice to the event rate and filter processing time; see AdaptivePacketSizer");
+        adaptiveButton.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                adaptiveButtonActionPerformed(evt);
+            }
+        });
+
         timesliceSpinner.setModel(new OctaveSpinnerNumberModel(20000, 1, 3000000, 100));
         timesliceSpinner.addChangeListener(new javax.swing.event.ChangeListener() {
             public void stateChanged(javax.swing.event.ChangeEvent evt) {
@@ -549,7 +562,9 @@ public class AePlayerAdvancedControlsPanel extends javax.swing.JPanel implements
                 .addGroup(playbackModePanelLayout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
                     .addGroup(playbackModePanelLayout.createSequentialGroup()
                         .addGap(2, 2, 2)
-                        .addComponent(realtimeButton))
+                        .addComponent(realtimeButton)
+                        .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                        .addComponent(adaptiveButton))
                     .addGroup(playbackModePanelLayout.createSequentialGroup()
                         .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
                         .addComponent(eventsLabel)))
@@ -562,7 +577,8 @@ public class AePlayerAdvancedControlsPanel extends javax.swing.JPanel implements
                 .addGroup(playbackModePanelLayout.createParallelGroup(javax.swing.GroupLayout.Alignment.BASELINE)
                     .addComponent(fixedTimeSliceButton)
                     .addComponent(fixedPacketSizeButton)
-                    .addComponent(realtimeButton))
+                    .addComponent(realtimeButton)
+                    .addComponent(adaptiveButton))
                 .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
                 .addGroup(playbackModePanelLayout.createParallelGroup(javax.swing.GroupLayout.Alignment.BASELINE)
                     .addComponent(timesliceSpinner, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE)
@@ -600,6 +616,10 @@ public class AePlayerAdvancedControlsPanel extends javax.swing.JPanel implements
         aePlayer.setPlaybackMode(PlaybackMode.RealTime);
 }//GEN-LAST:event_realtimeButtonActionPerformed
 
+    private void adaptiveButtonActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_adaptiveButtonActionPerformed
+        aePlayer.setAdaptiveEnabled();
+    }//GEN-LAST:event_adaptiveButtonActionPerformed
+
     private void timesliceSpinnerStateChanged (javax.swing.event.ChangeEvent evt) {//GEN-FIRST:event_timesliceSpinnerStateChanged
         try {
             aePlayer.setTimesliceUs((Integer) (timesliceSpinner.getValue()));
@@ -658,7 +678,8 @@ public class AePlayerAdvancedControlsPanel extends javax.swing.JPanel implements
 //                log.info("slider position "+s);
                 //                log.info(this+" slider set time to "+time);
                 if (aeViewer.getJaerViewer().getViewers().size() > 1) {
-                    if (time < oldtime) {
+                    // seek all viewers to the time, or if they cannot seek, rewind and let them read up to it
+                    if (!aeViewer.getJaerViewer().getSyncPlayer().seekTime(time) && (time < oldtime)) {
                         // we need to set position in all viewers so that we catch up to present desired time
                         AbstractAEPlayer p;
                         AEFileInputStreamInterface is;
@@ -704,7 +725,9 @@ public class AePlayerAdvancedControlsPanel extends javax.swing.JPanel implements
         }
         try {
             int t = Integer.parseInt(timeField.getText());
-            aePlayer.setTime(t);
+            if (!aePlayer.seekTime(t)) {
+                aePlayer.setTime(t);
+            }
         } catch (Exception e) {
             log.warning(e.toString());
             timeField.selectAll();
@@ -732,6 +755,7 @@ public class AePlayerAdvancedControlsPanel extends javax.swing.JPanel implements
     }//GEN-LAST:event_repeatPlaybackButtonActionPerformed
 
     // Variables declaration - do not modify//GEN-BEGIN:variables
+    private javax.swing.JRadioButton adaptiveButton;
     private javax.swing.ButtonGroup buttonGroup1;
     private javax.swing.JButton clearMarksB;
     private javax.swing.JPanel controlsPanel;
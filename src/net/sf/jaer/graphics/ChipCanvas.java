@@ -12,6 +12,7 @@ import com.jogamp.common.nio.Buffers;
 import java.awt.Canvas;
 import java.awt.Color;
 import java.awt.Font;
+import java.awt.GraphicsEnvironment;
 import java.awt.Insets;
 import java.awt.Point;
 import java.awt.event.ActionEvent;
@@ -188,6 +189,13 @@ public class ChipCanvas implements GLEventListener, Observer {
         pheight = prefs.getInt("ChipCanvas.pheight", 512);
         prefs.getInt("borderSpacePixels", 20);
 
+        if (GraphicsEnvironment.isHeadless()) {
+            // no display, e.g. when run by HeadlessPipelineRunner; keep the display methods but make no OpenGL canvas
+            log.info("graphics environment is headless, not creating GLCanvas for " + chip);
+            chip.addObserver(this);
+            return;
+        }
+
         // GraphicsEnvironment ge=GraphicsEnvironment.getLocalGraphicsEnvironment();
         // GraphicsDevice[] gs=ge.getScreenDevices(); // TODO it could be that remote session doesn't show screen that
         // used to be used. Should check that we are not offscreen. Otherwise registy edit is required to show window!
@@ -875,6 +883,9 @@ public class ChipCanvas implements GLEventListener, Observer {
      * @see #display(com.jogamp.opengl.GLAutoDrawable)
      */
     public void paintFrame() {
+        if (drawable == null) {
+            return;
+        }
 //        synchronized (drawable.getTreeLock()) {
         try {
 //                drawable.getContext().makeCurrent();
@@ -901,6 +912,9 @@ public class ChipCanvas implements GLEventListener, Observer {
      * calls repaint on the drawable
      */
     public void repaint() {
+        if (drawable == null) {
+            return;
+        }
         drawable.repaint();
     }
 
@@ -910,6 +924,9 @@ public class ChipCanvas implements GLEventListener, Observer {
      * @param tm time to repaint within, in ms
      */
     public void repaint(final long tm) {
+        if (drawable == null) {
+            return;
+        }
         drawable.repaint(tm);
     }
 
@@ -14,6 +14,7 @@ package net.sf.jaer.graphics;
 import java.awt.Font;
 import java.awt.geom.Point2D;
 import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
 
 import org.bytedeco.javacpp.opencv_core.Mat;
 
@@ -31,6 +32,14 @@ import net.sf.jaer.util.TextRendererScale;
  * Displays using OpenGL the RGB histogram values from Chip2DRenderer. The DVS
  * cameras use this class directly, while DAVIS cameras subclass it to add frame
  * and other (e.g. IMU) rendering)
+ * <p>
+ * With {@link #setByteTexturesEnabled(boolean)} and a {@link DavisRenderer},
+ * the maps are drawn from persistent RGBA8 textures instead of uploading each
+ * float map with glTexImage2D on every frame. Only the rows the renderer
+ * reports as changed are converted and uploaded with glTexSubImage2D, and
+ * unless an image transform is set, the frame and events are composited into a
+ * single texture that is drawn in one pass. DAVIS cameras toggle it in the
+ * DAVIS menu.
  *
  * @author Christian Brandli
  * @see net.sf.jaer.graphics.Chip2DRenderer
@@ -43,6 +52,13 @@ public class ChipRendererDisplayMethodRGBA extends DisplayMethod implements Disp
     public final float SPECIAL_BAR_LOCATION_Y = 0;
     public final float SPECIAL_BAR_LINE_WIDTH = 8;
     private boolean renderSpecialEvents = true;
+    private boolean byteTexturesEnabled = false;
+    private boolean byteTexturesInvalid = true;
+    private final Rgba8Texture compositeTexture = new Rgba8Texture(), frameTexture = new Rgba8Texture(),
+            dvsEventsTexture = new Rgba8Texture(), annotateTexture = new Rgba8Texture();
+    private final DirtyRows frameRows = new DirtyRows(), dvsEventsRows = new DirtyRows(), annotateRows = new DirtyRows();
+    private boolean compositeDisplayFrames, compositeDisplayEvents;
+    private float compositeGray = Float.NaN;
 
     /**
      * Creates a new instance of ChipRendererDisplayMethodRGBA
@@ -51,6 +67,9 @@ public class ChipRendererDisplayMethodRGBA extends DisplayMethod implements Disp
      */
     public ChipRendererDisplayMethodRGBA(final ChipCanvas chipCanvas) {
         super(chipCanvas);
+        if (chip != null) {
+            byteTexturesEnabled = chip.getPrefs().getBoolean("ChipRendererDisplayMethodRGBA.byteTexturesEnabled", false);
+        }
     }
 
     /**
@@ -109,7 +128,15 @@ public class ChipRendererDisplayMethodRGBA extends DisplayMethod implements Disp
         // rather are rendered exactly as they come from data no matter
         // what zoom.
 
-        if (pixmap != null && displayFrames) {
+        final boolean byteTextures = byteTexturesEnabled && (renderer instanceof DavisRenderer);
+        if (renderer instanceof DavisRenderer) {
+            ((DavisRenderer) renderer).setDirtyRowTrackingEnabled(byteTextures);
+        }
+        if (byteTextures) {
+            displayByteTextures(gl, (DavisRenderer) renderer, width, height, displayFrames, displayEvents, displayAnnotation);
+        }
+
+        if (!byteTextures && pixmap != null && displayFrames) {
             gl.glPushMatrix();
             if (imageTransform != null) {
                 final int sx = chip.getSizeX() / 2, sy = chip.getSizeY() / 2;
@@ -133,7 +160,7 @@ public class ChipRendererDisplayMethodRGBA extends DisplayMethod implements Disp
             getChipCanvas().checkGLError(gl, glu, "after frames");
         }
 
-        if ((dvsEventsMap != null) && displayEvents) {
+        if (!byteTextures && (dvsEventsMap != null) && displayEvents) {
             // DVS event histograms are written with Alpha=0 when the frame is cleared, same for annotation maps. When events occur, they replace the APS values
             gl.glEnable(GL2.GL_ALPHA_TEST);
             gl.glAlphaFunc(GL2.GL_GREATER, 0);
@@ -184,7 +211,7 @@ public class ChipRendererDisplayMethodRGBA extends DisplayMethod implements Disp
 //			drawPolygon(gl, width, height);
 //			gl.glDisable(GL.GL_TEXTURE_2D);
 //		}
-        if (annotateMap != null && displayAnnotation) {
+        if (!byteTextures && annotateMap != null && displayAnnotation) {
             gl.glEnable(GL2.GL_ALPHA_TEST); // only draw annotation when alpha>0
             gl.glAlphaFunc(GL2.GL_GREATER, 0);
             gl.glBindTexture(GL.GL_TEXTURE_2D, 1);
@@ -259,6 +286,125 @@ public class ChipRendererDisplayMethodRGBA extends DisplayMethod implements Disp
         }
     }
 
+    /**
+     * Draws the maps of a DavisRenderer from RGBA8 textures, uploading only the
+     * rows that changed. Without an image transform, events with nonzero alpha
+     * replace the frame (or the background if frames are not displayed) in a
+     * single composite texture, as the separate alpha tested passes draw them
+     * with blending off. The annotation is drawn as before.
+     */
+    private void displayByteTextures(final GL2 gl, final DavisRenderer renderer, final int width, final int height,
+            final boolean displayFrames, final boolean displayEvents, final boolean displayAnnotation) {
+        final int columns = Math.min(chip.getSizeX(), width), rows = Math.min(chip.getSizeY(), height);
+        if (byteTexturesInvalid) {
+            compositeTexture.invalidate();
+            frameTexture.invalidate();
+            dvsEventsTexture.invalidate();
+            annotateTexture.invalidate();
+            byteTexturesInvalid = false;
+        }
+        compositeTexture.setSize(width, height);
+        frameTexture.setSize(width, height);
+        dvsEventsTexture.setSize(width, height);
+        annotateTexture.setSize(width, height);
+        renderer.takeDirtyRows(frameRows, dvsEventsRows, annotateRows);
+        // every texture collects the rows it depends on, whether it is drawn or not, so that it is valid when it is drawn again
+        compositeTexture.getDirtyRows().add(frameRows);
+        compositeTexture.getDirtyRows().add(dvsEventsRows);
+        frameTexture.getDirtyRows().add(frameRows);
+        dvsEventsTexture.getDirtyRows().add(dvsEventsRows);
+        annotateTexture.getDirtyRows().add(annotateRows);
+        frameRows.clear();
+        dvsEventsRows.clear();
+        annotateRows.clear();
+        final float[] frame = renderer.getPixmap().array(), events = renderer.getDvsEventsMap().array();
+
+        gl.glPixelStorei(GL.GL_UNPACK_ALIGNMENT, 1);
+        if (imageTransform == null) {
+            final float gray = renderer.getGrayValue();
+            if ((compositeDisplayFrames != displayFrames) || (compositeDisplayEvents != displayEvents) || (compositeGray != gray)) {
+                compositeDisplayFrames = displayFrames;
+                compositeDisplayEvents = displayEvents;
+                compositeGray = gray;
+                compositeTexture.invalidate();
+            }
+            final DirtyRows d = compositeTexture.getDirtyRows();
+            if (!d.isEmpty()) {
+                compositeRows(frame, events, displayFrames, displayEvents, Rgba8Texture.pack(gray, gray, gray, 0), columns,
+                        d.getMin(), Math.min(d.getMax(), rows - 1));
+            }
+            gl.glDisable(GL.GL_BLEND);
+            compositeTexture.upload(gl, columns, rows);
+            gl.glTexEnvf(GL2ES1.GL_TEXTURE_ENV, GL2ES1.GL_TEXTURE_ENV_MODE, GL2ES1.GL_REPLACE);
+            gl.glEnable(GL.GL_TEXTURE_2D);
+            drawPolygon(gl, width, height);
+            gl.glDisable(GL.GL_TEXTURE_2D);
+        } else {
+            if (displayFrames) {
+                gl.glPushMatrix();
+                final int sx = chip.getSizeX() / 2, sy = chip.getSizeY() / 2;
+                gl.glTranslatef(sx, sy, 0);
+                gl.glRotatef((float) ((imageTransform.rotationRad * 180) / Math.PI), 0, 0, 1);
+                gl.glTranslatef(imageTransform.translationPixels.x - sx, imageTransform.translationPixels.y - sy, 0);
+                uploadRows(gl, frameTexture, frame, columns, rows);
+                gl.glTexEnvf(GL2ES1.GL_TEXTURE_ENV, GL2ES1.GL_TEXTURE_ENV_MODE, GL2ES1.GL_REPLACE);
+                gl.glEnable(GL.GL_TEXTURE_2D);
+                drawPolygon(gl, width, height);
+                gl.glDisable(GL.GL_TEXTURE_2D);
+                gl.glPopMatrix();
+            }
+            if (displayEvents) {
+                gl.glEnable(GL2.GL_ALPHA_TEST);
+                gl.glAlphaFunc(GL2.GL_GREATER, 0);
+                uploadRows(gl, dvsEventsTexture, events, columns, rows);
+                gl.glTexEnvf(GL2ES1.GL_TEXTURE_ENV, GL2ES1.GL_TEXTURE_ENV_MODE, GL2ES1.GL_REPLACE);
+                gl.glEnable(GL.GL_TEXTURE_2D);
+                drawPolygon(gl, width, height);
+                gl.glDisable(GL.GL_TEXTURE_2D);
+                gl.glDisable(GL2.GL_ALPHA_TEST);
+            }
+        }
+        if (displayAnnotation) {
+            gl.glEnable(GL2.GL_ALPHA_TEST); // only draw annotation when alpha>0
+            gl.glAlphaFunc(GL2.GL_GREATER, 0);
+            uploadRows(gl, annotateTexture, renderer.getAnnotateMap().array(), columns, rows);
+            gl.glTexEnvf(GL2ES1.GL_TEXTURE_ENV, GL2ES1.GL_TEXTURE_ENV_MODE, GL2ES1.GL_ADD);
+            gl.glEnable(GL.GL_TEXTURE_2D);
+            drawPolygon(gl, width, height);
+            gl.glDisable(GL.GL_TEXTURE_2D);
+            gl.glDisable(GL2.GL_ALPHA_TEST);
+        }
+        getChipCanvas().checkGLError(gl, glu, "after byte textures");
+    }
+
+    private static void uploadRows(final GL2 gl, final Rgba8Texture texture, final float[] rgba, final int columns, final int rows) {
+        final DirtyRows d = texture.getDirtyRows();
+        if (!d.isEmpty()) {
+            texture.convertRows(rgba, columns, d.getMin(), Math.min(d.getMax(), rows - 1));
+        }
+        texture.upload(gl, columns, rows);
+    }
+
+    private void compositeRows(final float[] frame, final float[] events, final boolean displayFrames, final boolean displayEvents,
+            final int background, final int columns, final int y0, final int y1) {
+        final IntBuffer pixels = compositeTexture.getPixels();
+        final int width = compositeTexture.getWidth();
+        for (int y = y0; y <= y1; y++) {
+            int p = y * width, f = 4 * p;
+            for (int x = 0; x < columns; x++, p++, f += 4) {
+                final int c;
+                if (displayEvents && (Rgba8Texture.toByte(events[f + 3]) > 0)) { // the alpha test of the events pass
+                    c = Rgba8Texture.pack(events[f], events[f + 1], events[f + 2], events[f + 3]);
+                } else if (displayFrames) {
+                    c = Rgba8Texture.pack(frame[f], frame[f + 1], frame[f + 2], frame[f + 3]);
+                } else {
+                    c = background;
+                }
+                pixels.put(p, c);
+            }
+        }
+    }
+
     private void drawPolygon(final GL2 gl, final int width, final int height) {
         final double xRatio = (double) chip.getSizeX() / (double) width;
         final double yRatio = (double) chip.getSizeY() / (double) height;
@@ -290,6 +436,31 @@ public class ChipRendererDisplayMethodRGBA extends DisplayMethod implements Disp
         this.renderSpecialEvents = renderSpecialEvents;
     }
 
+    /**
+     * @return true if a DavisRenderer is drawn from RGBA8 textures that are
+     * updated only where the maps changed
+     */
+    public boolean isByteTexturesEnabled() {
+        return byteTexturesEnabled;
+    }
+
+    /**
+     * Draws a DavisRenderer from persistent RGBA8 textures, converting and
+     * uploading only the rows that changed, and compositing frame and events
+     * in one pass. Code that writes the renderer maps directly must call
+     * {@link DavisRenderer#markAllRowsDirty()}.
+     *
+     * @param byteTexturesEnabled true to use byte textures, false to upload
+     * the float maps on every frame
+     */
+    public void setByteTexturesEnabled(final boolean byteTexturesEnabled) {
+        this.byteTexturesEnabled = byteTexturesEnabled;
+        byteTexturesInvalid = true;
+        if (chip != null) {
+            chip.getPrefs().putBoolean("ChipRendererDisplayMethodRGBA.byteTexturesEnabled", byteTexturesEnabled);
+        }
+    }
+
     /**
      * @return the imageTransform
      */
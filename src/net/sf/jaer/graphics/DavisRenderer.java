@@ -123,6 +123,24 @@ public class DavisRenderer extends AEChipRenderer {
     protected boolean computeHistograms = false;
     private boolean displayAnnotation = false;
 
+    /**
+     * Rows of pixmap, dvsEventsMap and annotateMap changed since the display
+     * last took them, see {@link #takeDirtyRows(DirtyRows, DirtyRows, DirtyRows)}
+     */
+    private final DirtyRows pixmapDirtyRows = new DirtyRows(), dvsEventsDirtyRows = new DirtyRows(), annotateDirtyRows = new DirtyRows();
+    /**
+     * Rows written since dvsEventsMap and annotateMap were last reset; resetting
+     * them changes only these rows unless the reset values change
+     */
+    private final DirtyRows dvsEventsWrittenRows = new DirtyRows(), annotateWrittenRows = new DirtyRows();
+    /**
+     * Whether the per pixel write methods mark the rows they write; only the
+     * byte texture display uses the rows
+     */
+    private volatile boolean dirtyRowTrackingEnabled = false;
+    private int grayBufferVersion = 0, dvsEventsGrayBufferVersion = -1; // bumped when grayBuffer changes; version last copied to dvsEventsMap
+    private float grayBufferFill = Float.NaN, annotateResetValue = Float.NaN; // uniform value of grayBuffer or NaN; last reset value of annotateMap
+
     /**
      * Downsampling of DVS to speed up rendering at high frame rate
      */
@@ -166,6 +184,8 @@ public class DavisRenderer extends AEChipRenderer {
             madebuffer = true;
         }
         if (madebuffer || (value != grayValue)) {
+            grayBufferVersion++;
+            grayBufferFill = Float.NaN;
             grayBuffer.rewind();
             for (int y = 0; y < textureWidth; y++) {
                 for (int x = 0; x < textureHeight; x++) {
@@ -201,6 +221,9 @@ public class DavisRenderer extends AEChipRenderer {
         pixBuffer.rewind();
         pixmap.limit(n);
         pixBuffer.limit(n);
+        synchronized (this) {
+            pixmapDirtyRows.setAll(textureHeight);
+        }
         setColors();
         resetMaps();
     }
@@ -217,9 +240,20 @@ public class DavisRenderer extends AEChipRenderer {
             // Fill maps with fully transparent values
             grayBuffer = FloatBuffer.allocate(n); // BufferUtil.newFloatBuffer(n);
             Arrays.fill(grayBuffer.array(), 0);
+            grayBufferVersion++;
+            grayBufferFill = 0;
         }
         grayBuffer.rewind();
         System.arraycopy(grayBuffer.array(), 0, dvsEventsMap.array(), 0, n);
+        synchronized (this) {
+            if (dvsEventsGrayBufferVersion != grayBufferVersion) {
+                dvsEventsDirtyRows.setAll(textureHeight);
+                dvsEventsGrayBufferVersion = grayBufferVersion;
+            } else {
+                dvsEventsDirtyRows.add(dvsEventsWrittenRows);
+            }
+            dvsEventsWrittenRows.clear();
+        }
         dvsEventsMap.rewind();
         dvsEventsMap.limit(n);
     }
@@ -234,12 +268,24 @@ public class DavisRenderer extends AEChipRenderer {
         final int n = 4 * textureWidth * textureHeight;
         if ((grayBuffer == null) || (grayBuffer.capacity() != n)) {
             grayBuffer = FloatBuffer.allocate(n); // BufferUtil.newFloatBuffer(n);
+            grayBufferFill = Float.NaN;
         }
 
         grayBuffer.rewind();
         // Fill maps with fully transparent values
         Arrays.fill(grayBuffer.array(), resetValue);
+        if (Float.compare(grayBufferFill, resetValue) != 0) {
+            grayBufferVersion++;
+            grayBufferFill = resetValue;
+        }
         System.arraycopy(grayBuffer.array(), 0, annotateMap.array(), 0, n);
+        if (Float.compare(annotateResetValue, resetValue) != 0) {
+            annotateDirtyRows.setAll(textureHeight);
+            annotateResetValue = resetValue;
+        } else {
+            annotateDirtyRows.add(annotateWrittenRows);
+        }
+        annotateWrittenRows.clear();
 
         grayBuffer.rewind();
         annotateMap.rewind();
@@ -351,6 +397,8 @@ public class DavisRenderer extends AEChipRenderer {
             for (int i = 0; i < f.length; i++) {
                 f[i] *= fadeby;
             }
+            dvsEventsDirtyRows.setAll(textureHeight);
+            dvsEventsWrittenRows.setAll(textureHeight);
         }
         final ApsDvsEventPacket packetAPS = (ApsDvsEventPacket) pkt;
         packet = packetAPS;
@@ -419,6 +467,8 @@ public class DavisRenderer extends AEChipRenderer {
             for (int i = 0; i < f.length; i++) {
                 f[i] *= fadeby;
             }
+            dvsEventsDirtyRows.setAll(textureHeight);
+            dvsEventsWrittenRows.setAll(textureHeight);
         }
         packet = pkt;
 
@@ -454,6 +504,136 @@ public class DavisRenderer extends AEChipRenderer {
         }
     }
 
+    /**
+     * Marks the row of a pixel of dvsEventsMap as changed. Subclasses that
+     * override {@link #updateEventMaps(PolarityEvent)} call it for every pixel
+     * they write. Only called from render, which holds the lock.
+     *
+     * @param index the index of the pixel in dvsEventsMap, see
+     * {@link #getPixMapIndex(int, int)}
+     */
+    protected void markDvsEventsIndex(final int index) {
+        if (!dirtyRowTrackingEnabled) {
+            return;
+        }
+        final int y = index / (4 * textureWidth);
+        if ((index >= 0) && (y < textureHeight)) {
+            dvsEventsDirtyRows.add(y);
+            dvsEventsWrittenRows.add(y);
+        }
+    }
+
+    /**
+     * Marks a row of the frame pixmap as changed. Locks only while dirty row
+     * tracking is enabled, since it is called for every pixel written.
+     *
+     * @param y the row
+     */
+    protected void markPixmapRow(final int y) {
+        if (!dirtyRowTrackingEnabled || (y < 0) || (y >= textureHeight)) {
+            return;
+        }
+        synchronized (this) {
+            pixmapDirtyRows.add(y);
+        }
+    }
+
+    /**
+     * Marks a row of annotateMap as changed. Locks only while dirty row
+     * tracking is enabled, since it is called for every pixel written.
+     *
+     * @param y the row
+     */
+    protected void markAnnotateRow(final int y) {
+        if (!dirtyRowTrackingEnabled || (y < 0) || (y >= textureHeight)) {
+            return;
+        }
+        synchronized (this) {
+            annotateDirtyRows.add(y);
+            annotateWrittenRows.add(y);
+        }
+    }
+
+    /**
+     * Returns whether the rows written by the per pixel methods are tracked.
+     *
+     * @return true if tracked
+     */
+    public boolean isDirtyRowTrackingEnabled() {
+        return dirtyRowTrackingEnabled;
+    }
+
+    /**
+     * Sets whether the rows written by the per pixel methods are tracked for
+     * {@link #takeDirtyRows(DirtyRows, DirtyRows, DirtyRows)}. Set by
+     * {@link ChipRendererDisplayMethodRGBA} while it draws from byte textures.
+     * Enabling it marks all rows dirty, since rows written while it was
+     * disabled are not known.
+     *
+     * @param dirtyRowTrackingEnabled true to track the rows
+     */
+    public void setDirtyRowTrackingEnabled(final boolean dirtyRowTrackingEnabled) {
+        if (dirtyRowTrackingEnabled == this.dirtyRowTrackingEnabled) {
+            return;
+        }
+        this.dirtyRowTrackingEnabled = dirtyRowTrackingEnabled;
+        if (dirtyRowTrackingEnabled) {
+            markAllRowsDirty();
+        }
+    }
+
+    /**
+     * Marks all rows of all maps as changed. Must be called by code that writes
+     * the pixmap arrays directly, e.g. through {@link #getPixmapArray()},
+     * rather than through the methods of this class, for the
+     * {@link ChipRendererDisplayMethodRGBA} byte texture mode to show the
+     * changes. The subclasses that render into the maps themselves call it
+     * at the start of render.
+     */
+    public synchronized void markAllRowsDirty() {
+        pixmapDirtyRows.setAll(textureHeight);
+        dvsEventsDirtyRows.setAll(textureHeight);
+        dvsEventsWrittenRows.setAll(textureHeight);
+        annotateDirtyRows.setAll(textureHeight);
+        annotateWrittenRows.setAll(textureHeight);
+    }
+
+    /**
+     * Returns whether the dirty rows cover all changes of the maps. True only
+     * for this class itself; subclasses that write the maps only through the
+     * methods of this class, or mark the rows they write with the mark
+     * methods, override it to return true.
+     *
+     * @return true if the dirty rows are exact, otherwise all rows are
+     * reported dirty
+     */
+    protected boolean isDirtyRowTrackingExact() {
+        return getClass() == DavisRenderer.class;
+    }
+
+    /**
+     * Adds the rows of the pixmap, DVS events map and annotation map that
+     * changed since the last call to the arguments, and clears them.
+     *
+     * @param pixmapRows the rows of the frame pixmap
+     * @param dvsEventsRows the rows of the DVS events map
+     * @param annotateRows the rows of the annotation map
+     */
+    public synchronized void takeDirtyRows(final DirtyRows pixmapRows, final DirtyRows dvsEventsRows, final DirtyRows annotateRows) {
+        if (!isDirtyRowTrackingExact()) {
+            pixmapRows.setAll(textureHeight);
+            dvsEventsRows.setAll(textureHeight);
+            annotateRows.setAll(textureHeight);
+        } else {
+            pixmapRows.add(pixmapDirtyRows);
+            dvsEventsRows.add(dvsEventsDirtyRows);
+            annotateRows.add(annotateDirtyRows);
+        }
+        pixmapDirtyRows.clear();
+        dvsEventsDirtyRows.clear();
+        annotateDirtyRows.clear();
+    }
+
     private final Random random = new Random();
 
     protected void updateFrameBuffer(final ApsDvsEvent e) {
@@ -535,6 +715,9 @@ public class DavisRenderer extends AEChipRenderer {
     protected void endFrame(final int ts) {
         timestampFrameEnd = ts;
         System.arraycopy(pixBuffer.array(), 0, pixmap.array(), 0, pixBuffer.array().length);
+        synchronized (this) {
+            pixmapDirtyRows.setAll(textureHeight);
+        }
 
         if ((contrastController != null) && (minValue != Float.MAX_VALUE) && (maxValue != Float.MIN_VALUE)) {
             contrastController.endFrame(minValue, maxValue, timestampFrameEnd);
@@ -557,6 +740,7 @@ public class DavisRenderer extends AEChipRenderer {
         if ((index < 0) || (index >= map.length)) {
             return;
         }
+        markDvsEventsIndex(index);
 
         if (packet.getNumCellTypes() > 2) {
             checkTypeColors(packet.getNumCellTypes());
@@ -725,6 +909,13 @@ public class DavisRenderer extends AEChipRenderer {
             dvsEventsMap = FloatBuffer.allocate(n);
 //            offMap = FloatBuffer.allocate(n);
             annotateMap = FloatBuffer.allocate(n);
+            synchronized (this) {
+                dvsEventsGrayBufferVersion = -1;
+                annotateResetValue = Float.NaN;
+                pixmapDirtyRows.setAll(textureHeight);
+                dvsEventsDirtyRows.setAll(textureHeight);
+                annotateDirtyRows.setAll(textureHeight);
+            }
         }
     }
 
@@ -840,6 +1031,7 @@ public class DavisRenderer extends AEChipRenderer {
         pm[k] = g;
         pm[k + 1] = g;
         pm[k + 2] = g;
+        markPixmapRow(y);
     }
 
     /**
@@ -859,6 +1051,7 @@ public class DavisRenderer extends AEChipRenderer {
     @Override
     public void setAnnotateValue(final int index, final float value) {
         annotateMap.put(index, value);
+        markAnnotateRow(index / (4 * textureWidth));
     }
 
     /**
@@ -873,6 +1066,7 @@ public class DavisRenderer extends AEChipRenderer {
         annotateMap.put(index + 1, value[1]);
         annotateMap.put(index + 2, value[2]);
         annotateMap.put(index + 3, getAnnotateAlpha());
+        markAnnotateRow(index / (4 * textureWidth));
     }
 
     /**
@@ -886,6 +1080,7 @@ public class DavisRenderer extends AEChipRenderer {
         annotateMap.put(index + 1, value[1]);
         annotateMap.put(index + 2, value[2]);
         annotateMap.put(index + 3, value[3]);
+        markAnnotateRow(index / (4 * textureWidth));
     }
 
     /**
@@ -904,6 +1099,7 @@ public class DavisRenderer extends AEChipRenderer {
         annotateMap.put(index + 1, value[1]);
         annotateMap.put(index + 2, value[2]);
         annotateMap.put(index + 3, getAnnotateAlpha());
+        markAnnotateRow(y);
     }
 
     /**
@@ -919,6 +1115,7 @@ public class DavisRenderer extends AEChipRenderer {
         annotateMap.put(index + 1, value[1]);
         annotateMap.put(index + 2, value[2]);
         annotateMap.put(index + 3, value[3]);
+        markAnnotateRow(y);
     }
 
     /**
@@ -931,6 +1128,7 @@ public class DavisRenderer extends AEChipRenderer {
     public void setAnnotateAlpha(final int x, final int y, final float alpha) {
         final int index = getPixMapIndex(x, y);
         annotateMap.put(index + 3, alpha);
+        markAnnotateRow(y);
     }
 
     /**
@@ -0,0 +1,87 @@
+/*
+ * DirtyRows.java
+ *
+ * Copyright (C) 2026 jAER project.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ */
+package net.sf.jaer.graphics;
+
+/**
+ * The range of rows of a pixmap that changed since it was last uploaded to a
+ * texture. Not thread safe.
+ *
+ * @author agent
+ * @see DavisRenderer#takeDirtyRows(DirtyRows, DirtyRows, DirtyRows)
+ */
+public final class DirtyRows {
+
+    private int min = Integer.MAX_VALUE, max = -1;
+
+    /**
+     * Marks one row.
+     *
+     * @param row the row
+     */
+    public void add(int row) {
+        if (row < min) {
+            min = row;
+        }
+        if (row > max) {
+            max = row;
+        }
+    }
+
+    /**
+     * Marks the rows of another range.
+     *
+     * @param other the other range
+     */
+    public void add(DirtyRows other) {
+        if (!other.isEmpty()) {
+            add(other.min);
+            add(other.max);
+        }
+    }
+
+    /**
+     * Marks all rows.
+     *
+     * @param rows the number of rows
+     */
+    public void setAll(int rows) {
+        min = 0;
+        max = rows - 1;
+    }
+
+    public void clear() {
+        min = Integer.MAX_VALUE;
+        max = -1;
+    }
+
+    public boolean isEmpty() {
+        return max < min;
+    }
+
+    /**
+     * @return the first dirty row, valid if not empty
+     */
+    public int getMin() {
+        return min;
+    }
+
+    /**
+     * @return the last dirty row, inclusive, valid if not empty
+     */
+    public int getMax() {
+        return max;
+    }
+
+    @Override
+    public String toString() {
+        return isEmpty() ? "DirtyRows[]" : ("DirtyRows[" + min + "-" + max + "]");
+    }
+}
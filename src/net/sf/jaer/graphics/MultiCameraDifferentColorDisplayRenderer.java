@@ -69,6 +69,7 @@ public class MultiCameraDifferentColorDisplayRenderer extends DavisRenderer{
         }
 
         checkPixmapAllocation();
+        markAllRowsDirty(); // the maps are written directly below
         resetSelectedPixelEventCount(); // TODO fix locating pixel with xsel ysel
         setSpecialCount(0);
            
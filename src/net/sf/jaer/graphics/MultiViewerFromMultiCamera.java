@@ -86,6 +86,15 @@ public class MultiViewerFromMultiCamera extends DavisRenderer{
         
         return getPixMapIndex(x, y, ID);
     }
+
+    /**
+     * The maps are written only through the methods of DavisRenderer and the
+     * setters below, which mark the rows they write.
+     */
+    @Override
+    protected boolean isDirtyRowTrackingExact() {
+        return true;
+    }
     
     /**
      * Returns index into pixmap. To access RGB values, just add 0,1, or 2 to
@@ -150,6 +159,7 @@ public class MultiViewerFromMultiCamera extends DavisRenderer{
         pm[k] = g;
         pm[k + 1] = g;
         pm[k + 2] = g;
+        markPixmapRow(y);
     }
     
     /**
@@ -168,6 +178,7 @@ public class MultiViewerFromMultiCamera extends DavisRenderer{
         annotateMap.put(index + 1, value[1]);
         annotateMap.put(index + 2, value[2]);
         annotateMap.put(index + 3, getAnnotateAlpha());
+        markAnnotateRow(y);
     }
     
     /**
@@ -180,6 +191,7 @@ public class MultiViewerFromMultiCamera extends DavisRenderer{
     public void setAnnotateAlpha(final int x, final int y, final float alpha, final int ID) {
         final int index = getPixMapIndex(x, y, ID);
         annotateMap.put(index + 3, alpha);
+        markAnnotateRow(y);
     }
 
     
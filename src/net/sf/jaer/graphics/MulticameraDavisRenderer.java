@@ -63,6 +63,7 @@ public class MulticameraDavisRenderer extends DavisRenderer{
             }
         }
         checkPixmapAllocation();
+        markAllRowsDirty(); // the maps are written directly below
         resetSelectedPixelEventCount();
         float a;
         float step = 1f / ( colorScale ); // amount to step rendering gray level up or down for each event
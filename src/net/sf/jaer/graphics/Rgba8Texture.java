@@ -0,0 +1,223 @@
+/*
+ * Rgba8Texture.java
+ *
+ * Copyright (C) 2026 jAER project.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ */
+package net.sf.jaer.graphics;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+
+import com.jogamp.opengl.GL;
+import com.jogamp.opengl.GL2;
+import com.jogamp.opengl.GL2ES2;
+import com.jogamp.opengl.GLContext;
+
+/**
+ * A persistent RGBA8 texture with its pixels in a direct buffer. Only the
+ * dirty rows are uploaded, with glTexSubImage2D, so the driver neither copies
+ * a heap array nor converts float pixels, and unchanged rows are not
+ * uploaded at all.
+ * <p>
+ * Pixels are ints in the byte order R,G,B,A in memory; see
+ * {@link #pack(float, float, float, float)}. Float values are clamped to 0-1
+ * and rounded to 8 bits, which is what the driver does when float pixels are
+ * uploaded to the usual 8 bit texture.
+ *
+ * @author agent
+ */
+public final class Rgba8Texture {
+
+    private static final boolean LITTLE_ENDIAN = ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN;
+
+    private final int[] name = {0};
+    private GLContext context = null; // the context that owns name
+    private boolean allocated = false;
+    private int width = 0, height = 0;
+    private ByteBuffer bytes;
+    private IntBuffer pixels;
+    private final DirtyRows dirtyRows = new DirtyRows();
+
+    /**
+     * Sets the texture size, reallocating the pixels and marking all rows
+     * dirty if it changed.
+     *
+     * @param width the width in pixels
+     * @param height the height in pixels
+     * @return true if the size changed
+     */
+    public boolean setSize(int width, int height) {
+        if ((width == this.width) && (height == this.height) && (bytes != null)) {
+            return false;
+        }
+        this.width = width;
+        this.height = height;
+        bytes = ByteBuffer.allocateDirect(4 * width * height).order(ByteOrder.nativeOrder());
+        pixels = bytes.asIntBuffer();
+        allocated = false;
+        dirtyRows.setAll(height);
+        return true;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * @return the pixels, pixel x,y is at y*width+x
+     */
+    public IntBuffer getPixels() {
+        return pixels;
+    }
+
+    /**
+     * @return the rows that are not yet uploaded
+     */
+    public DirtyRows getDirtyRows() {
+        return dirtyRows;
+    }
+
+    /**
+     * Marks all rows to be uploaded.
+     */
+    public void invalidate() {
+        dirtyRows.setAll(height);
+    }
+
+    /**
+     * Converts rows of an RGBA float pixmap with the same width into the
+     * pixels.
+     *
+     * @param rgba the pixmap, 4 floats per pixel
+     * @param columns the number of columns to convert from the left
+     * @param y0 the first row
+     * @param y1 the last row, inclusive
+     */
+    public void convertRows(float[] rgba, int columns, int y0, int y1) {
+        for (int y = y0; y <= y1; y++) {
+            int p = y * width, f = 4 * p;
+            for (int x = 0; x < columns; x++, p++, f += 4) {
+                pixels.put(p, pack(rgba[f], rgba[f + 1], rgba[f + 2], rgba[f + 3]));
+            }
+        }
+    }
+
+    /**
+     * Converts a float color component to 8 bits.
+     *
+     * @param v the value, clamped to 0-1
+     * @return the value 0-255
+     */
+    public static int toByte(float v) {
+        if (v >= 1) {
+            return 255;
+        } else if (v > 0) {
+            return (int) ((v * 255) + 0.5f);
+        }
+        return 0; // also for NaN
+    }
+
+    /**
+     * Packs a color into a pixel int whose bytes are R,G,B,A in memory.
+     *
+     * @return the pixel
+     */
+    public static int pack(float r, float g, float b, float a) {
+        return packBytes(toByte(r), toByte(g), toByte(b), toByte(a));
+    }
+
+    /**
+     * Packs 8 bit components into a pixel int whose bytes are R,G,B,A in
+     * memory.
+     *
+     * @return the pixel
+     */
+    public static int packBytes(int r, int g, int b, int a) {
+        if (LITTLE_ENDIAN) {
+            return r | (g << 8) | (b << 16) | (a << 24);
+        }
+        return (r << 24) | (g << 16) | (b << 8) | a;
+    }
+
+    /**
+     * Binds the texture, creating it first if needed.
+     *
+     * @param gl the GL context
+     */
+    public void bind(GL2 gl) {
+        if (gl.getContext() != context) { // first use or new context; names of an old context are gone with it
+            context = gl.getContext();
+            name[0] = 0;
+        }
+        if (name[0] == 0) {
+            // texture names 0 and 1 are bound without glGenTextures by the float path and some annotators;
+            // if we get 1, delete it again after generating the next one, so that it is not handed out twice
+            gl.glGenTextures(1, name, 0);
+            if (name[0] == 1) {
+                final int[] skipped = {name[0]};
+                gl.glGenTextures(1, name, 0);
+                gl.glDeleteTextures(1, skipped, 0);
+            }
+            allocated = false;
+        }
+        gl.glBindTexture(GL.GL_TEXTURE_2D, name[0]);
+        if (!allocated) {
+            gl.glTexParameteri(GL.GL_TEXTURE_2D, GL.GL_TEXTURE_WRAP_S, GL2.GL_CLAMP);
+            gl.glTexParameteri(GL.GL_TEXTURE_2D, GL.GL_TEXTURE_WRAP_T, GL2.GL_CLAMP);
+            gl.glTexParameteri(GL.GL_TEXTURE_2D, GL.GL_TEXTURE_MAG_FILTER, GL.GL_NEAREST);
+            gl.glTexParameteri(GL.GL_TEXTURE_2D, GL.GL_TEXTURE_MIN_FILTER, GL.GL_NEAREST);
+            gl.glTexImage2D(GL.GL_TEXTURE_2D, 0, GL.GL_RGBA8, width, height, 0, GL.GL_RGBA, GL.GL_UNSIGNED_BYTE, null);
+            allocated = true;
+            dirtyRows.setAll(height);
+        }
+    }
+
+    /**
+     * Binds the texture and uploads the dirty rows.
+     *
+     * @param gl the GL context
+     * @param columns the number of columns to upload from the left
+     * @param rows the number of rows that may be uploaded from the bottom;
+     * dirty rows above are dropped
+     */
+    public void upload(GL2 gl, int columns, int rows) {
+        bind(gl);
+        final int y0 = dirtyRows.getMin(), y1 = Math.min(dirtyRows.getMax(), Math.min(rows, height) - 1);
+        if (y1 < y0) {
+            dirtyRows.clear();
+            return;
+        }
+        gl.glPixelStorei(GL.GL_UNPACK_ALIGNMENT, 4);
+        gl.glPixelStorei(GL2ES2.GL_UNPACK_ROW_LENGTH, width);
+        bytes.position(4 * y0 * width);
+        gl.glTexSubImage2D(GL.GL_TEXTURE_2D, 0, 0, y0, columns, (y1 - y0) + 1, GL.GL_RGBA, GL.GL_UNSIGNED_BYTE, bytes);
+        bytes.rewind();
+        gl.glPixelStorei(GL2ES2.GL_UNPACK_ROW_LENGTH, 0);
+        gl.glPixelStorei(GL.GL_UNPACK_ALIGNMENT, 1);
+        dirtyRows.clear();
+    }
+
+    /**
+     * Deletes the GL texture; it is created again on the next use.
+     *
+     * @param gl the GL context that created it
+     */
+    public void dispose(GL gl) {
+        if ((name[0] != 0) && (gl.getContext() == context)) {
+            gl.glDeleteTextures(1, name, 0);
+            name[0] = 0;
+        }
+        allocated = false;
+        dirtyRows.setAll(height);
+    }
+}
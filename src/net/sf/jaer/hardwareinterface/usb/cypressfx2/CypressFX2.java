@@ -944,8 +944,7 @@ public class CypressFX2 implements UsbIoErrorCodes, PnPNotifyInterface, AEMonito
 //            timestamps=events.getTimestamps();
         nEvents = lastEventsAcquired.getNumEvents();
 //        System.out.println(nEvents+" events");
-        eventCounter = 0;
-        realTimeEventCounterStart = 0;
+        // the AEReader starts a new write buffer by itself when it publishes one, so don't touch eventCounter here
 
         computeEstimatedEventRate(lastEventsAcquired);
         if (nEvents != 0) {
@@ -1460,6 +1459,7 @@ public class CypressFX2 implements UsbIoErrorCodes, PnPNotifyInterface, AEMonito
          * This flag can be set asynchronously. In the AEReader, this flag may
          * be used to process this reset.
          */
+        private long writeBufferGeneration = -1;
         protected volatile boolean timestampsReset = false; // used to tell processData that another thread has reset timestamps
         final int BAD_WRAP_PRINT_INTERVAL = 100; // only print a warning every this many to avoid slowing down critical process
         /**
@@ -1596,6 +1596,7 @@ public class CypressFX2 implements UsbIoErrorCodes, PnPNotifyInterface, AEMonito
 
             } else {
                 synchronized (aePacketRawPool) {// sync so that we don't try to copy events while buffer is being translated
+                    checkWriteBuffer();
                     if ((Buf.Status == USBIO_ERR_SUCCESS) || (Buf.Status == USBIO_ERR_CANCELED)) {
                         translateEvents(Buf);
 //                    //                System.out.println("ProcessData: "+Buf.BytesTransferred+" bytes transferred: ");
@@ -1638,10 +1639,28 @@ public class CypressFX2 implements UsbIoErrorCodes, PnPNotifyInterface, AEMonito
 //                    aePacketRawPool.reset();  //this is already done in resetTimestamps() why do it again here?
                         timestampsReset = false;
                     }
+                    if (aePacketRawPool.publishWriteBuffer()) {
+                        checkWriteBuffer();
+                    }
                 }
             }
         }
 
+        /**
+         * Restarts event writing at index 0 if the write buffer of the
+         * aePacketRawPool has changed since the last transfer, because we
+         * published it or the consumer took it or it was reallocated. Must be
+         * called holding the aePacketRawPool monitor.
+         */
+        protected void checkWriteBuffer() {
+            final long generation = aePacketRawPool.getWriteBufferGeneration();
+            if (generation != writeBufferGeneration) {
+                writeBufferGeneration = generation;
+                eventCounter = 0;
+                realTimeEventCounterStart = 0;
+            }
+        }
+
         final int WRAP_START = 0; //(int)(0xFFFFFFFFL&(2147483648L-0x400000L)); // set high to test big wrap 1<<30;
         /**
          * wrapAdd is the time to appendCopy to short timestamp to unwrap it
@@ -1830,6 +1849,14 @@ public class CypressFX2 implements UsbIoErrorCodes, PnPNotifyInterface, AEMonito
         }
     }
 
+    /**
+     * @return the ring of raw packets between the AEReader and the consumer,
+     * e.g. for its dropped event and consumer lag statistics
+     */
+    public AEPacketRawPool getAEPacketRawPool() {
+        return aePacketRawPool;
+    }
+
     /**
      * @return the size of the double buffer raw packet for AEs
      */
@@ -220,6 +220,7 @@ public class CypressFX2DVS128HardwareInterface extends CypressFX2Biasgen impleme
                         resetTimestampWarningCount++;
                     } else if ((eventCounter > (aeBufferSize - 1)) || (buffer.overrunOccuredFlag)) { // just do nothing, throw away events
                         buffer.overrunOccuredFlag = true;
+                        aePacketRawPool.addDroppedEvents(1);
                     } else {
                         // address is LSB MSB
                         addresses[eventCounter] = (aeBuffer[i] & 0xFF) | ((aeBuffer[i + 1] & 0xFF) << 8);
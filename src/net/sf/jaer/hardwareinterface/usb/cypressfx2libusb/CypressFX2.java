@@ -578,14 +578,13 @@ public class CypressFX2 implements AEMonitorInterface, ReaderBufferControl, USBI
 		// synchronized(aePacketRawPool){ // synchronize on aeReader so that we
 		// don't try to access the events at the
 		// same time
+		// the AEReader starts a new write buffer by itself when it publishes one, so don't touch eventCounter here
 		aePacketRawPool.swap();
 		lastEventsAcquired = aePacketRawPool.readBuffer();
 		// log.info(this+" acquired "+lastEventsAcquired);
 		// addresses=events.getAddresses();
 		// timestamps=events.getTimestamps();
 		nEvents = lastEventsAcquired.getNumEvents();
-		eventCounter = 0;
-		realTimeEventCounterStart = 0;
 
 		computeEstimatedEventRate(lastEventsAcquired);
 		if (nEvents != 0) {
@@ -1000,6 +999,7 @@ public class CypressFX2 implements AEMonitorInterface, ReaderBufferControl, USBI
 		public final int MAX_NONMONOTONIC_TIME_EXCEPTIONS_TO_PRINT = 10;
 		private int resetTimestampWarningCount = 0;
 		int cycleCounter = 0;
+		private long writeBufferGeneration = -1;
 		volatile boolean timestampsReset = false; // used to tell processData
 													// that another thread has
 													// reset timestamps
@@ -1131,6 +1131,7 @@ public class CypressFX2 implements AEMonitorInterface, ReaderBufferControl, USBI
                                 usbPacketStatistics.addSample(transfer);
 
 				synchronized (aePacketRawPool) {
+					checkWriteBuffer();
 					if ((transfer.status() == LibUsb.TRANSFER_COMPLETED)
 						|| (transfer.status() == LibUsb.TRANSFER_CANCELLED)) {
 						translateEvents(transfer.buffer());
@@ -1164,10 +1165,28 @@ public class CypressFX2 implements AEMonitorInterface, ReaderBufferControl, USBI
 						// is still data
 						timestampsReset = false;
 					}
+					if (aePacketRawPool.publishWriteBuffer()) {
+						checkWriteBuffer();
+					}
 				}
 			}
 		}
 
+		/**
+		 * Restarts event writing at index 0 if the write buffer of the
+		 * aePacketRawPool has changed since the last transfer, because we
+		 * published it or the consumer took it or it was reallocated. Must be
+		 * called holding the aePacketRawPool monitor.
+		 */
+		protected void checkWriteBuffer() {
+			final long generation = aePacketRawPool.getWriteBufferGeneration();
+			if (generation != writeBufferGeneration) {
+				writeBufferGeneration = generation;
+				eventCounter = 0;
+				realTimeEventCounterStart = 0;
+			}
+		}
+
 		// sync so that we don't try to copy events while buffer is being
 		// translated
 		final int WRAP_START = 0;
@@ -1359,6 +1378,14 @@ public class CypressFX2 implements AEMonitorInterface, ReaderBufferControl, USBI
 		}
 	}
 
+	/**
+	 * @return the ring of raw packets between the AEReader and the consumer,
+	 *         e.g. for its dropped event and consumer lag statistics
+	 */
+	public AEPacketRawPool getAEPacketRawPool() {
+		return aePacketRawPool;
+	}
+
 	/** @return the size of the double buffer raw packet for AEs */
 	@Override
 	public int getAEBufferSize() {
@@ -261,6 +261,7 @@ public class CypressFX2DVS128HardwareInterface extends CypressFX2Biasgen impleme
 					else if ((eventCounter > (aeBufferSize - 1)) || (buffer.overrunOccuredFlag)) { // just do nothing,
 						// throw away events
 						buffer.overrunOccuredFlag = true;
+						aePacketRawPool.addDroppedEvents(1);
 					}
 					else {
 						// address is LSB MSB
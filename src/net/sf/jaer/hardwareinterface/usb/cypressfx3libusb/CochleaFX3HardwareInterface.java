@@ -131,6 +131,7 @@ public class CochleaFX3HardwareInterface extends CypressFX3Biasgen {
 			if (buffer.getCapacity() > getAEBufferSize()) {
 				if (buffer.overrunOccuredFlag || (capacity > buffer.getCapacity())) {
 					buffer.overrunOccuredFlag = true;
+					aePacketRawPool.addDroppedEvents(capacity - eventCounter);
 					return (false);
 				}
 
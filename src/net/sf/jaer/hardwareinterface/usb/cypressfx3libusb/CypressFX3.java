@@ -470,12 +470,9 @@ public class CypressFX3 implements AEMonitorInterface, ReaderBufferControl, USBI
 		// synchronized(aePacketRawPool){ // synchronize on aeReader so that we
 		// don't try to access the events at the
 		// same time
-		synchronized (aePacketRawPool) {
-			aePacketRawPool.swap();
-			lastEventsAcquired = aePacketRawPool.readBuffer();
-			eventCounter = 0;
-			realTimeEventCounterStart = 0;
-		}
+		// the AEReader starts a new write buffer by itself when it publishes one, so don't touch eventCounter here
+		aePacketRawPool.swap();
+		lastEventsAcquired = aePacketRawPool.readBuffer();
 
 		nEvents = lastEventsAcquired.getNumEvents();
 		computeEstimatedEventRate(lastEventsAcquired);
@@ -993,6 +990,7 @@ public class CypressFX3 implements AEMonitorInterface, ReaderBufferControl, USBI
 
 		USBTransferThread usbTransfer;
 		CypressFX3 monitor;
+		private long writeBufferGeneration = -1;
 
 		public AEReader(final CypressFX3 m) throws HardwareInterfaceException {
 			monitor = m;
@@ -1080,6 +1078,7 @@ public class CypressFX3 implements AEMonitorInterface, ReaderBufferControl, USBI
 			@Override
 			public void processTransfer(final RestrictedTransfer transfer) {
 				synchronized (aePacketRawPool) {
+					checkWriteBuffer();
 					if (transfer.status() == LibUsb.TRANSFER_COMPLETED) {
 						usbPacketStatistics.addSample(transfer);
 						translateEvents(transfer.buffer());
@@ -1107,10 +1106,28 @@ public class CypressFX3 implements AEMonitorInterface, ReaderBufferControl, USBI
 						CypressFX3.log.warning("ProcessAEData: Bytes transferred: " + transfer.actualLength() + "  Status: "
 							+ LibUsb.errorName(transfer.status()));
 					}
+					if (aePacketRawPool.publishWriteBuffer()) {
+						checkWriteBuffer();
+					}
 				}
 			}
 		}
 
+		/**
+		 * Restarts event writing at index 0 if the write buffer of the
+		 * aePacketRawPool has changed since the last transfer, because we
+		 * published it or the consumer took it or it was reallocated. Must be
+		 * called holding the aePacketRawPool monitor.
+		 */
+		protected void checkWriteBuffer() {
+			final long generation = aePacketRawPool.getWriteBufferGeneration();
+			if (generation != writeBufferGeneration) {
+				writeBufferGeneration = generation;
+				eventCounter = 0;
+				realTimeEventCounterStart = 0;
+			}
+		}
+
 		/** size of CypressFX3 USB fifo's in bytes. */
 		public static final int CYPRESS_FIFO_SIZE = 512;
 
@@ -1285,6 +1302,14 @@ public class CypressFX3 implements AEMonitorInterface, ReaderBufferControl, USBI
 		}
 	}
 
+	/**
+	 * @return the ring of raw packets between the AEReader and the consumer,
+	 *         e.g. for its dropped event and consumer lag statistics
+	 */
+	public AEPacketRawPool getAEPacketRawPool() {
+		return aePacketRawPool;
+	}
+
 	/**
 	 * @return the size of the double buffer raw packet for AEs
 	 */
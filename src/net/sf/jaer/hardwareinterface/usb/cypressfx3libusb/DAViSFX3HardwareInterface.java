@@ -226,6 +226,7 @@ public class DAViSFX3HardwareInterface extends CypressFX3Biasgen {
 			if (buffer.getCapacity() > getAEBufferSize()) {
 				if (buffer.overrunOccuredFlag || (capacity > buffer.getCapacity())) {
 					buffer.overrunOccuredFlag = true;
+					aePacketRawPool.addDroppedEvents(capacity - eventCounter);
 					return (false);
 				}
 
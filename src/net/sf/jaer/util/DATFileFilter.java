@@ -9,6 +9,7 @@ package net.sf.jaer.util;
 import java.io.File;
 
 import net.sf.jaer.eventio.AEDataFile;
+import net.sf.jaer.eventio.Hdf5EventFileInputStream;
 import net.sf.jaer.eventio.ros.RosbagFileInputStream;
 
 /**
@@ -31,7 +32,7 @@ public class DATFileFilter extends javax.swing.filechooser.FileFilter {
         
         String extension = getExtension(f);
         if (extension != null) {
-            if (extension.equals(EXTENSION)  || extension.equals(OLDEXTENSION) || extension.endsWith(RosbagFileInputStream.DATA_FILE_EXTENSION)){
+            if (extension.equals(EXTENSION)  || extension.equals(OLDEXTENSION) || extension.equals(COMPRESSED_EXTENSION) || extension.equals(Hdf5EventFileInputStream.DATA_FILE_EXTENSION) || extension.endsWith(RosbagFileInputStream.DATA_FILE_EXTENSION)){
                 return true;
             } else {
                 return false;
@@ -65,5 +66,8 @@ public class DATFileFilter extends javax.swing.filechooser.FileFilter {
     /** The orignal extension for AE data files */
     public static final String OLDEXTENSION="dat";
 
+    /** The extension of compressed AE data files, without the dot */
+    public static final String COMPRESSED_EXTENSION=AEDataFile.COMPRESSED_DATA_FILE_EXTENSION.substring(1);
+
     
 }
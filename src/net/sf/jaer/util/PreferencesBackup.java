@@ -0,0 +1,176 @@
+/*
+ * PreferencesBackup.java
+ *
+ * Copyright (C) 2026 jAER project.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ */
+package net.sf.jaer.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.prefs.BackingStoreException;
+import java.util.prefs.InvalidPreferencesFormatException;
+import java.util.prefs.Preferences;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+/**
+ * Copies of user preference subtrees that are written back later. Code that
+ * has to change the stored preferences for a while, e.g. to import a filter
+ * settings file and construct a chip from it, saves the nodes it will touch
+ * first and calls {@link #restore()} in a finally block, which puts back the
+ * saved values and removes all values written since.
+ *
+ * @author agent
+ */
+public class PreferencesBackup {
+
+    private static final Logger log = Logger.getLogger("net.sf.jaer");
+    /**
+     * Exported subtree by absolute path, or null if the node did not exist
+     */
+    private final LinkedHashMap<String, byte[]> saved = new LinkedHashMap<>();
+
+    /**
+     * Saves the subtree of a user preferences node, unless it or one of its
+     * ancestors is already saved.
+     *
+     * @param node the node
+     * @throws BackingStoreException if the node cannot be read
+     * @throws IOException if the node cannot be exported
+     */
+    public void save(Preferences node) throws BackingStoreException, IOException {
+        save(node.absolutePath());
+    }
+
+    /**
+     * Saves the subtree of a user preferences node given by its absolute
+     * path, unless it or one of its ancestors is already saved.
+     *
+     * @param path the absolute path, e.g. "/eu/seebetter/ini/chips/davis"
+     * @throws BackingStoreException if the node cannot be read
+     * @throws IOException if the node cannot be exported
+     */
+    public void save(String path) throws BackingStoreException, IOException {
+        if (path.equals("/")) {
+            throw new IllegalArgumentException("cannot save the whole preferences tree");
+        }
+        for (String p : saved.keySet()) {
+            if (path.equals(p) || path.startsWith(p + "/")) {
+                return;
+            }
+        }
+        final Preferences root = Preferences.userRoot();
+        if (!root.nodeExists(path)) {
+            saved.put(path, null);
+            return;
+        }
+        final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        root.node(path).exportSubtree(bos);
+        saved.put(path, bos.toByteArray());
+    }
+
+    /**
+     * Saves the subtrees of all nodes that importing a preferences XML file,
+     * e.g. a filter settings file, would write to.
+     *
+     * @param f the file, in the format of {@link Preferences#exportSubtree}
+     * @throws IOException if the file cannot be read or parsed
+     * @throws BackingStoreException if a node cannot be read
+     */
+    public void saveNodesOf(File f) throws IOException, BackingStoreException {
+        final Element root;
+        try {
+            final DocumentBuilder builder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
+            builder.setEntityResolver((publicId, systemId) -> new InputSource(new StringReader(""))); // don't fetch preferences.dtd
+            root = builder.parse(f).getDocumentElement();
+        } catch (ParserConfigurationException | SAXException e) {
+            throw new IOException(f + ": " + e.getMessage(), e);
+        }
+        final ArrayList<String> paths = new ArrayList<>();
+        for (Node n = root.getFirstChild(); n != null; n = n.getNextSibling()) {
+            if ((n instanceof Element) && n.getNodeName().equals("root") && "user".equals(((Element) n).getAttribute("type"))) {
+                collectWrittenNodes((Element) n, "", paths);
+            }
+        }
+        for (String p : paths) {
+            save(p);
+        }
+    }
+
+    /**
+     * Adds the paths of the nodes below a root or node element that have
+     * entries, outermost first.
+     */
+    private static void collectWrittenNodes(Element e, String path, ArrayList<String> paths) {
+        for (Node n = e.getFirstChild(); n != null; n = n.getNextSibling()) {
+            if (!(n instanceof Element)) {
+                continue;
+            }
+            final Element c = (Element) n;
+            if (c.getNodeName().equals("map") && !path.isEmpty() && (c.getElementsByTagName("entry").getLength() > 0)) {
+                paths.add(path);
+            } else if (c.getNodeName().equals("node")) {
+                collectWrittenNodes(c, path + "/" + c.getAttribute("name"), paths);
+            }
+        }
+    }
+
+    /**
+     * Puts back all saved subtrees, last saved first, removing whatever was
+     * written to them since they were saved, and forgets them. Nodes are
+     * cleared and refilled rather than removed, since chips and classes with
+     * static preferences keep using the node objects; nodes added since are
+     * left empty.
+     */
+    public synchronized void restore() {
+        final Preferences root = Preferences.userRoot();
+        final ArrayList<Map.Entry<String, byte[]>> entries = new ArrayList<>(saved.entrySet());
+        Collections.reverse(entries); // a subtree saved later may contain one saved earlier
+        for (Map.Entry<String, byte[]> e : entries) {
+            try {
+                if (root.nodeExists(e.getKey())) {
+                    clearSubtree(root.node(e.getKey()));
+                }
+                if (e.getValue() != null) {
+                    Preferences.importPreferences(new ByteArrayInputStream(e.getValue()));
+                }
+            } catch (BackingStoreException | IOException | InvalidPreferencesFormatException | IllegalStateException ex) {
+                log.log(Level.WARNING, "could not restore preferences " + e.getKey() + ": " + ex.toString(), ex);
+            }
+        }
+        try {
+            root.flush();
+        } catch (BackingStoreException ex) {
+            log.warning("could not flush restored preferences: " + ex.toString());
+        }
+        saved.clear();
+    }
+
+    private static void clearSubtree(Preferences node) throws BackingStoreException {
+        node.clear();
+        for (String c : node.childrenNames()) {
+            clearSubtree(node.node(c));
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * SnapshotPreferences.java
+ *
+ * Copyright (C) 2026 jAER project.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ */
+package net.sf.jaer.util;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.prefs.AbstractPreferences;
+import java.util.prefs.BackingStoreException;
+import java.util.prefs.Preferences;
+
+/**
+ * An in-memory copy of a Preferences tree. Each node copies the keys of the
+ * node with the same path in the base tree when it is first accessed; after
+ * that, reads and writes only touch the copy, and nothing is ever written
+ * back. Giving each of several chips or filters that run at the same time its
+ * own snapshot keeps them from seeing each other's preference writes and
+ * keeps batch runs from changing the user's stored settings.
+ *
+ * @author agent
+ */
+public class SnapshotPreferences extends AbstractPreferences {
+
+    private final Preferences base; // null if the base tree has no such node
+    private final HashMap<String, String> values = new HashMap<>();
+
+    /**
+     * Creates the root of a snapshot of the user preferences.
+     */
+    public SnapshotPreferences() {
+        this(null, "", Preferences.userRoot());
+    }
+
+    private SnapshotPreferences(SnapshotPreferences parent, String name, Preferences base) {
+        super(parent, name);
+        this.base = base;
+        if (base != null) {
+            try {
+                for (String k : base.keys()) {
+                    String v = base.get(k, null);
+                    if (v != null) {
+                        values.put(k, v);
+                    }
+                }
+            } catch (BackingStoreException e) {
+                // start empty, the snapshot is then just the defaults
+            }
+        }
+    }
+
+    /**
+     * Returns the node of this snapshot with the same path as the given node
+     * of the base tree.
+     *
+     * @param node a node of the user preferences
+     * @return the corresponding snapshot node
+     */
+    public Preferences snapshotOf(Preferences node) {
+        return node(node.absolutePath());
+    }
+
+    @Override
+    protected void putSpi(String key, String value) {
+        values.put(key, value);
+    }
+
+    @Override
+    protected String getSpi(String key) {
+        return values.get(key);
+    }
+
+    @Override
+    protected void removeSpi(String key) {
+        values.remove(key);
+    }
+
+    @Override
+    protected void removeNodeSpi() throws BackingStoreException {
+        values.clear();
+    }
+
+    @Override
+    protected String[] keysSpi() throws BackingStoreException {
+        return values.keySet().toArray(new String[values.size()]);
+    }
+
+    @Override
+    protected String[] childrenNamesSpi() throws BackingStoreException {
+        LinkedHashSet<String> names = new LinkedHashSet<>();
+        if (base != null) {
+            for (String s : base.childrenNames()) {
+                names.add(s);
+            }
+        }
+        return names.toArray(new String[names.size()]); // AbstractPreferences adds the cached children
+    }
+
+    @Override
+    protected AbstractPreferences childSpi(String name) {
+        Preferences b = null;
+        try {
+            if (base != null && base.nodeExists(name)) {
+                b = base.node(name);
+            }
+        } catch (BackingStoreException | IllegalStateException e) {
+            b = null;
+        }
+        return new SnapshotPreferences(this, name, b);
+    }
+
+    @Override
+    protected void syncSpi() throws BackingStoreException {
+    }
+
+    @Override
+    protected void flushSpi() throws BackingStoreException {
+    }
+}
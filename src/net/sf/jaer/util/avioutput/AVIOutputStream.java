@@ -1111,6 +1111,55 @@ public class AVIOutputStream {
 		}
 	}
 
+	/**
+	 * Writes a frame that was already encoded in the video format and depth
+	 * of this stream, e.g. by {@link ParallelFrameEncoder}, to the video
+	 * track. The video dimension must have been set with
+	 * {@link #setVideoDimension(int, int)}.
+	 * 
+	 * @param data
+	 *            the encoded frame
+	 * @param len
+	 *            the number of bytes of data to write
+	 * @param isSync
+	 *            whether the frame is a key frame
+	 * 
+	 * @throws IOException
+	 *             if writing the frame failed.
+	 */
+	public void writeEncodedFrame(byte[] data, int len, boolean isSync)
+			throws IOException {
+		ensureOpen();
+		ensureStarted();
+
+		long offset = getRelativeStreamPosition();
+		DataChunk videoFrameChunk = new DataChunk(
+				videoFormat == VideoFormat.RAW ? "00db" : "00dc");
+		videoFrameChunk.getOutputStream().write(data, 0, len);
+		long length = getRelativeStreamPosition() - offset;
+		moviChunk.add(videoFrameChunk);
+		videoFrameChunk.finish();
+		videoFrames.add(new Sample(videoFrameChunk.chunkType, frameRate,
+				offset, length - 8, isSync));
+		if (getRelativeStreamPosition() > 1L << 32) {
+			throw new IOException("AVI file is larger than 4 GB");
+		}
+	}
+
+	/**
+	 * Returns the video format of this stream.
+	 */
+	public VideoFormat getVideoFormat() {
+		return videoFormat;
+	}
+
+	/**
+	 * Returns the number of bits per pixel of the video track.
+	 */
+	public int getVideoDepth() {
+		return imgDepth;
+	}
+
 	/**
 	 * Closes the movie file as well as the stream being filtered.
 	 * 
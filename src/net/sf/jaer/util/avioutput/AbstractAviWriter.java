@@ -48,6 +48,7 @@ public class AbstractAviWriter extends EventFilter2DMouseAdaptor implements Fram
 
     protected final int LOG_EVERY_THIS_MANY_FRAMES = 100; // for logging concole messages
     private AVIOutputStream aviOutputStream = null;
+    private ParallelFrameEncoder frameEncoder = null;
     protected static String DEFAULT_FILENAME = "jAER.avi";
     protected String lastFileName = getString("lastFileName", DEFAULT_FILENAME);
     protected File lastFile = null;
@@ -68,6 +69,9 @@ public class AbstractAviWriter extends EventFilter2DMouseAdaptor implements Fram
     private boolean saveFramesAsIndividualImageFiles = getBoolean("saveFramesAsIndividualImageFiles", false);
     private boolean writeOnlyWhenMousePressed = getBoolean("writeOnlyWhenMousePressed", false);
     protected volatile boolean writeEnabled = true;
+    private int encoderThreads = getInt("encoderThreads", Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+    private boolean writeRawFrames = getBoolean("writeRawFrames", false);
+    protected static final String RAW_FRAMES_SUFFIX = "-frames.npy";
 
     public AbstractAviWriter(AEChip chip) {
         super(chip);
@@ -87,6 +91,8 @@ public class AbstractAviWriter extends EventFilter2DMouseAdaptor implements Fram
         setPropertyTooltip("saveFramesAsIndividualImageFiles", "If selected, then the frames are saved as individual image files in the selected folder");
         setPropertyTooltip("writeOnlyWhenMousePressed", "If selected, then the frames are are saved only when the mouse is pressed in the AEViewer window");
         setPropertyTooltip("writeEnabled", "Selects if writing frames is enabled. Use this to temporarily disable output, or in conjunction with writeOnlyWhenMousePressed");
+        setPropertyTooltip("encoderThreads", "number of threads that encode PNG, JPG and RAW frames in parallel; takes effect on the next file");
+        setPropertyTooltip("writeRawFrames", "also writes the frames uncompressed to a numpy uint8 array file alongside the AVI file (with suffix " + RAW_FRAMES_SUFFIX + ")");
         chip.getSupport().addPropertyChangeListener(this);
 
     }
@@ -204,6 +210,11 @@ public class AbstractAviWriter extends EventFilter2DMouseAdaptor implements Fram
     synchronized public void doCloseFile() {
         if (getAviOutputStream() != null) {
             try {
+                try {
+                    closeFrameEncoder();
+                } catch (IOException ex) {
+                    log.warning("not all frames were written: " + ex.toString());
+                }
                 getAviOutputStream().close();
                 setAviOutputStream(null);
                 if (timecodeWriter != null) {
@@ -222,6 +233,54 @@ public class AbstractAviWriter extends EventFilter2DMouseAdaptor implements Fram
 
     }
 
+    /**
+     * Queues the frame for encoding and writing to the AVI output stream by
+     * the {@link ParallelFrameEncoder}, which is started with the first frame.
+     * The image can be reused as soon as this method returns.
+     *
+     * @param bi the frame
+     * @throws IOException if writing this or an earlier frame failed
+     */
+    protected void writeFrame(BufferedImage bi) throws IOException {
+        if (frameEncoder != null && frameEncoder.getOutputStream() != aviOutputStream) {
+            closeFrameEncoder(); // the stream was replaced by setAviOutputStream
+        }
+        if (frameEncoder == null) {
+            NpyFrameWriter rawFrameWriter = null;
+            if (writeRawFrames && lastFile != null) {
+                String s = lastFile.toString();
+                File f = new File((s.lastIndexOf(".") == -1 ? s : s.substring(0, s.lastIndexOf("."))) + RAW_FRAMES_SUFFIX);
+                rawFrameWriter = new NpyFrameWriter(f, bi.getWidth(), bi.getHeight(), isRawFramesRgb());
+                log.info("Opened raw frames file " + f.toString());
+            }
+            frameEncoder = new ParallelFrameEncoder(aviOutputStream, encoderThreads, rawFrameWriter);
+        }
+        frameEncoder.writeFrame(bi);
+    }
+
+    /**
+     * Writes out the frames queued in the encoder and stops its threads.
+     *
+     * @throws IOException if any of the frames could not be written
+     */
+    private void closeFrameEncoder() throws IOException {
+        final ParallelFrameEncoder e = frameEncoder;
+        frameEncoder = null;
+        if (e != null) {
+            e.close();
+        }
+    }
+
+    /**
+     * Returns whether frames written with writeRawFrames are RGB or gray; gray
+     * frames take the green channel.
+     *
+     * @return true for RGB
+     */
+    protected boolean isRawFramesRgb() {
+        return true;
+    }
+
     /**
      * Opens AVI output stream and optionally the timecode file, and enable
      * writing to this stream.
@@ -550,6 +609,39 @@ public class AbstractAviWriter extends EventFilter2DMouseAdaptor implements Fram
         log.info("writeEnabled=" + writeEnabled);
     }
 
+    /**
+     * @return the encoderThreads
+     */
+    public int getEncoderThreads() {
+        return encoderThreads;
+    }
+
+    /**
+     * @param encoderThreads the encoderThreads to set
+     */
+    public void setEncoderThreads(int encoderThreads) {
+        if (encoderThreads < 1) {
+            encoderThreads = 1;
+        }
+        this.encoderThreads = encoderThreads;
+        putInt("encoderThreads", encoderThreads);
+    }
+
+    /**
+     * @return the writeRawFrames
+     */
+    public boolean isWriteRawFrames() {
+        return writeRawFrames;
+    }
+
+    /**
+     * @param writeRawFrames the writeRawFrames to set
+     */
+    public void setWriteRawFrames(boolean writeRawFrames) {
+        this.writeRawFrames = writeRawFrames;
+        putBoolean("writeRawFrames", writeRawFrames);
+    }
+
     /**
      * @return the aviOutputStream
      */
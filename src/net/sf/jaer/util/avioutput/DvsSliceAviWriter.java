@@ -168,7 +168,7 @@ public class DvsSliceAviWriter extends AbstractAviWriter implements FrameAnnotat
                     try {
                         writeTimecode(e.timestamp);
                         writeTargetLocation(e.timestamp, framesWritten);
-                        getAviOutputStream().writeFrame(bi);
+                        writeFrame(bi);
                         incrementFramecountAndMaybeCloseOutput();
                     } catch (IOException ex) {
                         doCloseFile();
@@ -552,7 +552,7 @@ public class DvsSliceAviWriter extends AbstractAviWriter implements FrameAnnotat
                 try {
                     writeTimecode(endOfFrameTimestamp);
                     writeTargetLocation(endOfFrameTimestamp, framesWritten);
-                    getAviOutputStream().writeFrame(bi);
+                    writeFrame(bi);
                     incrementFramecountAndMaybeCloseOutput();
                 } catch (IOException ex) {
                     log.warning(ex.toString());
@@ -590,6 +590,7 @@ public class DvsSliceAviWriter extends AbstractAviWriter implements FrameAnnotat
             + "     [-writeapstorgchannel=true] \n"
             + "     [-writedvseventstotextfile=false] \n"
             + "     [-writetargetlocations=false] \n"
+            + "     [-writerawframes=false] [-encoderthreads=" + Math.max(1, Runtime.getRuntime().availableProcessors() - 1) + "] \n"
             + "     [-timeslicemethod=EventCount|TimeIntervalUs] [-numevents=2000] [-framedurationus=10000]\n"
             + "     [-rectify=false] [-normalize=true] [-showoutput=true]  [-maxframes=0] \n "
             + "     [-enablefilters=false] \n"
@@ -636,6 +637,8 @@ public class DvsSliceAviWriter extends AbstractAviWriter implements FrameAnnotat
         opt.getSet().addOption("showoutput", Separator.EQUALS, Multiplicity.ZERO_OR_ONE);
         opt.getSet().addOption("maxframes", Separator.EQUALS, Multiplicity.ZERO_OR_ONE);
         opt.getSet().addOption("writetargetlocations", Separator.EQUALS, Multiplicity.ZERO_OR_ONE);
+        opt.getSet().addOption("writerawframes", Separator.EQUALS, Multiplicity.ZERO_OR_ONE);
+        opt.getSet().addOption("encoderthreads", Separator.EQUALS, Multiplicity.ZERO_OR_ONE);
         if (!opt.check()) {
             System.err.println(opt.getCheckErrors());
             System.err.println(USAGE);
@@ -853,6 +856,21 @@ public class DvsSliceAviWriter extends AbstractAviWriter implements FrameAnnotat
             writer.setMaxFrames(0);
         }
 
+        if (opt.getSet().isSet("writerawframes")) {
+            boolean b = Boolean.parseBoolean(opt.getSet().getOption("writerawframes").getResultValue(0));
+            writer.setWriteRawFrames(b);
+        }
+
+        if (opt.getSet().isSet("encoderthreads")) {
+            try {
+                int n = Integer.parseInt(opt.getSet().getOption("encoderthreads").getResultValue(0));
+                writer.setEncoderThreads(n);
+            } catch (NumberFormatException e) {
+                System.err.println("Bad encoderthreads argument: " + e.toString());
+                System.exit(1);
+            }
+        }
+
         writer.openAVIOutputStream(outfile, args);
         int lastNumFramesWritten = 0, numPrinted = 0;
 
@@ -1045,6 +1063,14 @@ public class DvsSliceAviWriter extends AbstractAviWriter implements FrameAnnotat
         return writeAPSDVSToRGChannels;
     }
 
+    /**
+     * Raw frames are RGB only when APS and DVS go to the R and G channels.
+     */
+    @Override
+    protected boolean isRawFramesRgb() {
+        return isWriteAPSDVSToRGChannels();
+    }
+
     /**
      * @param writeAPSDVSToRGChannels the writeAPSDVSToRGChannels to set
      */
@@ -0,0 +1,138 @@
+/*
+ * NpyFrameWriter.java
+ *
+ * Copyright (C) 2026 jAER project.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ */
+package net.sf.jaer.util.avioutput;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Writes video frames uncompressed to a numpy .npy file of uint8 with shape
+ * (frames, height, width) for gray frames or (frames, height, width, 3) for
+ * RGB frames, rows from top to bottom, so that it can be loaded with
+ * numpy.load or memory mapped with numpy.load(f, mmap_mode='r').
+ * <p>
+ * The header is written with room for any frame count and rewritten with the
+ * actual count on close.
+ *
+ * @author agent
+ */
+public class NpyFrameWriter implements Closeable {
+
+    private static final int HEADER_LENGTH = 128; // a multiple of 64 as numpy recommends
+    private final File file;
+    private final FileOutputStream fileOut;
+    private final BufferedOutputStream out;
+    private final int width, height;
+    private final boolean rgb;
+    private final int[] row;
+    private final byte[] bytes;
+    private int numFrames = 0;
+    private boolean closed = false;
+
+    /**
+     * Creates the file.
+     *
+     * @param file the file, overwritten if it exists
+     * @param width the frame width
+     * @param height the frame height
+     * @param rgb true to write RGB, false to write gray values taken from the
+     * green channel
+     * @throws IOException if the file cannot be created
+     */
+    public NpyFrameWriter(File file, int width, int height, boolean rgb) throws IOException {
+        this.file = file;
+        this.width = width;
+        this.height = height;
+        this.rgb = rgb;
+        row = new int[width];
+        bytes = new byte[rgb ? 3 * width : width];
+        fileOut = new FileOutputStream(file);
+        out = new BufferedOutputStream(fileOut, 1 << 20);
+        out.write(header());
+    }
+
+    private byte[] header() {
+        final String shape = rgb ? String.format("(%d, %d, %d, 3)", numFrames, height, width) : String.format("(%d, %d, %d)", numFrames, height, width);
+        final String dict = "{'descr': '|u1', 'fortran_order': False, 'shape': " + shape + ", }";
+        final byte[] h = new byte[HEADER_LENGTH];
+        Arrays.fill(h, (byte) ' ');
+        final byte[] magic = {(byte) 0x93, 'N', 'U', 'M', 'P', 'Y', 1, 0, (byte) (HEADER_LENGTH - 10), 0};
+        System.arraycopy(magic, 0, h, 0, magic.length);
+        final byte[] d = dict.getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(d, 0, h, magic.length, d.length);
+        h[HEADER_LENGTH - 1] = '\n';
+        return h;
+    }
+
+    /**
+     * Appends a frame.
+     *
+     * @param image the frame, which must have the size given to the
+     * constructor
+     * @throws IOException if writing failed
+     */
+    public void writeFrame(BufferedImage image) throws IOException {
+        if (image.getWidth() != width || image.getHeight() != height) {
+            throw new IllegalArgumentException("frame is " + image.getWidth() + "x" + image.getHeight() + ", not " + width + "x" + height);
+        }
+        for (int y = 0; y < height; y++) {
+            image.getRGB(0, y, width, 1, row, 0, width);
+            if (rgb) {
+                for (int x = 0, i = 0; x < width; x++) {
+                    final int p = row[x];
+                    bytes[i++] = (byte) (p >> 16);
+                    bytes[i++] = (byte) (p >> 8);
+                    bytes[i++] = (byte) p;
+                }
+            } else {
+                for (int x = 0; x < width; x++) {
+                    bytes[x] = (byte) (row[x] >> 8);
+                }
+            }
+            out.write(bytes);
+        }
+        numFrames++;
+    }
+
+    /**
+     * Writes the frame count into the header and closes the file.
+     *
+     * @throws IOException if writing failed
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            out.flush();
+            fileOut.getChannel().write(ByteBuffer.wrap(header()), 0);
+        } finally {
+            out.close();
+        }
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public int getNumFrames() {
+        return numFrames;
+    }
+}
@@ -0,0 +1,377 @@
+/*
+ * ParallelFrameEncoder.java
+ *
+ * Copyright (C) 2026 jAER project.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ */
+package net.sf.jaer.util.avioutput;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.WritableRaster;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+
+/**
+ * Encodes the frames for an {@link AVIOutputStream} on a pool of threads and
+ * writes them to the stream in their original order from a writer thread, so
+ * that the thread that renders the frames only copies each frame.
+ * <p>
+ * The frames are copied into a fixed pool of frame buffers, each of which has
+ * its own encoded-data buffer and ImageIO writer, so that no buffers are
+ * allocated per frame. When all the buffers are in use, because encoding
+ * cannot keep up, {@link #writeFrame(BufferedImage)} waits for one; frames are
+ * never dropped.
+ * <p>
+ * JPG, PNG and 24-bit RAW frames are encoded independently in parallel. RLE
+ * frames are deltas to the previous frame and 4 and 8-bit RAW frames carry
+ * palette changes, so these are encoded by the AVIOutputStream itself on the
+ * writer thread.
+ * <p>
+ * Optionally each frame is also written uncompressed to a
+ * {@link NpyFrameWriter} from the writer thread.
+ *
+ * @author agent
+ */
+public class ParallelFrameEncoder implements Closeable {
+
+    private static final Logger log = Logger.getLogger("net.sf.jaer");
+    private static final AtomicInteger encoderCount = new AtomicInteger();
+    private final Future<Slot> END = CompletableFuture.completedFuture(null); // marks the end of the queue
+    private final AVIOutputStream out;
+    private final NpyFrameWriter rawFrameWriter;
+    private final AVIOutputStream.VideoFormat format;
+    private final boolean parallel;
+    private final int numThreads, numSlots;
+    private final ExecutorService encoders;
+    private final ArrayBlockingQueue<Slot> freeSlots;
+    private final ArrayList<Slot> slots = new ArrayList<>();
+    private final LinkedBlockingQueue<Future<Slot>> encodedFrames = new LinkedBlockingQueue<>();
+    private final Thread writerThread;
+    private volatile IOException error = null;
+    private volatile int framesWritten = 0;
+    private int width = -1, height = -1;
+    private boolean closed = false;
+
+    /**
+     * Creates the encoder and starts its threads.
+     *
+     * @param out the stream the frames are written to, which is not closed by
+     * this encoder
+     * @param numThreads the number of encoder threads
+     * @param rawFrameWriter writes the frames uncompressed if not null; it is
+     * closed by this encoder
+     */
+    public ParallelFrameEncoder(AVIOutputStream out, int numThreads, NpyFrameWriter rawFrameWriter) {
+        this.out = out;
+        this.rawFrameWriter = rawFrameWriter;
+        this.format = out.getVideoFormat();
+        this.parallel = format == AVIOutputStream.VideoFormat.JPG || format == AVIOutputStream.VideoFormat.PNG
+                || (format == AVIOutputStream.VideoFormat.RAW && out.getVideoDepth() > 8);
+        this.numThreads = Math.max(1, numThreads);
+        this.numSlots = 2 * this.numThreads + 2; // enough for all threads to be busy while the writer writes
+        freeSlots = new ArrayBlockingQueue<>(numSlots);
+        final int id = encoderCount.incrementAndGet();
+        final AtomicInteger threadCount = new AtomicInteger();
+        encoders = parallel ? Executors.newFixedThreadPool(this.numThreads, r -> {
+            Thread t = new Thread(r, "ParallelFrameEncoder-" + id + "-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }) : null;
+        writerThread = new Thread(this::writeFrames, "ParallelFrameEncoder-" + id + "-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Copies the frame and queues it for encoding and writing. Waits if all
+     * frame buffers are in use.
+     *
+     * @param image the frame; it can be reused by the caller as soon as this
+     * method returns
+     * @throws IOException if writing an earlier frame failed or this encoder
+     * is closed
+     */
+    synchronized public void writeFrame(BufferedImage image) throws IOException {
+        if (closed) {
+            throw new IOException("encoder is closed");
+        }
+        if (error != null) {
+            throw error;
+        }
+        if (width == -1) {
+            width = image.getWidth();
+            height = image.getHeight();
+            out.setVideoDimension(width, height); // no frame is in flight yet
+        } else if (width != image.getWidth() || height != image.getHeight()) {
+            throw new IllegalArgumentException("Dimensions of image[" + framesWritten + "] (width=" + image.getWidth()
+                    + ", height=" + image.getHeight() + ") differs from image[0] (width=" + width + ", height=" + height);
+        }
+        Slot slot = freeSlots.poll();
+        if (slot == null && slots.size() < numSlots) {
+            slot = new Slot();
+            slots.add(slot);
+        }
+        try {
+            while (slot == null) {
+                slot = freeSlots.take();
+                if (error != null) {
+                    freeSlots.add(slot);
+                    throw error;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while waiting for a free frame buffer");
+        }
+        slot.copy(image);
+        final Slot s = slot;
+        encodedFrames.add(parallel ? encoders.submit(() -> s.encode()) : CompletableFuture.completedFuture(s));
+    }
+
+    private void writeFrames() {
+        while (true) {
+            Future<Slot> f;
+            try {
+                f = encodedFrames.take();
+            } catch (InterruptedException e) {
+                continue; // only close ends the thread
+            }
+            if (f == END) {
+                return;
+            }
+            Slot s = null;
+            try {
+                s = f.get();
+                if (s.failure != null) {
+                    setError(s.failure);
+                } else if (error == null) {
+                    if (parallel) {
+                        out.writeEncodedFrame(s.bytes.buffer(), s.bytes.size(), true);
+                    } else {
+                        out.writeFrame(s.image);
+                    }
+                    if (rawFrameWriter != null) {
+                        rawFrameWriter.writeFrame(s.image);
+                    }
+                    framesWritten++;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt(); // the writer thread is never interrupted
+            } catch (ExecutionException | IOException | RuntimeException e) {
+                setError(e instanceof IOException ? (IOException) e : new IOException(e instanceof ExecutionException ? e.getCause() : e));
+            } finally {
+                if (s != null) {
+                    freeSlots.add(s);
+                }
+            }
+        }
+    }
+
+    private void setError(IOException e) {
+        if (error == null) {
+            log.warning("writing frame " + framesWritten + " failed, discarding further frames: " + e);
+            error = e;
+        }
+    }
+
+    /**
+     * Writes all queued frames, stops the threads and closes the raw frame
+     * writer. Does not close the AVIOutputStream.
+     *
+     * @throws IOException if any frame could not be written
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            encodedFrames.add(END);
+        }
+        try {
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (encoders != null) {
+            encoders.shutdown();
+        }
+        for (Slot s : slots) {
+            s.dispose();
+        }
+        if (rawFrameWriter != null) {
+            try {
+                rawFrameWriter.close();
+            } catch (IOException e) {
+                setError(e);
+            }
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    /**
+     * @return the number of frames written to the stream so far
+     */
+    public int getFramesWritten() {
+        return framesWritten;
+    }
+
+    /**
+     * @return the number of frames waiting to be encoded or written
+     */
+    public int getFramesQueued() {
+        return Math.max(0, encodedFrames.size() - (closed ? 1 : 0));
+    }
+
+    /**
+     * @return the stream the frames are written to
+     */
+    public AVIOutputStream getOutputStream() {
+        return out;
+    }
+
+    /**
+     * @return the number of encoder threads
+     */
+    public int getNumThreads() {
+        return numThreads;
+    }
+
+    /**
+     * Gives the writer thread the encoded bytes without copying them.
+     */
+    private static class FrameBytes extends ByteArrayOutputStream {
+
+        private FrameBytes() {
+            super(1 << 16);
+        }
+
+        private byte[] buffer() {
+            return buf;
+        }
+    }
+
+    /**
+     * A frame buffer with the buffers to encode it.
+     */
+    private class Slot {
+
+        private BufferedImage image = null;
+        private final FrameBytes bytes = new FrameBytes();
+        private ImageWriter imageWriter = null;
+        private ImageWriteParam writeParam = null;
+        private int[] raw = null; // holds a scanline of samples for RAW
+        private byte[] scanline = null;
+        private IOException failure = null;
+
+        private void copy(BufferedImage src) {
+            final ColorModel cm = src.getColorModel();
+            if (image == null || image.getColorModel() != cm) { // a new palette needs a new image
+                WritableRaster r = cm.createCompatibleWritableRaster(width, height);
+                image = new BufferedImage(cm, r, cm.isAlphaPremultiplied(), null);
+            }
+            final DataBuffer from = src.getRaster().getDataBuffer(), to = image.getRaster().getDataBuffer();
+            if (from instanceof DataBufferInt && to instanceof DataBufferInt && from.getSize() == to.getSize() && from.getNumBanks() == 1) {
+                System.arraycopy(((DataBufferInt) from).getData(), 0, ((DataBufferInt) to).getData(), 0, to.getSize());
+            } else if (from instanceof DataBufferByte && to instanceof DataBufferByte && from.getSize() == to.getSize() && from.getNumBanks() == 1) {
+                System.arraycopy(((DataBufferByte) from).getData(), 0, ((DataBufferByte) to).getData(), 0, to.getSize());
+            } else {
+                image.setData(src.getRaster());
+            }
+        }
+
+        /**
+         * Encodes the image; a failure is kept so that the slot still goes
+         * back to the pool.
+         */
+        private Slot encode() {
+            bytes.reset();
+            failure = null;
+            try {
+                if (format == AVIOutputStream.VideoFormat.RAW) {
+                    encodeRaw();
+                } else {
+                    encodeImage();
+                }
+            } catch (IOException | RuntimeException e) {
+                failure = e instanceof IOException ? (IOException) e : new IOException(e);
+            }
+            return this;
+        }
+
+        /**
+         * Writes 24-bit BGR scanlines from the bottom up, like
+         * AVIOutputStream.
+         */
+        private void encodeRaw() {
+            final WritableRaster raster = image.getRaster();
+            if (raw == null) {
+                raw = new int[width * 3];
+                scanline = new byte[width * 3];
+            }
+            for (int y = height - 1; y >= 0; --y) {
+                raster.getPixels(0, y, width, 1, raw);
+                for (int x = 0, n = width * 3; x < n; x += 3) {
+                    scanline[x + 2] = (byte) raw[x];
+                    scanline[x + 1] = (byte) raw[x + 1];
+                    scanline[x] = (byte) raw[x + 2];
+                }
+                bytes.write(scanline, 0, scanline.length);
+            }
+        }
+
+        private void encodeImage() throws IOException {
+            if (imageWriter == null) {
+                imageWriter = ImageIO.getImageWritersByMIMEType(format == AVIOutputStream.VideoFormat.JPG ? "image/jpeg" : "image/png").next();
+                writeParam = imageWriter.getDefaultWriteParam();
+                if (format == AVIOutputStream.VideoFormat.JPG) {
+                    writeParam.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                    writeParam.setCompressionQuality(out.getVideoCompressionQuality());
+                }
+            }
+            MemoryCacheImageOutputStream imgOut = new MemoryCacheImageOutputStream(bytes);
+            try {
+                imageWriter.setOutput(imgOut);
+                imageWriter.write(null, new IIOImage(image, null, null), writeParam);
+            } finally {
+                imgOut.close(); // flushes to bytes, which stays open
+                imageWriter.setOutput(null);
+            }
+        }
+
+        private void dispose() {
+            if (imageWriter != null) {
+                imageWriter.dispose();
+                imageWriter = null;
+            }
+        }
+    }
+}
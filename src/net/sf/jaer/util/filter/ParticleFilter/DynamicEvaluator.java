@@ -11,7 +11,7 @@ import java.util.Random;
  *
  * @author minliu and hongjie
  */
-public class DynamicEvaluator implements ParticleEvaluator<SimpleParticle, double[]> {
+public class DynamicEvaluator implements ParticleEvaluator<SimpleParticle, double[]>, ParticleMotionModel {
     private double noise = 5;
     private Random r = new Random();
     
@@ -30,4 +30,13 @@ public class DynamicEvaluator implements ParticleEvaluator<SimpleParticle, doubl
         retVal[1] = y + 0 + errorY;
         return retVal;
     }    
+
+    @Override
+    public void propagate(double[][] state, int from, int to, Random r) {
+        final double[] x = state[0], y = state[1];
+        for (int i = from; i < to; i++) {
+            x[i] += r.nextGaussian() * noise;
+            y[i] += r.nextGaussian() * noise;
+        }
+    }
 }
@@ -14,7 +14,7 @@ import java.util.Random;
  *
  * @author minliu and hongjie
  */
-public class MeasurmentEvaluator implements ParticleEvaluator<SimpleParticle, Double> {
+public class MeasurmentEvaluator implements ParticleEvaluator<SimpleParticle, Double>, ParticleLikelihood {
 	List<Float> muX = new ArrayList<Float>(), muY = new ArrayList<Float>();
 	double	sigma	= Math.sqrt(20);
         List<Boolean> visibleCluster = new ArrayList<Boolean>();
@@ -73,6 +73,31 @@ public class MeasurmentEvaluator implements ParticleEvaluator<SimpleParticle, Do
 		}
 		return result + error; 
 	}
+
+	/**
+	 * Same as {@link #evaluate(SimpleParticle)} for a range of particles,
+	 * without boxing; the measurements are copied once per range.
+	 */
+	@Override
+	public void evaluate(double[][] state, int from, int to, double[] likelihood) {
+		final int n = type == 0 ? muX.size() : 0;
+		final double[] mx = new double[n], my = new double[n], w = new double[n];
+		for (int j = 0; j < n; j++) {
+			mx[j] = muX.get(j);
+			my[j] = muY.get(j);
+			w[j] = measurementWeight.get(j);
+		}
+		final double k = -1 / (2 * sigma * sigma);
+		final double[] x = state[0], y = state[1];
+		for (int i = from; i < to; i++) {
+			double sum = 0;
+			for (int j = 0; j < n; j++) {
+				final double dx = x[i] - mx[j], dy = y[i] - my[j];
+				sum += Math.exp(((dx * dx) + (dy * dy)) * w[j] * k);
+			}
+			likelihood[i] = (n == 0 ? 0 : sum / n) + (noise == 0 ? 0 : r.nextDouble() * noise);
+		}
+	}
 	
 	public static double gaussian(double x, double y, List<Float> muX, List<Float> muY, List<Double> measurementWeight, double sigma) {
 		List<Double> d2 = new ArrayList<Double>();
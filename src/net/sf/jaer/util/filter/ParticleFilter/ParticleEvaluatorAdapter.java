@@ -0,0 +1,75 @@
+/*
+ * ParticleEvaluatorAdapter.java
+ *
+ * Copyright (C) 2026 jAER project.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ */
+package net.sf.jaer.util.filter.ParticleFilter;
+
+import java.util.Random;
+
+/**
+ * Adapts the 2d {@link ParticleEvaluator}s of {@link ParticleFilter} to the
+ * {@link VectorParticleFilter}. Each range is evaluated through one
+ * {@link SimpleParticle} that is loaded with the state of each particle in
+ * turn, so the evaluators must not keep references to the particle. For
+ * parallel evaluation the evaluators must be thread safe.
+ *
+ * @author agent
+ */
+public final class ParticleEvaluatorAdapter {
+
+    private ParticleEvaluatorAdapter() {
+    }
+
+    /**
+     * Returns a motion model that sets each particle to the point returned by
+     * a dynamic evaluator such as {@link DynamicEvaluator}. The evaluator uses
+     * its own random numbers.
+     *
+     * @param dynamic the evaluator, returns the new x,y of a particle
+     * @return the motion model
+     */
+    public static ParticleMotionModel motionModel(final ParticleEvaluator<SimpleParticle, double[]> dynamic) {
+        return new ParticleMotionModel() {
+            @Override
+            public void propagate(double[][] state, int from, int to, Random r) {
+                final double[] x = state[0], y = state[1];
+                final SimpleParticle p = new SimpleParticle(0, 0);
+                for (int i = from; i < to; i++) {
+                    p.setX(x[i]);
+                    p.setY(y[i]);
+                    final double[] next = dynamic.evaluate(p);
+                    x[i] = next[0];
+                    y[i] = next[1];
+                }
+            }
+        };
+    }
+
+    /**
+     * Returns a likelihood that evaluates each particle with a measurement
+     * evaluator such as {@link MeasurmentEvaluator}.
+     *
+     * @param measurement the evaluator, returns the likelihood of a particle
+     * @return the likelihood
+     */
+    public static ParticleLikelihood likelihood(final ParticleEvaluator<SimpleParticle, Double> measurement) {
+        return new ParticleLikelihood() {
+            @Override
+            public void evaluate(double[][] state, int from, int to, double[] likelihood) {
+                final double[] x = state[0], y = state[1];
+                final SimpleParticle p = new SimpleParticle(0, 0);
+                for (int i = from; i < to; i++) {
+                    p.setX(x[i]);
+                    p.setY(y[i]);
+                    likelihood[i] = measurement.evaluate(p);
+                }
+            }
+        };
+    }
+}
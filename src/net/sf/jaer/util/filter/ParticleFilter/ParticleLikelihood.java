@@ -0,0 +1,33 @@
+/*
+ * ParticleLikelihood.java
+ *
+ * Copyright (C) 2026 jAER project.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ */
+package net.sf.jaer.util.filter.ParticleFilter;
+
+/**
+ * Measurement model of a {@link VectorParticleFilter}, which computes the
+ * likelihood of a range of particles. May be called concurrently for disjoint
+ * ranges.
+ *
+ * @author agent
+ */
+public interface ParticleLikelihood {
+
+    /**
+     * Computes the likelihood of the particles from, from+1, ... to-1.
+     *
+     * @param state the particle states, state[d][i] is dimension d of particle
+     * i
+     * @param from the first particle
+     * @param to one past the last particle
+     * @param likelihood the likelihood of particle i is written to
+     * likelihood[i]
+     */
+    public void evaluate(double[][] state, int from, int to, double[] likelihood);
+}
@@ -0,0 +1,34 @@
+/*
+ * ParticleMotionModel.java
+ *
+ * Copyright (C) 2026 jAER project.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ */
+package net.sf.jaer.util.filter.ParticleFilter;
+
+import java.util.Random;
+
+/**
+ * Motion model of a {@link VectorParticleFilter}, which moves a range of
+ * particles in place. May be called concurrently for disjoint ranges.
+ *
+ * @author agent
+ */
+public interface ParticleMotionModel {
+
+    /**
+     * Moves the particles from, from+1, ... to-1.
+     *
+     * @param state the particle states, state[d][i] is dimension d of particle
+     * i
+     * @param from the first particle
+     * @param to one past the last particle
+     * @param r the random number generator for this range, not shared with
+     * other ranges
+     */
+    public void propagate(double[][] state, int from, int to, Random r);
+}
@@ -0,0 +1,441 @@
+/*
+ * VectorParticleFilter.java
+ *
+ * Copyright (C) 2026 jAER project.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ */
+package net.sf.jaer.util.filter.ParticleFilter;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Particle filter that stores the particles in primitive arrays, one per state
+ * dimension, instead of one object per particle, so that it can run with tens
+ * of thousands of particles. It follows the steps of {@link ParticleFilter}:
+ * {@link #evaluateStrength()} moves the particles with a
+ * {@link ParticleMotionModel} and weights them with a
+ * {@link ParticleLikelihood}, then {@link #normalize()} and either
+ * {@link #resample(java.util.Random)} or {@link #updateWeight()}.
+ * <p>
+ * The particles are processed in chunks of {@link #CHUNK_SIZE}; each chunk
+ * has its own random number generator, so the result for a given seed is the
+ * same whether the chunks are evaluated serially or in parallel on the
+ * ForkJoin pool. Resampling is systematic or stratified, in O(n) and without
+ * allocation once the arrays have grown to the particle count. The existing
+ * {@link ParticleEvaluator}s can be used through
+ * {@link ParticleEvaluatorAdapter}.
+ *
+ * @author agent
+ */
+public class VectorParticleFilter {
+
+    /**
+     * How the next generation is drawn from the weights
+     */
+    public enum ResamplingMethod {
+        /**
+         * One random offset, then evenly spaced positions in the cumulative
+         * weights; lowest variance
+         */
+        Systematic,
+        /**
+         * One random position in each of n equal strata of the cumulative
+         * weights
+         */
+        Stratified
+    }
+
+    /**
+     * Particles per parallel task and per random number generator
+     */
+    public static final int CHUNK_SIZE = 2048;
+    private static final int MIN_PARALLEL_CHUNKS = 2;
+
+    private final int dimension;
+    private ParticleMotionModel motionModel;
+    private ParticleLikelihood likelihood;
+    private ResamplingMethod resamplingMethod = ResamplingMethod.Systematic;
+    private boolean parallel = false;
+
+    private int particleCount = 0, nextParticleCount = 0;
+    private double[][] state, nextState; // state[d][i]; nextState is the resampling target, swapped with state
+    private double[] weight, lastWeight, nextLastWeight, cumulativeWeight;
+    private int[] ancestor; // index of each particle in the generation before the last resampling
+    private final Random seeds;
+    private Random[] chunkRandoms = new Random[0];
+
+    /**
+     * Creates an empty filter.
+     *
+     * @param dimension the number of state dimensions, at least 2 to use the
+     * x,y accessors
+     * @param motionModel moves the particles
+     * @param likelihood weights the particles
+     */
+    public VectorParticleFilter(int dimension, ParticleMotionModel motionModel, ParticleLikelihood likelihood) {
+        this(dimension, motionModel, likelihood, new Random().nextLong());
+    }
+
+    /**
+     * Creates an empty filter whose motion noise is reproducible.
+     *
+     * @param dimension the number of state dimensions
+     * @param motionModel moves the particles
+     * @param likelihood weights the particles
+     * @param seed the seed of the random number generators passed to the
+     * motion model
+     */
+    public VectorParticleFilter(int dimension, ParticleMotionModel motionModel, ParticleLikelihood likelihood, long seed) {
+        if (dimension < 1) {
+            throw new IllegalArgumentException("dimension must be at least 1, got " + dimension);
+        }
+        this.dimension = dimension;
+        this.motionModel = motionModel;
+        this.likelihood = likelihood;
+        this.seeds = new Random(seed);
+        state = new double[dimension][0];
+        nextState = new double[dimension][0];
+        weight = new double[0];
+        lastWeight = new double[0];
+        nextLastWeight = new double[0];
+        cumulativeWeight = new double[0];
+        ancestor = new int[0];
+    }
+
+    /**
+     * Adds a particle with weight 1.
+     *
+     * @param s the state, at least dimension values
+     * @return the index of the particle
+     */
+    public int addParticle(double... s) {
+        ensureCapacity(particleCount + 1);
+        final int i = particleCount++;
+        for (int d = 0; d < dimension; d++) {
+            state[d][i] = s[d];
+        }
+        weight[i] = 1;
+        lastWeight[i] = 1;
+        ancestor[i] = i;
+        nextParticleCount++;
+        return i;
+    }
+
+    /**
+     * Removes all particles.
+     */
+    public void clear() {
+        particleCount = 0;
+        nextParticleCount = 0;
+    }
+
+    /**
+     * Moves all particles with the motion model and sets their weights to the
+     * likelihood, in parallel if {@link #isParallel()} and there are enough
+     * particles.
+     */
+    public synchronized void evaluateStrength() {
+        final int chunks = (particleCount + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        if (chunkRandoms.length < chunks) {
+            final int old = chunkRandoms.length;
+            chunkRandoms = Arrays.copyOf(chunkRandoms, chunks);
+            for (int c = old; c < chunks; c++) {
+                chunkRandoms[c] = new Random(seeds.nextLong());
+            }
+        }
+        if (parallel && (chunks >= MIN_PARALLEL_CHUNKS)) {
+            ForkJoinPool.commonPool().invoke(new EvaluateTask(0, chunks));
+        } else {
+            for (int c = 0; c < chunks; c++) {
+                evaluateChunk(c);
+            }
+        }
+    }
+
+    private void evaluateChunk(int chunk) {
+        final int from = chunk * CHUNK_SIZE, to = Math.min(from + CHUNK_SIZE, particleCount);
+        if (motionModel != null) {
+            motionModel.propagate(state, from, to, chunkRandoms[chunk]);
+        }
+        if (likelihood != null) {
+            likelihood.evaluate(state, from, to, weight);
+        }
+    }
+
+    /**
+     * Evaluates a range of chunks, splitting it in halves
+     */
+    private class EvaluateTask extends RecursiveAction {
+
+        final int from, to;
+
+        EvaluateTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if ((to - from) == 1) {
+                evaluateChunk(from);
+            } else {
+                final int mid = (from + to) >>> 1;
+                invokeAll(new EvaluateTask(from, mid), new EvaluateTask(mid, to));
+            }
+        }
+    }
+
+    /**
+     * Divides the weights by their sum. If the sum is not positive the weights
+     * are set to be uniform.
+     *
+     * @return the sum of the weights before normalizing
+     */
+    public double normalize() {
+        double sum = 0;
+        for (int i = 0; i < particleCount; i++) {
+            sum += weight[i];
+        }
+        if (sum > 0) {
+            final double f = 1 / sum;
+            for (int i = 0; i < particleCount; i++) {
+                weight[i] *= f;
+            }
+        } else {
+            Arrays.fill(weight, 0, particleCount, 1.0 / particleCount);
+        }
+        return sum;
+    }
+
+    /**
+     * @return the effective number of particles, 1/sum of squared weights, for
+     * normalized weights
+     */
+    public double calculateNeff() {
+        double sum = 0;
+        for (int i = 0; i < particleCount; i++) {
+            sum += weight[i] * weight[i];
+        }
+        return 1 / sum;
+    }
+
+    /**
+     * Multiplies the weights by the weights of the previous step, when the
+     * particles are not resampled.
+     */
+    public void updateWeight() {
+        for (int i = 0; i < particleCount; i++) {
+            final double w = weight[i] * lastWeight[i];
+            weight[i] = w;
+            lastWeight[i] = w;
+        }
+    }
+
+    /**
+     * Draws the next generation of {@link #setParticleCount(int)} particles
+     * from the current weights with the {@link #getResamplingMethod()}. Each new
+     * particle gets weight 1 and keeps the weight of its ancestor as its last
+     * weight; {@link #getAncestor(int)} tells which particle it was copied
+     * from.
+     *
+     * @param r the random number generator for the sampling positions
+     */
+    public synchronized void resample(Random r) {
+        final int n = particleCount, m = nextParticleCount;
+        if ((n == 0) || (m == 0)) {
+            particleCount = 0;
+            return;
+        }
+        ensureCapacity(m);
+        double sum = 0;
+        for (int i = 0; i < n; i++) {
+            sum += weight[i];
+            cumulativeWeight[i] = sum;
+        }
+        final boolean uniform = !(sum > 0);
+        final double step = uniform ? (double) n / m : sum / m;
+        final double offset = r.nextDouble() * step;
+        int j = 0;
+        for (int i = 0; i < m; i++) {
+            final double u = (resamplingMethod == ResamplingMethod.Systematic ? offset : r.nextDouble() * step) + (i * step);
+            if (uniform) {
+                j = Math.min((int) u, n - 1);
+            } else {
+                while ((j < (n - 1)) && (cumulativeWeight[j] < u)) {
+                    j++;
+                }
+            }
+            ancestor[i] = j;
+        }
+        for (int d = 0; d < dimension; d++) {
+            final double[] from = state[d], to = nextState[d];
+            for (int i = 0; i < m; i++) {
+                to[i] = from[ancestor[i]];
+            }
+        }
+        for (int i = 0; i < m; i++) {
+            nextLastWeight[i] = weight[ancestor[i]];
+        }
+        final double[][] s = state;
+        state = nextState;
+        nextState = s;
+        final double[] w = lastWeight;
+        lastWeight = nextLastWeight;
+        nextLastWeight = w;
+        Arrays.fill(weight, 0, m, 1);
+        particleCount = m;
+    }
+
+    private void ensureCapacity(int n) {
+        if (n <= weight.length) {
+            return;
+        }
+        final int c = Math.max(n, weight.length + (weight.length >> 1));
+        for (int d = 0; d < dimension; d++) {
+            state[d] = Arrays.copyOf(state[d], c);
+            nextState[d] = Arrays.copyOf(nextState[d], c);
+        }
+        weight = Arrays.copyOf(weight, c);
+        lastWeight = Arrays.copyOf(lastWeight, c);
+        nextLastWeight = Arrays.copyOf(nextLastWeight, c);
+        cumulativeWeight = Arrays.copyOf(cumulativeWeight, c);
+        ancestor = Arrays.copyOf(ancestor, c);
+    }
+
+    /**
+     * Returns the unweighted mean of a state dimension over all particles.
+     *
+     * @param d the dimension
+     * @return the mean, or NaN without particles
+     */
+    public double getMean(int d) {
+        final double[] s = state[d];
+        double sum = 0;
+        for (int i = 0; i < particleCount; i++) {
+            sum += s[i];
+        }
+        return sum / particleCount;
+    }
+
+    public double getAverageX() {
+        return getMean(0);
+    }
+
+    public double getAverageY() {
+        return getMean(1);
+    }
+
+    public int getParticleCount() {
+        return particleCount;
+    }
+
+    /**
+     * Sets the number of particles drawn by the next
+     * {@link #resample(java.util.Random)}.
+     *
+     * @param value the particle count
+     */
+    public void setParticleCount(int value) {
+        this.nextParticleCount = value;
+    }
+
+    public int getDimension() {
+        return dimension;
+    }
+
+    public double get(int d, int i) {
+        return state[d][i];
+    }
+
+    public void set(int d, int i, double value) {
+        state[d][i] = value;
+    }
+
+    public double getX(int i) {
+        return state[0][i];
+    }
+
+    public double getY(int i) {
+        return state[1][i];
+    }
+
+    public void setX(int i, double x) {
+        state[0][i] = x;
+    }
+
+    public void setY(int i, double y) {
+        state[1][i] = y;
+    }
+
+    public double getWeight(int i) {
+        return weight[i];
+    }
+
+    /**
+     * @param i the particle
+     * @return the index of the particle it was copied from by the last
+     * {@link #resample(java.util.Random)}
+     */
+    public int getAncestor(int i) {
+        return ancestor[i];
+    }
+
+    /**
+     * Returns the state arrays, state[d][i], which may be longer than the
+     * particle count. They are replaced by resampling.
+     *
+     * @return the state arrays
+     */
+    public double[][] getState() {
+        return state;
+    }
+
+    public ParticleMotionModel getMotionModel() {
+        return motionModel;
+    }
+
+    public void setMotionModel(ParticleMotionModel motionModel) {
+        this.motionModel = motionModel;
+    }
+
+    public ParticleLikelihood getLikelihood() {
+        return likelihood;
+    }
+
+    public void setLikelihood(ParticleLikelihood likelihood) {
+        this.likelihood = likelihood;
+    }
+
+    public ResamplingMethod getResamplingMethod() {
+        return resamplingMethod;
+    }
+
+    public void setResamplingMethod(ResamplingMethod resamplingMethod) {
+        this.resamplingMethod = resamplingMethod;
+    }
+
+    /**
+     * @return true if {@link #evaluateStrength()} runs on the ForkJoin pool
+     */
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    /**
+     * Evaluates the chunks of particles in parallel on the ForkJoin pool. The
+     * motion model and likelihood must then be safe to call concurrently for
+     * disjoint ranges.
+     *
+     * @param parallel true to evaluate in parallel
+     */
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+}
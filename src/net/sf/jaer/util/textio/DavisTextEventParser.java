@@ -0,0 +1,425 @@
+/*
+ * DavisTextEventParser.java
+ *
+ * Copyright (C) 2026 jAER project.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ */
+package net.sf.jaer.util.textio;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.logging.Logger;
+
+/**
+ * Parses DVS text files with one event per line, <i>timestamp x y
+ * polarity</i>, as written by {@link DavisTextOutputWriter} and used by
+ * <a href="http://rpg.ifi.uzh.ch/davis_data.html">rpg.ifi.uzh.ch/davis_data.html</a>.
+ * <p>
+ * The file is memory mapped in windows, copied in bulk into a scratch buffer
+ * and scanned byte by byte; numbers are parsed in place without creating
+ * Strings. Events are returned in {@link EventBlock}s of primitive arrays,
+ * which can optionally be filled by a read ahead thread while the consumer is
+ * processing the previous block.
+ *
+ * @author agent
+ */
+public class DavisTextEventParser implements Closeable {
+
+    private static final Logger log = Logger.getLogger("DavisTextEventParser");
+    /**
+     * Size of the mapped window of the file
+     */
+    private static final int MAP_SIZE = 256 << 20;
+    /**
+     * Size of the scratch buffer that is parsed; lines may not be longer than
+     * this
+     */
+    private static final int BUFFER_SIZE = 1 << 20;
+    /**
+     * Number of events in each block
+     */
+    public static final int BLOCK_SIZE = 1 << 15;
+    private static final int NUM_READ_AHEAD_BLOCKS = 4;
+
+    /**
+     * A block of parsed events.
+     */
+    public static class EventBlock {
+
+        public final int[] timestamps = new int[BLOCK_SIZE];
+        public final short[] x = new short[BLOCK_SIZE];
+        public final short[] y = new short[BLOCK_SIZE];
+        public final boolean[] on = new boolean[BLOCK_SIZE];
+        /**
+         * Number of valid events in the block
+         */
+        public int size = 0;
+        /**
+         * Line number of the last line parsed into this block
+         */
+        public long lineNumber = 0;
+        /**
+         * Set on the last block of the file
+         */
+        public boolean eof = false;
+        /**
+         * Set if reading the file failed; the block is then also the last
+         * one
+         */
+        public IOException error = null;
+
+        private void clear() {
+            size = 0;
+            eof = false;
+            error = null;
+        }
+    }
+
+    private final File file;
+    private final FileChannel channel;
+    private final long fileSize;
+    private final boolean csv, usTimestamps, signedPolarity;
+    private final int sizeX, sizeY;
+    private MappedByteBuffer mapped = null;
+    private long mappedStart = 0;
+    private final byte[] buf = new byte[BUFFER_SIZE];
+    private long bufStart = 0;
+    private int bufLength = 0;
+    private int pos = 0; // position in buf
+    private long lineNumber = 0;
+    private boolean badNumber = false; // set by the number parsers
+    private final EventBlock syncBlock = new EventBlock();
+    private Thread readAheadThread = null;
+    private ArrayBlockingQueue<EventBlock> filledBlocks, freeBlocks;
+    private volatile boolean closed = false;
+
+    /**
+     * Opens a text file for parsing.
+     *
+     * @param file the file
+     * @param csv true if fields are separated by commas rather than spaces
+     * @param usTimestamps true if timestamps are int us rather than float s
+     * @param signedPolarity true if polarity is -1/+1 rather than 0/1
+     * @param sizeX events with x outside 0..sizeX-1 are skipped
+     * @param sizeY events with y outside 0..sizeY-1 are skipped
+     * @throws IOException if the file cannot be opened
+     */
+    public DavisTextEventParser(File file, boolean csv, boolean usTimestamps, boolean signedPolarity, int sizeX, int sizeY) throws IOException {
+        this.file = file;
+        this.csv = csv;
+        this.usTimestamps = usTimestamps;
+        this.signedPolarity = signedPolarity;
+        this.sizeX = sizeX;
+        this.sizeY = sizeY;
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        fileSize = channel.size();
+        load(0);
+    }
+
+    /**
+     * Starts a thread that parses blocks ahead of the calls to
+     * {@link #nextBlock()}.
+     */
+    synchronized public void startReadAhead() {
+        if (readAheadThread != null) {
+            return;
+        }
+        filledBlocks = new ArrayBlockingQueue<>(NUM_READ_AHEAD_BLOCKS);
+        freeBlocks = new ArrayBlockingQueue<>(NUM_READ_AHEAD_BLOCKS);
+        for (int i = 0; i < NUM_READ_AHEAD_BLOCKS; i++) {
+            freeBlocks.add(new EventBlock());
+        }
+        readAheadThread = new Thread(() -> {
+            try {
+                boolean eof = false;
+                while (!eof && !closed) {
+                    EventBlock b = freeBlocks.take();
+                    fill(b);
+                    eof = b.eof;
+                    filledBlocks.put(b);
+                }
+            } catch (InterruptedException e) {
+                // closed
+            }
+        }, "DavisTextEventParser");
+        readAheadThread.setDaemon(true);
+        readAheadThread.start();
+    }
+
+    /**
+     * Returns the next block of events. The block must be handed back with
+     * {@link #recycle(EventBlock)} when the caller is done with it.
+     *
+     * @return the block; its eof flag is set on the last block of the file
+     * @throws IOException if reading the file failed
+     * @throws InterruptedException if interrupted waiting for the read ahead
+     * thread
+     */
+    public EventBlock nextBlock() throws IOException, InterruptedException {
+        EventBlock b;
+        if (readAheadThread != null) {
+            b = filledBlocks.take();
+        } else {
+            b = syncBlock;
+            fill(b);
+        }
+        if (b.error != null) {
+            throw b.error;
+        }
+        return b;
+    }
+
+    /**
+     * Returns a block obtained from {@link #nextBlock()} for reuse.
+     *
+     * @param b the block
+     */
+    public void recycle(EventBlock b) {
+        if (readAheadThread != null && b != null) {
+            freeBlocks.offer(b);
+        }
+    }
+
+    /**
+     * Stops the read ahead thread, waiting for it to finish the block it is
+     * parsing, and closes the file.
+     *
+     * @throws IOException if closing the file failed
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        if (readAheadThread != null) {
+            readAheadThread.interrupt();
+            boolean interrupted = false;
+            while (readAheadThread.isAlive()) { // it may still be copying from mapped
+                try {
+                    readAheadThread.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        mapped = null;
+        channel.close();
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Copies the file from start into buf, mapping the next window of the file
+     * if needed.
+     */
+    private void load(long start) throws IOException {
+        bufStart = start;
+        bufLength = (int) Math.min(BUFFER_SIZE, fileSize - start);
+        pos = 0;
+        if (mapped == null || start + bufLength > mappedStart + mapped.capacity()) {
+            mappedStart = start;
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(MAP_SIZE, fileSize - start));
+        }
+        mapped.position((int) (start - mappedStart));
+        mapped.get(buf, 0, bufLength);
+    }
+
+    private void fill(EventBlock b) {
+        b.clear();
+        try {
+            while (b.size < BLOCK_SIZE && !closed) {
+                if (bufStart + pos >= fileSize) {
+                    b.eof = true;
+                    break;
+                }
+                int end = pos;
+                while (end < bufLength && buf[end] != '\n') {
+                    end++;
+                }
+                if (end == bufLength && bufStart + bufLength < fileSize) {
+                    if (pos == 0) {
+                        throw new IOException(String.format("line #%d of %s is longer than %d bytes", lineNumber + 1, file, BUFFER_SIZE));
+                    }
+                    load(bufStart + pos); // line continues after the buffer
+                    continue;
+                }
+                lineNumber++;
+                parseLine(pos, end, b);
+                pos = end + 1;
+            }
+        } catch (IOException e) {
+            b.error = e;
+            b.eof = true;
+        }
+        b.lineNumber = lineNumber;
+    }
+
+    private void parseLine(int start, int end, EventBlock b) {
+        if (end > start && buf[end - 1] == '\r') {
+            end--;
+        }
+        pos = skipBlanks(start, end);
+        if (pos == end) {
+            return;
+        }
+        if (buf[pos] == '#') {
+            log.info("Comment: " + lineString(start, end));
+            return;
+        }
+        badNumber = false;
+        long ts = usTimestamps ? parseLong(end) : parseSecondsAsUs(end);
+        int x = nextField(end) ? (int) parseLong(end) : -1;
+        int y = nextField(end) ? (int) parseLong(end) : -1;
+        int pol = nextField(end) ? (int) parseLong(end) : 0;
+        if (badNumber) {
+            log.warning(String.format("Line #%d does not have 4 numbers: \"%s\"", lineNumber, lineString(start, end)));
+            return;
+        }
+        if (x < 0 || x >= sizeX || y < 0 || y >= sizeY) {
+            log.warning(String.format("address outside of AEChip allowed range: x=%d y=%d, ignoring. Line #%d: \"%s\"", x, y, lineNumber, lineString(start, end)));
+            return;
+        }
+        if (signedPolarity ? (pol != -1 && pol != 1) : (pol < 0 || pol > 1)) {
+            log.warning(String.format("polarity %d is not valid (check useSignedPolarity flag), ignoring. Line #%d: \"%s\"", pol, lineNumber, lineString(start, end)));
+            return;
+        }
+        int i = b.size++;
+        b.timestamps[i] = (int) ts;
+        b.x[i] = (short) x;
+        b.y[i] = (short) y;
+        b.on[i] = pol == 1;
+    }
+
+    private int skipBlanks(int p, int end) {
+        while (p < end) {
+            byte c = buf[p];
+            if (c != ' ' && c != '\t') {
+                break;
+            }
+            p++;
+        }
+        return p;
+    }
+
+    /**
+     * Moves pos past the separator before the next field.
+     *
+     * @return false if there is no further field
+     */
+    private boolean nextField(int end) {
+        int p = skipBlanks(pos, end);
+        if (csv) {
+            if (p == end || buf[p] != ',') {
+                badNumber = true;
+                return false;
+            }
+            p = skipBlanks(p + 1, end);
+        } else if (p == pos) {
+            badNumber = true;
+            return false;
+        }
+        pos = p;
+        return true;
+    }
+
+    private long parseLong(int end) {
+        int p = pos;
+        boolean negative = false;
+        if (p < end && (buf[p] == '-' || buf[p] == '+')) {
+            negative = buf[p] == '-';
+            p++;
+        }
+        long v = 0;
+        int digitsStart = p;
+        while (p < end) {
+            int d = buf[p] - '0';
+            if (d < 0 || d > 9) {
+                break;
+            }
+            v = v * 10 + d;
+            p++;
+        }
+        if (p == digitsStart) {
+            badNumber = true;
+        }
+        pos = p;
+        return negative ? -v : v;
+    }
+
+    /**
+     * Parses a decimal time in seconds and truncates it to us.
+     */
+    private long parseSecondsAsUs(int end) {
+        int start = pos;
+        int p = pos;
+        boolean negative = false;
+        if (p < end && (buf[p] == '-' || buf[p] == '+')) {
+            negative = buf[p] == '-';
+            p++;
+        }
+        long seconds = 0, us = 0;
+        int digits = 0, fractionDigits = 0;
+        while (p < end) {
+            int d = buf[p] - '0';
+            if (d < 0 || d > 9) {
+                break;
+            }
+            seconds = seconds * 10 + d;
+            digits++;
+            p++;
+        }
+        if (p < end && buf[p] == '.') {
+            p++;
+            while (p < end) {
+                int d = buf[p] - '0';
+                if (d < 0 || d > 9) {
+                    break;
+                }
+                if (fractionDigits < 6) {
+                    us = us * 10 + d;
+                    fractionDigits++;
+                }
+                digits++;
+                p++;
+            }
+        }
+        if (p < end && (buf[p] == 'e' || buf[p] == 'E')) { // rare, let Java parse it
+            while (p < end && buf[p] != ' ' && buf[p] != ',' && buf[p] != '\t') {
+                p++;
+            }
+            pos = p;
+            try {
+                return (long) (Double.parseDouble(lineString(start, p)) * 1000000);
+            } catch (NumberFormatException e) {
+                badNumber = true;
+                return 0;
+            }
+        }
+        if (digits == 0) {
+            badNumber = true;
+        }
+        for (; fractionDigits < 6; fractionDigits++) {
+            us *= 10;
+        }
+        pos = p;
+        us += seconds * 1000000;
+        return negative ? -us : us;
+    }
+
+    private String lineString(int start, int end) {
+        return new String(buf, start, end - start, StandardCharsets.UTF_8);
+    }
+}
@@ -19,10 +19,7 @@
 package net.sf.jaer.util.textio;
 
 import java.beans.PropertyChangeListener;
-import java.io.BufferedReader;
-import java.io.EOFException;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
 import javax.swing.JFileChooser;
 import javax.swing.JOptionPane;
@@ -35,7 +32,6 @@ import net.sf.jaer.event.ApsDvsEventPacket;
 import net.sf.jaer.event.BasicEvent;
 import net.sf.jaer.event.EventPacket;
 import net.sf.jaer.event.OutputEventIterator;
-import net.sf.jaer.event.PolarityEvent;
 import net.sf.jaer.event.PolarityEvent.Polarity;
 import static net.sf.jaer.eventprocessing.EventFilter.log;
 import net.sf.jaer.graphics.AEViewer;
@@ -55,11 +51,13 @@ public class DavisTextInputReader extends AbstractDavisTextIo implements Propert
 
 // for logging concole messages
     // for logging concole messages
-    private BufferedReader dvsReader = null;
+    private DavisTextEventParser dvsReader = null;
+    private DavisTextEventParser.EventBlock block = null; // block being consumed
+    private int blockPosition = 0;
+    private boolean readAhead = getBoolean("readAhead", true);
     private int lastTimestampRead = Integer.MIN_VALUE, lastPacketLastTimestamp = Integer.MIN_VALUE;
     private boolean noEventsReadYet = true; // set false when new file is opened
     private ApsDvsEventPacket outputPacket = null;
-    int maxX = chip.getSizeX(), maxY = chip.getSizeY();
     private boolean weWereNeverEnabled=true; // Tobi added this hack to work around the problem that if we are included in FilterChain but not enabled,
     // we set PlayMode to WAITING even if a file is currently playing back
 
@@ -67,6 +65,7 @@ public class DavisTextInputReader extends AbstractDavisTextIo implements Propert
         super(chip);
         setPropertyTooltip("openFile", "Opens the input file and starts reading from it. The text file is in format timestamp x y polarity, with polarity 0 for OFF and 1 for ON");
         setPropertyTooltip("closeFile", "Closes the input file if it is open.");
+        setPropertyTooltip("readAhead", "parses the file on a separate thread ahead of the filter chain");
         chip.getSupport().addPropertyChangeListener(this);
     }
 
@@ -106,12 +105,17 @@ public class DavisTextInputReader extends AbstractDavisTextIo implements Propert
      * writing to this stream.
      *
      * @param f the file
-     * @return the stream, or null if IOException occurs
+     * @return the parser
      * @throws java.io.IOException
      *
      */
-    public BufferedReader openReader(File f) throws IOException {
-        BufferedReader reader = new BufferedReader(new FileReader(f));
+    public DavisTextEventParser openReader(File f) throws IOException {
+        DavisTextEventParser reader = new DavisTextEventParser(f, useCSV, useUsTimestamps, useSignedPolarity, chip.getSizeX(), chip.getSizeY());
+        if (readAhead) {
+            reader.startReadAhead();
+        }
+        block = null;
+        blockPosition = 0;
         lastFile = f;
         setEventsProcessed(0);
         noEventsReadYet = true;
@@ -164,9 +168,59 @@ public class DavisTextInputReader extends AbstractDavisTextIo implements Propert
             log.warning(ex.toString());
         } finally {
             dvsReader = null;
+            block = null;
+        }
+    }
+
+    /**
+     * Reopens the file from the start, e.g. after a format option was changed
+     */
+    synchronized private void reopenFile() {
+        if (dvsReader == null) {
+            return;
+        }
+        doCloseFile();
+        try {
+            dvsReader = openReader(lastFile);
+        } catch (IOException ex) {
+            log.warning(ex.toString());
         }
     }
 
+    @Override
+    public void setUseCSV(boolean useCSV) {
+        super.setUseCSV(useCSV);
+        reopenFile();
+    }
+
+    @Override
+    public void setUseUsTimestamps(boolean useUsTimestamps) {
+        super.setUseUsTimestamps(useUsTimestamps);
+        reopenFile();
+    }
+
+    @Override
+    public void setUseSignedPolarity(boolean useSignedPolarity) {
+        super.setUseSignedPolarity(useSignedPolarity);
+        reopenFile();
+    }
+
+    /**
+     * @return the readAhead
+     */
+    public boolean isReadAhead() {
+        return readAhead;
+    }
+
+    /**
+     * @param readAhead the readAhead to set
+     */
+    public void setReadAhead(boolean readAhead) {
+        this.readAhead = readAhead;
+        putBoolean("readAhead", readAhead);
+        reopenFile();
+    }
+
     /**
      * @return the useCSV
      */
@@ -204,86 +258,43 @@ public class DavisTextInputReader extends AbstractDavisTextIo implements Propert
         int durationUs = getChip().getAeViewer().getAePlayer().getTimesliceUs(); // TODO handle flex time (constant count)
         OutputEventIterator outItr = outputPacket.outputIterator();
         lastTimestampRead = lastPacketLastTimestamp;
-        String line = null;
-        maxX = chip.getSizeX();
-        maxY = chip.getSizeY();
         boolean noEventsInThisPacket = true;
-        while (noEventsReadYet || noEventsInThisPacket || lastTimestampRead < lastPacketLastTimestamp + durationUs) {
-            try {
-                line = dvsReader.readLine();
-                if (line == null) {
-                    log.info("reached end of file after " + lastLineNumber + " lines/events; rewinding");
-                    doCloseFile();
-                    dvsReader = openReader(lastFile);
-                    break;
+        try {
+            while (noEventsReadYet || noEventsInThisPacket || lastTimestampRead < lastPacketLastTimestamp + durationUs) {
+                if (block == null || blockPosition >= block.size) {
+                    if (block != null && block.eof) {
+                        log.info("reached end of file after " + lastLineNumber + " lines; rewinding");
+                        doCloseFile();
+                        dvsReader = openReader(lastFile);
+                        break;
+                    }
+                    dvsReader.recycle(block);
+                    block = dvsReader.nextBlock();
+                    blockPosition = 0;
+                    lastLineNumber = (int) block.lineNumber;
+                    continue;
                 }
-                parseEvent(line, outItr);
+                // copy events from the parsed block until the time slice is filled
+                lastTimestampRead = block.timestamps[blockPosition];
+                ApsDvsEvent e = (ApsDvsEvent) outItr.nextOutput();
+                e.setFilteredOut(false);
+                e.setTimestamp(lastTimestampRead);
+                e.x = block.x[blockPosition];
+                e.y = block.y[blockPosition];
+                e.polarity = block.on[blockPosition] ? Polarity.On : Polarity.Off;
+                blockPosition++;
+                noEventsReadYet = false;
                 noEventsInThisPacket = false;
-            } catch (NumberFormatException nfe) {
-                log.warning(String.format("%s: Line #%d has a bad number format: \"%s\"", nfe.toString(), lastLineNumber, line));
-            } catch (EOFException eof) {
-                log.info("EOF");
-                doCloseFile();
-            } catch (IOException e) {
-                log.warning(e.toString());
-                doCloseFile();
+                setEventsProcessed(getEventsProcessed() + 1);
             }
+        } catch (IOException e) {
+            log.warning(e.toString());
+            doCloseFile();
+        } catch (InterruptedException e) {
+            log.warning("interrupted reading " + lastFile);
         }
         lastPacketLastTimestamp = lastTimestampRead;
         return outputPacket;
     }
 
-    private void parseEvent(String line, OutputEventIterator outItr) {
-        if (line.startsWith("#")) {
-            log.info("Comment: " + line);
-            return;
-        }
-        String[] split = useCSV ? line.split(",") : line.split(" "); // split by comma or space
-        if (split == null || split.length < 4) {
-            log.warning(String.format("Line #%d does not have 4 tokens: \"%s\"", lastLineNumber, line));
-            return;
-        }
-
-        lastTimestampRead = useUsTimestamps ? Integer.parseInt(split[0]) : (int) (Float.parseFloat(split[0]) * 1000000);
-        short x = Short.parseShort(split[1]);
-        short y = Short.parseShort(split[2]);
-        byte pol = Byte.parseByte(split[3]);
-        if (x < 0 || x >= maxX || y < 0 || y >= maxY) {
-            log.warning(String.format("address outside of AEChip allowed range: x=%d y=%d, ignoring. %s ", x, y, pol, lineinfo(line)));
-            return;
-        }
-        Polarity polType = PolarityEvent.Polarity.Off;
-        if (useSignedPolarity) {
-            if (pol != -1 && pol != 1) {
-                log.warning(String.format("polarity %d is not valid (check useSignedPolarity flag), ignoring, %s", pol, lineinfo(line)));
-                return;
-            } else if (pol == 1) {
-                polType = Polarity.On;
-
-            }
-        } else {
-            if (pol < 0 || pol > 1) {
-                log.warning(String.format("polarity %d is not valid (check useSignedPolarity flag), ignoring. %s", pol, lineinfo(line)));
-                return;
-            } else if (pol == 1) {
-                polType = Polarity.On;
-            }
-        }
-
-        ApsDvsEvent e = (ApsDvsEvent) outItr.nextOutput();
-        noEventsReadYet = false;
-        e.setFilteredOut(false);
-        e.setTimestamp(lastTimestampRead);
-        e.x = x;
-        e.y = y;
-        e.polarity = polType;
-        setEventsProcessed(getEventsProcessed() + 1);
-        lastLineNumber++;
-        noEventsReadYet = false;
-    }
-
-    private String lineinfo(String line) {
-        return String.format("Line #%d: \"%s\"", lastLineNumber, line);
-    }
-
 }
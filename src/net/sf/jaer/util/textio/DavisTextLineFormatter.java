@@ -0,0 +1,148 @@
+/*
+ * DavisTextLineFormatter.java
+ *
+ * Copyright (C) 2026 jAER project.
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ */
+package net.sf.jaer.util.textio;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Formats numbers as ASCII text into a reusable byte buffer, so that text
+ * lines of events can be written without creating Strings or going through
+ * String.format and a charset encoder.
+ *
+ * @author agent
+ */
+public class DavisTextLineFormatter {
+
+    private static final int MAX_NUMBER_LENGTH = 32;
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.US_ASCII); // as written by println
+    private final byte[] buf;
+    private int size = 0;
+    private final byte[] digits = new byte[20];
+
+    /**
+     * @param capacity the buffer size in bytes; the caller must write out the
+     * buffer when {@link #isFull()}
+     */
+    public DavisTextLineFormatter(int capacity) {
+        buf = new byte[capacity + 4 * MAX_NUMBER_LENGTH];
+    }
+
+    /**
+     * @return true if the buffer should be written out before appending
+     * another line
+     */
+    public boolean isFull() {
+        return size >= buf.length - 4 * MAX_NUMBER_LENGTH;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public DavisTextLineFormatter append(char c) {
+        buf[size++] = (byte) c;
+        return this;
+    }
+
+    public DavisTextLineFormatter newline() {
+        for (byte b : LINE_SEPARATOR) {
+            buf[size++] = b;
+        }
+        return this;
+    }
+
+    public DavisTextLineFormatter append(long v) {
+        if (v < 0) {
+            if (v == Long.MIN_VALUE) {
+                return append(Long.toString(v));
+            }
+            buf[size++] = '-';
+            v = -v;
+        }
+        int n = 0;
+        do {
+            digits[n++] = (byte) ('0' + v % 10);
+            v /= 10;
+        } while (v != 0);
+        while (n > 0) {
+            buf[size++] = digits[--n];
+        }
+        return this;
+    }
+
+    /**
+     * Appends a us timestamp as seconds with 6 decimals, exactly.
+     *
+     * @param us the time in us
+     * @return this
+     */
+    public DavisTextLineFormatter appendUsAsSeconds(long us) {
+        if (us < 0) {
+            buf[size++] = '-';
+            us = -us;
+        }
+        append(us / 1000000);
+        buf[size++] = '.';
+        appendFraction(us % 1000000);
+        return this;
+    }
+
+    /**
+     * Appends a value with 6 decimals like String.format("%f").
+     *
+     * @param v the value
+     * @return this
+     */
+    public DavisTextLineFormatter appendFixed6(double v) {
+        if (Double.isNaN(v) || Double.isInfinite(v) || Math.abs(v) >= 1e12) {
+            return append(String.format("%f", v));
+        }
+        if (v < 0 || (v == 0 && 1 / v < 0)) {
+            buf[size++] = '-';
+            v = -v;
+        }
+        long micro = Math.round(v * 1e6);
+        append(micro / 1000000);
+        buf[size++] = '.';
+        appendFraction(micro % 1000000);
+        return this;
+    }
+
+    private void appendFraction(long f) {
+        for (int i = 5; i >= 0; i--) {
+            buf[size + i] = (byte) ('0' + f % 10);
+            f /= 10;
+        }
+        size += 6;
+    }
+
+    private DavisTextLineFormatter append(String s) {
+        byte[] b = s.getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(b, 0, buf, size, Math.min(b.length, MAX_NUMBER_LENGTH));
+        size += Math.min(b.length, MAX_NUMBER_LENGTH);
+        return this;
+    }
+
+    /**
+     * Writes the buffer to the stream and clears it.
+     *
+     * @param out the stream
+     * @throws IOException
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        if (size > 0) {
+            out.write(buf, 0, size);
+            size = 0;
+        }
+    }
+}
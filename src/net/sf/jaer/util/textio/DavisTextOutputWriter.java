@@ -23,6 +23,7 @@ import java.awt.Desktop;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.PrintWriter;
 import java.io.IOException;
 import java.util.ArrayList;
@@ -61,7 +62,8 @@ public class DavisTextOutputWriter extends AbstractDavisTextIo implements Proper
 //    private boolean apsFrames = getBoolean("apsFrames", false);
     private boolean imuSamples = getBoolean("imuSamples", false);
     private ArrayList<PrintWriter> writers = new ArrayList();
-    private PrintWriter dvsWriter = null, imuWriter = null, apsWriter = null, timecodeWriter = null;
+    private TextFileWriter dvsWriter = null, imuWriter = null;
+    private PrintWriter apsWriter = null, timecodeWriter = null;
     protected static String DEFAULT_FILENAME = "jAER.txt";
     protected String lastFileName = getString("lastFileName", DEFAULT_FILENAME);
     protected File lastFile = null;
@@ -136,16 +138,13 @@ public class DavisTextOutputWriter extends AbstractDavisTextIo implements Proper
                 if (dvsEvents && dvsWriter != null && ae.isDVSEvent()) {
                     writeDvsEvent(ae);
                 } else if (imuSamples && imuWriter != null && ae.isImuSample()) {
-                    IMUSample i = ae.getImuSample();
-                    imuWriter.println(String.format("%d %f %f %f %f %f %f", ae.timestamp,
-                            i.getAccelX(), i.getAccelY(), i.getAccelZ(),
-                            i.getGyroTiltX(), i.getGyroYawY(), i.getGyroRollZ()));
-                    incrementCountAndMaybeCloseOutput(be);
+                    writeImuSample(ae);
                 }
             }
 
         }
         for (PrintWriter p : writers) {
+            p.flush();
             if (p.checkError()) {
                 log.warning("Eror occured writing to file, closing all files");
                 showWarningDialogInSwingThread("Eror occured writing to file, closing all files", "Error writing");
@@ -165,24 +164,77 @@ public class DavisTextOutputWriter extends AbstractDavisTextIo implements Proper
 
     private void writeDvsEvent(PolarityEvent ae) {
         // One event per line (timestamp x y polarity) as in RPG events.txt
-        if (useCSV) {
-            if (useUsTimestamps) {
-                dvsWriter.println(String.format("%d,%d,%d,%d", ae.timestamp, ae.x, ae.y, polValue(ae.polarity)));
-
-            } else {
-                dvsWriter.println(String.format("%f,%d,%d,%d", 1e-6f * ae.timestamp, ae.x, ae.y, polValue(ae.polarity)));
-            }
+        DavisTextLineFormatter line = dvsWriter.line;
+        char sep = useCSV ? ',' : ' ';
+        if (useUsTimestamps) {
+            line.append(ae.timestamp);
         } else {
-            if (useUsTimestamps) {
-                dvsWriter.println(String.format("%d %d %d %d", ae.timestamp, ae.x, ae.y, polValue(ae.polarity)));
-            } else {
-                dvsWriter.println(String.format("%f %d %d %d", 1e-6f * ae.timestamp, ae.x, ae.y, polValue(ae.polarity)));
-            }
+            line.appendUsAsSeconds(ae.timestamp); // exact us, unlike formatting 1e-6f*timestamp
+        }
+        line.append(sep).append(ae.x).append(sep).append(ae.y).append(sep).append(polValue(ae.polarity)).newline();
+        if (line.isFull()) {
+            dvsWriter.writeLines();
         }
         incrementCountAndMaybeCloseOutput(ae);
         lastTimestampWritten = ae.timestamp;
     }
 
+    private void writeImuSample(ApsDvsEvent ae) {
+        // timestamp(us) ax(g) ay(g) az(g) gx(d/s) gy(d/s) gz(d/s)
+        IMUSample i = ae.getImuSample();
+        DavisTextLineFormatter line = imuWriter.line;
+        line.append(ae.timestamp);
+        line.append(' ').appendFixed6(i.getAccelX()).append(' ').appendFixed6(i.getAccelY()).append(' ').appendFixed6(i.getAccelZ());
+        line.append(' ').appendFixed6(i.getGyroTiltX()).append(' ').appendFixed6(i.getGyroYawY()).append(' ').appendFixed6(i.getGyroRollZ());
+        line.newline();
+        if (line.isFull()) {
+            imuWriter.writeLines();
+        }
+        incrementCountAndMaybeCloseOutput(ae);
+    }
+
+    /**
+     * PrintWriter for the comment header that also writes the event lines,
+     * which are formatted into a reusable byte buffer, directly to the file.
+     */
+    private static class TextFileWriter extends PrintWriter {
+
+        final FileOutputStream stream;
+        final DavisTextLineFormatter line = new DavisTextLineFormatter(1 << 16);
+
+        TextFileWriter(FileOutputStream stream) {
+            super(stream);
+            this.stream = stream;
+        }
+
+        /**
+         * Writes out the formatted lines, after any text printed before them.
+         */
+        void writeLines() {
+            if (line.size() == 0) {
+                return;
+            }
+            super.flush();
+            try {
+                line.writeTo(stream);
+            } catch (IOException e) {
+                setError();
+            }
+        }
+
+        @Override
+        public void flush() {
+            writeLines();
+            super.flush();
+        }
+
+        @Override
+        public void close() {
+            writeLines();
+            super.close();
+        }
+    }
+
     /**
      * Opens text output stream and optionally the timecode file, and enable
      * writing to this stream.
@@ -194,7 +246,11 @@ public class DavisTextOutputWriter extends AbstractDavisTextIo implements Proper
      *
      */
     public PrintWriter openWriter(File f) throws IOException {
-        PrintWriter writer = new PrintWriter(f);
+        return openTextFileWriter(f);
+    }
+
+    private TextFileWriter openTextFileWriter(File f) throws IOException {
+        TextFileWriter writer = new TextFileWriter(new FileOutputStream(f));
         lastFile = f;
         setEventsProcessed(0);
         if (additionalComments != null) {
@@ -312,7 +368,7 @@ public class DavisTextOutputWriter extends AbstractDavisTextIo implements Proper
             if (dvsEvents) {
                 String fn = basename + "-events.txt";
                 if (checkFileExists(fn)) {
-                    dvsWriter = openWriter(new File(fn));
+                    dvsWriter = openTextFileWriter(new File(fn));
                     String tsStr = useUsTimestamps ? "timestamp(int32 us)" : "timestamp(float s)";
                     String polStr = useSignedPolarity ? "polarity(off/on=-1/+1)" : "polarity(off/on=0/1)";
                     dvsWriter.println(String.format("# dvs-events: One event per line:  %s x y %s", tsStr, polStr));
@@ -321,7 +377,7 @@ public class DavisTextOutputWriter extends AbstractDavisTextIo implements Proper
             if (imuSamples) {
                 String fn = basename + "-imu.txt";
                 if (checkFileExists(fn)) {
-                    imuWriter = openWriter(new File(fn));
+                    imuWriter = openTextFileWriter(new File(fn));
                     imuWriter.println("# imu-samples: One measurement per line: timestamp(us) ax(g) ay(g) az(g) gx(d/s) gy(d/s) gz(d/s)");
                 }
             }